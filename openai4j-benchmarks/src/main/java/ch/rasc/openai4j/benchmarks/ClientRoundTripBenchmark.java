@@ -0,0 +1,118 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import ch.rasc.openai4j.OpenAIClient;
+import ch.rasc.openai4j.chatcompletions.ChatCompletionCreateRequest;
+import ch.rasc.openai4j.chatcompletions.ChatCompletionResponse;
+import ch.rasc.openai4j.embeddings.EmbeddingCreateResponse;
+
+/**
+ * Sends requests through the full client stack, interceptors, encoder, HTTP client,
+ * decoder and the default capabilities, to an HTTP server in the same process that
+ * answers with canned responses. Measures the overhead of the client, not of the
+ * network.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClientRoundTripBenchmark {
+
+	private final ChatCompletionCreateRequest request = Payloads
+			.chatCompletionRequest();
+
+	private final byte[] chatCompletion = Payloads.chatCompletionResponse();
+
+	private final byte[] embedding = Payloads.embeddingResponse(false);
+
+	private HttpServer server;
+
+	private ExecutorService executor;
+
+	private OpenAIClient client;
+
+	@Setup
+	public void setup() throws IOException {
+		this.server = HttpServer.create(
+				new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+		this.server.createContext("/chat/completions",
+				exchange -> respond(exchange, this.chatCompletion));
+		this.server.createContext("/embeddings",
+				exchange -> respond(exchange, this.embedding));
+		this.executor = Executors.newFixedThreadPool(4);
+		this.server.setExecutor(this.executor);
+		this.server.start();
+
+		String baseUrl = "http://localhost:" + this.server.getAddress().getPort();
+		this.client = OpenAIClient.create(c -> c.apiKey("benchmark").baseUrl(baseUrl));
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.server.stop(0);
+		this.executor.shutdownNow();
+	}
+
+	private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+		try (InputStream in = exchange.getRequestBody()) {
+			in.transferTo(OutputStream.nullOutputStream());
+		}
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	@Benchmark
+	public ChatCompletionResponse chatCompletion() {
+		return this.client.chatCompletions.create(this.request);
+	}
+
+	@Benchmark
+	public EmbeddingCreateResponse embedding() {
+		return this.client.embeddings.create(r -> r.model("text-embedding-3-small")
+				.input("The quick brown fox jumps over the lazy dog"));
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.benchmarks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ch.rasc.openai4j.chatcompletions.ChatCompletionResponse;
+import ch.rasc.openai4j.embeddings.Embedding;
+import ch.rasc.openai4j.embeddings.EmbeddingCreateResponse;
+import feign.jackson.JacksonDecoder;
+
+/**
+ * Decodes chat completion and embedding responses with the decoder the client uses.
+ * The embeddings are decoded from JSON arrays and from base64, the base64 variant
+ * that also converts the vectors to floats shows the cost a caller pays on top.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DecodingBenchmark {
+
+	private final JacksonDecoder decoder = new JacksonDecoder();
+
+	private final byte[] chatCompletion = Payloads.chatCompletionResponse();
+
+	private final byte[] embeddingFloat = Payloads.embeddingResponse(false);
+
+	private final byte[] embeddingBase64 = Payloads.embeddingResponse(true);
+
+	@Benchmark
+	public Object chatCompletionResponse() throws IOException {
+		return this.decoder.decode(Payloads.response(200, this.chatCompletion),
+				ChatCompletionResponse.class);
+	}
+
+	@Benchmark
+	public Object embeddingResponseFloat() throws IOException {
+		return this.decoder.decode(Payloads.response(200, this.embeddingFloat),
+				EmbeddingCreateResponse.class);
+	}
+
+	@Benchmark
+	public Object embeddingResponseBase64() throws IOException {
+		return this.decoder.decode(Payloads.response(200, this.embeddingBase64),
+				EmbeddingCreateResponse.class);
+	}
+
+	@Benchmark
+	public void embeddingResponseBase64ToFloats(Blackhole blackhole)
+			throws IOException {
+		EmbeddingCreateResponse response = (EmbeddingCreateResponse) this.decoder.decode(
+				Payloads.response(200, this.embeddingBase64),
+				EmbeddingCreateResponse.class);
+		for (Embedding embedding : response.data()) {
+			ByteBuffer buffer = ByteBuffer
+					.wrap(Base64.getDecoder().decode(embedding.embedding().base64()))
+					.order(ByteOrder.LITTLE_ENDIAN);
+			float[] vector = new float[buffer.remaining() / 4];
+			buffer.asFloatBuffer().get(vector);
+			blackhole.consume(vector);
+		}
+	}
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyDescription;
+
+import ch.rasc.openai4j.common.JsonSchemaService;
+
+/**
+ * Generates the JSON schema of a nested record, as done for every structured output
+ * and function calling request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSchemaBenchmark {
+
+	public enum Unit {
+		CELSIUS, FAHRENHEIT
+	}
+
+	public record Location(@JsonProperty(required = true) String city,
+			@JsonPropertyDescription("ISO 3166-1 alpha-2 code") String country,
+			double latitude, double longitude) {
+	}
+
+	public record Forecast(@JsonProperty(required = true) Location location,
+			@JsonProperty(required = true) Unit unit, List<Double> temperatures,
+			@JsonPropertyDescription("Short summary of the weather") String summary) {
+	}
+
+	private final JsonSchemaService jsonSchemaService = new JsonSchemaService();
+
+	@Benchmark
+	public Object strictSchema() {
+		return this.jsonSchemaService.generateStrictSchema(Forecast.class);
+	}
+
+	@Benchmark
+	public Object strictResponseFormat() {
+		return this.jsonSchemaService.createStrictResponseFormat(Forecast.class);
+	}
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import ch.rasc.openai4j.chatcompletions.ChatCompletionCreateRequest;
+import ch.rasc.openai4j.chatcompletions.ChatCompletionTool;
+import ch.rasc.openai4j.chatcompletions.SystemMessage;
+import ch.rasc.openai4j.chatcompletions.UserMessage;
+import ch.rasc.openai4j.common.FunctionParameters;
+import feign.Request;
+import feign.Request.HttpMethod;
+import feign.Response;
+
+/**
+ * Requests and response bodies shared by the benchmarks. The payloads are generated
+ * with a fixed seed, every run measures the same bytes.
+ */
+final class Payloads {
+
+	static final int EMBEDDING_DIMENSIONS = 1536;
+
+	static final int EMBEDDING_COUNT = 16;
+
+	private static final String PARAGRAPH = "The quick brown fox jumps over the lazy dog. "
+			+ "Pack my box with five dozen liquor jugs. "
+			+ "How vexingly quick daft zebras jump! ";
+
+	private Payloads() {
+	}
+
+	static ChatCompletionCreateRequest chatCompletionRequest() {
+		return ChatCompletionCreateRequest.builder().model("gpt-4o")
+				.addMessages(SystemMessage.of("You are a helpful assistant."),
+						UserMessage.of(PARAGRAPH.repeat(20)))
+				.addTools(ChatCompletionTool.of(FunctionParameters.of("get_weather",
+						Map.of("type", "object", "properties",
+								Map.of("location", Map.of("type", "string")), "required",
+								List.of("location")))))
+				.temperature(0.2).maxTokens(512).user("benchmark").build();
+	}
+
+	static byte[] chatCompletionResponse() {
+		String content = PARAGRAPH.repeat(20).trim();
+		return ("""
+				{
+				  "id": "chatcmpl-123",
+				  "object": "chat.completion",
+				  "created": 1721596428,
+				  "model": "gpt-4o-2024-05-13",
+				  "system_fingerprint": "fp_400f27fa1f",
+				  "choices": [
+				    {
+				      "index": 0,
+				      "message": {
+				        "role": "assistant",
+				        "content": "%s"
+				      },
+				      "logprobs": null,
+				      "finish_reason": "stop"
+				    }
+				  ],
+				  "usage": {
+				    "prompt_tokens": 612,
+				    "completion_tokens": 240,
+				    "total_tokens": 852
+				  }
+				}
+				""".formatted(content)).getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * An embeddings response with {@link #EMBEDDING_COUNT} vectors of
+	 * {@link #EMBEDDING_DIMENSIONS} dimensions.
+	 *
+	 * @param base64 true for vectors encoded as base64 little-endian floats, false for
+	 * JSON arrays
+	 */
+	static byte[] embeddingResponse(boolean base64) {
+		Random random = new Random(42);
+		StringBuilder sb = new StringBuilder("{\"object\":\"list\",\"data\":[");
+		for (int i = 0; i < EMBEDDING_COUNT; i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			sb.append("{\"object\":\"embedding\",\"index\":").append(i)
+					.append(",\"embedding\":");
+			if (base64) {
+				ByteBuffer buffer = ByteBuffer.allocate(EMBEDDING_DIMENSIONS * 4)
+						.order(ByteOrder.LITTLE_ENDIAN);
+				for (int d = 0; d < EMBEDDING_DIMENSIONS; d++) {
+					buffer.putFloat((float) random.nextGaussian() / 40);
+				}
+				sb.append('"').append(Base64.getEncoder().encodeToString(buffer.array()))
+						.append('"');
+			}
+			else {
+				sb.append('[');
+				for (int d = 0; d < EMBEDDING_DIMENSIONS; d++) {
+					if (d > 0) {
+						sb.append(',');
+					}
+					sb.append((float) random.nextGaussian() / 40);
+				}
+				sb.append(']');
+			}
+			sb.append('}');
+		}
+		sb.append("],\"model\":\"text-embedding-3-small\",")
+				.append("\"usage\":{\"prompt_tokens\":128,\"total_tokens\":128}}");
+		return sb.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	static byte[] errorResponse() {
+		return """
+				{
+				  "error": {
+				    "message": "Rate limit reached for gpt-4o in organization org-123 on tokens per min (TPM): Limit 30000, Used 29876, Requested 612. Please try again in 976ms.",
+				    "type": "tokens",
+				    "param": null,
+				    "code": "rate_limit_exceeded"
+				  }
+				}
+				""".getBytes(StandardCharsets.UTF_8);
+	}
+
+	static Response response(int status, byte[] body) {
+		Request request = Request.create(HttpMethod.POST,
+				"https://api.openai.com/v1/chat/completions",
+				Map.of("Content-Type", List.of("application/json")), null,
+				StandardCharsets.UTF_8, null);
+		return Response.builder().status(status).reason(status == 200 ? "OK" : "Error")
+				.request(request)
+				.headers(Map.of("Content-Type", List.of("application/json")))
+				.body(body).build();
+	}
+
+}
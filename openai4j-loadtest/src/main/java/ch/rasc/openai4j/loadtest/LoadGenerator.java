@@ -0,0 +1,182 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.loadtest;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.Recorder;
+
+/**
+ * Executes a workload in a closed or open loop and records the latency of every call
+ * in microseconds.
+ * <p>
+ * In the closed loop each worker starts the next call when the previous one returned,
+ * the throughput adapts to the latency. In the open loop calls are started at a fixed
+ * rate regardless of the latency. Calls that wait for a free client thread are
+ * measured from the time they should have started, so queueing shows up in the
+ * latency instead of being hidden by a slower request rate.
+ */
+final class LoadGenerator {
+
+	private final LoadTestOptions options;
+
+	private final Workload workload;
+
+	private final ThreadAllocations allocations;
+
+	private final Recorder recorder = new Recorder(3);
+
+	private final LongAdder errors = new LongAdder();
+
+	private final Map<String, LongAdder> errorsByType = new ConcurrentHashMap<>();
+
+	private final AtomicInteger maxQueued = new AtomicInteger();
+
+	LoadGenerator(LoadTestOptions options, Workload workload,
+			ThreadAllocations allocations) {
+		this.options = options;
+		this.workload = workload;
+		this.allocations = allocations;
+	}
+
+	Recorder recorder() {
+		return this.recorder;
+	}
+
+	long errors() {
+		return this.errors.sum();
+	}
+
+	Map<String, LongAdder> errorsByType() {
+		return this.errorsByType;
+	}
+
+	/**
+	 * The maximum number of open loop calls that waited for a client thread.
+	 */
+	int maxQueued() {
+		return this.maxQueued.get();
+	}
+
+	/**
+	 * Clears the recorded calls and errors, used after the warmup.
+	 */
+	void reset() {
+		this.recorder.getIntervalHistogram();
+		this.errors.reset();
+		this.errorsByType.clear();
+		this.maxQueued.set(0);
+	}
+
+	/**
+	 * Executes the workload for the duration and waits for the calls in flight.
+	 */
+	void run(long durationNanos) throws InterruptedException {
+		if (this.options.openLoop) {
+			runOpenLoop(durationNanos);
+		}
+		else {
+			runClosedLoop(durationNanos);
+		}
+	}
+
+	private void runClosedLoop(long durationNanos) throws InterruptedException {
+		long end = System.nanoTime() + durationNanos;
+		Thread[] workers = new Thread[this.options.concurrency];
+		for (int i = 0; i < workers.length; i++) {
+			workers[i] = newThread(() -> {
+				while (System.nanoTime() < end) {
+					call(System.nanoTime());
+				}
+			}, i + 1);
+			workers[i].start();
+		}
+		for (Thread worker : workers) {
+			worker.join();
+		}
+	}
+
+	private void runOpenLoop(long durationNanos) throws InterruptedException {
+		AtomicInteger threadNumber = new AtomicInteger();
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(this.options.concurrency,
+				this.options.concurrency, 0, TimeUnit.MILLISECONDS,
+				new LinkedBlockingQueue<>(),
+				r -> newThread(r, threadNumber.incrementAndGet()));
+		try {
+			long period = (long) (1_000_000_000 / this.options.rate);
+			long start = System.nanoTime();
+			for (long i = 0;; i++) {
+				long intendedStart = start + i * period;
+				if (intendedStart - start >= durationNanos) {
+					break;
+				}
+				long wait;
+				while ((wait = intendedStart - System.nanoTime()) > 0) {
+					LockSupport.parkNanos(wait);
+				}
+				executor.execute(() -> call(intendedStart));
+				this.maxQueued.accumulateAndGet(executor.getQueue().size(), Math::max);
+			}
+		}
+		finally {
+			executor.shutdown();
+			executor.awaitTermination(5, TimeUnit.MINUTES);
+		}
+	}
+
+	private Thread newThread(Runnable runnable, int number) {
+		Thread thread = new Thread(() -> {
+			try {
+				runnable.run();
+			}
+			finally {
+				this.allocations.threadEnded();
+			}
+		}, "loadtest-worker-" + number);
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	private void call(long start) {
+		try {
+			this.workload.execute();
+		}
+		catch (Exception e) {
+			this.errors.increment();
+			this.errorsByType.computeIfAbsent(errorType(e), k -> new LongAdder())
+					.increment();
+		}
+		finally {
+			this.recorder.recordValue((System.nanoTime() - start) / 1000);
+		}
+	}
+
+	private static String errorType(Exception e) {
+		String type = e.getClass().getSimpleName();
+		if (e instanceof feign.FeignException fe && fe.status() > 0) {
+			return type + " " + fe.status();
+		}
+		return type;
+	}
+
+}
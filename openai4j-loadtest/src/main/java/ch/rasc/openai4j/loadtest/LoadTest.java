@@ -0,0 +1,152 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.loadtest;
+
+import java.util.List;
+
+import ch.rasc.openai4j.OpenAIClient;
+import ch.rasc.openai4j.testsupport.FakeOpenAIServer;
+import ch.rasc.openai4j.testsupport.LatencyDistribution;
+import ch.rasc.openai4j.transport.ChaosClient;
+import ch.rasc.openai4j.transport.RecordingClient;
+import ch.rasc.openai4j.transport.ReplayClient;
+import ch.rasc.openai4j.transport.ShardedHttp2Client;
+import feign.Client;
+import feign.http2client.Http2Client;
+
+/**
+ * Command line load generator for {@link OpenAIClient}. Runs a chat, streaming,
+ * embeddings or file upload workload in a closed or open loop and reports throughput,
+ * latency percentiles, allocation rate and thread counts. Without a base URL the
+ * workload runs against an in-process {@link FakeOpenAIServer}. The exchanges can be
+ * recorded and later replayed without a server, to compare client versions with the
+ * same traffic.
+ */
+public final class LoadTest {
+
+	private LoadTest() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (List.of(args).contains("--help") || List.of(args).contains("-h")) {
+			System.out.print(LoadTestOptions.USAGE);
+			return;
+		}
+
+		LoadTestOptions options;
+		try {
+			options = LoadTestOptions.parse(args);
+		}
+		catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println();
+			System.err.print(LoadTestOptions.USAGE);
+			System.exit(2);
+			return;
+		}
+
+		FakeOpenAIServer server = null;
+		String baseUrl = options.baseUrl;
+		String apiKey = options.apiKey;
+		if (options.replay != null) {
+			baseUrl = "http://replay/v1";
+			apiKey = "replay";
+		}
+		else if (baseUrl == null) {
+			server = FakeOpenAIServer.builder()
+					.latency(LatencyDistribution.logNormal(options.latency,
+							options.latencySigma))
+					.tokensPerSecond(options.tokensPerSecond)
+					.completionTokens(options.completionTokens)
+					.serverErrorRate(options.errorRate)
+					.requestsPerMinute(options.requestsPerMinute)
+					.tokensPerMinute(options.tokensPerMinute)
+					.threads(Math.max(options.concurrency * 2, 32)).start();
+			baseUrl = server.baseUrl();
+			apiKey = "test";
+		}
+
+		ShardedHttp2Client pool = options.connections > 0
+				? ShardedHttp2Client.builder().maxConnections(options.connections)
+						.maxStreamsPerConnection(options.streamsPerConnection).build()
+				: null;
+		Client base = pool != null ? pool : new Http2Client();
+		RecordingClient recorder = options.record != null
+				? new RecordingClient(base, options.record)
+				: null;
+		try {
+			Client transport = recorder != null ? recorder : base;
+			if (options.replay != null) {
+				ReplayClient replay = ReplayClient.of(options.replay,
+						options.replaySpeed);
+				System.out.printf("replaying %d exchanges from %s%n", replay.size(),
+						options.replay);
+				transport = replay;
+			}
+			ChaosClient chaos = null;
+			if (options.chaos != null) {
+				chaos = ChaosClient.builder(transport).seed(options.chaosSeed)
+						.profile(options.chaos).build();
+				transport = chaos;
+			}
+			run(options, baseUrl, apiKey, transport, server, chaos, pool);
+		}
+		finally {
+			if (recorder != null) {
+				recorder.close();
+			}
+			if (server != null) {
+				server.close();
+			}
+		}
+	}
+
+	private static void run(LoadTestOptions options, String baseUrl, String apiKey,
+			Client transport, FakeOpenAIServer server, ChaosClient chaos,
+			ShardedHttp2Client pool) throws InterruptedException {
+		String target = baseUrl;
+		OpenAIClient client = OpenAIClient
+				.create(c -> c.apiKey(apiKey).baseUrl(target).client(transport));
+		ThreadAllocations allocations = new ThreadAllocations();
+		LoadGenerator generator = new LoadGenerator(options,
+				Workload.create(options, client), allocations);
+
+		System.out.printf("%s workload, %s, %.1fs against %s%n", options.workload,
+				options.openLoop ? "open loop at " + options.rate + "/s with "
+						+ options.concurrency + " threads"
+						: "closed loop with " + options.concurrency + " workers",
+				options.duration.toMillis() / 1000.0, target(options, baseUrl, server));
+
+		if (!options.warmup.isZero()) {
+			System.out.printf("warmup %.1fs%n", options.warmup.toMillis() / 1000.0);
+			generator.run(options.warmup.toNanos());
+		}
+
+		Reporter reporter = new Reporter(generator, allocations, System.out);
+		reporter.start(options.interval.toNanos());
+		generator.run(options.duration.toNanos());
+		reporter.stop(server, chaos, pool);
+	}
+
+	private static String target(LoadTestOptions options, String baseUrl,
+			FakeOpenAIServer server) {
+		if (options.replay != null) {
+			return "the exchanges in " + options.replay;
+		}
+		return server != null ? "the stand-in server" : baseUrl;
+	}
+
+}
@@ -0,0 +1,325 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ch.rasc.openai4j.transport.FaultProfile;
+
+/**
+ * The command line options of {@link LoadTest}.
+ */
+final class LoadTestOptions {
+
+	static final String USAGE = """
+			Usage: java -jar loadtest.jar [options]
+
+			Workload
+			  --workload chat|stream|embeddings|upload   default chat
+			  --mode closed|open          closed: concurrency workers call back to back
+			                              open: calls start at --rate per second
+			                              default closed
+			  --concurrency N             workers (closed) or client threads (open),
+			                              default 64
+			  --rate N                    calls per second of the open mode, default 100
+			  --duration D                measured time, default 30s
+			  --warmup D                  unmeasured time before, default 5s
+			  --interval D                time between interval reports, default 5s
+			  --model NAME                default gpt-4o-mini
+			  --assistant-id ID           assistant of the stream workload,
+			                              default asst_loadtest
+			  --upload-bytes N            file size of the upload workload, default 1048576
+
+			Target, the in-process stand-in server is used without --base-url
+			  --base-url URL              OpenAI compatible API to call
+			  --api-key KEY               default the OPENAI_API_KEY environment variable
+			  --record FILE               append the exchanges to a log file, .gz to
+			                              compress
+			  --replay FILE               answer the calls from a recorded log file
+			                              instead of a server
+			  --replay-speed X            factor of the recorded delays, 0 for none,
+			                              default 1
+			  --connections N             spread the calls over a pool of up to N
+			                              HTTP/2 connections, default one client
+			  --streams-per-connection N  calls in flight per pooled connection,
+			                              default 100
+
+			Fault injection, a comma separated list of faults with probability P
+			  --chaos SPEC                reset=P             connection resets
+			                              spike=P:D           latency spikes
+			                              truncate=P          truncated bodies
+			                              burst=P:N:D         bursts of N 429 responses
+			                                                  with retry-after D
+			                              slow=P:N            bodies at N bytes/s
+			                              5xx=P:STATUS        server errors
+			                              e.g. reset=0.01,burst=0.02:5:1s
+			  --chaos-seed N              seed of the fault injection, default 42
+
+			Stand-in server
+			  --latency D                 median latency before the headers, default 200ms
+			  --latency-sigma X           log-normal sigma of the latency, default 0.5
+			  --tokens-per-second N       completion token rate, default 100
+			  --completion-tokens N       tokens per completion, default 32
+			  --error-rate X              fraction of 5xx responses, default 0
+			  --requests-per-minute N     request limit, default none
+			  --tokens-per-minute N       token limit, default none
+
+			Durations are written like 500ms, 30s or 2m.
+			""";
+
+	private static final List<String> WORKLOADS = List.of("chat", "stream", "embeddings",
+			"upload");
+
+	String workload = "chat";
+	boolean openLoop;
+	int concurrency = 64;
+	double rate = 100;
+	Duration duration = Duration.ofSeconds(30);
+	Duration warmup = Duration.ofSeconds(5);
+	Duration interval = Duration.ofSeconds(5);
+	String model = "gpt-4o-mini";
+	String assistantId = "asst_loadtest";
+	int uploadBytes = 1024 * 1024;
+
+	String baseUrl;
+	String apiKey = System.getenv("OPENAI_API_KEY");
+	Path record;
+	Path replay;
+	double replaySpeed = 1;
+	int connections;
+	int streamsPerConnection = 100;
+	FaultProfile chaos;
+	long chaosSeed = 42;
+
+	Duration latency = Duration.ofMillis(200);
+	double latencySigma = 0.5;
+	double tokensPerSecond = 100;
+	int completionTokens = 32;
+	double errorRate;
+	long requestsPerMinute;
+	long tokensPerMinute;
+
+	private LoadTestOptions() {
+	}
+
+	/**
+	 * Parses options written as --name value or --name=value.
+	 *
+	 * @throws IllegalArgumentException If an option is unknown or its value is invalid
+	 */
+	static LoadTestOptions parse(String[] args) {
+		Map<String, String> values = new HashMap<>();
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			if (!arg.startsWith("--")) {
+				throw new IllegalArgumentException("Unexpected argument " + arg);
+			}
+			int eq = arg.indexOf('=');
+			if (eq != -1) {
+				values.put(arg.substring(2, eq), arg.substring(eq + 1));
+			}
+			else if (i + 1 < args.length) {
+				values.put(arg.substring(2), args[++i]);
+			}
+			else {
+				throw new IllegalArgumentException("Missing value of " + arg);
+			}
+		}
+
+		LoadTestOptions options = new LoadTestOptions();
+		for (Map.Entry<String, String> entry : values.entrySet()) {
+			options.set(entry.getKey(), entry.getValue());
+		}
+		if (!WORKLOADS.contains(options.workload)) {
+			throw new IllegalArgumentException("Unknown workload " + options.workload);
+		}
+		if (options.concurrency < 1 || options.rate <= 0) {
+			throw new IllegalArgumentException(
+					"concurrency and rate must be greater than 0");
+		}
+		if (options.replay != null
+				&& (options.record != null || options.baseUrl != null)) {
+			throw new IllegalArgumentException(
+					"--replay can not be combined with --record or --base-url");
+		}
+		if (options.connections < 0 || options.streamsPerConnection < 1) {
+			throw new IllegalArgumentException(
+					"connections and streams-per-connection must be positive");
+		}
+		if (options.replaySpeed < 0) {
+			throw new IllegalArgumentException("replay-speed must not be negative");
+		}
+		if (options.baseUrl != null && options.apiKey == null) {
+			throw new IllegalArgumentException(
+					"--api-key or OPENAI_API_KEY is required with --base-url");
+		}
+		return options;
+	}
+
+	private void set(String name, String value) {
+		try {
+			if (name.equals("workload")) {
+				this.workload = value;
+			}
+			else if (name.equals("mode")) {
+				if (!value.equals("open") && !value.equals("closed")) {
+					throw new IllegalArgumentException("Unknown mode " + value);
+				}
+				this.openLoop = value.equals("open");
+			}
+			else if (name.equals("concurrency")) {
+				this.concurrency = Integer.parseInt(value);
+			}
+			else if (name.equals("rate")) {
+				this.rate = Double.parseDouble(value);
+			}
+			else if (name.equals("duration")) {
+				this.duration = duration(value);
+			}
+			else if (name.equals("warmup")) {
+				this.warmup = duration(value);
+			}
+			else if (name.equals("interval")) {
+				this.interval = duration(value);
+			}
+			else if (name.equals("model")) {
+				this.model = value;
+			}
+			else if (name.equals("assistant-id")) {
+				this.assistantId = value;
+			}
+			else if (name.equals("upload-bytes")) {
+				this.uploadBytes = Integer.parseInt(value);
+			}
+			else if (name.equals("base-url")) {
+				this.baseUrl = value;
+			}
+			else if (name.equals("api-key")) {
+				this.apiKey = value;
+			}
+			else if (name.equals("record")) {
+				this.record = Path.of(value);
+			}
+			else if (name.equals("replay")) {
+				this.replay = Path.of(value);
+			}
+			else if (name.equals("replay-speed")) {
+				this.replaySpeed = Double.parseDouble(value);
+			}
+			else if (name.equals("connections")) {
+				this.connections = Integer.parseInt(value);
+			}
+			else if (name.equals("streams-per-connection")) {
+				this.streamsPerConnection = Integer.parseInt(value);
+			}
+			else if (name.equals("chaos")) {
+				this.chaos = faultProfile(value);
+			}
+			else if (name.equals("chaos-seed")) {
+				this.chaosSeed = Long.parseLong(value);
+			}
+			else if (name.equals("latency")) {
+				this.latency = duration(value);
+			}
+			else if (name.equals("latency-sigma")) {
+				this.latencySigma = Double.parseDouble(value);
+			}
+			else if (name.equals("tokens-per-second")) {
+				this.tokensPerSecond = Double.parseDouble(value);
+			}
+			else if (name.equals("completion-tokens")) {
+				this.completionTokens = Integer.parseInt(value);
+			}
+			else if (name.equals("error-rate")) {
+				this.errorRate = Double.parseDouble(value);
+			}
+			else if (name.equals("requests-per-minute")) {
+				this.requestsPerMinute = Long.parseLong(value);
+			}
+			else if (name.equals("tokens-per-minute")) {
+				this.tokensPerMinute = Long.parseLong(value);
+			}
+			else {
+				throw new IllegalArgumentException("Unknown option --" + name);
+			}
+		}
+		catch (NumberFormatException e) {
+			throw new IllegalArgumentException(
+					"Invalid value of --" + name + ": " + value);
+		}
+	}
+
+	/**
+	 * Parses the --chaos option, for example reset=0.01,spike=0.05:2s.
+	 */
+	static FaultProfile faultProfile(String spec) {
+		FaultProfile.Builder builder = FaultProfile.builder();
+		for (String fault : spec.split(",")) {
+			int eq = fault.indexOf('=');
+			if (eq == -1) {
+				throw new IllegalArgumentException("Invalid fault " + fault);
+			}
+			String name = fault.substring(0, eq).trim();
+			String[] args = fault.substring(eq + 1).trim().split(":");
+			double probability = Double.parseDouble(args[0]);
+			if (name.equals("reset") && args.length == 1) {
+				builder.connectionReset(probability);
+			}
+			else if (name.equals("spike") && args.length == 2) {
+				builder.latencySpike(probability, duration(args[1]));
+			}
+			else if (name.equals("truncate") && args.length == 1) {
+				builder.truncatedBody(probability);
+			}
+			else if (name.equals("burst") && args.length == 3) {
+				builder.rateLimitBurst(probability, Integer.parseInt(args[1]),
+						duration(args[2]));
+			}
+			else if (name.equals("slow") && args.length == 2) {
+				builder.slowBody(probability, Integer.parseInt(args[1]));
+			}
+			else if (name.equals("5xx") && args.length == 2) {
+				builder.serverError(probability, Integer.parseInt(args[1]));
+			}
+			else {
+				throw new IllegalArgumentException("Invalid fault " + fault);
+			}
+		}
+		return builder.build();
+	}
+
+	static Duration duration(String value) {
+		if (value.endsWith("ms")) {
+			return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+		}
+		long amount = Long.parseLong(value.substring(0, value.length() - 1));
+		if (value.endsWith("s")) {
+			return Duration.ofSeconds(amount);
+		}
+		if (value.endsWith("m")) {
+			return Duration.ofMinutes(amount);
+		}
+		if (value.endsWith("h")) {
+			return Duration.ofHours(amount);
+		}
+		throw new NumberFormatException(value);
+	}
+
+}
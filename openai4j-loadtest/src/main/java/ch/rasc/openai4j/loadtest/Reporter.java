@@ -0,0 +1,212 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.loadtest;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+
+import ch.rasc.openai4j.testsupport.FakeOpenAIServer;
+import ch.rasc.openai4j.transport.ChaosClient;
+import ch.rasc.openai4j.transport.PoolStats;
+import ch.rasc.openai4j.transport.ShardedHttp2Client;
+
+/**
+ * Prints the throughput, latency percentiles, allocation rate and thread count of
+ * every interval and a summary of the whole run.
+ */
+final class Reporter {
+
+	private static final double[] PERCENTILES = { 50, 90, 99, 99.9, 99.99 };
+
+	private final LoadGenerator generator;
+
+	private final PrintStream out;
+
+	private final ThreadAllocations allocations;
+
+	private final Histogram total = new Histogram(3);
+
+	private ScheduledExecutorService scheduler;
+
+	private long start;
+
+	private long intervalStart;
+
+	private long intervalErrors;
+
+	private long allocatedBytes;
+
+	private int peakThreads;
+
+	Reporter(LoadGenerator generator, ThreadAllocations allocations, PrintStream out) {
+		this.generator = generator;
+		this.allocations = allocations;
+		this.out = out;
+	}
+
+	/**
+	 * Resets the generator and starts printing a line every interval.
+	 */
+	synchronized void start(long intervalNanos) {
+		this.generator.reset();
+		ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+		this.start = this.intervalStart = System.nanoTime();
+		this.allocations.sample();
+		this.out.printf("%8s %10s %10s %10s %10s %8s %10s %8s%n", "time", "ops/s",
+				"p50 ms", "p99 ms", "max ms", "errors", "alloc MB/s", "threads");
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "loadtest-reporter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.scheduler.scheduleAtFixedRate(this::interval, intervalNanos, intervalNanos,
+				TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Stops the interval lines and prints the summary.
+	 */
+	void stop(FakeOpenAIServer server, ChaosClient chaos, ShardedHttp2Client pool)
+			throws InterruptedException {
+		this.scheduler.shutdown();
+		this.scheduler.awaitTermination(1, TimeUnit.MINUTES);
+		interval();
+		summary(server, chaos, pool);
+	}
+
+	private synchronized void interval() {
+		long now = System.nanoTime();
+		Histogram histogram = this.generator.recorder().getIntervalHistogram();
+		this.total.add(histogram);
+
+		long errors = this.generator.errors();
+		long allocated = this.allocations.sample();
+		this.allocatedBytes += allocated;
+		int threadCount = threadCount();
+
+		double seconds = (now - this.intervalStart) / 1e9;
+		this.out.printf("%7.1fs %10.1f %10.2f %10.2f %10.2f %8d %10.1f %8d%n",
+				(now - this.start) / 1e9, histogram.getTotalCount() / seconds,
+				millis(histogram.getValueAtPercentile(50)),
+				millis(histogram.getValueAtPercentile(99)),
+				millis(histogram.getMaxValue()), errors - this.intervalErrors,
+				allocated / seconds / (1024 * 1024), threadCount);
+
+		this.intervalStart = now;
+		this.intervalErrors = errors;
+	}
+
+	private synchronized void summary(FakeOpenAIServer server, ChaosClient chaos,
+			ShardedHttp2Client pool) {
+		double seconds = (this.intervalStart - this.start) / 1e9;
+		long calls = this.total.getTotalCount();
+		long errors = this.generator.errors();
+
+		this.out.println();
+		this.out.printf("calls        %d in %.1fs, %.1f/s%n", calls, seconds,
+				calls / seconds);
+		this.out.printf("errors       %d (%.2f%%)%n", errors,
+				calls > 0 ? errors * 100.0 / calls : 0);
+		new TreeMap<>(this.generator.errorsByType()).forEach(
+				(type, count) -> this.out.printf("  %-28s %d%n", type, count.sum()));
+
+		this.out.println("latency ms");
+		for (double percentile : PERCENTILES) {
+			this.out.printf("  p%-10s %10.2f%n", format(percentile),
+					millis(this.total.getValueAtPercentile(percentile)));
+		}
+		this.out.printf("  %-11s %10.2f%n", "max", millis(this.total.getMaxValue()));
+		this.out.printf("  %-11s %10.2f%n", "mean", this.total.getMean() / 1000);
+		if (this.generator.maxQueued() > 0) {
+			this.out.printf("max queued   %d calls waited for a client thread%n",
+					this.generator.maxQueued());
+		}
+
+		if (this.allocations.supported()) {
+			this.out.printf("allocated    %.1f MB, %.1f MB/s, %.1f KB/call%n",
+					this.allocatedBytes / (1024.0 * 1024), this.allocatedBytes / seconds
+							/ (1024 * 1024),
+					calls > 0 ? this.allocatedBytes / 1024.0 / calls : 0);
+		}
+		this.out.printf("threads      %d, peak %d%n", threadCount(), this.peakThreads);
+		threadGroups().forEach(
+				(name, count) -> this.out.printf("  %-28s %d%n", name, count));
+
+		if (server != null) {
+			this.out.printf(
+					"server       %d requests, %d connections, %d rate limited, %d server errors%n",
+					server.requests(), server.connections(), server.rateLimited(),
+					server.serverErrors());
+		}
+		if (pool != null) {
+			PoolStats stats = pool.stats();
+			this.out.printf("pool         %d connections, %d created, %d evicted, "
+					+ "max %d in flight, %d waits%s%n",
+					stats.connections(), stats.connectionsCreated(),
+					stats.connectionsEvicted(), stats.maxInFlight(), stats.waits(),
+					stats.http1() ? ", HTTP/1.1" : "");
+		}
+		if (chaos != null) {
+			this.out.println("injected faults");
+			for (ChaosClient.Fault fault : ChaosClient.Fault.values()) {
+				this.out.printf("  %-28s %d%n", fault.name().toLowerCase(),
+						chaos.injected(fault));
+			}
+		}
+	}
+
+	private int threadCount() {
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		this.peakThreads = Math.max(this.peakThreads, threadBean.getPeakThreadCount());
+		return threadBean.getThreadCount();
+	}
+
+	/**
+	 * Counts the live threads by name, numbers after a dash are replaced so that the
+	 * threads of a pool are counted together.
+	 */
+	private static Map<String, Integer> threadGroups() {
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		Map<String, Integer> groups = new TreeMap<>();
+		for (ThreadInfo info : threadBean
+				.getThreadInfo(threadBean.getAllThreadIds())) {
+			if (info != null) {
+				groups.merge(info.getThreadName().replaceAll("-\\d+", "-N"), 1,
+						Integer::sum);
+			}
+		}
+		return groups;
+	}
+
+	private static double millis(long micros) {
+		return micros / 1000.0;
+	}
+
+	private static String format(double percentile) {
+		return percentile == Math.rint(percentile) ? String.valueOf((long) percentile)
+				: String.valueOf(percentile);
+	}
+
+}
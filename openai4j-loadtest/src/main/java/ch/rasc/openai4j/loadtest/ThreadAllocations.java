@@ -0,0 +1,96 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.loadtest;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Samples the bytes allocated by the threads of the JVM.
+ * <p>
+ * The allocations of a thread can only be read while it is alive, so the load
+ * generator threads report their final count with {@link #threadEnded()} just before
+ * they end. Allocations of other threads that end between two samples are not
+ * counted after the earlier sample.
+ */
+final class ThreadAllocations {
+
+	private final com.sun.management.ThreadMXBean threads;
+
+	private final Map<Long, Long> ended = new ConcurrentHashMap<>();
+
+	private final Set<Long> endedIds = ConcurrentHashMap.newKeySet();
+
+	private final Map<Long, Long> sampled = new HashMap<>();
+
+	ThreadAllocations() {
+		if (ManagementFactory
+				.getThreadMXBean() instanceof com.sun.management.ThreadMXBean tb
+				&& tb.isThreadAllocatedMemorySupported()) {
+			tb.setThreadAllocatedMemoryEnabled(true);
+			this.threads = tb;
+		}
+		else {
+			this.threads = null;
+		}
+	}
+
+	boolean supported() {
+		return this.threads != null;
+	}
+
+	/**
+	 * Records the allocations of the current thread, called by a thread right before
+	 * it ends.
+	 */
+	void threadEnded() {
+		if (this.threads != null) {
+			long id = Thread.currentThread().getId();
+			this.endedIds.add(id);
+			this.ended.put(id, this.threads.getThreadAllocatedBytes(id));
+		}
+	}
+
+	/**
+	 * Returns the bytes allocated since the previous sample.
+	 */
+	synchronized long sample() {
+		if (this.threads == null) {
+			return 0;
+		}
+		long sum = 0;
+		for (Long id : this.ended.keySet()) {
+			Long allocated = this.ended.remove(id);
+			Long previous = this.sampled.remove(id);
+			sum += allocated - (previous != null ? previous : 0);
+		}
+
+		long[] ids = this.threads.getAllThreadIds();
+		long[] allocated = this.threads.getThreadAllocatedBytes(ids);
+		for (int i = 0; i < ids.length; i++) {
+			if (allocated[i] < 0 || this.endedIds.contains(ids[i])) {
+				continue;
+			}
+			Long previous = this.sampled.put(ids[i], allocated[i]);
+			sum += allocated[i] - (previous != null ? previous : 0);
+		}
+		return sum;
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.loadtest;
+
+import java.util.List;
+import java.util.Random;
+
+import ch.rasc.openai4j.OpenAIClient;
+import ch.rasc.openai4j.chatcompletions.ChatCompletionCreateRequest;
+import ch.rasc.openai4j.chatcompletions.SystemMessage;
+import ch.rasc.openai4j.chatcompletions.UserMessage;
+import ch.rasc.openai4j.common.FilePart;
+import ch.rasc.openai4j.embeddings.EmbeddingCreateRequest;
+import ch.rasc.openai4j.files.FileObject;
+import ch.rasc.openai4j.files.Purpose;
+import ch.rasc.openai4j.threads.ThreadCreateRunCreateRequest;
+import ch.rasc.openai4j.threads.ThreadMessageRequest;
+import ch.rasc.openai4j.threads.streaming.AssistantStream;
+
+/**
+ * One call of a load test, executed concurrently by many threads.
+ */
+@FunctionalInterface
+interface Workload {
+
+	void execute() throws Exception;
+
+	static Workload create(LoadTestOptions options, OpenAIClient client) {
+		if (options.workload.equals("stream")) {
+			return stream(options, client);
+		}
+		if (options.workload.equals("embeddings")) {
+			return embeddings(options, client);
+		}
+		if (options.workload.equals("upload")) {
+			return upload(options, client);
+		}
+		return chat(options, client);
+	}
+
+	/**
+	 * A chat completion with a short conversation.
+	 */
+	private static Workload chat(LoadTestOptions options, OpenAIClient client) {
+		ChatCompletionCreateRequest request = ChatCompletionCreateRequest.builder()
+				.model(options.model)
+				.addMessages(SystemMessage.of("You are a helpful assistant."),
+						UserMessage.of("Summarize the plot of Hamlet in three sentences."))
+				.build();
+		return () -> client.chatCompletions.create(request);
+	}
+
+	/**
+	 * A streamed run on a new thread, read to the end.
+	 */
+	private static Workload stream(LoadTestOptions options, OpenAIClient client) {
+		ThreadCreateRunCreateRequest request = ThreadCreateRunCreateRequest.builder()
+				.assistantId(options.assistantId)
+				.thread(List.of(ThreadMessageRequest.builder().userRole()
+						.content("Summarize the plot of Hamlet in three sentences.")
+						.build()))
+				.build();
+		return () -> {
+			try (AssistantStream stream = client.threads.createAndRunStream(request)) {
+				stream.finalRun();
+			}
+		};
+	}
+
+	/**
+	 * Embeddings of a batch of 16 sentences.
+	 */
+	private static Workload embeddings(LoadTestOptions options, OpenAIClient client) {
+		String[] input = new String[16];
+		for (int i = 0; i < input.length; i++) {
+			input[i] = "Sentence number " + i + " of the embeddings load test.";
+		}
+		EmbeddingCreateRequest request = EmbeddingCreateRequest.builder()
+				.model("text-embedding-3-small").input(List.of(input)).build();
+		return () -> client.embeddings.create(request);
+	}
+
+	/**
+	 * A file upload followed by the deletion of the file.
+	 */
+	private static Workload upload(LoadTestOptions options, OpenAIClient client) {
+		byte[] content = new byte[options.uploadBytes];
+		new Random(42).nextBytes(content);
+		return () -> {
+			FileObject file = client.files.upload(
+					FilePart.of(content, "loadtest.bin", "application/octet-stream"),
+					Purpose.ASSISTANTS);
+			client.files.delete(file.id());
+		};
+	}
+
+}
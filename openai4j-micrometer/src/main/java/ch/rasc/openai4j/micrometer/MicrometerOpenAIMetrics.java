@@ -0,0 +1,119 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.micrometer;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ch.rasc.openai4j.metrics.OpenAIMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Reports the measurements of the openai4j clients to a Micrometer
+ * {@link MeterRegistry}.
+ * <ul>
+ * <li>openai.requests: timer tagged with endpoint, model and status</li>
+ * <li>openai.requests.active: gauge of the requests in flight, tagged with endpoint
+ * and model</li>
+ * <li>openai.requests.retries: counter tagged with endpoint and model</li>
+ * <li>openai.tokens: counter tagged with endpoint, model and type (prompt or
+ * completion)</li>
+ * </ul>
+ * Requests without a model are tagged with model "none", requests without a response
+ * with status "-1".
+ */
+public class MicrometerOpenAIMetrics implements OpenAIMetrics {
+
+	private final MeterRegistry registry;
+
+	private final ConcurrentHashMap<Key, Meters> meters = new ConcurrentHashMap<>();
+
+	private record Key(String endpoint, String model) {
+	}
+
+	private final class Meters {
+		private final Tags tags;
+		private final AtomicLong inFlight;
+		private final Counter retries;
+		private final Counter promptTokens;
+		private final Counter completionTokens;
+		private final ConcurrentHashMap<Integer, Timer> timers =
+				new ConcurrentHashMap<>();
+
+		Meters(Key key) {
+			this.tags = Tags.of("endpoint", key.endpoint(), "model",
+					key.model() != null ? key.model() : "none");
+			MeterRegistry r = MicrometerOpenAIMetrics.this.registry;
+			this.inFlight = r.gauge("openai.requests.active", this.tags,
+					new AtomicLong());
+			this.retries = r.counter("openai.requests.retries", this.tags);
+			this.promptTokens = r.counter("openai.tokens",
+					this.tags.and("type", "prompt"));
+			this.completionTokens = r.counter("openai.tokens",
+					this.tags.and("type", "completion"));
+		}
+
+		Timer timer(int status) {
+			return this.timers.computeIfAbsent(status,
+					s -> Timer.builder("openai.requests")
+							.tags(this.tags.and("status", String.valueOf(s)))
+							.publishPercentileHistogram()
+							.register(MicrometerOpenAIMetrics.this.registry));
+		}
+	}
+
+	public MicrometerOpenAIMetrics(MeterRegistry registry) {
+		if (registry == null) {
+			throw new IllegalArgumentException("registry must not be null");
+		}
+		this.registry = registry;
+	}
+
+	@Override
+	public void requestStarted(String endpoint, String model) {
+		meters(endpoint, model).inFlight.incrementAndGet();
+	}
+
+	@Override
+	public void requestFinished(String endpoint, String model, int status,
+			long durationNanos) {
+		Meters m = meters(endpoint, model);
+		m.inFlight.decrementAndGet();
+		m.timer(status).record(durationNanos, TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public void requestRetried(String endpoint, String model) {
+		meters(endpoint, model).retries.increment();
+	}
+
+	@Override
+	public void tokensUsed(String endpoint, String model, long promptTokens,
+			long completionTokens) {
+		Meters m = meters(endpoint, model);
+		m.promptTokens.increment(promptTokens);
+		m.completionTokens.increment(completionTokens);
+	}
+
+	private Meters meters(String endpoint, String model) {
+		return this.meters.computeIfAbsent(new Key(endpoint, model), Meters::new);
+	}
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.opentelemetry;
+
+import ch.rasc.openai4j.tracing.OpenAISpan;
+import ch.rasc.openai4j.tracing.OpenAITracer;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Scope;
+
+/**
+ * Records the spans of the openai4j clients and services with OpenTelemetry. Every
+ * span is made current while it is open, so the spans are nested in the spans of the
+ * application and in each other.
+ */
+public class OpenTelemetryTracer implements OpenAITracer {
+
+	private final Tracer tracer;
+
+	public OpenTelemetryTracer(OpenTelemetry openTelemetry) {
+		this(openTelemetry.getTracer("ch.rasc.openai4j"));
+	}
+
+	public OpenTelemetryTracer(Tracer tracer) {
+		if (tracer == null) {
+			throw new IllegalArgumentException("tracer must not be null");
+		}
+		this.tracer = tracer;
+	}
+
+	@Override
+	public OpenAISpan start(String name) {
+		Span span = this.tracer.spanBuilder(name)
+				.setSpanKind(name.equals("openai.http") ? SpanKind.CLIENT
+						: SpanKind.INTERNAL)
+				.startSpan();
+		return new OpenTelemetrySpan(span, span.makeCurrent());
+	}
+
+	private static final class OpenTelemetrySpan implements OpenAISpan {
+		private final Span span;
+		private final Scope scope;
+
+		OpenTelemetrySpan(Span span, Scope scope) {
+			this.span = span;
+			this.scope = scope;
+		}
+
+		@Override
+		public OpenAISpan tag(String key, String value) {
+			if (value != null) {
+				this.span.setAttribute(key, value);
+			}
+			return this;
+		}
+
+		@Override
+		public OpenAISpan tag(String key, long value) {
+			this.span.setAttribute(key, value);
+			return this;
+		}
+
+		@Override
+		public OpenAISpan error(Throwable error) {
+			this.span.recordException(error);
+			this.span.setStatus(StatusCode.ERROR);
+			return this;
+		}
+
+		@Override
+		public void close() {
+			this.scope.close();
+			this.span.end();
+		}
+	}
+
+}
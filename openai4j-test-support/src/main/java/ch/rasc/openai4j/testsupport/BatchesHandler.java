@@ -0,0 +1,208 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.testsupport;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * The /batches endpoints. A batch moves from validating over in_progress and
+ * finalizing to completed within the configured batch duration. The output file is
+ * created when the batch completes, with a generated response for every request of
+ * the input file.
+ */
+final class BatchesHandler {
+
+	private final class Batch {
+		private final String id = Generator.id("batch_");
+		private final int createdAt = Generator.now();
+		private final long createdNanos = System.nanoTime();
+		private final ObjectNode request;
+		private final List<String> lines;
+		private String status = "validating";
+		private Integer inProgressAt;
+		private Integer finalizingAt;
+		private Integer completedAt;
+		private Integer cancelledAt;
+		private String outputFileId;
+
+		Batch(ObjectNode request, List<String> lines) {
+			this.request = request;
+			this.lines = lines;
+		}
+
+		synchronized ObjectNode advance() {
+			double progress = (System.nanoTime() - this.createdNanos)
+					/ (double) BatchesHandler.this.server.batchDuration().toNanos();
+			if (this.status.equals("validating") && progress >= 0.1) {
+				this.status = "in_progress";
+				this.inProgressAt = Generator.now();
+			}
+			if (this.status.equals("in_progress") && progress >= 0.9) {
+				this.status = "finalizing";
+				this.finalizingAt = Generator.now();
+			}
+			if (this.status.equals("finalizing") && progress >= 1) {
+				this.outputFileId = BatchesHandler.this.server.files
+						.add(this.id + "_output.jsonl", "batch_output", output()).id();
+				this.status = "completed";
+				this.completedAt = Generator.now();
+			}
+
+			int completed = completedRequests(progress);
+			ObjectNode batch = Call.objectMapper.createObjectNode();
+			batch.put("id", this.id);
+			batch.put("object", "batch");
+			batch.put("endpoint", this.request.path("endpoint").asText());
+			batch.putNull("errors");
+			batch.put("input_file_id", this.request.path("input_file_id").asText());
+			batch.put("completion_window",
+					this.request.path("completion_window").asText("24h"));
+			batch.put("status", this.status);
+			batch.put("output_file_id", this.outputFileId);
+			batch.putNull("error_file_id");
+			batch.put("created_at", this.createdAt);
+			batch.put("in_progress_at", this.inProgressAt);
+			batch.put("expires_at", this.createdAt + 86400);
+			batch.put("finalizing_at", this.finalizingAt);
+			batch.put("completed_at", this.completedAt);
+			batch.putNull("failed_at");
+			batch.putNull("expired_at");
+			batch.put("cancelling_at", this.cancelledAt);
+			batch.put("cancelled_at", this.cancelledAt);
+			batch.putObject("request_counts").put("total", this.lines.size())
+					.put("completed", completed).put("failed", 0);
+			batch.set("metadata", this.request.get("metadata"));
+			return batch;
+		}
+
+		private int completedRequests(double progress) {
+			if (this.status.equals("completed") || this.status.equals("finalizing")) {
+				return this.lines.size();
+			}
+			if (this.status.equals("in_progress")) {
+				return (int) (this.lines.size() * Math.min(1, (progress - 0.1) / 0.8));
+			}
+			return 0;
+		}
+
+		synchronized ObjectNode cancel() {
+			if (!this.status.equals("completed") && !this.status.equals("cancelled")) {
+				this.status = "cancelled";
+				this.cancelledAt = Generator.now();
+			}
+			return advance();
+		}
+
+		private byte[] output() {
+			StringBuilder output = new StringBuilder();
+			for (String line : this.lines) {
+				ObjectNode result = Call.objectMapper.createObjectNode();
+				result.put("id", Generator.id("batch_req_"));
+				try {
+					JsonNode input = Call.objectMapper.readTree(line);
+					result.put("custom_id", input.path("custom_id").asText());
+					ObjectNode response = result.putObject("response");
+					response.put("status_code", 200);
+					response.put("request_id", Generator.id("req_"));
+					response.set("body", respond(input.path("url").asText(),
+							(ObjectNode) input.path("body")));
+					result.putNull("error");
+				}
+				catch (IOException | ClassCastException e) {
+					result.putNull("custom_id");
+					result.putNull("response");
+					result.putObject("error").put("code", "invalid_request")
+							.put("message", "The request could not be parsed");
+				}
+				output.append(result).append('\n');
+			}
+			return output.toString().getBytes(StandardCharsets.UTF_8);
+		}
+	}
+
+	private final FakeOpenAIServer server;
+
+	private final Map<String, Batch> batches = new ConcurrentHashMap<>();
+
+	BatchesHandler(FakeOpenAIServer server) {
+		this.server = server;
+	}
+
+	void create(Call call) throws IOException {
+		ObjectNode request = call.json();
+		String inputFileId = request.path("input_file_id").asText(null);
+		if (inputFileId == null || !request.hasNonNull("endpoint")) {
+			call.error(400, "invalid_request_error",
+					"'input_file_id' and 'endpoint' are required properties", null);
+			return;
+		}
+		FilesHandler.StoredFile inputFile = this.server.files.get(inputFileId);
+		if (inputFile == null) {
+			call.notFound("file", inputFileId);
+			return;
+		}
+		List<String> lines = new ArrayList<>();
+		for (String line : new String(inputFile.data(), StandardCharsets.UTF_8)
+				.split("\n")) {
+			if (!line.isBlank()) {
+				lines.add(line);
+			}
+		}
+		Batch batch = new Batch(request, lines);
+		this.batches.put(batch.id, batch);
+		call.json(200, batch.advance());
+	}
+
+	void retrieve(Call call) throws IOException {
+		Batch batch = this.batches.get(call.pathParam(1));
+		if (batch == null) {
+			call.notFound("batch", call.pathParam(1));
+			return;
+		}
+		call.json(200, batch.advance());
+	}
+
+	void cancel(Call call) throws IOException {
+		Batch batch = this.batches.get(call.pathParam(1));
+		if (batch == null) {
+			call.notFound("batch", call.pathParam(1));
+			return;
+		}
+		call.json(200, batch.cancel());
+	}
+
+	private JsonNode respond(String url, ObjectNode body) {
+		if (url.endsWith("/chat/completions")) {
+			return this.server.chatCompletions.complete(body);
+		}
+		if (url.endsWith("/embeddings")) {
+			return this.server.embeddings.embed(body);
+		}
+		ObjectNode error = Call.objectMapper.createObjectNode();
+		error.putObject("error").put("message", "Unsupported url " + url)
+				.put("type", "invalid_request_error");
+		return error;
+	}
+
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.testsupport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * A request to the {@link FakeOpenAIServer} and the methods to answer it.
+ */
+final class Call {
+
+	static final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final HttpExchange exchange;
+
+	private final Matcher path;
+
+	private byte[] body;
+
+	private boolean responded;
+
+	Call(HttpExchange exchange, Matcher path) {
+		this.exchange = exchange;
+		this.path = path;
+	}
+
+	/**
+	 * Returns a path parameter, numbered from 1 in the order of the route pattern.
+	 */
+	String pathParam(int index) {
+		return this.path.group(index);
+	}
+
+	String query(String name) {
+		String query = this.exchange.getRequestURI().getRawQuery();
+		if (query == null) {
+			return null;
+		}
+		for (String pair : query.split("&")) {
+			int eq = pair.indexOf('=');
+			String key = eq != -1 ? pair.substring(0, eq) : pair;
+			if (key.equals(name)) {
+				return eq != -1 ? URLDecoder.decode(pair.substring(eq + 1),
+						StandardCharsets.UTF_8) : "";
+			}
+		}
+		return null;
+	}
+
+	String requestHeader(String name) {
+		return this.exchange.getRequestHeaders().getFirst(name);
+	}
+
+	byte[] body() throws IOException {
+		if (this.body == null) {
+			try (InputStream in = this.exchange.getRequestBody()) {
+				this.body = in.readAllBytes();
+			}
+		}
+		return this.body;
+	}
+
+	/**
+	 * Parses the JSON body, an empty body is returned as empty object.
+	 */
+	ObjectNode json() throws IOException {
+		byte[] data = body();
+		if (data.length == 0) {
+			return objectMapper.createObjectNode();
+		}
+		JsonNode node = objectMapper.readTree(data);
+		if (!(node instanceof ObjectNode objectNode)) {
+			throw new IOException("request body is not a JSON object");
+		}
+		return objectNode;
+	}
+
+	Multipart multipart() throws IOException {
+		return Multipart.parse(requestHeader("Content-Type"), body());
+	}
+
+	boolean responded() {
+		return this.responded;
+	}
+
+	void header(String name, String value) {
+		this.exchange.getResponseHeaders().set(name, value);
+	}
+
+	void json(int status, JsonNode node) throws IOException {
+		bytes(status, "application/json", objectMapper.writeValueAsBytes(node));
+	}
+
+	void bytes(int status, String contentType, byte[] data) throws IOException {
+		// drains the request body, the connection can only be reused after that
+		body();
+		this.responded = true;
+		this.exchange.getResponseHeaders().set("Content-Type", contentType);
+		this.exchange.sendResponseHeaders(status, data.length == 0 ? -1 : data.length);
+		if (data.length > 0) {
+			try (OutputStream out = this.exchange.getResponseBody()) {
+				out.write(data);
+			}
+		}
+	}
+
+	void error(int status, String type, String message, String code) throws IOException {
+		ObjectNode error = objectMapper.createObjectNode();
+		ObjectNode details = error.putObject("error");
+		details.put("message", message);
+		details.put("type", type);
+		details.putNull("param");
+		details.put("code", code);
+		json(status, error);
+	}
+
+	void notFound(String what, String id) throws IOException {
+		error(404, "invalid_request_error", "No " + what + " found with id '" + id + "'.",
+				null);
+	}
+
+	/**
+	 * Sends the response headers of a text/event-stream response. The events are
+	 * flushed one by one.
+	 */
+	EventStream eventStream() throws IOException {
+		body();
+		this.responded = true;
+		this.exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+		this.exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+		this.exchange.sendResponseHeaders(200, 0);
+		return new EventStream(this.exchange.getResponseBody());
+	}
+
+	static final class EventStream implements AutoCloseable {
+		private final OutputStream out;
+
+		private EventStream(OutputStream out) {
+			this.out = out;
+		}
+
+		void data(JsonNode data) throws IOException {
+			write(null, objectMapper.writeValueAsString(data));
+		}
+
+		void event(String event, JsonNode data) throws IOException {
+			write(event, objectMapper.writeValueAsString(data));
+		}
+
+		void write(String event, String data) throws IOException {
+			StringBuilder sb = new StringBuilder();
+			if (event != null) {
+				sb.append("event: ").append(event).append('\n');
+			}
+			sb.append("data: ").append(data).append("\n\n");
+			this.out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+			this.out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.out.close();
+		}
+	}
+
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.testsupport;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * POST /chat/completions. Answers with generated text, or with a call of the first
+ * tool if the request has tools and the last message is not a tool result.
+ */
+final class ChatCompletionsHandler {
+
+	private final FakeOpenAIServer server;
+
+	ChatCompletionsHandler(FakeOpenAIServer server) {
+		this.server = server;
+	}
+
+	private record Completion(String id, int created, String model, int promptTokens,
+			List<String> tokens, String toolName) {
+
+		int completionTokens() {
+			return this.tokens.size();
+		}
+	}
+
+	void create(Call call) throws IOException, InterruptedException {
+		ObjectNode request = call.json();
+		if (!request.hasNonNull("model")) {
+			call.error(400, "invalid_request_error",
+					"you must provide a model parameter", null);
+			return;
+		}
+		if (!request.path("messages").isArray() || request.path("messages").isEmpty()) {
+			call.error(400, "invalid_request_error",
+					"'messages' must contain at least one message", null);
+			return;
+		}
+		int maxTokens = maxTokens(request);
+		Completion completion = completion(request);
+		if (!this.server.admit(call, completion.promptTokens() + maxTokens)) {
+			return;
+		}
+
+		if (request.path("stream").asBoolean()) {
+			stream(call, completion,
+					request.path("stream_options").path("include_usage").asBoolean());
+		}
+		else {
+			this.server.pace(completion.completionTokens());
+			call.json(200, response(completion));
+		}
+	}
+
+	/**
+	 * Returns the response body for a request without waiting, used for the requests
+	 * of a batch.
+	 */
+	ObjectNode complete(ObjectNode request) {
+		return response(completion(request));
+	}
+
+	private int maxTokens(ObjectNode request) {
+		return request.path("max_completion_tokens")
+				.asInt(request.path("max_tokens").asInt(this.server.completionTokens()));
+	}
+
+	private Completion completion(ObjectNode request) {
+		int promptTokens = Generator.estimateTokens(request.path("messages"));
+		String toolName = toolName(request);
+		int count = Math.min(maxTokens(request), this.server.completionTokens());
+		if (toolName != null) {
+			count = Math.min(count, 8);
+		}
+		return new Completion(Generator.id("chatcmpl-"), Generator.now(),
+				request.path("model").asText(), promptTokens, Generator.tokens(count),
+				toolName);
+	}
+
+	private static String toolName(ObjectNode request) {
+		JsonNode tools = request.path("tools");
+		JsonNode toolChoice = request.path("tool_choice");
+		JsonNode messages = request.path("messages");
+		if (!tools.isArray() || tools.isEmpty() || "none".equals(toolChoice.asText())
+				|| "tool".equals(messages.path(messages.size() - 1).path("role").asText())) {
+			return null;
+		}
+		String chosen = toolChoice.path("function").path("name").asText(null);
+		return chosen != null ? chosen
+				: tools.path(0).path("function").path("name").asText("tool");
+	}
+
+	private static ObjectNode response(Completion completion) {
+		ObjectNode response = Call.objectMapper.createObjectNode();
+		response.put("id", completion.id());
+		response.put("object", "chat.completion");
+		response.put("created", completion.created());
+		response.put("model", completion.model());
+		response.put("system_fingerprint", "fp_fake");
+		ObjectNode choice = response.putArray("choices").addObject();
+		choice.put("index", 0);
+		ObjectNode message = choice.putObject("message");
+		message.put("role", "assistant");
+		if (completion.toolName() != null) {
+			message.putNull("content");
+			ObjectNode toolCall = message.putArray("tool_calls").addObject();
+			toolCall.put("id", Generator.id("call_"));
+			toolCall.put("type", "function");
+			toolCall.putObject("function").put("name", completion.toolName())
+					.put("arguments", "{}");
+			choice.put("finish_reason", "tool_calls");
+		}
+		else {
+			message.put("content", String.join("", completion.tokens()));
+			choice.put("finish_reason", "stop");
+		}
+		choice.putNull("logprobs");
+		response.set("usage", usage(completion));
+		return response;
+	}
+
+	private static ObjectNode usage(Completion completion) {
+		ObjectNode usage = Call.objectMapper.createObjectNode();
+		usage.put("prompt_tokens", completion.promptTokens());
+		usage.put("completion_tokens", completion.completionTokens());
+		usage.put("total_tokens",
+				completion.promptTokens() + completion.completionTokens());
+		return usage;
+	}
+
+	private void stream(Call call, Completion completion, boolean includeUsage)
+			throws IOException, InterruptedException {
+		try (Call.EventStream events = call.eventStream()) {
+			ObjectNode first = chunk(completion);
+			ObjectNode delta = delta(first);
+			delta.put("role", "assistant");
+			if (completion.toolName() != null) {
+				delta.putNull("content");
+				ObjectNode toolCall = delta.putArray("tool_calls").addObject();
+				toolCall.put("index", 0);
+				toolCall.put("id", Generator.id("call_"));
+				toolCall.put("type", "function");
+				toolCall.putObject("function").put("name", completion.toolName())
+						.put("arguments", "");
+				events.data(first);
+
+				this.server.pace(completion.completionTokens());
+				ObjectNode arguments = chunk(completion);
+				ObjectNode argumentsCall = delta(arguments).putArray("tool_calls").addObject();
+				argumentsCall.put("index", 0);
+				argumentsCall.putObject("function").put("arguments", "{}");
+				events.data(arguments);
+			}
+			else {
+				delta.put("content", "");
+				events.data(first);
+				for (String token : completion.tokens()) {
+					this.server.pace(1);
+					ObjectNode chunk = chunk(completion);
+					delta(chunk).put("content", token);
+					events.data(chunk);
+				}
+			}
+
+			ObjectNode last = chunk(completion);
+			choice(last).put("finish_reason",
+					completion.toolName() != null ? "tool_calls" : "stop");
+			events.data(last);
+
+			if (includeUsage) {
+				ObjectNode usage = chunk(completion);
+				usage.putArray("choices");
+				usage.set("usage", usage(completion));
+				events.data(usage);
+			}
+			events.write(null, "[DONE]");
+		}
+	}
+
+	private static ObjectNode chunk(Completion completion) {
+		ObjectNode chunk = Call.objectMapper.createObjectNode();
+		chunk.put("id", completion.id());
+		chunk.put("object", "chat.completion.chunk");
+		chunk.put("created", completion.created());
+		chunk.put("model", completion.model());
+		chunk.put("system_fingerprint", "fp_fake");
+		ArrayNode choices = chunk.putArray("choices");
+		ObjectNode choice = choices.addObject();
+		choice.put("index", 0);
+		choice.putObject("delta");
+		choice.putNull("logprobs");
+		choice.putNull("finish_reason");
+		return chunk;
+	}
+
+	private static ObjectNode choice(ObjectNode chunk) {
+		return (ObjectNode) chunk.get("choices").get(0);
+	}
+
+	private static ObjectNode delta(ObjectNode chunk) {
+		return (ObjectNode) choice(chunk).get("delta");
+	}
+
+}
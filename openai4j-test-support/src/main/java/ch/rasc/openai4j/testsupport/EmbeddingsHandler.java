@@ -0,0 +1,132 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.testsupport;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * POST /embeddings. Answers with normalized vectors derived from the input, the same
+ * input always gets the same vector.
+ */
+final class EmbeddingsHandler {
+
+	private final FakeOpenAIServer server;
+
+	EmbeddingsHandler(FakeOpenAIServer server) {
+		this.server = server;
+	}
+
+	void create(Call call) throws IOException {
+		ObjectNode request = call.json();
+		if (!request.hasNonNull("model") || !request.hasNonNull("input")) {
+			call.error(400, "invalid_request_error",
+					"you must provide a model and an input parameter", null);
+			return;
+		}
+		if (!this.server.admit(call, tokens(request.get("input")))) {
+			return;
+		}
+		call.json(200, embed(request));
+	}
+
+	/**
+	 * Returns the response body for a request, used for the requests of a batch.
+	 */
+	ObjectNode embed(ObjectNode request) {
+		int dimensions = request.path("dimensions")
+				.asInt(this.server.embeddingDimensions());
+		boolean base64 = "base64".equals(request.path("encoding_format").asText());
+
+		ObjectNode response = Call.objectMapper.createObjectNode();
+		response.put("object", "list");
+		ArrayNode data = response.putArray("data");
+		List<JsonNode> inputs = inputs(request.get("input"));
+		for (int i = 0; i < inputs.size(); i++) {
+			ObjectNode embedding = data.addObject();
+			embedding.put("object", "embedding");
+			embedding.put("index", i);
+			float[] vector = vector(inputs.get(i), dimensions);
+			if (base64) {
+				ByteBuffer buffer = ByteBuffer.allocate(vector.length * 4)
+						.order(ByteOrder.LITTLE_ENDIAN);
+				buffer.asFloatBuffer().put(vector);
+				embedding.put("embedding",
+						Base64.getEncoder().encodeToString(buffer.array()));
+			}
+			else {
+				ArrayNode values = embedding.putArray("embedding");
+				for (float value : vector) {
+					values.add(value);
+				}
+			}
+		}
+		response.put("model", request.path("model").asText());
+		int tokens = tokens(request.get("input"));
+		response.putObject("usage").put("prompt_tokens", tokens).put("total_tokens",
+				tokens);
+		return response;
+	}
+
+	/**
+	 * Splits the input into the inputs that get an embedding: a string, an array of
+	 * strings, an array of tokens or an array of token arrays.
+	 */
+	private static List<JsonNode> inputs(JsonNode input) {
+		List<JsonNode> inputs = new ArrayList<>();
+		if (input.isArray() && !input.isEmpty()
+				&& (input.get(0).isTextual() || input.get(0).isArray())) {
+			input.forEach(inputs::add);
+		}
+		else {
+			inputs.add(input);
+		}
+		return inputs;
+	}
+
+	private static int tokens(JsonNode input) {
+		int tokens = 0;
+		for (JsonNode node : inputs(input)) {
+			tokens += node.isArray() ? node.size() : Generator.estimateTokens(node);
+		}
+		return Math.max(tokens, 1);
+	}
+
+	private static float[] vector(JsonNode input, int dimensions) {
+		Random random = new Random(input.toString().hashCode());
+		float[] vector = new float[dimensions];
+		double norm = 0;
+		for (int i = 0; i < dimensions; i++) {
+			vector[i] = (float) random.nextGaussian();
+			norm += vector[i] * vector[i];
+		}
+		float scale = (float) (1 / Math.sqrt(norm));
+		for (int i = 0; i < dimensions; i++) {
+			vector[i] *= scale;
+		}
+		return vector;
+	}
+
+}
@@ -0,0 +1,483 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.testsupport;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In-process HTTP server that answers like the OpenAI API, for load, throughput and
+ * resilience tests that must not call the real API. Implements the endpoints of chat
+ * completions (with and without server-sent events), embeddings, files, uploads,
+ * batches, threads, messages and runs with generated content.
+ * <p>
+ * The latency before the response headers, the rate at which completion tokens are
+ * produced, request and token rate limits with x-ratelimit headers and the rate of
+ * server errors are configurable.
+ *
+ * <pre>
+ * try (FakeOpenAIServer server = FakeOpenAIServer.builder()
+ * 		.latency(LatencyDistribution.logNormal(Duration.ofMillis(300), 0.5))
+ * 		.tokensPerSecond(80).requestsPerMinute(500).serverErrorRate(0.01).start()) {
+ * 	OpenAIClient client = OpenAIClient
+ * 			.create(c -&gt; c.apiKey("test").baseUrl(server.baseUrl()));
+ * 	...
+ * }
+ * </pre>
+ */
+public final class FakeOpenAIServer implements AutoCloseable {
+
+	private static final String BASE_PATH = "/v1";
+
+	private static final int[] SERVER_ERRORS = { 500, 502, 503 };
+
+	private final HttpServer server;
+
+	private final ExecutorService executor;
+
+	private final List<Route> routes = new ArrayList<>();
+
+	private final LatencyDistribution latency;
+
+	private final double tokensPerSecond;
+
+	private final int completionTokens;
+
+	private final int embeddingDimensions;
+
+	private final double serverErrorRate;
+
+	private final Duration runDuration;
+
+	private final Duration batchDuration;
+
+	private final RateLimiter rateLimiter;
+
+	private final AtomicLong requests = new AtomicLong();
+
+	private final Set<InetSocketAddress> connections = ConcurrentHashMap.newKeySet();
+
+	private final AtomicLong rateLimited = new AtomicLong();
+
+	private final AtomicLong serverErrors = new AtomicLong();
+
+	final ChatCompletionsHandler chatCompletions;
+
+	final EmbeddingsHandler embeddings;
+
+	final FilesHandler files;
+
+	@FunctionalInterface
+	interface Handler {
+		void handle(Call call) throws IOException, InterruptedException;
+	}
+
+	private record Route(String method, Pattern path, Handler handler) {
+	}
+
+	private FakeOpenAIServer(Builder builder) throws IOException {
+		this.latency = builder.latency;
+		this.tokensPerSecond = builder.tokensPerSecond;
+		this.completionTokens = builder.completionTokens;
+		this.embeddingDimensions = builder.embeddingDimensions;
+		this.serverErrorRate = builder.serverErrorRate;
+		this.runDuration = builder.runDuration;
+		this.batchDuration = builder.batchDuration;
+		this.rateLimiter = builder.requestsPerMinute > 0 || builder.tokensPerMinute > 0
+				? new RateLimiter(
+						builder.requestsPerMinute > 0 ? builder.requestsPerMinute
+								: 10_000,
+						builder.tokensPerMinute > 0 ? builder.tokensPerMinute
+								: 2_000_000)
+				: null;
+
+		this.chatCompletions = new ChatCompletionsHandler(this);
+		this.embeddings = new EmbeddingsHandler(this);
+		this.files = new FilesHandler();
+		UploadsHandler uploads = new UploadsHandler(this.files);
+		BatchesHandler batches = new BatchesHandler(this);
+		ThreadsHandler threads = new ThreadsHandler(this);
+
+		route("POST", "/chat/completions", this.chatCompletions::create);
+		route("POST", "/embeddings", this.embeddings::create);
+
+		route("POST", "/files", this.files::create);
+		route("GET", "/files", this.files::list);
+		route("GET", "/files/([^/]+)", this.files::retrieve);
+		route("DELETE", "/files/([^/]+)", this.files::delete);
+		route("GET", "/files/([^/]+)/content", this.files::content);
+
+		route("POST", "/uploads", uploads::create);
+		route("POST", "/uploads/([^/]+)/parts", uploads::addPart);
+		route("POST", "/uploads/([^/]+)/complete", uploads::complete);
+		route("POST", "/uploads/([^/]+)/cancel", uploads::cancel);
+
+		route("POST", "/batches", batches::create);
+		route("GET", "/batches/([^/]+)", batches::retrieve);
+		route("POST", "/batches/([^/]+)/cancel", batches::cancel);
+
+		route("POST", "/threads", threads::create);
+		route("POST", "/threads/runs", threads::createAndRun);
+		route("GET", "/threads/([^/]+)", threads::retrieve);
+		route("DELETE", "/threads/([^/]+)", threads::delete);
+		route("POST", "/threads/([^/]+)/messages", threads::createMessage);
+		route("GET", "/threads/([^/]+)/messages", threads::listMessages);
+		route("GET", "/threads/([^/]+)/messages/([^/]+)", threads::retrieveMessage);
+		route("POST", "/threads/([^/]+)/runs", threads::createRun);
+		route("GET", "/threads/([^/]+)/runs", threads::listRuns);
+		route("GET", "/threads/([^/]+)/runs/([^/]+)", threads::retrieveRun);
+		route("POST", "/threads/([^/]+)/runs/([^/]+)/cancel", threads::cancelRun);
+		route("POST", "/threads/([^/]+)/runs/([^/]+)/submit_tool_outputs",
+				threads::submitToolOutputs);
+
+		AtomicInteger threadNumber = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(builder.threads, r -> {
+			Thread thread = new Thread(r,
+					"openai4j-fake-server-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.server = HttpServer.create(
+				new InetSocketAddress(InetAddress.getLoopbackAddress(), builder.port), 0);
+		this.server.createContext("/", this::handle);
+		this.server.setExecutor(this.executor);
+		this.server.start();
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Starts a server on a free port without latency, limits and errors.
+	 */
+	public static FakeOpenAIServer start() throws IOException {
+		return builder().start();
+	}
+
+	public static final class Builder {
+		private int port;
+		private LatencyDistribution latency = LatencyDistribution.NONE;
+		private double tokensPerSecond;
+		private int completionTokens = 32;
+		private int embeddingDimensions = 1536;
+		private long requestsPerMinute;
+		private long tokensPerMinute;
+		private double serverErrorRate;
+		private Duration runDuration = Duration.ofSeconds(1);
+		private Duration batchDuration = Duration.ofSeconds(2);
+		private int threads = 32;
+
+		private Builder() {
+		}
+
+		/**
+		 * The port to listen on. Defaults to 0, a free port.
+		 */
+		public Builder port(int port) {
+			this.port = port;
+			return this;
+		}
+
+		/**
+		 * The time to wait before the response headers are sent. Defaults to none.
+		 */
+		public Builder latency(LatencyDistribution latency) {
+			this.latency = latency;
+			return this;
+		}
+
+		/**
+		 * The rate at which completion tokens are produced. Streamed responses send the
+		 * tokens at this rate, other responses wait until all tokens are produced.
+		 * Defaults to 0, all tokens immediately.
+		 */
+		public Builder tokensPerSecond(double tokensPerSecond) {
+			this.tokensPerSecond = tokensPerSecond;
+			return this;
+		}
+
+		/**
+		 * The number of tokens of a completion, unless max_tokens is lower. Defaults to
+		 * 32.
+		 */
+		public Builder completionTokens(int completionTokens) {
+			this.completionTokens = completionTokens;
+			return this;
+		}
+
+		/**
+		 * The dimensions of embeddings, unless the request sets dimensions. Defaults to
+		 * 1536.
+		 */
+		public Builder embeddingDimensions(int embeddingDimensions) {
+			this.embeddingDimensions = embeddingDimensions;
+			return this;
+		}
+
+		/**
+		 * Answers chat completion, embedding and run requests over the limit with 429.
+		 * The requests refill continuously over a minute. Without request and token
+		 * limits no x-ratelimit headers are sent. Defaults to 10000 if only the token
+		 * limit is set.
+		 */
+		public Builder requestsPerMinute(long requestsPerMinute) {
+			this.requestsPerMinute = requestsPerMinute;
+			return this;
+		}
+
+		/**
+		 * Answers chat completion, embedding and run requests over the limit with 429. A
+		 * request counts its estimated prompt tokens plus max_tokens. The tokens refill
+		 * continuously over a minute. Defaults to 2000000 if only the request limit is
+		 * set.
+		 */
+		public Builder tokensPerMinute(long tokensPerMinute) {
+			this.tokensPerMinute = tokensPerMinute;
+			return this;
+		}
+
+		/**
+		 * The fraction of requests, between 0 and 1, that are answered with a 500, 502 or
+		 * 503 error instead. Defaults to 0.
+		 */
+		public Builder serverErrorRate(double serverErrorRate) {
+			if (serverErrorRate < 0 || serverErrorRate > 1) {
+				throw new IllegalArgumentException(
+						"serverErrorRate must be between 0 and 1");
+			}
+			this.serverErrorRate = serverErrorRate;
+			return this;
+		}
+
+		/**
+		 * The time a run takes from queued to completed, without the time it waits for
+		 * tool outputs. Defaults to 1 second.
+		 */
+		public Builder runDuration(Duration runDuration) {
+			this.runDuration = runDuration;
+			return this;
+		}
+
+		/**
+		 * The time a batch takes from validating to completed. Defaults to 2 seconds.
+		 */
+		public Builder batchDuration(Duration batchDuration) {
+			this.batchDuration = batchDuration;
+			return this;
+		}
+
+		/**
+		 * The number of requests handled concurrently. Defaults to 32.
+		 */
+		public Builder threads(int threads) {
+			this.threads = threads;
+			return this;
+		}
+
+		public FakeOpenAIServer start() throws IOException {
+			return new FakeOpenAIServer(this);
+		}
+	}
+
+	/**
+	 * The base URL to configure the client with, it ends with /v1 like the base URL of
+	 * the API.
+	 */
+	public String baseUrl() {
+		return "http://localhost:" + port() + BASE_PATH;
+	}
+
+	public int port() {
+		return this.server.getAddress().getPort();
+	}
+
+	/**
+	 * The number of requests received.
+	 */
+	public long requests() {
+		return this.requests.get();
+	}
+
+	/**
+	 * The number of client connections that sent requests. Together with
+	 * {@link #requests()} it shows how well the client reuses connections.
+	 */
+	public long connections() {
+		return this.connections.size();
+	}
+
+	/**
+	 * The number of requests answered with 429.
+	 */
+	public long rateLimited() {
+		return this.rateLimited.get();
+	}
+
+	/**
+	 * The number of requests answered with an injected server error.
+	 */
+	public long serverErrors() {
+		return this.serverErrors.get();
+	}
+
+	@Override
+	public void close() {
+		this.server.stop(0);
+		this.executor.shutdownNow();
+	}
+
+	private void route(String method, String path, Handler handler) {
+		this.routes.add(new Route(method, Pattern.compile(BASE_PATH + path), handler));
+	}
+
+	private void handle(HttpExchange exchange) {
+		this.requests.incrementAndGet();
+		this.connections.add(exchange.getRemoteAddress());
+		try (exchange) {
+			String path = exchange.getRequestURI().getPath();
+			Call call = null;
+			Handler handler = null;
+			for (Route route : this.routes) {
+				Matcher matcher = route.path().matcher(path);
+				if (route.method().equals(exchange.getRequestMethod())
+						&& matcher.matches()) {
+					call = new Call(exchange, matcher);
+					handler = route.handler();
+					break;
+				}
+			}
+			if (call == null) {
+				new Call(exchange, null).error(404, "invalid_request_error",
+						"Unknown request URL: " + exchange.getRequestMethod() + " " + path,
+						"unknown_url");
+				return;
+			}
+			if (call.requestHeader("Authorization") == null
+					&& call.requestHeader("api-key") == null) {
+				call.error(401, "invalid_request_error",
+						"You didn't provide an API key.", null);
+				return;
+			}
+
+			long millis = this.latency.nextMillis();
+			if (millis > 0) {
+				Thread.sleep(millis);
+			}
+
+			if (this.serverErrorRate > 0
+					&& ThreadLocalRandom.current().nextDouble() < this.serverErrorRate) {
+				this.serverErrors.incrementAndGet();
+				int status = SERVER_ERRORS[ThreadLocalRandom.current()
+						.nextInt(SERVER_ERRORS.length)];
+				call.error(status, "server_error",
+						"The server had an error while processing your request. "
+								+ "Sorry about that!",
+						null);
+				return;
+			}
+
+			try {
+				handler.handle(call);
+			}
+			catch (JsonProcessingException e) {
+				if (!call.responded()) {
+					call.error(400, "invalid_request_error",
+							"We could not parse the JSON body of your request.", null);
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		catch (IOException e) {
+			// the client closed the connection
+		}
+	}
+
+	/**
+	 * Takes one request and the tokens from the rate limits. Answers the call with 429
+	 * and returns false if a limit is exceeded.
+	 */
+	boolean admit(Call call, long tokens) throws IOException {
+		if (this.rateLimiter == null) {
+			return true;
+		}
+		RateLimiter.Decision decision = this.rateLimiter.acquire(tokens);
+		decision.headers().forEach(call::header);
+		if (decision.allowed()) {
+			return true;
+		}
+		this.rateLimited.incrementAndGet();
+		String message;
+		if (decision.retryAfterMillis() < 0) {
+			message = "Request too large: Limit " + decision.headers()
+					.get("x-ratelimit-limit-tokens") + ", Requested " + tokens + ".";
+		}
+		else {
+			message = "Rate limit reached on " + decision.limit()
+					+ " per min: Limit "
+					+ decision.headers().get("x-ratelimit-limit-" + decision.limit())
+					+ ". Please try again in "
+					+ RateLimiter.duration(decision.retryAfterMillis()) + ".";
+		}
+		call.error(429, decision.limit(), message, "rate_limit_exceeded");
+		return false;
+	}
+
+	/**
+	 * Waits until the tokens are produced at the configured rate.
+	 */
+	void pace(int tokens) throws InterruptedException {
+		if (this.tokensPerSecond > 0 && tokens > 0) {
+			Thread.sleep(Math.round(tokens * 1000 / this.tokensPerSecond));
+		}
+	}
+
+	int completionTokens() {
+		return this.completionTokens;
+	}
+
+	int embeddingDimensions() {
+		return this.embeddingDimensions;
+	}
+
+	Duration runDuration() {
+		return this.runDuration;
+	}
+
+	Duration batchDuration() {
+		return this.batchDuration;
+	}
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.testsupport;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * The /files endpoints. Files are kept in memory until they are deleted or the server
+ * is closed.
+ */
+final class FilesHandler {
+
+	record StoredFile(String id, String filename, String purpose, byte[] data,
+			int createdAt) {
+
+		ObjectNode toJson() {
+			ObjectNode file = Call.objectMapper.createObjectNode();
+			file.put("id", this.id);
+			file.put("object", "file");
+			file.put("bytes", this.data.length);
+			file.put("created_at", this.createdAt);
+			file.put("filename", this.filename);
+			file.put("purpose", this.purpose);
+			file.put("status", "processed");
+			file.putNull("status_details");
+			return file;
+		}
+	}
+
+	private final Map<String, StoredFile> files = new ConcurrentHashMap<>();
+
+	StoredFile add(String filename, String purpose, byte[] data) {
+		StoredFile file = new StoredFile(Generator.id("file-"), filename, purpose, data,
+				Generator.now());
+		this.files.put(file.id(), file);
+		return file;
+	}
+
+	StoredFile get(String id) {
+		return this.files.get(id);
+	}
+
+	void create(Call call) throws IOException {
+		Multipart multipart = call.multipart();
+		Multipart.Part file = multipart.part("file");
+		String purpose = multipart.text("purpose");
+		if (file == null || purpose == null) {
+			call.error(400, "invalid_request_error",
+					"'file' and 'purpose' are required properties", null);
+			return;
+		}
+		String filename = file.filename() != null ? file.filename() : "file";
+		call.json(200, add(filename, purpose, file.data()).toJson());
+	}
+
+	void list(Call call) throws IOException {
+		String purpose = call.query("purpose");
+		ObjectNode response = Call.objectMapper.createObjectNode();
+		response.put("object", "list");
+		ArrayNode data = response.putArray("data");
+		this.files.values().stream()
+				.filter(f -> purpose == null || purpose.equals(f.purpose()))
+				.sorted(Comparator.comparing(StoredFile::id))
+				.forEach(f -> data.add(f.toJson()));
+		response.put("has_more", false);
+		call.json(200, response);
+	}
+
+	void retrieve(Call call) throws IOException {
+		StoredFile file = this.files.get(call.pathParam(1));
+		if (file == null) {
+			call.notFound("file", call.pathParam(1));
+			return;
+		}
+		call.json(200, file.toJson());
+	}
+
+	void delete(Call call) throws IOException {
+		StoredFile file = this.files.remove(call.pathParam(1));
+		if (file == null) {
+			call.notFound("file", call.pathParam(1));
+			return;
+		}
+		ObjectNode response = Call.objectMapper.createObjectNode();
+		response.put("id", file.id());
+		response.put("object", "file");
+		response.put("deleted", true);
+		call.json(200, response);
+	}
+
+	void content(Call call) throws IOException {
+		StoredFile file = this.files.get(call.pathParam(1));
+		if (file == null) {
+			call.notFound("file", call.pathParam(1));
+			return;
+		}
+		call.bytes(200, "application/octet-stream", file.data());
+	}
+
+}
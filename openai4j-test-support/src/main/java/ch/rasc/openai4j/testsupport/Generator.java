@@ -0,0 +1,83 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.testsupport;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Generates IDs, completion text and token counts.
+ */
+final class Generator {
+
+	private static final String[] WORDS = { "lorem", "ipsum", "dolor", "sit", "amet",
+			"consectetur", "adipiscing", "elit", "sed", "do", "eiusmod", "tempor",
+			"incididunt", "ut", "labore", "et", "dolore", "magna", "aliqua" };
+
+	private static final AtomicLong counter = new AtomicLong();
+
+	private Generator() {
+	}
+
+	static String id(String prefix) {
+		return prefix + String.format("%024x", counter.incrementAndGet());
+	}
+
+	static int now() {
+		return (int) (System.currentTimeMillis() / 1000);
+	}
+
+	/**
+	 * Returns the tokens of a completion, one word with a leading space per token.
+	 */
+	static List<String> tokens(int count) {
+		List<String> tokens = new ArrayList<>(count);
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		for (int i = 0; i < count; i++) {
+			String word = WORDS[random.nextInt(WORDS.length)];
+			tokens.add(i == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1)
+					: " " + word);
+		}
+		return tokens;
+	}
+
+	/**
+	 * Estimates the tokens of all text values in the node with the rule of thumb of
+	 * four characters per token.
+	 */
+	static int estimateTokens(JsonNode node) {
+		return Math.max(1, characters(node) / 4);
+	}
+
+	private static int characters(JsonNode node) {
+		if (node == null) {
+			return 0;
+		}
+		if (node.isTextual()) {
+			return node.textValue().length();
+		}
+		int characters = 0;
+		for (JsonNode child : node) {
+			characters += characters(child);
+		}
+		return characters;
+	}
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.testsupport;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Draws the time the {@link FakeOpenAIServer} waits before it sends the response
+ * headers.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+	/**
+	 * Responds immediately.
+	 */
+	LatencyDistribution NONE = () -> 0;
+
+	/**
+	 * Returns the next latency in milliseconds.
+	 */
+	long nextMillis();
+
+	/**
+	 * Always waits the same time.
+	 */
+	static LatencyDistribution fixed(Duration latency) {
+		long millis = latency.toMillis();
+		return () -> millis;
+	}
+
+	/**
+	 * Waits a uniformly distributed time between min and max.
+	 */
+	static LatencyDistribution uniform(Duration min, Duration max) {
+		long minMillis = min.toMillis();
+		long maxMillis = max.toMillis();
+		if (maxMillis < minMillis) {
+			throw new IllegalArgumentException("max must not be less than min");
+		}
+		return () -> ThreadLocalRandom.current().nextLong(minMillis, maxMillis + 1);
+	}
+
+	/**
+	 * Waits a log-normally distributed time, the typical shape of API latencies with a
+	 * long tail.
+	 *
+	 * @param median The median latency
+	 * @param sigma The standard deviation of the logarithm, 0.5 gives a p99 of about
+	 * three times the median
+	 */
+	static LatencyDistribution logNormal(Duration median, double sigma) {
+		double mu = Math.log(Math.max(median.toMillis(), 1));
+		return () -> Math.round(
+				Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+	}
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.testsupport;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The parts of a multipart/form-data request body.
+ */
+final class Multipart {
+
+	private static final Pattern BOUNDARY = Pattern.compile("boundary=\"?([^\";]+)\"?");
+
+	private static final Pattern NAME = Pattern.compile("\\bname=\"([^\"]*)\"");
+
+	private static final Pattern FILENAME = Pattern.compile("\\bfilename=\"([^\"]*)\"");
+
+	record Part(String name, String filename, byte[] data) {
+
+		String text() {
+			return new String(this.data, StandardCharsets.UTF_8);
+		}
+	}
+
+	private final Map<String, Part> parts;
+
+	private Multipart(Map<String, Part> parts) {
+		this.parts = parts;
+	}
+
+	Part part(String name) {
+		return this.parts.get(name);
+	}
+
+	String text(String name) {
+		Part part = this.parts.get(name);
+		return part != null ? part.text() : null;
+	}
+
+	static Multipart parse(String contentType, byte[] body) throws IOException {
+		Matcher boundaryMatcher = contentType != null ? BOUNDARY.matcher(contentType)
+				: null;
+		if (boundaryMatcher == null || !boundaryMatcher.find()) {
+			throw new IOException("not a multipart/form-data request");
+		}
+		byte[] delimiter = ("--" + boundaryMatcher.group(1))
+				.getBytes(StandardCharsets.ISO_8859_1);
+		byte[] separator = "\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1);
+
+		Map<String, Part> parts = new HashMap<>();
+		int start = indexOf(body, delimiter, 0);
+		while (start != -1) {
+			int headersStart = start + delimiter.length;
+			if (headersStart + 1 < body.length && body[headersStart] == '-'
+					&& body[headersStart + 1] == '-') {
+				break;
+			}
+			int headersEnd = indexOf(body, separator, headersStart);
+			int next = indexOf(body, delimiter, headersStart);
+			if (headersEnd == -1 || next == -1) {
+				break;
+			}
+			String headers = new String(body, headersStart, headersEnd - headersStart,
+					StandardCharsets.UTF_8);
+			int dataStart = headersEnd + separator.length;
+			// the CRLF before the delimiter belongs to the delimiter
+			int dataEnd = Math.max(dataStart, next - 2);
+			byte[] data = new byte[dataEnd - dataStart];
+			System.arraycopy(body, dataStart, data, 0, data.length);
+
+			Matcher name = NAME.matcher(headers);
+			if (name.find()) {
+				Matcher filename = FILENAME.matcher(headers);
+				parts.put(name.group(1), new Part(name.group(1),
+						filename.find() ? filename.group(1) : null, data));
+			}
+			start = next;
+		}
+		return new Multipart(parts);
+	}
+
+	private static int indexOf(byte[] data, byte[] pattern, int from) {
+		outer: for (int i = from; i <= data.length - pattern.length; i++) {
+			for (int j = 0; j < pattern.length; j++) {
+				if (data[i + j] != pattern[j]) {
+					continue outer;
+				}
+			}
+			return i;
+		}
+		return -1;
+	}
+
+}
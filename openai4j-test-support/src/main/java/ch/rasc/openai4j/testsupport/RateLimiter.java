@@ -0,0 +1,130 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.testsupport;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Request and token buckets that refill continuously over a minute, like the limits of
+ * the OpenAI API. Every admitted and every rejected request reports the state of both
+ * buckets in x-ratelimit headers.
+ */
+final class RateLimiter {
+
+	private static final double NANOS_PER_MINUTE = 60_000_000_000d;
+
+	private final Bucket requests;
+
+	private final Bucket tokens;
+
+	record Decision(boolean allowed, String limit, long retryAfterMillis,
+			Map<String, String> headers) {
+	}
+
+	private static final class Bucket {
+		private final long limit;
+		private final double perNano;
+		private double available;
+		private long lastRefill;
+
+		Bucket(long limit, long now) {
+			this.limit = limit;
+			this.perNano = limit / NANOS_PER_MINUTE;
+			this.available = limit;
+			this.lastRefill = now;
+		}
+
+		void refill(long now) {
+			this.available = Math.min(this.limit,
+					this.available + (now - this.lastRefill) * this.perNano);
+			this.lastRefill = now;
+		}
+
+		long millisUntil(double amount) {
+			if (this.available >= amount) {
+				return 0;
+			}
+			return (long) Math.ceil((amount - this.available) / this.perNano / 1_000_000);
+		}
+	}
+
+	RateLimiter(long requestsPerMinute, long tokensPerMinute) {
+		long now = System.nanoTime();
+		this.requests = new Bucket(requestsPerMinute, now);
+		this.tokens = new Bucket(tokensPerMinute, now);
+	}
+
+	/**
+	 * Takes one request and the tokens from the buckets if both have enough left.
+	 */
+	synchronized Decision acquire(long requestTokens) {
+		long now = System.nanoTime();
+		this.requests.refill(now);
+		this.tokens.refill(now);
+
+		String limit = null;
+		long retryAfter = 0;
+		if (this.requests.available < 1) {
+			limit = "requests";
+			retryAfter = this.requests.millisUntil(1);
+		}
+		else if (requestTokens > this.tokens.limit) {
+			limit = "tokens";
+			retryAfter = -1;
+		}
+		else if (this.tokens.available < requestTokens) {
+			limit = "tokens";
+			retryAfter = this.tokens.millisUntil(requestTokens);
+		}
+		else {
+			this.requests.available -= 1;
+			this.tokens.available -= requestTokens;
+		}
+
+		Map<String, String> headers = new LinkedHashMap<>();
+		headers.put("x-ratelimit-limit-requests", String.valueOf(this.requests.limit));
+		headers.put("x-ratelimit-limit-tokens", String.valueOf(this.tokens.limit));
+		headers.put("x-ratelimit-remaining-requests",
+				String.valueOf((long) this.requests.available));
+		headers.put("x-ratelimit-remaining-tokens",
+				String.valueOf((long) this.tokens.available));
+		headers.put("x-ratelimit-reset-requests",
+				duration(this.requests.millisUntil(this.requests.limit)));
+		headers.put("x-ratelimit-reset-tokens",
+				duration(this.tokens.millisUntil(this.tokens.limit)));
+		if (retryAfter > 0) {
+			headers.put("retry-after", String.valueOf((retryAfter + 999) / 1000));
+			headers.put("retry-after-ms", String.valueOf(retryAfter));
+		}
+		return new Decision(limit == null, limit, retryAfter, headers);
+	}
+
+	/**
+	 * Formats a duration like the API, for example 20ms, 1.5s or 6m0s.
+	 */
+	static String duration(long millis) {
+		if (millis < 1000) {
+			return millis + "ms";
+		}
+		if (millis < 60_000) {
+			double seconds = millis / 1000d;
+			return seconds == Math.rint(seconds) ? (long) seconds + "s" : seconds + "s";
+		}
+		return millis / 60_000 + "m" + millis % 60_000 / 1000 + "s";
+	}
+
+}
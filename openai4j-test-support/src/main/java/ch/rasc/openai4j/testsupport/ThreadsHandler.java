@@ -0,0 +1,617 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.testsupport;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * The /threads endpoints with messages and runs.
+ * <p>
+ * A run that is polled moves from queued over in_progress to completed within the
+ * configured run duration and adds an assistant message to the thread when it
+ * completes. If the run has function tools it stops in requires_action with a call of
+ * every function tool until the tool outputs are submitted. A streamed run sends the
+ * events of the same steps and the message deltas at the configured token rate.
+ */
+final class ThreadsHandler {
+
+	private static final class ThreadState {
+		private final String id = Generator.id("thread_");
+		private final int createdAt = Generator.now();
+		private final JsonNode metadata;
+		private final List<Message> messages = new ArrayList<>();
+		private final List<Run> runs = new ArrayList<>();
+
+		ThreadState(JsonNode metadata) {
+			this.metadata = metadata;
+		}
+
+		ObjectNode toJson() {
+			ObjectNode thread = Call.objectMapper.createObjectNode();
+			thread.put("id", this.id);
+			thread.put("object", "thread");
+			thread.put("created_at", this.createdAt);
+			thread.putObject("tool_resources");
+			thread.set("metadata", this.metadata);
+			return thread;
+		}
+	}
+
+	private static final class Message {
+		private final String id = Generator.id("msg_");
+		private final int createdAt = Generator.now();
+		private final String threadId;
+		private final String role;
+		private final ArrayNode content;
+		private final String assistantId;
+		private final String runId;
+		private final JsonNode metadata;
+		private String status = "completed";
+
+		Message(String threadId, String role, ArrayNode content, String assistantId,
+				String runId, JsonNode metadata) {
+			this.threadId = threadId;
+			this.role = role;
+			this.content = content;
+			this.assistantId = assistantId;
+			this.runId = runId;
+			this.metadata = metadata;
+		}
+
+		synchronized ObjectNode toJson() {
+			ObjectNode message = Call.objectMapper.createObjectNode();
+			message.put("id", this.id);
+			message.put("object", "thread.message");
+			message.put("created_at", this.createdAt);
+			message.put("thread_id", this.threadId);
+			message.put("status", this.status);
+			message.putNull("incomplete_details");
+			if (this.status.equals("completed")) {
+				message.put("completed_at", this.createdAt);
+			}
+			else {
+				message.putNull("completed_at");
+			}
+			message.putNull("incomplete_at");
+			message.put("role", this.role);
+			message.set("content", this.content.deepCopy());
+			message.put("assistant_id", this.assistantId);
+			message.put("run_id", this.runId);
+			message.putArray("attachments");
+			message.set("metadata", this.metadata);
+			return message;
+		}
+	}
+
+	private final class Run {
+		private final String id = Generator.id("run_");
+		private final int createdAt = Generator.now();
+		private final ThreadState thread;
+		private final ObjectNode request;
+		private final List<String> functions = new ArrayList<>();
+		private final boolean streamed;
+		private long phaseStart = System.nanoTime();
+		private String status = "queued";
+		private ArrayNode toolCalls;
+		private boolean toolOutputsSubmitted;
+		private Integer startedAt;
+		private Integer cancelledAt;
+		private Integer completedAt;
+		private int promptTokens;
+		private int completionTokens;
+
+		Run(ThreadState thread, ObjectNode request) {
+			this.thread = thread;
+			this.request = request;
+			this.streamed = request.path("stream").asBoolean();
+			for (JsonNode tool : request.path("tools")) {
+				if ("function".equals(tool.path("type").asText())) {
+					this.functions.add(tool.path("function").path("name").asText());
+				}
+			}
+		}
+
+		/**
+		 * Moves a polled run to the state it reached in the elapsed time.
+		 */
+		synchronized void advance() {
+			if (this.streamed) {
+				return;
+			}
+			long duration = ThreadsHandler.this.server.runDuration().toNanos();
+			double elapsed = (System.nanoTime() - this.phaseStart) / (double) duration;
+			if (this.status.equals("queued") && elapsed >= 0.1) {
+				start();
+				elapsed -= 0.1;
+			}
+			if (this.status.equals("in_progress")) {
+				if (needsToolOutputs()) {
+					if (elapsed >= 0.4) {
+						requireAction();
+					}
+				}
+				else if (elapsed >= (this.toolOutputsSubmitted ? 0.5 : 0.9)) {
+					complete(Generator
+							.tokens(ThreadsHandler.this.server.completionTokens()));
+				}
+			}
+		}
+
+		boolean needsToolOutputs() {
+			return !this.functions.isEmpty() && !this.toolOutputsSubmitted;
+		}
+
+		synchronized void start() {
+			this.status = "in_progress";
+			this.startedAt = Generator.now();
+			this.phaseStart = System.nanoTime();
+		}
+
+		synchronized void requireAction() {
+			this.status = "requires_action";
+			this.toolCalls = Call.objectMapper.createArrayNode();
+			for (String function : this.functions) {
+				ObjectNode toolCall = this.toolCalls.addObject();
+				toolCall.put("id", Generator.id("call_"));
+				toolCall.put("type", "function");
+				toolCall.putObject("function").put("name", function).put("arguments",
+						"{}");
+			}
+		}
+
+		synchronized void submitToolOutputs() {
+			this.toolOutputsSubmitted = true;
+			this.toolCalls = null;
+			this.status = "in_progress";
+			this.phaseStart = System.nanoTime();
+		}
+
+		synchronized Message complete(List<String> tokens) {
+			Message message = assistantMessage(this);
+			synchronized (message) {
+				message.content.add(textContent(String.join("", tokens)));
+			}
+			return complete(message, tokens.size());
+		}
+
+		synchronized Message complete(Message message, int tokens) {
+			this.status = "completed";
+			this.completedAt = Generator.now();
+			this.promptTokens = promptTokens(this.thread);
+			this.completionTokens = tokens;
+			return message;
+		}
+
+		synchronized boolean cancel() {
+			advance();
+			if (this.status.equals("completed") || this.status.equals("cancelled")) {
+				return false;
+			}
+			this.status = "cancelled";
+			this.cancelledAt = Generator.now();
+			this.toolCalls = null;
+			return true;
+		}
+
+		synchronized ObjectNode toJson() {
+			ObjectNode run = Call.objectMapper.createObjectNode();
+			run.put("id", this.id);
+			run.put("object", "thread.run");
+			run.put("created_at", this.createdAt);
+			run.put("thread_id", this.thread.id);
+			run.put("assistant_id", this.request.path("assistant_id").asText());
+			run.put("status", this.status);
+			if (this.toolCalls != null) {
+				ObjectNode requiredAction = run.putObject("required_action");
+				requiredAction.put("type", "submit_tool_outputs");
+				requiredAction.putObject("submit_tool_outputs").set("tool_calls",
+						this.toolCalls.deepCopy());
+			}
+			else {
+				run.putNull("required_action");
+			}
+			run.putNull("last_error");
+			run.put("expires_at", this.createdAt + 600);
+			run.put("started_at", this.startedAt);
+			run.put("cancelled_at", this.cancelledAt);
+			run.putNull("failed_at");
+			run.put("completed_at", this.completedAt);
+			run.put("model", this.request.path("model").asText("gpt-4o"));
+			run.put("instructions", this.request.path("instructions").asText(""));
+			run.set("tools", this.request.has("tools") ? this.request.get("tools")
+					: Call.objectMapper.createArrayNode());
+			run.set("metadata", this.request.get("metadata"));
+			if (this.status.equals("completed")) {
+				run.putObject("usage").put("prompt_tokens", this.promptTokens)
+						.put("completion_tokens", this.completionTokens)
+						.put("total_tokens", this.promptTokens + this.completionTokens);
+			}
+			else {
+				run.putNull("usage");
+			}
+			run.put("temperature", this.request.path("temperature").asDouble(1));
+			run.put("top_p", this.request.path("top_p").asDouble(1));
+			run.put("parallel_tool_calls", true);
+			return run;
+		}
+	}
+
+	private final FakeOpenAIServer server;
+
+	private final Map<String, ThreadState> threads = new ConcurrentHashMap<>();
+
+	private final Map<String, Run> runs = new ConcurrentHashMap<>();
+
+	ThreadsHandler(FakeOpenAIServer server) {
+		this.server = server;
+	}
+
+	void create(Call call) throws IOException {
+		call.json(200, createThread(call.json()).toJson());
+	}
+
+	void retrieve(Call call) throws IOException {
+		ThreadState thread = thread(call);
+		if (thread != null) {
+			call.json(200, thread.toJson());
+		}
+	}
+
+	void delete(Call call) throws IOException {
+		ThreadState thread = this.threads.remove(call.pathParam(1));
+		if (thread == null) {
+			call.notFound("thread", call.pathParam(1));
+			return;
+		}
+		ObjectNode response = Call.objectMapper.createObjectNode();
+		response.put("id", thread.id);
+		response.put("object", "thread.deleted");
+		response.put("deleted", true);
+		call.json(200, response);
+	}
+
+	void createMessage(Call call) throws IOException {
+		ThreadState thread = thread(call);
+		if (thread == null) {
+			return;
+		}
+		ObjectNode request = call.json();
+		if (!request.hasNonNull("role") || !request.hasNonNull("content")) {
+			call.error(400, "invalid_request_error",
+					"'role' and 'content' are required properties", null);
+			return;
+		}
+		call.json(200, addMessage(thread, request).toJson());
+	}
+
+	void listMessages(Call call) throws IOException {
+		ThreadState thread = thread(call);
+		if (thread != null) {
+			List<Message> messages;
+			synchronized (thread) {
+				messages = new ArrayList<>(thread.messages);
+			}
+			call.json(200, page(call, messages, m -> m.id, Message::toJson));
+		}
+	}
+
+	void retrieveMessage(Call call) throws IOException {
+		ThreadState thread = thread(call);
+		if (thread == null) {
+			return;
+		}
+		synchronized (thread) {
+			for (Message message : thread.messages) {
+				if (message.id.equals(call.pathParam(2))) {
+					call.json(200, message.toJson());
+					return;
+				}
+			}
+		}
+		call.notFound("message", call.pathParam(2));
+	}
+
+	void createRun(Call call) throws IOException, InterruptedException {
+		ThreadState thread = thread(call);
+		if (thread == null) {
+			return;
+		}
+		ObjectNode request = call.json();
+		if (!request.hasNonNull("assistant_id")) {
+			call.error(400, "invalid_request_error",
+					"'assistant_id' is a required property", null);
+			return;
+		}
+		for (JsonNode message : request.path("additional_messages")) {
+			addMessage(thread, (ObjectNode) message);
+		}
+		startRun(call, thread, request, false);
+	}
+
+	void createAndRun(Call call) throws IOException, InterruptedException {
+		ObjectNode request = call.json();
+		if (!request.hasNonNull("assistant_id")) {
+			call.error(400, "invalid_request_error",
+					"'assistant_id' is a required property", null);
+			return;
+		}
+		JsonNode threadRequest = request.path("thread");
+		ThreadState thread = createThread(threadRequest.isObject()
+				? (ObjectNode) threadRequest
+				: Call.objectMapper.createObjectNode());
+		startRun(call, thread, request, true);
+	}
+
+	void listRuns(Call call) throws IOException {
+		ThreadState thread = thread(call);
+		if (thread != null) {
+			List<Run> threadRuns;
+			synchronized (thread) {
+				threadRuns = new ArrayList<>(thread.runs);
+			}
+			threadRuns.forEach(Run::advance);
+			call.json(200, page(call, threadRuns, r -> r.id, Run::toJson));
+		}
+	}
+
+	void retrieveRun(Call call) throws IOException {
+		Run run = run(call);
+		if (run != null) {
+			run.advance();
+			call.json(200, run.toJson());
+		}
+	}
+
+	void cancelRun(Call call) throws IOException {
+		Run run = run(call);
+		if (run == null) {
+			return;
+		}
+		if (!run.cancel()) {
+			call.error(400, "invalid_request_error",
+					"Cannot cancel run with status '" + run.toJson().path("status").asText()
+							+ "'.",
+					null);
+			return;
+		}
+		call.json(200, run.toJson());
+	}
+
+	void submitToolOutputs(Call call) throws IOException, InterruptedException {
+		Run run = run(call);
+		if (run == null) {
+			return;
+		}
+		ObjectNode request = call.json();
+		run.advance();
+		synchronized (run) {
+			if (!run.status.equals("requires_action")) {
+				call.error(400, "invalid_request_error", "Runs in status \""
+						+ run.status + "\" do not accept tool outputs.", null);
+				return;
+			}
+			run.submitToolOutputs();
+		}
+		if (request.path("stream").asBoolean()) {
+			try (Call.EventStream events = call.eventStream()) {
+				events.event("thread.run.in_progress", run.toJson());
+				streamCompletion(events, run);
+			}
+		}
+		else {
+			call.json(200, run.toJson());
+		}
+	}
+
+	private ThreadState createThread(ObjectNode request) {
+		ThreadState thread = new ThreadState(request.get("metadata"));
+		for (JsonNode message : request.path("messages")) {
+			addMessage(thread, (ObjectNode) message);
+		}
+		this.threads.put(thread.id, thread);
+		return thread;
+	}
+
+	private static Message addMessage(ThreadState thread, ObjectNode request) {
+		ArrayNode content = Call.objectMapper.createArrayNode();
+		JsonNode requestContent = request.path("content");
+		if (requestContent.isTextual()) {
+			content.add(textContent(requestContent.asText()));
+		}
+		else {
+			for (JsonNode part : requestContent) {
+				if (part.path("text").isTextual()) {
+					content.add(textContent(part.path("text").asText()));
+				}
+				else {
+					content.add(part);
+				}
+			}
+		}
+		Message message = new Message(thread.id, request.path("role").asText("user"),
+				content, null, null, request.get("metadata"));
+		synchronized (thread) {
+			thread.messages.add(message);
+		}
+		return message;
+	}
+
+	private static Message assistantMessage(Run run) {
+		Message message = new Message(run.thread.id, "assistant",
+				Call.objectMapper.createArrayNode(),
+				run.request.path("assistant_id").asText(), run.id, null);
+		synchronized (run.thread) {
+			run.thread.messages.add(message);
+		}
+		return message;
+	}
+
+	private static ObjectNode textContent(String text) {
+		ObjectNode content = Call.objectMapper.createObjectNode();
+		content.put("type", "text");
+		content.putObject("text").put("value", text).putArray("annotations");
+		return content;
+	}
+
+	private static int promptTokens(ThreadState thread) {
+		ArrayNode contents = Call.objectMapper.createArrayNode();
+		synchronized (thread) {
+			for (Message message : thread.messages) {
+				contents.addAll(message.content);
+			}
+		}
+		return Generator.estimateTokens(contents);
+	}
+
+	private void startRun(Call call, ThreadState thread, ObjectNode request,
+			boolean threadCreated) throws IOException, InterruptedException {
+		if (!this.server.admit(call,
+				promptTokens(thread) + this.server.completionTokens())) {
+			return;
+		}
+		Run run = new Run(thread, request);
+		synchronized (thread) {
+			thread.runs.add(run);
+		}
+		this.runs.put(run.id, run);
+
+		if (!run.streamed) {
+			call.json(200, run.toJson());
+			return;
+		}
+
+		try (Call.EventStream events = call.eventStream()) {
+			if (threadCreated) {
+				events.event("thread.created", thread.toJson());
+			}
+			events.event("thread.run.created", run.toJson());
+			events.event("thread.run.queued", run.toJson());
+			run.start();
+			events.event("thread.run.in_progress", run.toJson());
+			if (run.needsToolOutputs()) {
+				this.server.pace(8);
+				run.requireAction();
+				events.event("thread.run.requires_action", run.toJson());
+				events.write("done", "[DONE]");
+				return;
+			}
+			streamCompletion(events, run);
+		}
+	}
+
+	private void streamCompletion(Call.EventStream events, Run run)
+			throws IOException, InterruptedException {
+		Message message = assistantMessage(run);
+		synchronized (message) {
+			message.status = "in_progress";
+		}
+		events.event("thread.message.created", message.toJson());
+		events.event("thread.message.in_progress", message.toJson());
+
+		StringBuilder text = new StringBuilder();
+		List<String> tokens = Generator.tokens(this.server.completionTokens());
+		for (String token : tokens) {
+			this.server.pace(1);
+			text.append(token);
+			ObjectNode delta = Call.objectMapper.createObjectNode();
+			delta.put("id", message.id);
+			delta.put("object", "thread.message.delta");
+			ObjectNode content = delta.putObject("delta").putArray("content").addObject();
+			content.put("index", 0);
+			content.put("type", "text");
+			content.putObject("text").put("value", token).putArray("annotations");
+			events.event("thread.message.delta", delta);
+		}
+
+		synchronized (message) {
+			message.content.add(textContent(text.toString()));
+			message.status = "completed";
+		}
+		events.event("thread.message.completed", message.toJson());
+		run.complete(message, tokens.size());
+		events.event("thread.run.completed", run.toJson());
+		events.write("done", "[DONE]");
+	}
+
+	private ThreadState thread(Call call) throws IOException {
+		ThreadState thread = this.threads.get(call.pathParam(1));
+		if (thread == null) {
+			call.notFound("thread", call.pathParam(1));
+		}
+		return thread;
+	}
+
+	private Run run(Call call) throws IOException {
+		Run run = this.runs.get(call.pathParam(2));
+		if (run == null || !run.thread.id.equals(call.pathParam(1))) {
+			call.notFound("run", call.pathParam(2));
+			return null;
+		}
+		return run;
+	}
+
+	/**
+	 * Returns a page of a list in the order, limit and cursors of the query parameters.
+	 * Lists are ordered by creation, newest first by default.
+	 */
+	private static <T> ObjectNode page(Call call, List<T> items, Function<T, String> id,
+			Function<T, ObjectNode> toJson) {
+		List<T> ordered = new ArrayList<>(items);
+		if (!"asc".equals(call.query("order"))) {
+			Collections.reverse(ordered);
+		}
+		String after = call.query("after");
+		String before = call.query("before");
+		int from = 0;
+		int to = ordered.size();
+		for (int i = 0; i < ordered.size(); i++) {
+			String itemId = id.apply(ordered.get(i));
+			if (itemId.equals(after)) {
+				from = i + 1;
+			}
+			if (itemId.equals(before)) {
+				to = i;
+			}
+		}
+		int limit = 20;
+		String limitParam = call.query("limit");
+		if (limitParam != null) {
+			limit = Math.max(1, Math.min(100, Integer.parseInt(limitParam)));
+		}
+		List<T> page = ordered.subList(from, Math.max(from, Math.min(to, from + limit)));
+
+		ObjectNode response = Call.objectMapper.createObjectNode();
+		response.put("object", "list");
+		ArrayNode data = response.putArray("data");
+		page.forEach(item -> data.add(toJson.apply(item)));
+		response.put("first_id", page.isEmpty() ? null : id.apply(page.get(0)));
+		response.put("last_id",
+				page.isEmpty() ? null : id.apply(page.get(page.size() - 1)));
+		response.put("has_more", from + page.size() < to);
+		return response;
+	}
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.testsupport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * The /uploads endpoints. A completed upload is added to the files.
+ */
+final class UploadsHandler {
+
+	private static final class Upload {
+		private final String id = Generator.id("upload_");
+		private final int createdAt = Generator.now();
+		private final String filename;
+		private final String purpose;
+		private final long bytes;
+		private final Map<String, byte[]> parts = new ConcurrentHashMap<>();
+		private String status = "pending";
+		private FilesHandler.StoredFile file;
+
+		Upload(String filename, String purpose, long bytes) {
+			this.filename = filename;
+			this.purpose = purpose;
+			this.bytes = bytes;
+		}
+
+		synchronized ObjectNode toJson() {
+			ObjectNode upload = Call.objectMapper.createObjectNode();
+			upload.put("id", this.id);
+			upload.put("object", "upload");
+			upload.put("bytes", this.bytes);
+			upload.put("created_at", this.createdAt);
+			upload.put("filename", this.filename);
+			upload.put("purpose", this.purpose);
+			upload.put("status", this.status);
+			upload.put("expires_at", this.createdAt + 3600);
+			if (this.file != null) {
+				upload.set("file", this.file.toJson());
+			}
+			else {
+				upload.putNull("file");
+			}
+			return upload;
+		}
+	}
+
+	private final FilesHandler files;
+
+	private final Map<String, Upload> uploads = new ConcurrentHashMap<>();
+
+	UploadsHandler(FilesHandler files) {
+		this.files = files;
+	}
+
+	void create(Call call) throws IOException {
+		ObjectNode request = call.json();
+		if (!request.hasNonNull("filename") || !request.hasNonNull("purpose")
+				|| !request.hasNonNull("bytes")) {
+			call.error(400, "invalid_request_error",
+					"'filename', 'purpose' and 'bytes' are required properties", null);
+			return;
+		}
+		Upload upload = new Upload(request.get("filename").asText(),
+				request.get("purpose").asText(), request.get("bytes").asLong());
+		this.uploads.put(upload.id, upload);
+		call.json(200, upload.toJson());
+	}
+
+	void addPart(Call call) throws IOException {
+		Upload upload = pending(call);
+		if (upload == null) {
+			return;
+		}
+		Multipart.Part data = call.multipart().part("data");
+		if (data == null) {
+			call.error(400, "invalid_request_error", "'data' is a required property",
+					null);
+			return;
+		}
+		String partId = Generator.id("part_");
+		upload.parts.put(partId, data.data());
+
+		ObjectNode part = Call.objectMapper.createObjectNode();
+		part.put("id", partId);
+		part.put("object", "upload.part");
+		part.put("created_at", Generator.now());
+		part.put("upload_id", upload.id);
+		call.json(200, part);
+	}
+
+	void complete(Call call) throws IOException {
+		Upload upload = pending(call);
+		if (upload == null) {
+			return;
+		}
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		for (JsonNode partId : call.json().path("part_ids")) {
+			byte[] part = upload.parts.get(partId.asText());
+			if (part == null) {
+				call.error(400, "invalid_request_error",
+						"Part " + partId.asText() + " does not exist", null);
+				return;
+			}
+			content.write(part);
+		}
+		if (content.size() != upload.bytes) {
+			call.error(400, "invalid_request_error", "The upload was created with "
+					+ upload.bytes + " bytes but the parts have " + content.size()
+					+ " bytes", null);
+			return;
+		}
+		synchronized (upload) {
+			upload.file = this.files.add(upload.filename, upload.purpose,
+					content.toByteArray());
+			upload.status = "completed";
+		}
+		call.json(200, upload.toJson());
+	}
+
+	void cancel(Call call) throws IOException {
+		Upload upload = pending(call);
+		if (upload == null) {
+			return;
+		}
+		synchronized (upload) {
+			upload.status = "cancelled";
+		}
+		call.json(200, upload.toJson());
+	}
+
+	private Upload pending(Call call) throws IOException {
+		Upload upload = this.uploads.get(call.pathParam(1));
+		if (upload == null) {
+			call.notFound("upload", call.pathParam(1));
+			return null;
+		}
+		String status;
+		synchronized (upload) {
+			status = upload.status;
+		}
+		if (!status.equals("pending")) {
+			call.error(400, "invalid_request_error",
+					"Upload is " + status + ", not pending", null);
+			return null;
+		}
+		return upload;
+	}
+
+}
@@ -18,6 +18,10 @@ package ch.rasc.openai4j;
 import java.util.Objects;
 import java.util.concurrent.TimeUnit;
 
+import ch.rasc.openai4j.jfr.FlightRecorderEvents;
+import ch.rasc.openai4j.metrics.OpenAIMetrics;
+import ch.rasc.openai4j.tracing.OpenAITracer;
+import ch.rasc.openai4j.usage.UsageLedger;
 import feign.Client;
 import feign.Logger;
 import feign.Logger.Level;
@@ -44,6 +48,10 @@ public class Configuration {
 	private final String azureEndpoint;
 	private final String apiVersion;
 	private final String azureDeployment;
+	private final OpenAIMetrics metrics;
+	private final boolean flightRecorderEvents;
+	private final OpenAITracer tracer;
+	private final UsageLedger usageLedger;
 
 	private Configuration(Builder builder) {
 		if (builder.apiKey == null) {
@@ -68,6 +76,11 @@ public class Configuration {
 		this.azureEndpoint = builder.azureEndpoint;
 		this.apiVersion = builder.apiVersion;
 		this.azureDeployment = builder.azureDeployment;
+		this.metrics = builder.metrics;
+		this.flightRecorderEvents = FlightRecorderEvents.available() && Objects
+				.requireNonNullElse(builder.flightRecorderEvents, true);
+		this.tracer = builder.tracer;
+		this.usageLedger = builder.usageLedger;
 	}
 
 	public static Builder builder() {
@@ -88,6 +101,10 @@ public class Configuration {
 		private String azureEndpoint;
 		private String apiVersion;
 		private String azureDeployment;
+		private OpenAIMetrics metrics;
+		private Boolean flightRecorderEvents;
+		private OpenAITracer tracer;
+		private UsageLedger usageLedger;
 
 		private Builder() {
 		}
@@ -164,6 +181,44 @@ public class Configuration {
 			return this;
 		}
 
+		/**
+		 * Receives the latency, status code, retries and token usage of every call.
+		 * Use {@link ch.rasc.openai4j.metrics.InMemoryOpenAIMetrics} or a bridge to a
+		 * metrics library. Not set by default.
+		 */
+		public Builder metrics(OpenAIMetrics metrics) {
+			this.metrics = metrics;
+			return this;
+		}
+
+		/**
+		 * Emit Java Flight Recorder events for every call and retry. The events cost
+		 * almost nothing while no recording is running. Ignored on runtimes without the
+		 * jdk.jfr module. Defaults to true when the module is present.
+		 */
+		public Builder flightRecorderEvents(boolean flightRecorderEvents) {
+			this.flightRecorderEvents = flightRecorderEvents;
+			return this;
+		}
+
+		/**
+		 * Traces the encoding, HTTP exchange, decoding and retries of every call. Not set
+		 * by default.
+		 */
+		public Builder tracer(OpenAITracer tracer) {
+			this.tracer = tracer;
+			return this;
+		}
+
+		/**
+		 * Records the token usage of every chat completion, embedding and thread run
+		 * response. Not set by default.
+		 */
+		public Builder usageLedger(UsageLedger usageLedger) {
+			this.usageLedger = usageLedger;
+			return this;
+		}
+
 		public Configuration build() {
 			return new Configuration(this);
 		}
@@ -220,4 +275,20 @@ public class Configuration {
 	public String azureDeployment() {
 		return this.azureDeployment;
 	}
+
+	public OpenAIMetrics metrics() {
+		return this.metrics;
+	}
+
+	public boolean flightRecorderEvents() {
+		return this.flightRecorderEvents;
+	}
+
+	public OpenAITracer tracer() {
+		return this.tracer;
+	}
+
+	public UsageLedger usageLedger() {
+		return this.usageLedger;
+	}
 }
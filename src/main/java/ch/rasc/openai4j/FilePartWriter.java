@@ -0,0 +1,63 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import ch.rasc.openai4j.common.FilePart;
+import feign.codec.EncodeException;
+import feign.form.multipart.AbstractWriter;
+import feign.form.multipart.Output;
+
+/**
+ * feign-form writer that copies a {@link FilePart} into the multipart/form-data body.
+ */
+public class FilePartWriter extends AbstractWriter {
+
+	@Override
+	public boolean isApplicable(Object value) {
+		return value instanceof FilePart;
+	}
+
+	@Override
+	protected void write(Output output, String key, Object value)
+			throws EncodeException {
+		FilePart filePart = (FilePart) value;
+		writeFileMetadata(output, key, filePart.filename(), filePart.contentType());
+		try {
+			filePart.writeTo(new OutputStream() {
+				private final byte[] single = new byte[1];
+
+				@Override
+				public void write(int b) {
+					this.single[0] = (byte) b;
+					output.write(this.single, 0, 1);
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) {
+					output.write(b, off, len);
+				}
+			});
+		}
+		catch (IOException e) {
+			throw new EncodeException("Writing file part " + filePart.filename()
+					+ " failed", e);
+		}
+	}
+
+}
@@ -27,20 +27,26 @@ import ch.rasc.openai4j.embeddings.EmbeddingsClient;
 import ch.rasc.openai4j.files.FilesClient;
 import ch.rasc.openai4j.finetuningjobs.FineTuningJobsClient;
 import ch.rasc.openai4j.images.ImagesClient;
+import ch.rasc.openai4j.jfr.FlightRecorderCapability;
+import ch.rasc.openai4j.metrics.MetricsCapability;
 import ch.rasc.openai4j.models.ModelsClient;
 import ch.rasc.openai4j.moderations.ModerationsClient;
 import ch.rasc.openai4j.threads.ThreadsClient;
 import ch.rasc.openai4j.threads.messages.ThreadsMessagesClient;
 import ch.rasc.openai4j.threads.runs.ThreadsRunsClient;
 import ch.rasc.openai4j.threads.runs.steps.ThreadsRunsStepsClient;
+import ch.rasc.openai4j.tracing.TracingCapability;
 import ch.rasc.openai4j.uploads.UploadsClient;
+import ch.rasc.openai4j.usage.UsageCapability;
 import ch.rasc.openai4j.vectorstores.VectorStoresClient;
 import ch.rasc.openai4j.vectorstores.filebatches.VectorStoresFileBatchesClient;
 import ch.rasc.openai4j.vectorstores.files.VectorStoresFilesClient;
 import feign.Feign;
 import feign.Feign.Builder;
 import feign.RequestInterceptor;
+import feign.form.ContentType;
 import feign.form.FormEncoder;
+import feign.form.MultipartFormContentProcessor;
 import feign.jackson.JacksonDecoder;
 import feign.jackson.JacksonEncoder;
 
@@ -76,6 +82,9 @@ public class OpenAIClient {
 		JacksonDecoder jsonDecoder = new JacksonDecoder();
 		JacksonEncoder jsonEncoder = new JacksonEncoder();
 		FormEncoder formAndJsonEncoder = new FormEncoder(jsonEncoder);
+		((MultipartFormContentProcessor) formAndJsonEncoder
+				.getContentProcessor(ContentType.MULTIPART))
+				.addFirstWriter(new FilePartWriter());
 
 		List<RequestInterceptor> interceptors = new ArrayList<>();
 
@@ -177,33 +186,42 @@ public class OpenAIClient {
 	private static Builder formAndJsonClientBuilder(Configuration configuration,
 			JacksonDecoder jsonDecoder, FormEncoder formAndJsonEncoder,
 			List<RequestInterceptor> interceptors) {
-		return Feign.builder().client(configuration.client())
-				.errorDecoder(configuration.errorDecoder())
-				.retryer(configuration.retryer()).options(configuration.feignOptions())
-				.logger(configuration.logger()).logLevel(configuration.logLevel())
-				.decoder(jsonDecoder).encoder(formAndJsonEncoder)
-				.requestInterceptors(interceptors);
+		return feignBuilder(configuration).decoder(jsonDecoder)
+				.encoder(formAndJsonEncoder).requestInterceptors(interceptors);
 	}
 
 	private static Builder jsonClientBuilder(Configuration configuration,
 			JacksonDecoder jsonDecoder, JacksonEncoder jsonEncoder,
 			List<RequestInterceptor> interceptors) {
-		return Feign.builder().client(configuration.client())
-				.errorDecoder(configuration.errorDecoder())
-				.retryer(configuration.retryer()).options(configuration.feignOptions())
-				.logger(configuration.logger()).logLevel(configuration.logLevel())
-				.decoder(jsonDecoder).encoder(jsonEncoder)
+		return feignBuilder(configuration).decoder(jsonDecoder).encoder(jsonEncoder)
 				.requestInterceptors(interceptors);
 	}
 
 	private static Builder betaClientBuilder(Configuration configuration,
 			JacksonDecoder jsonDecoder, JacksonEncoder jsonEncoder,
 			ArrayList<RequestInterceptor> betaInterceptors) {
-		return Feign.builder().client(configuration.client())
+		return feignBuilder(configuration).decoder(jsonDecoder).encoder(jsonEncoder)
+				.requestInterceptors(betaInterceptors);
+	}
+
+	private static Builder feignBuilder(Configuration configuration) {
+		Builder builder = Feign.builder().client(configuration.client())
 				.errorDecoder(configuration.errorDecoder())
 				.retryer(configuration.retryer()).options(configuration.feignOptions())
-				.logger(configuration.logger()).logLevel(configuration.logLevel())
-				.decoder(jsonDecoder).encoder(jsonEncoder)
-				.requestInterceptors(betaInterceptors);
+				.logger(configuration.logger()).logLevel(configuration.logLevel());
+		if (configuration.metrics() != null) {
+			builder.addCapability(new MetricsCapability(configuration.metrics()));
+		}
+		if (configuration.tracer() != null) {
+			builder.addCapability(new TracingCapability(configuration.tracer()));
+		}
+		if (configuration.usageLedger() != null) {
+			builder.addCapability(new UsageCapability(configuration.usageLedger()));
+		}
+		// added last, it has to see the response returned to the decoder
+		if (configuration.flightRecorderEvents()) {
+			builder.addCapability(new FlightRecorderCapability());
+		}
+		return builder;
 	}
 }
@@ -16,6 +16,7 @@
 package ch.rasc.openai4j;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Map;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -56,4 +57,22 @@ public class OpenAIErrorDecoder implements ErrorDecoder {
 		return this.defaultErrorDecoder.decode(methodKey, response);
 	}
 
+	/**
+	 * Throws the decoded error if the status of a response returned as raw
+	 * {@link Response} is not 2xx. Feign does not check the status of raw responses.
+	 *
+	 * @throws UncheckedIOException wrapping {@link OpenAIApiException} if the body
+	 * contains an OpenAI error object
+	 */
+	public static void checkStatus(String methodKey, Response response) {
+		if (response.status() >= 200 && response.status() < 300) {
+			return;
+		}
+		Exception e = new OpenAIErrorDecoder().decode(methodKey, response);
+		if (e instanceof RuntimeException re) {
+			throw re;
+		}
+		throw new UncheckedIOException((IOException) e);
+	}
+
 }
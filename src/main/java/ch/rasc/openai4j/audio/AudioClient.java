@@ -20,6 +20,7 @@ import java.util.List;
 import java.util.function.Function;
 
 import ch.rasc.openai4j.audio.AudioTranscriptionRequest.TimestampGranularity;
+import ch.rasc.openai4j.common.FilePart;
 import feign.Headers;
 import feign.Param;
 import feign.RequestLine;
@@ -46,6 +47,28 @@ public interface AudioClient {
 		return this.create(fn.apply(AudioSpeechRequest.builder()).build());
 	}
 
+	/**
+	 * Generates audio from the input text. Returns as soon as the response headers are
+	 * received, the audio is read while the server is still generating it.
+	 *
+	 * @return The audio stream. Must be closed if not read to the end.
+	 */
+	default AudioSpeechStream createStream(AudioSpeechRequest request) {
+		long start = System.nanoTime();
+		return AudioSpeechStream.of(this.create(request), start);
+	}
+
+	/**
+	 * Generates audio from the input text. Returns as soon as the response headers are
+	 * received, the audio is read while the server is still generating it.
+	 *
+	 * @return The audio stream. Must be closed if not read to the end.
+	 */
+	default AudioSpeechStream createStream(
+			Function<AudioSpeechRequest.Builder, AudioSpeechRequest.Builder> fn) {
+		return this.createStream(fn.apply(AudioSpeechRequest.builder()).build());
+	}
+
 	/**
 	 * Transcribes audio into the input language.
 	 *
@@ -65,15 +88,22 @@ public interface AudioClient {
 	default AudioTranscriptionResponse transcriptionsCreate(
 			AudioTranscriptionRequest request) {
 
+		String responseFormat = request.responseFormat() != null
+				? request.responseFormat().value()
+				: null;
+		List<String> timestampGranularities = request.timestampGranularities() != null
+				? request.timestampGranularities().stream()
+						.map(TimestampGranularity::value).toList()
+				: null;
+
+		if (request.filePart() != null) {
+			return this.transcriptionsCreate(request.filePart(), request.model().value(),
+					request.language(), request.prompt(), responseFormat,
+					request.temperature(), timestampGranularities);
+		}
 		return this.transcriptionsCreate(request.file().toFile(), request.model().value(),
-				request.language(), request.prompt(),
-				request.responseFormat() != null ? request.responseFormat().value()
-						: null,
-				request.temperature(),
-				request.timestampGranularities() != null
-						? request.timestampGranularities().stream()
-								.map(TimestampGranularity::value).toList()
-						: null);
+				request.language(), request.prompt(), responseFormat,
+				request.temperature(), timestampGranularities);
 	}
 
 	/**
@@ -90,6 +120,21 @@ public interface AudioClient {
 			@Param("temperature") Double temperature,
 			@Param("timestamp_granularities[]") List<String> timestampGranularities);
 
+	/**
+	 * Transcribes audio into the input language. The audio content is streamed into the
+	 * request without a temporary file.
+	 *
+	 * @return The transcribed text.
+	 */
+	@RequestLine("POST /audio/transcriptions")
+	@Headers("Content-Type: multipart/form-data")
+	AudioTranscriptionResponse transcriptionsCreate(@Param("file") FilePart file,
+			@Param("model") String model, @Param("language") String language,
+			@Param("prompt") String prompt,
+			@Param("response_format") String responseFormat,
+			@Param("temperature") Double temperature,
+			@Param("timestamp_granularities[]") List<String> timestampGranularities);
+
 	/**
 	 * Translates audio into English.
 	 *
@@ -107,11 +152,16 @@ public interface AudioClient {
 	 * @return The translated text.
 	 */
 	default AudioTranslationResponse translationsCreate(AudioTranslationRequest request) {
+		String responseFormat = request.responseFormat() != null
+				? request.responseFormat().value()
+				: null;
+
+		if (request.filePart() != null) {
+			return this.translationsCreate(request.filePart(), request.model().value(),
+					request.prompt(), responseFormat, request.temperature());
+		}
 		return this.translationsCreate(request.file().toFile(), request.model().value(),
-				request.prompt(),
-				request.responseFormat() != null ? request.responseFormat().value()
-						: null,
-				request.temperature());
+				request.prompt(), responseFormat, request.temperature());
 	}
 
 	/**
@@ -126,4 +176,17 @@ public interface AudioClient {
 			@Param("response_format") String responseFormat,
 			@Param("temperature") Double temperature);
 
+	/**
+	 * Translates audio into English. The audio content is streamed into the request
+	 * without a temporary file.
+	 *
+	 * @return The translated text.
+	 */
+	@RequestLine("POST /audio/translations")
+	@Headers("Content-Type: multipart/form-data")
+	AudioTranslationResponse translationsCreate(@Param("file") FilePart file,
+			@Param("model") String model, @Param("prompt") String prompt,
+			@Param("response_format") String responseFormat,
+			@Param("temperature") Double temperature);
+
 }
@@ -24,7 +24,7 @@ import com.fasterxml.jackson.annotation.JsonValue;
 
 @JsonInclude(Include.NON_EMPTY)
 @JsonAutoDetect(fieldVisibility = Visibility.ANY)
-@SuppressWarnings({ "unused", "hiding" })
+@SuppressWarnings("hiding")
 public class AudioSpeechRequest {
 
 	private final SpeechModel model;
@@ -157,4 +157,24 @@ public class AudioSpeechRequest {
 		}
 	}
 
+	public SpeechModel model() {
+		return this.model;
+	}
+
+	public String input() {
+		return this.input;
+	}
+
+	public Voice voice() {
+		return this.voice;
+	}
+
+	public AudioResponseFormat responseFormat() {
+		return this.responseFormat;
+	}
+
+	public Double speed() {
+		return this.speed;
+	}
+
 }
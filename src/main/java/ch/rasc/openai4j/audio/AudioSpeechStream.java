@@ -0,0 +1,222 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.audio;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import ch.rasc.openai4j.OpenAIErrorDecoder;
+import ch.rasc.openai4j.common.PullPublisher;
+import feign.Response;
+
+/**
+ * Audio returned by the speech endpoint that is consumed while it is being received.
+ * <p>
+ * The body can be read once, either as {@link #inputStream()}, with
+ * {@link #nextChunk()} or by subscribing to {@link #publisher(Executor)}. The stream
+ * must be closed when it is not read to the end.
+ */
+public class AudioSpeechStream implements Closeable {
+
+	/**
+	 * Maximum size of the chunks returned by {@link #nextChunk()} and published by
+	 * {@link #publisher(Executor)}.
+	 */
+	public static final int CHUNK_SIZE = 8192;
+
+	private final Response response;
+	private final long startNanos;
+	private final long headersNanos;
+	private final AtomicLong firstByteNanos = new AtomicLong();
+	private final AtomicLong bytesReceived = new AtomicLong();
+	private final AtomicReference<String> consumer = new AtomicReference<>();
+	private final InputStream body;
+
+	/**
+	 * Creates a stream from the response of {@link AudioClient#create(AudioSpeechRequest)}.
+	 *
+	 * @param response The response of the speech endpoint
+	 * @param startNanos {@link System#nanoTime()} when the request was sent
+	 * @throws UncheckedIOException If the body cannot be opened or the API returned an
+	 * error
+	 */
+	public static AudioSpeechStream of(Response response, long startNanos) {
+		long headersNanos = System.nanoTime();
+		OpenAIErrorDecoder.checkStatus("AudioClient#create", response);
+		try {
+			return new AudioSpeechStream(response, startNanos, headersNanos);
+		}
+		catch (IOException e) {
+			response.close();
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private AudioSpeechStream(Response response, long startNanos, long headersNanos)
+			throws IOException {
+		this.response = response;
+		this.startNanos = startNanos;
+		this.headersNanos = headersNanos;
+		this.body = response.body() != null
+				? new TimingInputStream(response.body().asInputStream())
+				: InputStream.nullInputStream();
+	}
+
+	private final class TimingInputStream extends FilterInputStream {
+
+		TimingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b != -1) {
+				received(1);
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			if (n > 0) {
+				received(n);
+			}
+			return n;
+		}
+
+		private void received(int n) {
+			if (AudioSpeechStream.this.bytesReceived.getAndAdd(n) == 0) {
+				AudioSpeechStream.this.firstByteNanos.compareAndSet(0, System.nanoTime());
+			}
+		}
+	}
+
+	private boolean consume(String by) {
+		return this.consumer.compareAndSet(null, by) || by.equals(this.consumer.get())
+				&& by.equals("nextChunk");
+	}
+
+	private IllegalStateException alreadyConsumed() {
+		return new IllegalStateException(
+				"The audio stream has already been consumed by " + this.consumer.get());
+	}
+
+	/**
+	 * Returns the audio as an InputStream. Reads return as soon as bytes arrive from
+	 * the server. Closing the InputStream closes this stream.
+	 */
+	public InputStream inputStream() {
+		if (!consume("inputStream")) {
+			throw alreadyConsumed();
+		}
+		return new FilterInputStream(this.body) {
+			@Override
+			public void close() throws IOException {
+				AudioSpeechStream.this.close();
+			}
+		};
+	}
+
+	/**
+	 * Reads the next bytes that arrived from the server. Blocks until at least one byte
+	 * is available.
+	 *
+	 * @return A buffer with at most {@link #CHUNK_SIZE} bytes, or null at the end of the
+	 * audio
+	 */
+	public ByteBuffer nextChunk() throws IOException {
+		if (!consume("nextChunk")) {
+			throw alreadyConsumed();
+		}
+		return readChunk();
+	}
+
+	private ByteBuffer readChunk() throws IOException {
+		byte[] chunk = new byte[CHUNK_SIZE];
+		int n = this.body.read(chunk);
+		if (n == -1) {
+			return null;
+		}
+		return ByteBuffer.wrap(chunk, 0, n);
+	}
+
+	/**
+	 * Returns a publisher of the audio chunks. The body is read on the executor, only
+	 * when the subscriber requested more chunks. The publisher accepts one subscriber
+	 * and closes this stream after the last chunk, an error or cancellation.
+	 */
+	public Flow.Publisher<ByteBuffer> publisher(Executor executor) {
+		return subscriber -> {
+			if (!consume("publisher")) {
+				PullPublisher.reject(subscriber, alreadyConsumed());
+				return;
+			}
+			PullPublisher.subscribe(subscriber, this::readChunk, executor, this::close);
+		};
+	}
+
+	/**
+	 * The Content-Type of the audio, for example audio/mpeg.
+	 */
+	public String contentType() {
+		Collection<String> values = this.response.headers().get("content-type");
+		return values != null && !values.isEmpty() ? values.iterator().next() : null;
+	}
+
+	/**
+	 * Time from sending the request until the response headers were received.
+	 */
+	public Duration timeToHeaders() {
+		return Duration.ofNanos(this.headersNanos - this.startNanos);
+	}
+
+	/**
+	 * Time from sending the request until the first byte of audio was read, or null
+	 * when no audio was read yet.
+	 */
+	public Duration timeToFirstByte() {
+		long firstByte = this.firstByteNanos.get();
+		return firstByte != 0 ? Duration.ofNanos(firstByte - this.startNanos) : null;
+	}
+
+	/**
+	 * Number of audio bytes read so far.
+	 */
+	public long bytesReceived() {
+		return this.bytesReceived.get();
+	}
+
+	/**
+	 * Closes the connection. Audio that has not been read is discarded.
+	 */
+	@Override
+	public void close() {
+		this.response.close();
+	}
+
+}
@@ -21,10 +21,13 @@ import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonValue;
 
+import ch.rasc.openai4j.common.FilePart;
+
 @SuppressWarnings("hiding")
 public class AudioTranscriptionRequest {
 
 	private final Path file;
+	private final FilePart filePart;
 	private final AudioRecognitionModel model;
 	private final String language;
 	private final String prompt;
@@ -48,7 +51,7 @@ public class AudioTranscriptionRequest {
 	}
 
 	private AudioTranscriptionRequest(Builder builder) {
-		if (builder.file == null) {
+		if (builder.file == null && builder.filePart == null) {
 			throw new IllegalArgumentException("file must not be null");
 		}
 		if (builder.model == null) {
@@ -63,6 +66,7 @@ public class AudioTranscriptionRequest {
 		}
 
 		this.file = builder.file;
+		this.filePart = builder.filePart;
 		this.model = builder.model;
 		this.language = builder.language;
 		this.prompt = builder.prompt;
@@ -77,6 +81,7 @@ public class AudioTranscriptionRequest {
 
 	public static final class Builder {
 		private Path file;
+		private FilePart filePart;
 		private AudioRecognitionModel model;
 		private String language;
 		private String prompt;
@@ -93,6 +98,18 @@ public class AudioTranscriptionRequest {
 		 */
 		public Builder file(Path file) {
 			this.file = file;
+			this.filePart = null;
+			return this;
+		}
+
+		/**
+		 * The audio content to transcribe, in one of these formats: flac, mp3, mp4,
+		 * mpeg, mpga, m4a, ogg, wav, or webm. The content is streamed into the request
+		 * without a temporary file.
+		 */
+		public Builder file(FilePart filePart) {
+			this.filePart = filePart;
+			this.file = null;
 			return this;
 		}
 
@@ -171,6 +188,10 @@ public class AudioTranscriptionRequest {
 		return this.file;
 	}
 
+	public FilePart filePart() {
+		return this.filePart;
+	}
+
 	public AudioRecognitionModel model() {
 		return this.model;
 	}
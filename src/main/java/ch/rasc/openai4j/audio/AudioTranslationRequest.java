@@ -17,23 +17,27 @@ package ch.rasc.openai4j.audio;
 
 import java.nio.file.Path;
 
+import ch.rasc.openai4j.common.FilePart;
+
 @SuppressWarnings("hiding")
 public class AudioTranslationRequest {
 
 	private final Path file;
+	private final FilePart filePart;
 	private final AudioRecognitionModel model;
 	private final String prompt;
 	private final AudioRecognitionResponseFormat responseFormat;
 	private final Double temperature;
 
 	private AudioTranslationRequest(Builder builder) {
-		if (builder.file == null) {
+		if (builder.file == null && builder.filePart == null) {
 			throw new IllegalArgumentException("file must not be null");
 		}
 		if (builder.model == null) {
 			throw new IllegalArgumentException("model must not be null");
 		}
 		this.file = builder.file;
+		this.filePart = builder.filePart;
 		this.model = builder.model;
 		this.prompt = builder.prompt;
 		this.responseFormat = builder.responseFormat;
@@ -46,6 +50,7 @@ public class AudioTranslationRequest {
 
 	public static final class Builder {
 		private Path file;
+		private FilePart filePart;
 		private AudioRecognitionModel model;
 		private String prompt;
 		private AudioRecognitionResponseFormat responseFormat;
@@ -60,6 +65,18 @@ public class AudioTranslationRequest {
 		 */
 		public Builder file(Path file) {
 			this.file = file;
+			this.filePart = null;
+			return this;
+		}
+
+		/**
+		 * The audio content to translate, in one of these formats: flac, mp3, mp4,
+		 * mpeg, mpga, m4a, ogg, wav, or webm. The content is streamed into the request
+		 * without a temporary file.
+		 */
+		public Builder file(FilePart filePart) {
+			this.filePart = filePart;
+			this.file = null;
 			return this;
 		}
 
@@ -111,6 +128,10 @@ public class AudioTranslationRequest {
 		return this.file;
 	}
 
+	public FilePart filePart() {
+		return this.filePart;
+	}
+
 	public AudioRecognitionModel model() {
 		return this.model;
 	}
@@ -0,0 +1,231 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.audio.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Prepares recordings for transcription. Downmixes to mono, resamples to 16 kHz and
+ * removes leading, trailing and long internal silences detected by the energy of 20 ms
+ * windows. The returned {@link PreprocessedAudio} maps timestamps of the transcription
+ * back to the original recording.
+ */
+@SuppressWarnings("hiding")
+public class AudioPreprocessor {
+	private final static Logger log = LoggerFactory.getLogger(AudioPreprocessor.class);
+
+	private static final double WINDOW = 0.02;
+
+	private final float sampleRate;
+	private final boolean mono;
+	private final boolean trimSilence;
+	private final double silenceThreshold;
+	private final double minSilence;
+	private final double padding;
+
+	private AudioPreprocessor(Builder builder) {
+		if (builder.sampleRate <= 0) {
+			throw new IllegalArgumentException("sampleRate must be greater than 0");
+		}
+		if (builder.silenceThreshold > 0) {
+			throw new IllegalArgumentException(
+					"silenceThreshold must be less than or equal to 0 dBFS");
+		}
+		if (builder.padding < 0) {
+			throw new IllegalArgumentException("padding must not be negative");
+		}
+		if (builder.minSilence < 2 * builder.padding) {
+			throw new IllegalArgumentException(
+					"minSilence must be at least twice the padding");
+		}
+		this.sampleRate = builder.sampleRate;
+		this.mono = builder.mono;
+		this.trimSilence = builder.trimSilence;
+		this.silenceThreshold = builder.silenceThreshold;
+		this.minSilence = builder.minSilence;
+		this.padding = builder.padding;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static class Builder {
+		private float sampleRate = 16000;
+		private boolean mono = true;
+		private boolean trimSilence = true;
+		private double silenceThreshold = -45;
+		private double minSilence = 1.0;
+		private double padding = 0.25;
+
+		private Builder() {
+		}
+
+		/**
+		 * Sample rate of the processed audio in Hz. Defaults to 16000, the rate the
+		 * speech recognition model works with.
+		 */
+		public Builder sampleRate(float sampleRate) {
+			this.sampleRate = sampleRate;
+			return this;
+		}
+
+		/**
+		 * Mix all channels into one. Defaults to true.
+		 */
+		public Builder mono(boolean mono) {
+			this.mono = mono;
+			return this;
+		}
+
+		/**
+		 * Remove silence. Defaults to true.
+		 */
+		public Builder trimSilence(boolean trimSilence) {
+			this.trimSilence = trimSilence;
+			return this;
+		}
+
+		/**
+		 * RMS level in dBFS below which a window counts as silence. Defaults to -45.
+		 */
+		public Builder silenceThreshold(double silenceThreshold) {
+			this.silenceThreshold = silenceThreshold;
+			return this;
+		}
+
+		/**
+		 * Internal silences longer than this many seconds are shortened to twice the
+		 * padding. Shorter pauses are kept. Defaults to 1.
+		 */
+		public Builder minSilence(double minSilence) {
+			this.minSilence = minSilence;
+			return this;
+		}
+
+		/**
+		 * Seconds of silence kept before and after speech, so the start and end of
+		 * words are not cut off. Defaults to 0.25.
+		 */
+		public Builder padding(double padding) {
+			this.padding = padding;
+			return this;
+		}
+
+		public AudioPreprocessor build() {
+			return new AudioPreprocessor(this);
+		}
+	}
+
+	/**
+	 * Processes an audio file in a format supported by
+	 * {@link javax.sound.sampled.AudioSystem}, like PCM WAV, AIFF or AU.
+	 */
+	public PreprocessedAudio process(Path file) throws IOException {
+		try (AudioInputStream in = AudioSystem.getAudioInputStream(file.toFile())) {
+			return process(in);
+		}
+		catch (UnsupportedAudioFileException e) {
+			throw new IOException("Unsupported audio file " + file, e);
+		}
+	}
+
+	/**
+	 * Processes the audio of the stream. The stream is read completely but not closed.
+	 */
+	public PreprocessedAudio process(AudioInputStream in) throws IOException {
+		PcmAudio audio = PcmAudio.read(in, this.sampleRate,
+				this.mono ? 1 : in.getFormat().getChannels());
+		double duration = audio.seconds(audio.frameCount());
+
+		if (!this.trimSilence) {
+			return new PreprocessedAudio(audio, List.of(new PreprocessedAudio.Span(0, 0,
+					duration)), duration);
+		}
+
+		List<int[]> ranges = speechRanges(audio);
+		List<PreprocessedAudio.Span> spans = new ArrayList<>(ranges.size());
+		int position = 0;
+		for (int[] range : ranges) {
+			spans.add(new PreprocessedAudio.Span(audio.seconds(position),
+					audio.seconds(range[0]), audio.seconds(range[1] - range[0])));
+			position += range[1] - range[0];
+		}
+
+		PcmAudio trimmed = audio.select(ranges);
+		log.debug("Trimmed {} seconds of audio to {} seconds in {} spans", duration,
+				trimmed.seconds(trimmed.frameCount()), spans.size());
+		return new PreprocessedAudio(trimmed, spans, duration);
+	}
+
+	/**
+	 * Returns the frame ranges with speech, including padding. Pauses shorter than
+	 * minSilence are part of the surrounding range.
+	 */
+	private List<int[]> speechRanges(PcmAudio audio) {
+		int windowFrames = Math.max(1, audio.frames(WINDOW));
+		float[] energies = audio.windowEnergies(windowFrames);
+		double threshold = Math.pow(10, this.silenceThreshold / 20);
+		int minSilenceWindows = (int) Math.ceil(this.minSilence / WINDOW);
+		int paddingWindows = (int) Math.round(this.padding / WINDOW);
+
+		List<int[]> windows = new ArrayList<>();
+		int start = -1;
+		int lastVoiced = -1;
+		for (int w = 0; w < energies.length; w++) {
+			if (energies[w] < threshold) {
+				continue;
+			}
+			if (start == -1) {
+				start = w;
+			}
+			else if (w - lastVoiced - 1 >= minSilenceWindows) {
+				windows.add(new int[] { start, lastVoiced + 1 });
+				start = w;
+			}
+			lastVoiced = w;
+		}
+		if (start != -1) {
+			windows.add(new int[] { start, lastVoiced + 1 });
+		}
+
+		int frameCount = audio.frameCount();
+		List<int[]> ranges = new ArrayList<>(windows.size());
+		for (int[] window : windows) {
+			int from = Math.max(0, window[0] - paddingWindows) * windowFrames;
+			int to = Math.min(frameCount, (window[1] + paddingWindows) * windowFrames);
+			int[] last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+			if (last != null && last[1] >= from) {
+				last[1] = to;
+			}
+			else {
+				ranges.add(new int[] { from, to });
+			}
+		}
+		return ranges;
+	}
+
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.audio.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.rasc.openai4j.audio.AudioClient;
+import ch.rasc.openai4j.audio.AudioSpeechRequest;
+import ch.rasc.openai4j.audio.AudioSpeechStream;
+
+/**
+ * High level audio client that synthesizes long texts by splitting them into sentence
+ * segments that are synthesized in parallel
+ */
+public class AudioSpeechService {
+	private final static Logger log = LoggerFactory.getLogger(AudioSpeechService.class);
+
+	private final AudioClient audioClient;
+
+	public AudioSpeechService(AudioClient audioClient) {
+		this.audioClient = audioClient;
+	}
+
+	/**
+	 * Generates audio for a text of any length and writes it to the output stream. The
+	 * text is split at sentence boundaries into segments. The first segment is streamed
+	 * to the output while it is generated, the following segments are generated
+	 * concurrently and written in order as soon as all previous segments are written.
+	 * <p>
+	 * The output stream is flushed after each segment and not closed.
+	 *
+	 * @param fn A long audio speech request builder function
+	 * @param out The stream the audio is written to
+	 * @throws IOException If writing to the output stream or reading a response fails
+	 */
+	public void synthesize(
+			Function<LongAudioSpeechRequest.Builder, LongAudioSpeechRequest.Builder> fn,
+			OutputStream out) throws IOException {
+		this.synthesize(fn.apply(LongAudioSpeechRequest.builder()).build(), out);
+	}
+
+	/**
+	 * Generates audio for a text of any length and writes it to the output stream. The
+	 * text is split at sentence boundaries into segments. The first segment is streamed
+	 * to the output while it is generated, the following segments are generated
+	 * concurrently and written in order as soon as all previous segments are written.
+	 * <p>
+	 * The output stream is flushed after each segment and not closed.
+	 *
+	 * @param request A long audio speech request
+	 * @param out The stream the audio is written to
+	 * @throws IOException If writing to the output stream or reading a response fails
+	 */
+	public void synthesize(LongAudioSpeechRequest request, OutputStream out)
+			throws IOException {
+		List<String> segments = TextSegmenter.split(request.input(), request.locale(),
+				request.maxSegmentLength());
+		log.debug("Synthesizing {} characters in {} segments", request.input().length(),
+				segments.size());
+
+		SpeechAudioWriter writer = new SpeechAudioWriter(out, request.responseFormat());
+		ExecutorService executor = segments.size() > 1 && request.parallelism() > 1
+				? Executors.newFixedThreadPool(
+						Math.min(request.parallelism() - 1, segments.size() - 1))
+				: null;
+		// segments generated in the background, bounded so that at most parallelism
+		// requests are in flight and completed audio does not pile up in memory
+		Deque<Future<byte[]>> window = new ArrayDeque<>();
+		int next = 1;
+
+		try {
+			while (executor != null && next < segments.size()
+					&& window.size() < request.parallelism() - 1) {
+				window.add(submit(executor, request, segments.get(next++)));
+			}
+
+			try (AudioSpeechStream stream = this.audioClient
+					.createStream(speechRequest(request, segments.get(0)));
+					InputStream in = stream.inputStream()) {
+				writer.write(in);
+				log.debug("First segment written, time to first byte {}",
+						stream.timeToFirstByte());
+			}
+
+			for (int i = 1; i < segments.size(); i++) {
+				byte[] audio;
+				if (executor != null) {
+					audio = window.poll().get();
+					if (next < segments.size()) {
+						window.add(submit(executor, request, segments.get(next++)));
+					}
+				}
+				else {
+					audio = generate(request, segments.get(i));
+				}
+				writer.write(new ByteArrayInputStream(audio));
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof UncheckedIOException uioe) {
+				throw uioe.getCause();
+			}
+			if (e.getCause() instanceof RuntimeException re) {
+				throw re;
+			}
+			throw new RuntimeException(e.getCause());
+		}
+		finally {
+			window.forEach(f -> f.cancel(true));
+			if (executor != null) {
+				executor.shutdownNow();
+			}
+		}
+	}
+
+	private Future<byte[]> submit(ExecutorService executor,
+			LongAudioSpeechRequest request, String segment) {
+		return executor.submit(() -> generate(request, segment));
+	}
+
+	private byte[] generate(LongAudioSpeechRequest request, String segment) {
+		try (AudioSpeechStream stream = this.audioClient
+				.createStream(speechRequest(request, segment));
+				InputStream in = stream.inputStream()) {
+			return in.readAllBytes();
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static AudioSpeechRequest speechRequest(LongAudioSpeechRequest request,
+			String segment) {
+		return AudioSpeechRequest.builder().model(request.model()).input(segment)
+				.voice(request.voice()).responseFormat(request.responseFormat())
+				.speed(request.speed()).build();
+	}
+
+}
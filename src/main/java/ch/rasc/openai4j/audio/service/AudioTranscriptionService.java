@@ -0,0 +1,335 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.audio.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import javax.sound.sampled.AudioInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.rasc.openai4j.audio.AudioClient;
+import ch.rasc.openai4j.audio.AudioRecognitionResponseFormat;
+import ch.rasc.openai4j.audio.AudioTranscriptionRequest;
+import ch.rasc.openai4j.audio.AudioTranscriptionRequest.TimestampGranularity;
+import ch.rasc.openai4j.audio.AudioTranscriptionResponse;
+import ch.rasc.openai4j.audio.AudioTranscriptionResponse.Segment;
+import ch.rasc.openai4j.audio.AudioTranscriptionResponse.Word;
+import ch.rasc.openai4j.common.FilePart;
+
+/**
+ * High level audio client that transcribes long recordings by splitting them into
+ * chunks that are transcribed in parallel
+ */
+public class AudioTranscriptionService {
+	private final static Logger log = LoggerFactory
+			.getLogger(AudioTranscriptionService.class);
+
+	/**
+	 * Length in seconds of the windows the energy of the audio is measured in.
+	 */
+	private static final double ENERGY_WINDOW = 0.02;
+
+	/**
+	 * Number of windows on each side that are averaged, so a cut is placed in a pause
+	 * and not between two syllables.
+	 */
+	private static final int SMOOTHING_WINDOWS = 10;
+
+	/**
+	 * Sample rate in Hz the audio is decoded to, the rate the speech recognition model
+	 * works with. Together with the downmix to mono this keeps a long recording small
+	 * in memory.
+	 */
+	private static final float SAMPLE_RATE = 16000;
+
+	private final AudioClient audioClient;
+
+	public AudioTranscriptionService(AudioClient audioClient) {
+		this.audioClient = audioClient;
+	}
+
+	/**
+	 * Transcribes a recording of any length. The audio is decoded to 16 kHz mono PCM and
+	 * cut at the quietest point before the maximum chunk duration. Every chunk is sent
+	 * with some overlap as WAV file and the chunks are transcribed concurrently. The
+	 * text, segments and words of the responses are stitched together with timestamps
+	 * relative to the start of the recording.
+	 *
+	 * @param fn A long audio transcription request builder function
+	 * @return The transcription of the whole recording in the verbose_json format
+	 * @throws IOException If the audio cannot be read or decoded
+	 */
+	public AudioTranscriptionResponse transcribe(
+			Function<LongAudioTranscriptionRequest.Builder, LongAudioTranscriptionRequest.Builder> fn)
+			throws IOException {
+		return this.transcribe(fn.apply(LongAudioTranscriptionRequest.builder()).build());
+	}
+
+	/**
+	 * Transcribes a recording of any length. The audio is decoded to 16 kHz mono PCM and
+	 * cut at the quietest point before the maximum chunk duration. Every chunk is sent
+	 * with some overlap as WAV file and the chunks are transcribed concurrently. The
+	 * text, segments and words of the responses are stitched together with timestamps
+	 * relative to the start of the recording.
+	 *
+	 * @param request A long audio transcription request
+	 * @return The transcription of the whole recording in the verbose_json format
+	 * @throws IOException If the audio cannot be read or decoded
+	 */
+	public AudioTranscriptionResponse transcribe(LongAudioTranscriptionRequest request)
+			throws IOException {
+		PcmAudio audio;
+		if (request.file() != null) {
+			audio = PcmAudio.read(request.file(), SAMPLE_RATE, 1);
+		}
+		else {
+			try (AudioInputStream in = request.audio()) {
+				audio = PcmAudio.read(in, SAMPLE_RATE, 1);
+			}
+		}
+
+		List<Chunk> chunks = split(audio, request);
+		log.debug("Transcribing {} seconds of audio in {} chunks",
+				audio.seconds(audio.frameCount()), chunks.size());
+
+		List<AudioTranscriptionResponse> responses = transcribeChunks(audio, chunks,
+				request);
+		return stitch(audio, chunks, responses);
+	}
+
+	/**
+	 * A chunk owns the frames between start and end. The frames between sendStart and
+	 * sendEnd, including the overlap, are sent to the API.
+	 */
+	private record Chunk(int index, int start, int end, int sendStart, int sendEnd) {
+	}
+
+	private static List<Chunk> split(PcmAudio audio,
+			LongAudioTranscriptionRequest request) {
+		int total = audio.frameCount();
+		int overlap = audio.frames(request.overlap());
+		int maxFrames = Math.min(audio.frames(request.maxChunkDuration()),
+				(LongAudioTranscriptionRequest.MAX_CHUNK_BYTES - 1024) / audio.frameSize()
+						- 2 * overlap);
+		if (maxFrames <= 0) {
+			throw new IllegalArgumentException(
+					"overlap is too long for the size limit of a chunk");
+		}
+
+		int windowFrames = Math.max(1, audio.frames(ENERGY_WINDOW));
+		double[] energySums = null;
+		int searchWindows = audio.frames(request.silenceSearchWindow()) / windowFrames;
+
+		List<int[]> ranges = new ArrayList<>();
+		int start = 0;
+		while (total - start > maxFrames) {
+			if (energySums == null) {
+				energySums = prefixSums(audio.windowEnergies(windowFrames));
+			}
+			int hi = (start + maxFrames) / windowFrames;
+			int lo = Math.max(start / windowFrames + 1, hi - searchWindows);
+
+			// walk backwards so that ties favour the longer chunk
+			int best = hi;
+			double bestEnergy = Double.MAX_VALUE;
+			for (int w = hi; w >= lo; w--) {
+				double energy = smoothedEnergy(energySums, w);
+				if (energy < bestEnergy) {
+					bestEnergy = energy;
+					best = w;
+				}
+			}
+
+			int cut = best * windowFrames;
+			ranges.add(new int[] { start, cut });
+			start = cut;
+		}
+		ranges.add(new int[] { start, total });
+
+		List<Chunk> chunks = new ArrayList<>(ranges.size());
+		for (int i = 0; i < ranges.size(); i++) {
+			int[] range = ranges.get(i);
+			chunks.add(new Chunk(i, range[0], range[1], Math.max(0, range[0] - overlap),
+					Math.min(total, range[1] + overlap)));
+		}
+		return chunks;
+	}
+
+	private static double[] prefixSums(float[] energies) {
+		double[] sums = new double[energies.length + 1];
+		for (int i = 0; i < energies.length; i++) {
+			sums[i + 1] = sums[i] + energies[i];
+		}
+		return sums;
+	}
+
+	private static double smoothedEnergy(double[] energySums, int window) {
+		int from = Math.max(0, window - SMOOTHING_WINDOWS);
+		int to = Math.min(energySums.length - 1, window + SMOOTHING_WINDOWS + 1);
+		if (to <= from) {
+			return 0;
+		}
+		return (energySums[to] - energySums[from]) / (to - from);
+	}
+
+	private List<AudioTranscriptionResponse> transcribeChunks(PcmAudio audio,
+			List<Chunk> chunks, LongAudioTranscriptionRequest request)
+			throws IOException {
+		ExecutorService executor = Executors
+				.newFixedThreadPool(Math.min(request.parallelism(), chunks.size()));
+		List<Future<AudioTranscriptionResponse>> futures = new ArrayList<>(
+				chunks.size());
+		try {
+			for (Chunk chunk : chunks) {
+				// the WAV data is created on the executor thread, so at most
+				// parallelism chunks are held in memory at the same time
+				futures.add(executor.submit(() -> transcribeChunk(audio, chunk, request)));
+			}
+
+			List<AudioTranscriptionResponse> responses = new ArrayList<>(chunks.size());
+			for (Future<AudioTranscriptionResponse> future : futures) {
+				responses.add(future.get());
+			}
+			return responses;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof UncheckedIOException uioe) {
+				throw uioe.getCause();
+			}
+			if (e.getCause() instanceof RuntimeException re) {
+				throw re;
+			}
+			throw new RuntimeException(e.getCause());
+		}
+		finally {
+			futures.forEach(f -> f.cancel(true));
+			executor.shutdownNow();
+		}
+	}
+
+	private AudioTranscriptionResponse transcribeChunk(PcmAudio audio, Chunk chunk,
+			LongAudioTranscriptionRequest request) {
+		byte[] wav;
+		try {
+			wav = audio.toWav(chunk.sendStart(), chunk.sendEnd());
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		AudioTranscriptionRequest chunkRequest = AudioTranscriptionRequest.builder()
+				.file(FilePart.of(wav, "chunk-" + chunk.index() + ".wav", "audio/wav"))
+				.model(request.model()).language(request.language())
+				.prompt(request.prompt()).temperature(request.temperature())
+				.responseFormat(AudioRecognitionResponseFormat.VERBOSE_JSON)
+				.addTimestampGranularities(request.wordTimestamps()
+						? new TimestampGranularity[] { TimestampGranularity.SEGMENT,
+								TimestampGranularity.WORD }
+						: new TimestampGranularity[] { TimestampGranularity.SEGMENT })
+				.build();
+
+		log.debug("Transcribing chunk {} ({} - {} s)", chunk.index(),
+				audio.seconds(chunk.sendStart()), audio.seconds(chunk.sendEnd()));
+		return this.audioClient.transcriptionsCreate(chunkRequest);
+	}
+
+	/**
+	 * Joins the responses of the chunks. A segment or word belongs to the chunk whose
+	 * own range contains its midpoint, so content in the overlap of two chunks is only
+	 * kept once. The text is built from the segments, a chunk without segments cannot
+	 * be stitched.
+	 */
+	private static AudioTranscriptionResponse stitch(PcmAudio audio, List<Chunk> chunks,
+			List<AudioTranscriptionResponse> responses) {
+		StringBuilder text = new StringBuilder();
+		List<Segment> segments = new ArrayList<>();
+		List<Word> words = null;
+		String language = null;
+
+		for (int i = 0; i < chunks.size(); i++) {
+			Chunk chunk = chunks.get(i);
+			AudioTranscriptionResponse response = responses.get(i);
+			boolean last = i == chunks.size() - 1;
+			double offset = audio.seconds(chunk.sendStart());
+			double from = audio.seconds(chunk.start());
+			double to = audio.seconds(chunk.end());
+
+			if (language == null) {
+				language = response.language();
+			}
+
+			if (response.segments() != null) {
+				for (Segment segment : response.segments()) {
+					double start = segment.start() + offset;
+					double end = segment.end() + offset;
+					if (!owns(from, to, last, (start + end) / 2)) {
+						continue;
+					}
+					segments.add(new Segment(segments.size(),
+							segment.seek() + (int) Math.round(offset * 100), start, end,
+							segment.text(), segment.tokens(), segment.temperature(),
+							segment.avgLogprob(), segment.compressionRatio(),
+							segment.noSpeechProb()));
+					text.append(segment.text());
+				}
+			}
+			else if (chunks.size() == 1) {
+				// a single chunk has no overlap, the whole text belongs to it
+				text.append(response.text());
+			}
+			else if (response.text() != null && !response.text().isBlank()) {
+				throw new IllegalStateException("The response of chunk " + i
+						+ " has no segments, its overlap cannot be removed");
+			}
+
+			if (response.words() != null) {
+				if (words == null) {
+					words = new ArrayList<>();
+				}
+				for (Word word : response.words()) {
+					double start = word.start() + offset;
+					double end = word.end() + offset;
+					if (owns(from, to, last, (start + end) / 2)) {
+						words.add(new Word(word.word(), start, end));
+					}
+				}
+			}
+		}
+
+		return new AudioTranscriptionResponse(language,
+				String.valueOf(audio.seconds(audio.frameCount())), text.toString().strip(),
+				words, segments);
+	}
+
+	private static boolean owns(double from, double to, boolean last, double time) {
+		return time >= from && (time < to || last);
+	}
+
+}
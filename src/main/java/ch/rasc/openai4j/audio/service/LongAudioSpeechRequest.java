@@ -0,0 +1,205 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.audio.service;
+
+import java.util.Locale;
+
+import ch.rasc.openai4j.audio.AudioSpeechRequest.AudioResponseFormat;
+import ch.rasc.openai4j.audio.AudioSpeechRequest.SpeechModel;
+import ch.rasc.openai4j.audio.AudioSpeechRequest.Voice;
+
+@SuppressWarnings("hiding")
+public class LongAudioSpeechRequest {
+
+	/**
+	 * Maximum length of the input of a single speech request.
+	 */
+	public static final int MAX_INPUT_LENGTH = 4096;
+
+	private final SpeechModel model;
+	private final String input;
+	private final Voice voice;
+	private final AudioResponseFormat responseFormat;
+	private final Double speed;
+	private final Locale locale;
+	private final int maxSegmentLength;
+	private final int parallelism;
+
+	private LongAudioSpeechRequest(Builder builder) {
+		if (builder.model == null) {
+			throw new IllegalArgumentException("model must not be null");
+		}
+		if (builder.input == null || builder.input.isBlank()) {
+			throw new IllegalArgumentException("input must not be null or empty");
+		}
+		if (builder.voice == null) {
+			throw new IllegalArgumentException("voice must not be null");
+		}
+		if (builder.responseFormat == AudioResponseFormat.FLAC) {
+			throw new IllegalArgumentException(
+					"responseFormat flac can not be concatenated, use wav or pcm instead");
+		}
+		if (builder.maxSegmentLength == null) {
+			builder.maxSegmentLength = 1000;
+		}
+		else if (builder.maxSegmentLength <= 0
+				|| builder.maxSegmentLength > MAX_INPUT_LENGTH) {
+			throw new IllegalArgumentException(
+					"maxSegmentLength must be greater than 0 and at most "
+							+ MAX_INPUT_LENGTH);
+		}
+		if (builder.parallelism == null) {
+			builder.parallelism = 4;
+		}
+		else if (builder.parallelism <= 0) {
+			throw new IllegalArgumentException("parallelism must be greater than 0");
+		}
+
+		this.model = builder.model;
+		this.input = builder.input;
+		this.voice = builder.voice;
+		this.responseFormat = builder.responseFormat != null ? builder.responseFormat
+				: AudioResponseFormat.MP3;
+		this.speed = builder.speed;
+		this.locale = builder.locale != null ? builder.locale : Locale.ROOT;
+		this.maxSegmentLength = builder.maxSegmentLength;
+		this.parallelism = builder.parallelism;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static final class Builder {
+		private SpeechModel model;
+		private String input;
+		private Voice voice;
+		private AudioResponseFormat responseFormat;
+		private Double speed;
+		private Locale locale;
+		private Integer maxSegmentLength;
+		private Integer parallelism;
+
+		private Builder() {
+		}
+
+		/**
+		 * One of the available TTS models
+		 */
+		public Builder model(SpeechModel model) {
+			this.model = model;
+			return this;
+		}
+
+		/**
+		 * The text to generate audio for. There is no length limit, the text is split
+		 * into segments that are synthesized separately.
+		 */
+		public Builder input(String input) {
+			this.input = input;
+			return this;
+		}
+
+		/**
+		 * The voice to use when generating the audio.
+		 */
+		public Builder voice(Voice voice) {
+			this.voice = voice;
+			return this;
+		}
+
+		/**
+		 * The format to audio in. Defaults to mp3. flac is not supported because the
+		 * segments can not be joined without decoding them.
+		 */
+		public Builder responseFormat(AudioResponseFormat responseFormat) {
+			this.responseFormat = responseFormat;
+			return this;
+		}
+
+		/**
+		 * The speed of the generated audio. Select a value from 0.25 to 4.0. 1.0 is the
+		 * default.
+		 */
+		public Builder speed(Double speed) {
+			this.speed = speed;
+			return this;
+		}
+
+		/**
+		 * The language of the input, used to find sentence boundaries.
+		 */
+		public Builder locale(Locale locale) {
+			this.locale = locale;
+			return this;
+		}
+
+		/**
+		 * Maximum number of characters of a segment. Defaults to 1000, must not exceed
+		 * 4096. Shorter segments are synthesized with more parallel requests.
+		 */
+		public Builder maxSegmentLength(int maxSegmentLength) {
+			this.maxSegmentLength = maxSegmentLength;
+			return this;
+		}
+
+		/**
+		 * The maximum number of segments that are synthesized at the same time. Defaults
+		 * to 4.
+		 */
+		public Builder parallelism(int parallelism) {
+			this.parallelism = parallelism;
+			return this;
+		}
+
+		public LongAudioSpeechRequest build() {
+			return new LongAudioSpeechRequest(this);
+		}
+	}
+
+	public SpeechModel model() {
+		return this.model;
+	}
+
+	public String input() {
+		return this.input;
+	}
+
+	public Voice voice() {
+		return this.voice;
+	}
+
+	public AudioResponseFormat responseFormat() {
+		return this.responseFormat;
+	}
+
+	public Double speed() {
+		return this.speed;
+	}
+
+	public Locale locale() {
+		return this.locale;
+	}
+
+	public int maxSegmentLength() {
+		return this.maxSegmentLength;
+	}
+
+	public int parallelism() {
+		return this.parallelism;
+	}
+
+}
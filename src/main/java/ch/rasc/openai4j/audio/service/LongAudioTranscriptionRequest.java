@@ -0,0 +1,261 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.audio.service;
+
+import java.nio.file.Path;
+
+import javax.sound.sampled.AudioInputStream;
+
+import ch.rasc.openai4j.audio.AudioRecognitionModel;
+
+@SuppressWarnings("hiding")
+public class LongAudioTranscriptionRequest {
+
+	/**
+	 * Maximum size of the WAV file sent for a single chunk. Stays below the 25 MB limit
+	 * of the transcriptions endpoint.
+	 */
+	public static final int MAX_CHUNK_BYTES = 24 * 1024 * 1024;
+
+	private final Path file;
+	private final AudioInputStream audio;
+	private final AudioRecognitionModel model;
+	private final String language;
+	private final String prompt;
+	private final Double temperature;
+	private final boolean wordTimestamps;
+	private final double maxChunkDuration;
+	private final double overlap;
+	private final double silenceSearchWindow;
+	private final int parallelism;
+
+	private LongAudioTranscriptionRequest(Builder builder) {
+		if (builder.file == null && builder.audio == null) {
+			throw new IllegalArgumentException("file must not be null");
+		}
+		if (builder.model == null) {
+			throw new IllegalArgumentException("model must not be null");
+		}
+		if (builder.maxChunkDuration == null) {
+			builder.maxChunkDuration = 600.0;
+		}
+		else if (builder.maxChunkDuration <= 0) {
+			throw new IllegalArgumentException(
+					"maxChunkDuration must be greater than 0");
+		}
+		if (builder.overlap == null) {
+			builder.overlap = 1.0;
+		}
+		else if (builder.overlap < 0 || builder.overlap >= builder.maxChunkDuration / 2) {
+			throw new IllegalArgumentException(
+					"overlap must be at least 0 and less than half of maxChunkDuration");
+		}
+		if (builder.silenceSearchWindow == null) {
+			builder.silenceSearchWindow = Math.min(30.0, builder.maxChunkDuration / 2);
+		}
+		else if (builder.silenceSearchWindow < 0
+				|| builder.silenceSearchWindow >= builder.maxChunkDuration) {
+			throw new IllegalArgumentException(
+					"silenceSearchWindow must be at least 0 and less than maxChunkDuration");
+		}
+		if (builder.parallelism == null) {
+			builder.parallelism = 4;
+		}
+		else if (builder.parallelism <= 0) {
+			throw new IllegalArgumentException("parallelism must be greater than 0");
+		}
+
+		this.file = builder.file;
+		this.audio = builder.audio;
+		this.model = builder.model;
+		this.language = builder.language;
+		this.prompt = builder.prompt;
+		this.temperature = builder.temperature;
+		this.wordTimestamps = builder.wordTimestamps != null && builder.wordTimestamps;
+		this.maxChunkDuration = builder.maxChunkDuration;
+		this.overlap = builder.overlap;
+		this.silenceSearchWindow = builder.silenceSearchWindow;
+		this.parallelism = builder.parallelism;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static final class Builder {
+		private Path file;
+		private AudioInputStream audio;
+		private AudioRecognitionModel model;
+		private String language;
+		private String prompt;
+		private Double temperature;
+		private Boolean wordTimestamps;
+		private Double maxChunkDuration;
+		private Double overlap;
+		private Double silenceSearchWindow;
+		private Integer parallelism;
+
+		private Builder() {
+		}
+
+		/**
+		 * The audio file to transcribe. Must be a format supported by
+		 * {@link javax.sound.sampled.AudioSystem}, like PCM WAV, AIFF or AU.
+		 */
+		public Builder file(Path file) {
+			this.file = file;
+			this.audio = null;
+			return this;
+		}
+
+		/**
+		 * The audio to transcribe. The stream is read completely and closed.
+		 */
+		public Builder audio(AudioInputStream audio) {
+			this.audio = audio;
+			this.file = null;
+			return this;
+		}
+
+		/**
+		 * ID of the model to use.
+		 */
+		public Builder model(AudioRecognitionModel model) {
+			this.model = model;
+			return this;
+		}
+
+		/**
+		 * The language of the input audio. Supplying the input language in ISO-639-1
+		 * format will improve accuracy and latency.
+		 */
+		public Builder language(String language) {
+			this.language = language;
+			return this;
+		}
+
+		/**
+		 * An optional text to guide the model's style. Sent with every chunk.
+		 */
+		public Builder prompt(String prompt) {
+			this.prompt = prompt;
+			return this;
+		}
+
+		/**
+		 * The sampling temperature, between 0 and 1.
+		 */
+		public Builder temperature(Double temperature) {
+			this.temperature = temperature;
+			return this;
+		}
+
+		/**
+		 * Request word timestamps in addition to segment timestamps. Defaults to false.
+		 */
+		public Builder wordTimestamps(boolean wordTimestamps) {
+			this.wordTimestamps = wordTimestamps;
+			return this;
+		}
+
+		/**
+		 * Maximum duration of a chunk in seconds, without overlap. Defaults to 600. The
+		 * duration is further limited so that a chunk never exceeds
+		 * {@link LongAudioTranscriptionRequest#MAX_CHUNK_BYTES}.
+		 */
+		public Builder maxChunkDuration(double maxChunkDuration) {
+			this.maxChunkDuration = maxChunkDuration;
+			return this;
+		}
+
+		/**
+		 * Seconds of audio added before and after each chunk, so words at a cut are
+		 * heard completely by at least one request. Defaults to 1.
+		 */
+		public Builder overlap(double overlap) {
+			this.overlap = overlap;
+			return this;
+		}
+
+		/**
+		 * Length in seconds of the range before the maximum chunk end in which the
+		 * quietest point is searched for the cut. Defaults to 30 seconds or half of the
+		 * maximum chunk duration, whichever is less.
+		 */
+		public Builder silenceSearchWindow(double silenceSearchWindow) {
+			this.silenceSearchWindow = silenceSearchWindow;
+			return this;
+		}
+
+		/**
+		 * The maximum number of chunks that are transcribed at the same time. Defaults
+		 * to 4.
+		 */
+		public Builder parallelism(int parallelism) {
+			this.parallelism = parallelism;
+			return this;
+		}
+
+		public LongAudioTranscriptionRequest build() {
+			return new LongAudioTranscriptionRequest(this);
+		}
+	}
+
+	public Path file() {
+		return this.file;
+	}
+
+	public AudioInputStream audio() {
+		return this.audio;
+	}
+
+	public AudioRecognitionModel model() {
+		return this.model;
+	}
+
+	public String language() {
+		return this.language;
+	}
+
+	public String prompt() {
+		return this.prompt;
+	}
+
+	public Double temperature() {
+		return this.temperature;
+	}
+
+	public boolean wordTimestamps() {
+		return this.wordTimestamps;
+	}
+
+	public double maxChunkDuration() {
+		return this.maxChunkDuration;
+	}
+
+	public double overlap() {
+		return this.overlap;
+	}
+
+	public double silenceSearchWindow() {
+		return this.silenceSearchWindow;
+	}
+
+	public int parallelism() {
+		return this.parallelism;
+	}
+
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.audio.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * 16-bit signed little-endian PCM audio held in memory.
+ */
+final class PcmAudio {
+
+	// the largest array the JVM reliably allocates
+	private static final long MAX_BYTES = Integer.MAX_VALUE - 8;
+
+	private final AudioFormat format;
+
+	private final byte[] data;
+
+	private PcmAudio(AudioFormat format, byte[] data) {
+		this.format = format;
+		this.data = data;
+	}
+
+	/**
+	 * Reads the file and converts it to 16-bit signed little-endian PCM with the given
+	 * sample rate and number of channels.
+	 */
+	static PcmAudio read(Path file, float sampleRate, int channels) throws IOException {
+		try (AudioInputStream in = AudioSystem.getAudioInputStream(file.toFile())) {
+			return read(in, sampleRate, channels);
+		}
+		catch (UnsupportedAudioFileException e) {
+			throw new IOException("Unsupported audio file " + file, e);
+		}
+	}
+
+	/**
+	 * Reads the stream and converts it to 16-bit signed little-endian PCM with the given
+	 * sample rate and number of channels. Channels are mixed by averaging. The source is
+	 * converted while it is read, only the converted audio is held in memory.
+	 *
+	 * @throws IOException If the audio cannot be read or the converted audio does not
+	 * fit into an array
+	 */
+	static PcmAudio read(AudioInputStream in, float sampleRate, int channels)
+			throws IOException {
+		AudioFormat source = in.getFormat();
+		AudioFormat target = new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, sampleRate,
+				16, channels, channels * 2, sampleRate, false);
+		long sourceFrames = in.getFrameLength();
+		if (sourceFrames != AudioSystem.NOT_SPECIFIED) {
+			double bytes = sourceFrames * (double) sampleRate / source.getFrameRate()
+					* target.getFrameSize();
+			if (bytes > MAX_BYTES) {
+				throw new IOException("The audio is too long, at most "
+						+ MAX_BYTES / target.getFrameSize() / (long) sampleRate
+						+ " seconds are supported");
+			}
+		}
+		if (source.matches(target)) {
+			return new PcmAudio(target, in.readAllBytes());
+		}
+		try (AudioInputStream converted = AudioSystem.getAudioInputStream(target, in)) {
+			return new PcmAudio(target, converted.readAllBytes());
+		}
+		catch (IllegalArgumentException e) {
+			throw new IOException("Cannot convert " + source + " to 16-bit PCM", e);
+		}
+	}
+
+	AudioFormat format() {
+		return this.format;
+	}
+
+	float sampleRate() {
+		return this.format.getSampleRate();
+	}
+
+	int channels() {
+		return this.format.getChannels();
+	}
+
+	int frameSize() {
+		return this.format.getFrameSize();
+	}
+
+	int frameCount() {
+		return this.data.length / this.format.getFrameSize();
+	}
+
+	double seconds(long frames) {
+		return frames / (double) this.format.getSampleRate();
+	}
+
+	int frames(double seconds) {
+		return (int) Math.round(seconds * this.format.getSampleRate());
+	}
+
+	/**
+	 * Returns the sample of a channel at the frame as a value between -1 and 1.
+	 */
+	float sample(int frame, int channel) {
+		int i = frame * this.format.getFrameSize() + channel * 2;
+		return (short) ((this.data[i] & 0xff) | (this.data[i + 1] << 8)) / 32768f;
+	}
+
+	/**
+	 * Returns the RMS energy of consecutive windows of windowFrames frames, averaged
+	 * over all channels.
+	 */
+	float[] windowEnergies(int windowFrames) {
+		int frameCount = frameCount();
+		int channels = channels();
+		float[] energies = new float[(frameCount + windowFrames - 1) / windowFrames];
+		for (int w = 0; w < energies.length; w++) {
+			int start = w * windowFrames;
+			int end = Math.min(start + windowFrames, frameCount);
+			double sum = 0;
+			for (int f = start; f < end; f++) {
+				for (int c = 0; c < channels; c++) {
+					float s = sample(f, c);
+					sum += s * s;
+				}
+			}
+			energies[w] = (float) Math.sqrt(sum / ((end - start) * channels));
+		}
+		return energies;
+	}
+
+	/**
+	 * Returns the concatenation of the frame ranges. Each range is an array of the start
+	 * frame (inclusive) and the end frame (exclusive).
+	 */
+	PcmAudio select(List<int[]> ranges) {
+		int frameSize = this.format.getFrameSize();
+		int frames = 0;
+		for (int[] range : ranges) {
+			frames += range[1] - range[0];
+		}
+		byte[] selected = new byte[frames * frameSize];
+		int position = 0;
+		for (int[] range : ranges) {
+			int length = (range[1] - range[0]) * frameSize;
+			System.arraycopy(this.data, range[0] * frameSize, selected, position, length);
+			position += length;
+		}
+		return new PcmAudio(this.format, selected);
+	}
+
+	AudioInputStream toAudioInputStream() {
+		return new AudioInputStream(new ByteArrayInputStream(this.data), this.format,
+				frameCount());
+	}
+
+	/**
+	 * Encodes the frames between startFrame (inclusive) and endFrame (exclusive) as a
+	 * WAV file.
+	 */
+	byte[] toWav(int startFrame, int endFrame) throws IOException {
+		int frameSize = this.format.getFrameSize();
+		int length = (endFrame - startFrame) * frameSize;
+		ByteArrayOutputStream out = new ByteArrayOutputStream(length + 44);
+		try (AudioInputStream in = new AudioInputStream(
+				new ByteArrayInputStream(this.data, startFrame * frameSize, length),
+				this.format, endFrame - startFrame)) {
+			AudioSystem.write(in, AudioFileFormat.Type.WAVE, out);
+		}
+		return out.toByteArray();
+	}
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.audio.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+
+import ch.rasc.openai4j.audio.AudioTranscriptionResponse;
+import ch.rasc.openai4j.audio.AudioTranscriptionResponse.Segment;
+import ch.rasc.openai4j.audio.AudioTranscriptionResponse.Word;
+import ch.rasc.openai4j.common.FilePart;
+
+/**
+ * Audio returned by {@link AudioPreprocessor}, together with the map from times in the
+ * processed audio back to times in the original recording.
+ */
+public final class PreprocessedAudio {
+
+	/**
+	 * A part of the original recording that was kept. Starts at start seconds in the
+	 * processed audio and at originalStart seconds in the original recording.
+	 */
+	public record Span(double start, double originalStart, double duration) {
+
+		/**
+		 * Start of the span in the processed audio in seconds.
+		 */
+		@Override
+		public double start() {
+			return this.start;
+		}
+
+		/**
+		 * Start of the span in the original recording in seconds.
+		 */
+		@Override
+		public double originalStart() {
+			return this.originalStart;
+		}
+
+		/**
+		 * Length of the span in seconds.
+		 */
+		@Override
+		public double duration() {
+			return this.duration;
+		}
+	}
+
+	private final PcmAudio audio;
+	private final List<Span> spans;
+	private final double originalDuration;
+
+	PreprocessedAudio(PcmAudio audio, List<Span> spans, double originalDuration) {
+		this.audio = audio;
+		this.spans = List.copyOf(spans);
+		this.originalDuration = originalDuration;
+	}
+
+	/**
+	 * The format of the processed audio, 16-bit signed little-endian PCM.
+	 */
+	public AudioFormat format() {
+		return this.audio.format();
+	}
+
+	/**
+	 * Duration of the processed audio in seconds.
+	 */
+	public double duration() {
+		return this.audio.seconds(this.audio.frameCount());
+	}
+
+	/**
+	 * Duration of the original recording in seconds.
+	 */
+	public double originalDuration() {
+		return this.originalDuration;
+	}
+
+	/**
+	 * True if no speech was detected and all audio was trimmed.
+	 */
+	public boolean isEmpty() {
+		return this.audio.frameCount() == 0;
+	}
+
+	/**
+	 * The parts of the original recording that were kept, in order.
+	 */
+	public List<Span> spans() {
+		return this.spans;
+	}
+
+	/**
+	 * Encodes the processed audio as WAV file.
+	 */
+	public byte[] wav() throws IOException {
+		return this.audio.toWav(0, this.audio.frameCount());
+	}
+
+	/**
+	 * Encodes the processed audio as WAV file part for
+	 * {@link ch.rasc.openai4j.audio.AudioTranscriptionRequest.Builder#file(FilePart)}.
+	 */
+	public FilePart filePart(String filename) throws IOException {
+		return FilePart.of(wav(), filename, "audio/wav");
+	}
+
+	/**
+	 * Returns the processed audio as stream, for example for
+	 * {@link LongAudioTranscriptionRequest.Builder#audio(AudioInputStream)}.
+	 */
+	public AudioInputStream audioInputStream() {
+		return this.audio.toAudioInputStream();
+	}
+
+	/**
+	 * Converts a time in seconds in the processed audio to the time in the original
+	 * recording.
+	 */
+	public double toOriginalTime(double time) {
+		if (this.spans.isEmpty()) {
+			return time;
+		}
+		int low = 0;
+		int high = this.spans.size() - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (this.spans.get(mid).start() <= time) {
+				low = mid;
+			}
+			else {
+				high = mid - 1;
+			}
+		}
+		Span span = this.spans.get(low);
+		return span.originalStart() + Math.max(0, time - span.start());
+	}
+
+	/**
+	 * Returns a copy of a transcription of the processed audio with segment and word
+	 * timestamps converted to times in the original recording.
+	 */
+	public AudioTranscriptionResponse remap(AudioTranscriptionResponse response) {
+		List<Segment> segments = null;
+		if (response.segments() != null) {
+			segments = new ArrayList<>(response.segments().size());
+			for (Segment segment : response.segments()) {
+				double start = toOriginalTime(segment.start());
+				segments.add(new Segment(segment.id(),
+						(int) Math.round(toOriginalTime(segment.seek() / 100.0) * 100), start,
+						Math.max(start, toOriginalTime(segment.end())), segment.text(),
+						segment.tokens(), segment.temperature(), segment.avgLogprob(),
+						segment.compressionRatio(), segment.noSpeechProb()));
+			}
+		}
+
+		List<Word> words = null;
+		if (response.words() != null) {
+			words = new ArrayList<>(response.words().size());
+			for (Word word : response.words()) {
+				double start = toOriginalTime(word.start());
+				words.add(new Word(word.word(), start,
+						Math.max(start, toOriginalTime(word.end()))));
+			}
+		}
+
+		return new AudioTranscriptionResponse(response.language(),
+				String.valueOf(this.originalDuration), response.text(), words, segments);
+	}
+
+}
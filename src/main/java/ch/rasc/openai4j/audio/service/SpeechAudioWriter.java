@@ -0,0 +1,126 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.audio.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import ch.rasc.openai4j.audio.AudioSpeechRequest.AudioResponseFormat;
+
+/**
+ * Joins the audio of consecutive speech segments into one stream.
+ * <p>
+ * mp3, aac and opus segments are self-delimiting frames or pages and are copied as
+ * they are, pcm segments are raw samples. For wav only the header of the first segment
+ * is written, with the RIFF and data sizes set to the unknown-length marker
+ * 0xFFFFFFFF, and the data chunks of the following segments are appended.
+ */
+final class SpeechAudioWriter {
+
+	private static final long UNKNOWN_SIZE = 0xFFFFFFFFL;
+
+	private final OutputStream out;
+	private final AudioResponseFormat format;
+	private boolean first = true;
+
+	SpeechAudioWriter(OutputStream out, AudioResponseFormat format) {
+		this.out = out;
+		this.format = format;
+	}
+
+	void write(InputStream segment) throws IOException {
+		if (this.format == AudioResponseFormat.WAV) {
+			writeWav(segment);
+		}
+		else {
+			segment.transferTo(this.out);
+		}
+		this.first = false;
+		this.out.flush();
+	}
+
+	private void writeWav(InputStream in) throws IOException {
+		byte[] riff = readFully(in, 12);
+		if (!"RIFF".equals(ascii(riff, 0)) || !"WAVE".equals(ascii(riff, 8))) {
+			throw new IOException("Segment is not a WAV file");
+		}
+		ByteArrayOutputStream header = new ByteArrayOutputStream(64);
+		header.write(riff);
+
+		while (true) {
+			byte[] chunkHeader = readFully(in, 8);
+			long size = (chunkHeader[4] & 0xffL) | (chunkHeader[5] & 0xffL) << 8
+					| (chunkHeader[6] & 0xffL) << 16 | (chunkHeader[7] & 0xffL) << 24;
+
+			if ("data".equals(ascii(chunkHeader, 0))) {
+				if (this.first) {
+					header.write(chunkHeader);
+					byte[] bytes = header.toByteArray();
+					setUnknownSize(bytes, 4);
+					setUnknownSize(bytes, bytes.length - 4);
+					this.out.write(bytes);
+				}
+				if (size == UNKNOWN_SIZE || size == 0) {
+					in.transferTo(this.out);
+				}
+				else {
+					copy(in, size);
+				}
+				return;
+			}
+
+			header.write(chunkHeader);
+			// chunks are padded to an even size
+			header.write(readFully(in, (int) (size + (size & 1))));
+		}
+	}
+
+	private void copy(InputStream in, long size) throws IOException {
+		byte[] buffer = new byte[8192];
+		long remaining = size;
+		while (remaining > 0) {
+			int n = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+			if (n == -1) {
+				break;
+			}
+			this.out.write(buffer, 0, n);
+			remaining -= n;
+		}
+	}
+
+	private static byte[] readFully(InputStream in, int length) throws IOException {
+		byte[] bytes = in.readNBytes(length);
+		if (bytes.length < length) {
+			throw new EOFException("Unexpected end of WAV header");
+		}
+		return bytes;
+	}
+
+	private static String ascii(byte[] bytes, int offset) {
+		return new String(bytes, offset, 4, StandardCharsets.US_ASCII);
+	}
+
+	private static void setUnknownSize(byte[] bytes, int offset) {
+		for (int i = 0; i < 4; i++) {
+			bytes[offset + i] = (byte) 0xff;
+		}
+	}
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.audio.service;
+
+import java.text.BreakIterator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Splits text at sentence boundaries into segments that fit into a single speech
+ * request.
+ */
+final class TextSegmenter {
+
+	private TextSegmenter() {
+	}
+
+	/**
+	 * Packs consecutive sentences into segments of at most maxLength characters. The
+	 * first segment only contains the first sentence, so its audio is available as soon
+	 * as possible. Sentences longer than maxLength are split at whitespace.
+	 */
+	static List<String> split(String text, Locale locale, int maxLength) {
+		List<String> segments = new ArrayList<>();
+		StringBuilder current = new StringBuilder();
+
+		for (String sentence : sentences(text, locale, maxLength)) {
+			if (current.length() > 0
+					&& (segments.isEmpty() || current.length() + sentence.length() > maxLength)) {
+				addSegment(segments, current);
+			}
+			current.append(sentence);
+		}
+		addSegment(segments, current);
+		return segments;
+	}
+
+	private static void addSegment(List<String> segments, StringBuilder current) {
+		String segment = current.toString().strip();
+		if (!segment.isEmpty()) {
+			segments.add(segment);
+		}
+		current.setLength(0);
+	}
+
+	private static List<String> sentences(String text, Locale locale, int maxLength) {
+		List<String> sentences = new ArrayList<>();
+		BreakIterator iterator = BreakIterator.getSentenceInstance(locale);
+		iterator.setText(text);
+		int start = iterator.first();
+		for (int end = iterator.next(); end != BreakIterator.DONE; start = end, end = iterator
+				.next()) {
+			String sentence = text.substring(start, end);
+			if (sentence.isBlank()) {
+				continue;
+			}
+			while (sentence.length() > maxLength) {
+				int cut = lastWhitespace(sentence, maxLength);
+				sentences.add(sentence.substring(0, cut));
+				sentence = sentence.substring(cut);
+			}
+			sentences.add(sentence);
+		}
+		return sentences;
+	}
+
+	private static int lastWhitespace(String sentence, int maxLength) {
+		for (int i = maxLength; i > 0; i--) {
+			if (Character.isWhitespace(sentence.charAt(i))) {
+				return i;
+			}
+		}
+		return Character.isLowSurrogate(sentence.charAt(maxLength)) ? maxLength - 1
+				: maxLength;
+	}
+
+}
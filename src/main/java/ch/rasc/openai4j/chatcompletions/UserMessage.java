@@ -21,7 +21,9 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import ch.rasc.openai4j.common.ImageDetail;
+import ch.rasc.openai4j.common.ImageOptimizer;
 import ch.rasc.openai4j.common.ImageUrl;
+import ch.rasc.openai4j.common.PreparedImage;
 
 public class UserMessage extends ChatCompletionMessage {
 	private final Object content;
@@ -112,6 +114,16 @@ public class UserMessage extends ChatCompletionMessage {
 			return new ImageContent("image_url", new ImageUrl(url, detail));
 		}
 
+		/**
+		 * Creates a new ImageContent object from an image prepared by
+		 * {@link ImageOptimizer}
+		 *
+		 * @param image The resized and encoded image
+		 */
+		public static ImageContent of(PreparedImage image) {
+			return new ImageContent("image_url", image.toImageUrl());
+		}
+
 		@JsonProperty("image_url")
 		public ImageUrl imageUrl() {
 			return this.imageUrl;
@@ -46,6 +46,8 @@ import ch.rasc.openai4j.common.FunctionParameters;
 import ch.rasc.openai4j.common.JsonSchemaService;
 import ch.rasc.openai4j.common.ResponseFormat;
 import ch.rasc.openai4j.common.ToolCall;
+import ch.rasc.openai4j.tracing.OpenAISpan;
+import ch.rasc.openai4j.tracing.OpenAITracer;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validation;
 import jakarta.validation.Validator;
@@ -65,11 +67,19 @@ public class ChatCompletionsService {
 
 	private final Validator validator;
 
+	private final OpenAITracer tracer;
+
+	/**
+	 * @param tracer Traces the schema generation, the iterations and the tool calls.
+	 * Should be the tracer set in the configuration of the client, so the spans of the
+	 * HTTP calls are nested in the spans of the iterations.
+	 */
 	public ChatCompletionsService(ChatCompletionsClient chatCompletionsClient,
-			ObjectMapper objectMapper) {
+			ObjectMapper objectMapper, OpenAITracer tracer) {
 		this.jsonSchemaService = new JsonSchemaService();
 		this.chatCompletionsClient = chatCompletionsClient;
 		this.objectMapper = objectMapper;
+		this.tracer = tracer;
 
 		try (ValidatorFactory validatorFactory = Validation.byDefaultProvider()
 				.configure().messageInterpolator(new ParameterMessageInterpolator())
@@ -78,6 +88,11 @@ public class ChatCompletionsService {
 		}
 	}
 
+	public ChatCompletionsService(ChatCompletionsClient chatCompletionsClient,
+			ObjectMapper objectMapper) {
+		this(chatCompletionsClient, objectMapper, OpenAITracer.NOOP);
+	}
+
 	public ChatCompletionsService(ChatCompletionsClient chatCompletionsClient) {
 		this(chatCompletionsClient, new ObjectMapper());
 	}
@@ -101,39 +116,71 @@ public class ChatCompletionsService {
 
 		var javaFunctionsRequest = fn.apply(ChatCompletionsJavaFunctionRequest.builder())
 				.build();
-		Map<String, JavaFunction<?, ?>> javaFunctionRegistry = new HashMap<>();
-		List<ChatCompletionTool> tools = new ArrayList<>();
-		for (JavaFunction<?, ?> javaFunction : javaFunctionsRequest.javaFunctions()) {
-			javaFunctionRegistry.put(javaFunction.name(), javaFunction);
-			tools.add(javaFunction.toTool(this.jsonSchemaService));
-		}
+		try (OpenAISpan span = this.tracer.start("chat.createJavaFunctions")) {
+			Map<String, JavaFunction<?, ?>> javaFunctionRegistry = new HashMap<>();
+			List<ChatCompletionTool> tools = new ArrayList<>();
+			try (OpenAISpan schemaSpan = this.tracer.start("chat.schema")) {
+				for (JavaFunction<?, ?> javaFunction : javaFunctionsRequest
+						.javaFunctions()) {
+					javaFunctionRegistry.put(javaFunction.name(), javaFunction);
+					tools.add(javaFunction.toTool(this.jsonSchemaService));
+				}
+				schemaSpan.tag("functions", tools.size());
+			}
 
-		var requestBuilder = javaFunctionsRequest
-				.convertToChatCompletionsCreateRequestBuilder();
-		var request = requestBuilder.tools(tools).build();
-		ChatCompletionResponse response = this.chatCompletionsClient.create(request);
+			var requestBuilder = javaFunctionsRequest
+					.convertToChatCompletionsCreateRequestBuilder();
+			var request = requestBuilder.tools(tools).build();
+			ChatCompletionResponse response = this.chatCompletionsClient.create(request);
+			span.tag("model", response.model());
 
-		var thread = new ArrayList<>(request.messages());
-		var choice = response.choices().get(0);
+			var thread = new ArrayList<>(request.messages());
+			var choice = response.choices().get(0);
 
-		int iterationCount = 1;
-		while (choice.finishReason() == FinishReason.TOOL_CALLS) {
-			if (iterationCount > javaFunctionsRequest.maxIterations()) {
-				log.debug("Max iterations reached");
-				return response;
-			}
-			log.debug("Iteration {}", iterationCount);
+			int iterationCount = 1;
+			while (choice.finishReason() == FinishReason.TOOL_CALLS) {
+				if (iterationCount > javaFunctionsRequest.maxIterations()) {
+					log.debug("Max iterations reached");
+					span.tag("iterations", iterationCount - 1);
+					return response;
+				}
+				log.debug("Iteration {}", iterationCount);
+
+				try (OpenAISpan iterationSpan = this.tracer.start("chat.iteration")
+						.tag("iteration", iterationCount)) {
+					var message = choice.message();
+					thread.add(AssistantMessage.of(choice.message()));
 
-			var message = choice.message();
-			thread.add(AssistantMessage.of(choice.message()));
+					for (var toolCall : message.toolCalls()) {
+						JavaFunction<?, ?> javaFunction = javaFunctionRegistry
+								.get(toolCall.function().name());
+						if (javaFunction == null) {
+							throw new IllegalStateException(
+									"Unknown function " + toolCall.function().name());
+						}
+						thread.add(ToolMessage.of(toolCall.id(),
+								callFunction(javaFunction, toolCall)));
+					}
 
-			for (var toolCall : message.toolCalls()) {
-				JavaFunction<?, ?> javaFunction = javaFunctionRegistry
-						.get(toolCall.function().name());
-				if (javaFunction == null) {
-					throw new IllegalStateException(
-							"Unknown function " + toolCall.function().name());
+					request = requestBuilder.messages(thread).build();
+					response = this.chatCompletionsClient.create(request);
+					choice = response.choices().get(0);
+					tagUsage(iterationSpan, response);
 				}
+
+				iterationCount += 1;
+			}
+
+			span.tag("iterations", iterationCount - 1);
+			return response;
+		}
+	}
+
+	private String callFunction(JavaFunction<?, ?> javaFunction, ToolCall toolCall)
+			throws JsonProcessingException {
+		try (OpenAISpan span = this.tracer.start("chat.tool").tag("function",
+				javaFunction.name())) {
+			try {
 				var argument = this.objectMapper.readValue(
 						toolCall.function().arguments(), javaFunction.parameterClass());
 
@@ -143,21 +190,22 @@ public class ChatCompletionsService {
 				Object result = javaFunction.call(argument);
 
 				if (result != null) {
-					String resultJson = this.objectMapper.writeValueAsString(result);
-					thread.add(ToolMessage.of(toolCall.id(), resultJson));
-				}
-				else {
-					thread.add(ToolMessage.of(toolCall.id(), null));
+					return this.objectMapper.writeValueAsString(result);
 				}
+				return null;
+			}
+			catch (JsonProcessingException | RuntimeException e) {
+				span.error(e);
+				throw e;
 			}
-
-			request = requestBuilder.messages(thread).build();
-			response = this.chatCompletionsClient.create(request);
-
-			iterationCount += 1;
 		}
+	}
 
-		return response;
+	private static void tagUsage(OpenAISpan span, ChatCompletionResponse response) {
+		if (response.usage() != null) {
+			span.tag("prompt_tokens", response.usage().promptTokens());
+			span.tag("completion_tokens", response.usage().completionTokens());
+		}
 	}
 
 	public record ChatCompletionsModelResponse<T>(ChatCompletionResponse response,
@@ -206,151 +254,200 @@ public class ChatCompletionsService {
 		ChatCompletionsModelRequest<T> request = fn
 				.apply(ChatCompletionsModelRequest.builder()).build();
 
-		List<ChatCompletionMessage> thread;
-		var requestBuilder = request.convertToChatCompletionsCreateRequestBuilder();
-		ObjectNode jsonSchema = this.jsonSchemaService
-				.generateStrictSchema(request.responseModel());
-		String functionName = request.responseModel().getSimpleName();
+		try (OpenAISpan span = this.tracer.start("chat.createModel")
+				.tag("response_model", request.responseModel().getName())
+				.tag("mode", request.mode().name())) {
 
-		if (request.mode() == Mode.JSON_OBJECT) {
-			requestBuilder.responseFormat(ResponseFormat.jsonObject());
+			List<ChatCompletionMessage> thread;
+			var requestBuilder = request.convertToChatCompletionsCreateRequestBuilder();
+			String functionName = request.responseModel().getSimpleName();
 
-			String jsonSchemaSystemMessage = "Make sure that your response to any message matches the json_schema below, "
-					+ "do not deviate at all: \n" + jsonSchema;
+			try (OpenAISpan schemaSpan = this.tracer.start("chat.schema")) {
+				ObjectNode jsonSchema = this.jsonSchemaService
+						.generateStrictSchema(request.responseModel());
+				schemaSpan.tag("properties", jsonSchema.path("properties").size());
 
-			List<ChatCompletionMessage> originalMessages = request.messages();
-			thread = new ArrayList<>();
+				if (request.mode() == Mode.JSON_OBJECT) {
+					requestBuilder.responseFormat(ResponseFormat.jsonObject());
 
-			if (!originalMessages.isEmpty() && originalMessages
-					.get(0) instanceof SystemMessage firstSystemMessage) {
-				SystemMessage newSystemMessage = SystemMessage.of(
-						firstSystemMessage.content() + "\n\n" + jsonSchemaSystemMessage);
-				thread.add(newSystemMessage);
-				thread.addAll(originalMessages.subList(1, originalMessages.size()));
+					String jsonSchemaSystemMessage = "Make sure that your response to any message matches the json_schema below, "
+							+ "do not deviate at all: \n" + jsonSchema;
 
-				log.debug("Replacing system message: {}", newSystemMessage.content());
-			}
-			else {
-				thread.add(SystemMessage.of(jsonSchemaSystemMessage));
-				thread.addAll(originalMessages);
-				log.debug("Adding system message: {}", jsonSchemaSystemMessage);
-			}
-		}
-		else if (request.mode() == Mode.JSON_SCHEMA) {
-			ResponseFormat responseFormat = this.jsonSchemaService
-					.createStrictResponseFormat(request.responseModel());
-			requestBuilder.responseFormat(responseFormat);
-			log.debug("Using json schema response format: {}", responseFormat.value());
-			thread = new ArrayList<>(request.messages());
-		}
-		else {
-			thread = new ArrayList<>(request.messages());
-			JsonNode descriptionNode = jsonSchema.get("description");
-			String description = null;
-			if (descriptionNode != null) {
-				description = descriptionNode.textValue();
-			}
-			List<ChatCompletionTool> tool = List.of(ChatCompletionTool.of(
-					FunctionParameters.of(functionName, description, jsonSchema, true)));
-			requestBuilder.tools(tool);
-			requestBuilder.toolChoice(ToolChoice.function(functionName));
+					List<ChatCompletionMessage> originalMessages = request.messages();
+					thread = new ArrayList<>();
 
-			log.debug("Adding tool: {}", tool);
-		}
+					if (!originalMessages.isEmpty() && originalMessages
+							.get(0) instanceof SystemMessage firstSystemMessage) {
+						SystemMessage newSystemMessage = SystemMessage
+								.of(firstSystemMessage.content() + "\n\n"
+										+ jsonSchemaSystemMessage);
+						thread.add(newSystemMessage);
+						thread.addAll(
+								originalMessages.subList(1, originalMessages.size()));
+
+						log.debug("Replacing system message: {}",
+								newSystemMessage.content());
+					}
+					else {
+						thread.add(SystemMessage.of(jsonSchemaSystemMessage));
+						thread.addAll(originalMessages);
+						log.debug("Adding system message: {}", jsonSchemaSystemMessage);
+					}
+				}
+				else if (request.mode() == Mode.JSON_SCHEMA) {
+					ResponseFormat responseFormat = this.jsonSchemaService
+							.createStrictResponseFormat(request.responseModel());
+					requestBuilder.responseFormat(responseFormat);
+					log.debug("Using json schema response format: {}",
+							responseFormat.value());
+					thread = new ArrayList<>(request.messages());
+				}
+				else {
+					thread = new ArrayList<>(request.messages());
+					JsonNode descriptionNode = jsonSchema.get("description");
+					String description = null;
+					if (descriptionNode != null) {
+						description = descriptionNode.textValue();
+					}
+					List<ChatCompletionTool> tool = List.of(ChatCompletionTool.of(
+							FunctionParameters.of(functionName, description, jsonSchema,
+									true)));
+					requestBuilder.tools(tool);
+					requestBuilder.toolChoice(ToolChoice.function(functionName));
 
-		int retryCount = 0;
+					log.debug("Adding tool: {}", tool);
+				}
+			}
 
-		ChatCompletionResponse response = null;
-		while (retryCount < request.maxRetries()) {
-			log.debug("Retry {}", retryCount);
+			int retryCount = 0;
 
-			response = this.chatCompletionsClient
-					.create(requestBuilder.messages(thread).build());
+			ChatCompletionResponse response = null;
+			while (retryCount < request.maxRetries()) {
+				log.debug("Retry {}", retryCount);
 
-			var choice = response.choices().get(0);
-			if (choice.finishReason() != FinishReason.STOP) {
-				return new ChatCompletionsModelResponse<>(response, null,
-						"finish reason not STOP");
-			}
+				try (OpenAISpan iterationSpan = this.tracer.start("chat.iteration")
+						.tag("iteration", retryCount + 1)) {
+					response = this.chatCompletionsClient
+							.create(requestBuilder.messages(thread).build());
+					span.tag("model", response.model());
+					tagUsage(iterationSpan, response);
 
-			try {
-				T responseModelInstance = null;
-				String refusal = choice.message().refusal();
-				if (request.mode() == Mode.JSON_OBJECT) {
-					responseModelInstance = this.objectMapper.readValue(
-							choice.message().content(), request.responseModel());
-				}
-				else if (request.mode() == Mode.JSON_SCHEMA) {
-					if (refusal == null || refusal.isBlank()) {
-						responseModelInstance = this.objectMapper.readValue(
-								choice.message().content(), request.responseModel());
-					}
-					else {
-						log.debug("json schema refusal: {}", refusal);
+					var choice = response.choices().get(0);
+					if (choice.finishReason() != FinishReason.STOP) {
 						return new ChatCompletionsModelResponse<>(response, null,
-								"json schema refusal");
+								"finish reason not STOP");
 					}
-				}
-				else if (request.mode() == Mode.TOOL) {
-					ToolCall firstToolCall = choice.message().toolCalls().get(0);
-					if (firstToolCall.function().name().equals(functionName)) {
-						responseModelInstance = this.objectMapper.readValue(
-								firstToolCall.function().arguments(),
-								request.responseModel());
+
+					try {
+						T responseModelInstance = null;
+						String refusal = choice.message().refusal();
+						if (request.mode() == Mode.JSON_OBJECT) {
+							responseModelInstance = deserialize(
+									choice.message().content(), request.responseModel());
+						}
+						else if (request.mode() == Mode.JSON_SCHEMA) {
+							if (refusal == null || refusal.isBlank()) {
+								responseModelInstance = deserialize(
+										choice.message().content(),
+										request.responseModel());
+							}
+							else {
+								log.debug("json schema refusal: {}", refusal);
+								return new ChatCompletionsModelResponse<>(response, null,
+										"json schema refusal");
+							}
+						}
+						else if (request.mode() == Mode.TOOL) {
+							ToolCall firstToolCall = choice.message().toolCalls().get(0);
+							if (firstToolCall.function().name().equals(functionName)) {
+								responseModelInstance = deserialize(
+										firstToolCall.function().arguments(),
+										request.responseModel());
+							}
+							else {
+								String errorMessage = "Recall the correct function, "
+										+ "function " + firstToolCall.function().name()
+										+ " does not exist";
+								thread.add(AssistantMessage.of(choice.message()));
+								thread.add(UserMessage.of(errorMessage));
+								iterationSpan.tag("retry_reason", "unknown function");
+							}
+						}
+
+						if (responseModelInstance != null) {
+							Set<ConstraintViolation<T>> constraintViolations = validate(
+									responseModelInstance);
+							if (constraintViolations.isEmpty()) {
+								return new ChatCompletionsModelResponse<>(response,
+										responseModelInstance, null);
+							}
+
+							StringBuilder validationErrors;
+							if (request.mode() == Mode.JSON_OBJECT) {
+								validationErrors = new StringBuilder(
+										"Validation errors found\n");
+							}
+							else {
+								validationErrors = new StringBuilder(
+										"Recall the function correctly, validation errors found\n");
+							}
+							for (ConstraintViolation<T> violation : constraintViolations) {
+								validationErrors.append(violation.getPropertyPath())
+										.append(": ").append(violation.getMessage())
+										.append("\n");
+							}
+							thread.add(AssistantMessage.of(choice.message()));
+							thread.add(UserMessage.of(validationErrors.toString()));
+							log.debug("Adding validation error user message: {}",
+									validationErrors);
+							iterationSpan.tag("retry_reason", "validation");
+						}
 					}
-					else {
-						String errorMessage = "Recall the correct function, function "
-								+ firstToolCall.function().name() + " does not exist";
+					catch (JsonProcessingException e) {
+						String errorMessage;
+						if (request.mode() == Mode.JSON_OBJECT) {
+							errorMessage = "Could not deserialize response\n"
+									+ e.getMessage();
+						}
+						else {
+							errorMessage = "Recall the function correctly, exceptions during deserialization found\n"
+									+ e.getMessage();
+						}
 						thread.add(AssistantMessage.of(choice.message()));
 						thread.add(UserMessage.of(errorMessage));
+						log.debug("Adding deserialization error user message: {}",
+								errorMessage);
+						iterationSpan.tag("retry_reason", "deserialization");
 					}
 				}
 
-				if (responseModelInstance != null) {
-					Set<ConstraintViolation<T>> constraintViolations = this.validator
-							.validate(responseModelInstance);
-					if (constraintViolations.isEmpty()) {
-						return new ChatCompletionsModelResponse<>(response,
-								responseModelInstance, null);
-					}
+				retryCount++;
+			}
 
-					StringBuilder validationErrors;
-					if (request.mode() == Mode.JSON_OBJECT) {
-						validationErrors = new StringBuilder("Validation errors found\n");
-					}
-					else {
-						validationErrors = new StringBuilder(
-								"Recall the function correctly, validation errors found\n");
-					}
-					for (ConstraintViolation<T> constraintViolation : constraintViolations) {
-						validationErrors.append(constraintViolation.getPropertyPath())
-								.append(": ").append(constraintViolation.getMessage())
-								.append("\n");
-					}
-					thread.add(AssistantMessage.of(choice.message()));
-					thread.add(UserMessage.of(validationErrors.toString()));
-					log.debug("Adding validation error user message: {}",
-							validationErrors);
-				}
+			return new ChatCompletionsModelResponse<>(response, null,
+					"max retries reached");
+		}
+	}
+
+	private <T> T deserialize(String json, Class<T> type) throws JsonProcessingException {
+		try (OpenAISpan span = this.tracer.start("chat.deserialize")) {
+			try {
+				return this.objectMapper.readValue(json, type);
 			}
 			catch (JsonProcessingException e) {
-				String errorMessage;
-				if (request.mode() == Mode.JSON_OBJECT) {
-					errorMessage = "Could not deserialize response\n" + e.getMessage();
-				}
-				else {
-					errorMessage = "Recall the function correctly, exceptions during deserialization found\n"
-							+ e.getMessage();
-				}
-				thread.add(AssistantMessage.of(choice.message()));
-				thread.add(UserMessage.of(errorMessage));
-				log.debug("Adding deserialization error user message: {}", errorMessage);
+				span.error(e);
+				throw e;
 			}
-
-			retryCount++;
 		}
+	}
 
-		return new ChatCompletionsModelResponse<>(response, null, "max retries reached");
+	private <T> Set<ConstraintViolation<T>> validate(T responseModelInstance) {
+		try (OpenAISpan span = this.tracer.start("chat.validate")) {
+			Set<ConstraintViolation<T>> constraintViolations = this.validator
+					.validate(responseModelInstance);
+			span.tag("violations", constraintViolations.size());
+			return constraintViolations;
+		}
 	}
 
 }
@@ -68,6 +68,14 @@ public class JavaFunction<T, R> {
 		return this.name;
 	}
 
+	/**
+	 * A description of what the function does, used by the model to choose when and how
+	 * to call the function.
+	 */
+	public String description() {
+		return this.description;
+	}
+
 	/**
 	 * Parameter class of the function.
 	 */
@@ -0,0 +1,180 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * File content of a multipart/form-data request that does not have to exist as a
+ * {@link java.io.File}. The content is written directly into the request body without
+ * a temporary file. feign-form assembles the body in memory and Feign sends it as a
+ * byte array, so the whole payload is buffered once while the request is sent.
+ * <p>
+ * A FilePart created from an {@link InputStream} can only be sent once.
+ */
+public final class FilePart {
+
+	private static final int CHUNK_SIZE = 8192;
+
+	private final String filename;
+	private final String contentType;
+	private final long length;
+	private final Source source;
+
+	@FunctionalInterface
+	private interface Source {
+		void writeTo(OutputStream out) throws IOException;
+	}
+
+	private FilePart(String filename, String contentType, long length, Source source) {
+		if (filename == null || filename.isBlank()) {
+			throw new IllegalArgumentException("filename must not be null or empty");
+		}
+		this.filename = filename;
+		this.contentType = contentType != null && !contentType.isBlank() ? contentType
+				: guessContentType(filename);
+		this.length = length;
+		this.source = source;
+	}
+
+	/**
+	 * Creates a FilePart from a byte array. The array is not copied.
+	 */
+	public static FilePart of(byte[] data, String filename, String contentType) {
+		if (data == null) {
+			throw new IllegalArgumentException("data must not be null");
+		}
+		return new FilePart(filename, contentType, data.length, out -> out.write(data));
+	}
+
+	/**
+	 * Creates a FilePart from the remaining bytes of a ByteBuffer. The position of the
+	 * buffer is not changed. Heap buffers are written without a copy, direct and mapped
+	 * buffers are written in small chunks.
+	 */
+	public static FilePart of(ByteBuffer data, String filename, String contentType) {
+		if (data == null) {
+			throw new IllegalArgumentException("data must not be null");
+		}
+		ByteBuffer buffer = data.duplicate();
+		return new FilePart(filename, contentType, buffer.remaining(),
+				out -> writeBuffer(buffer.duplicate(), out));
+	}
+
+	/**
+	 * Creates a FilePart from an InputStream. The stream is read when the request is
+	 * encoded and closed afterwards.
+	 */
+	public static FilePart of(InputStream data, String filename, String contentType) {
+		if (data == null) {
+			throw new IllegalArgumentException("data must not be null");
+		}
+		return new FilePart(filename, contentType, -1, out -> {
+			try (data) {
+				data.transferTo(out);
+			}
+		});
+	}
+
+	/**
+	 * Creates a FilePart from a file. The file name is used as filename.
+	 */
+	public static FilePart of(Path file, String contentType) {
+		return of(file, file.getFileName().toString(), contentType);
+	}
+
+	/**
+	 * Creates a FilePart from a file. The file is read when the request is encoded.
+	 */
+	public static FilePart of(Path file, String filename, String contentType) {
+		if (file == null) {
+			throw new IllegalArgumentException("file must not be null");
+		}
+		long length;
+		try {
+			length = Files.size(file);
+		}
+		catch (IOException e) {
+			length = -1;
+		}
+		return new FilePart(filename, contentType, length, out -> {
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+				while (channel.read(chunk) != -1) {
+					chunk.flip();
+					out.write(chunk.array(), 0, chunk.limit());
+					chunk.clear();
+				}
+			}
+		});
+	}
+
+	private static void writeBuffer(ByteBuffer buffer, OutputStream out)
+			throws IOException {
+		if (buffer.hasArray()) {
+			out.write(buffer.array(), buffer.arrayOffset() + buffer.position(),
+					buffer.remaining());
+			return;
+		}
+		byte[] chunk = new byte[Math.min(CHUNK_SIZE, buffer.remaining())];
+		while (buffer.hasRemaining()) {
+			int len = Math.min(chunk.length, buffer.remaining());
+			buffer.get(chunk, 0, len);
+			out.write(chunk, 0, len);
+		}
+	}
+
+	private static String guessContentType(String filename) {
+		String contentType = URLConnection.guessContentTypeFromName(filename);
+		return contentType != null ? contentType : "application/octet-stream";
+	}
+
+	/**
+	 * Writes the content of this part to the output stream.
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		this.source.writeTo(out);
+	}
+
+	/**
+	 * The filename sent in the Content-Disposition header of the part.
+	 */
+	public String filename() {
+		return this.filename;
+	}
+
+	/**
+	 * The Content-Type of the part. Guessed from the filename when not specified.
+	 */
+	public String contentType() {
+		return this.contentType;
+	}
+
+	/**
+	 * The number of bytes of the content or -1 if unknown.
+	 */
+	public long length() {
+		return this.length;
+	}
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.common;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Iterator;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+/**
+ * Prepares images for vision requests. The image is decoded, scaled to the size the
+ * model processes for the requested {@link ImageDetail}, re-encoded as JPEG (or PNG if
+ * it has transparency) and base64 encoded directly into a data URL.
+ * <p>
+ * With detail low the model sees a 512x512 version of the image. With detail high (and
+ * auto) the image is scaled to fit into 2048x2048 and then so that the shortest side is
+ * 768 pixels, and it is billed per 512x512 tile. Larger images only cost upload time.
+ */
+@SuppressWarnings("hiding")
+public class ImageOptimizer {
+
+	/**
+	 * Tokens every image costs, independent of its size.
+	 */
+	public static final int BASE_TOKENS = 85;
+
+	/**
+	 * Tokens every 512x512 tile of a high detail image costs.
+	 */
+	public static final int TILE_TOKENS = 170;
+
+	private static final int TILE_SIZE = 512;
+	private static final int LOW_DETAIL_SIZE = 512;
+	private static final int HIGH_DETAIL_MAX_SIZE = 2048;
+	private static final int HIGH_DETAIL_SHORT_SIDE = 768;
+
+	private final ImageDetail detail;
+	private final float jpegQuality;
+	private final double tileSnapTolerance;
+
+	private ImageOptimizer(Builder builder) {
+		if (builder.jpegQuality <= 0 || builder.jpegQuality > 1) {
+			throw new IllegalArgumentException(
+					"jpegQuality must be greater than 0 and at most 1");
+		}
+		if (builder.tileSnapTolerance < 0 || builder.tileSnapTolerance >= 1) {
+			throw new IllegalArgumentException(
+					"tileSnapTolerance must be at least 0 and less than 1");
+		}
+		this.detail = builder.detail != null ? builder.detail : ImageDetail.AUTO;
+		this.jpegQuality = builder.jpegQuality;
+		this.tileSnapTolerance = builder.tileSnapTolerance;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static class Builder {
+		private ImageDetail detail;
+		private float jpegQuality = 0.85f;
+		private double tileSnapTolerance = 0.1;
+
+		private Builder() {
+		}
+
+		/**
+		 * The detail level the image is prepared for and sent with. Defaults to auto,
+		 * which is prepared like high.
+		 */
+		public Builder detail(ImageDetail detail) {
+			this.detail = detail;
+			return this;
+		}
+
+		/**
+		 * JPEG compression quality between 0 and 1. Defaults to 0.85.
+		 */
+		public Builder jpegQuality(float jpegQuality) {
+			this.jpegQuality = jpegQuality;
+			return this;
+		}
+
+		/**
+		 * Fraction an image with detail high is additionally scaled down if that saves
+		 * a row or column of tiles. Defaults to 0.1, 0 disables it.
+		 */
+		public Builder tileSnapTolerance(double tileSnapTolerance) {
+			this.tileSnapTolerance = tileSnapTolerance;
+			return this;
+		}
+
+		public ImageOptimizer build() {
+			return new ImageOptimizer(this);
+		}
+	}
+
+	/**
+	 * Estimates the tokens an image of the given size costs, after the scaling the API
+	 * applies.
+	 */
+	public static int estimateTokens(int width, int height, ImageDetail detail) {
+		if (detail == ImageDetail.LOW) {
+			return BASE_TOKENS;
+		}
+		int[] size = highDetailSize(width, height);
+		return BASE_TOKENS + TILE_TOKENS * tiles(size[0], size[1]);
+	}
+
+	public PreparedImage prepare(Path file) throws IOException {
+		try (InputStream in = Files.newInputStream(file)) {
+			return prepare(in);
+		}
+	}
+
+	/**
+	 * Decodes and prepares an image in a format supported by {@link ImageIO}. The stream
+	 * is not closed.
+	 */
+	public PreparedImage prepare(InputStream in) throws IOException {
+		BufferedImage image = ImageIO.read(in);
+		if (image == null) {
+			throw new IOException("Unsupported image format");
+		}
+		return prepare(image);
+	}
+
+	public PreparedImage prepare(BufferedImage image) throws IOException {
+		int[] size = targetSize(image.getWidth(), image.getHeight());
+		BufferedImage scaled = scale(image, size[0], size[1]);
+		boolean alpha = image.getColorModel().hasAlpha();
+		String mimeType = alpha ? "image/png" : "image/jpeg";
+
+		// the encoder writes through the base64 encoder into the buffer that already
+		// holds the data URL prefix. This saves a separate array of the encoded image
+		// and a separate base64 string, the buffer itself still grows by copying and
+		// is copied into the data URL string.
+		ByteArrayOutputStream dataUrl = new ByteArrayOutputStream(
+				size[0] * size[1] / 4 + 64);
+		dataUrl.writeBytes(
+				("data:" + mimeType + ";base64,").getBytes(StandardCharsets.US_ASCII));
+		CountingOutputStream counter;
+		OutputStream unclosable = new FilterOutputStream(dataUrl) {
+			@Override
+			public void close() {
+				// keep the buffer open
+			}
+		};
+		try (OutputStream base64 = Base64.getEncoder().wrap(unclosable)) {
+			counter = new CountingOutputStream(base64);
+			if (alpha) {
+				ImageIO.write(scaled, "png", counter);
+			}
+			else {
+				writeJpeg(scaled, counter);
+			}
+		}
+
+		int tokens = this.detail == ImageDetail.LOW ? BASE_TOKENS
+				: BASE_TOKENS + TILE_TOKENS * tiles(size[0], size[1]);
+		return new PreparedImage(dataUrl.toString(StandardCharsets.US_ASCII), mimeType,
+				this.detail, size[0], size[1], image.getWidth(), image.getHeight(),
+				counter.count, tokens);
+	}
+
+	private static final class CountingOutputStream extends FilterOutputStream {
+		long count;
+
+		CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			this.out.write(b);
+			this.count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			this.out.write(b, off, len);
+			this.count += len;
+		}
+	}
+
+	private int[] targetSize(int width, int height) {
+		if (this.detail == ImageDetail.LOW) {
+			double scale = Math.min(1.0,
+					(double) LOW_DETAIL_SIZE / Math.max(width, height));
+			return scaled(width, height, scale);
+		}
+
+		int[] size = highDetailSize(width, height);
+		if (this.tileSnapTolerance == 0) {
+			return size;
+		}
+
+		// scaling a little further can save a whole row or column of tiles
+		int[] best = size;
+		int bestTiles = tiles(size[0], size[1]);
+		for (int side : size) {
+			int snapped = side / TILE_SIZE * TILE_SIZE;
+			double scale = (double) snapped / side;
+			if (snapped == 0 || scale < 1 - this.tileSnapTolerance) {
+				continue;
+			}
+			int[] candidate = scaled(size[0], size[1], scale);
+			int candidateTiles = tiles(candidate[0], candidate[1]);
+			if (candidateTiles < bestTiles) {
+				best = candidate;
+				bestTiles = candidateTiles;
+			}
+		}
+		return best;
+	}
+
+	private static int[] highDetailSize(int width, int height) {
+		double scale = Math.min(1.0,
+				(double) HIGH_DETAIL_MAX_SIZE / Math.max(width, height));
+		int[] size = scaled(width, height, scale);
+		scale = Math.min(1.0,
+				(double) HIGH_DETAIL_SHORT_SIDE / Math.min(size[0], size[1]));
+		return scaled(size[0], size[1], scale);
+	}
+
+	private static int[] scaled(int width, int height, double scale) {
+		return new int[] { Math.max(1, (int) Math.floor(width * scale)),
+				Math.max(1, (int) Math.floor(height * scale)) };
+	}
+
+	private static int tiles(int width, int height) {
+		return ((width + TILE_SIZE - 1) / TILE_SIZE)
+				* ((height + TILE_SIZE - 1) / TILE_SIZE);
+	}
+
+	/**
+	 * Scales in steps of at most half the size, a single bicubic step from a much
+	 * larger image skips most of the source pixels.
+	 */
+	private static BufferedImage scale(BufferedImage image, int width, int height) {
+		int type = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB
+				: BufferedImage.TYPE_INT_RGB;
+		BufferedImage current = image;
+		int currentWidth = image.getWidth();
+		int currentHeight = image.getHeight();
+		do {
+			currentWidth = Math.max(width, currentWidth / 2);
+			currentHeight = Math.max(height, currentHeight / 2);
+			BufferedImage next = new BufferedImage(currentWidth, currentHeight, type);
+			Graphics2D g = next.createGraphics();
+			try {
+				g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+						RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+				g.setRenderingHint(RenderingHints.KEY_RENDERING,
+						RenderingHints.VALUE_RENDER_QUALITY);
+				g.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+			}
+			finally {
+				g.dispose();
+			}
+			current = next;
+		}
+		while (currentWidth != width || currentHeight != height);
+		return current;
+	}
+
+	private void writeJpeg(BufferedImage image, OutputStream out) throws IOException {
+		Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+		if (!writers.hasNext()) {
+			throw new IOException("No JPEG writer available");
+		}
+		ImageWriter writer = writers.next();
+		try (ImageOutputStream ios = new MemoryCacheImageOutputStream(out)) {
+			writer.setOutput(ios);
+			ImageWriteParam param = writer.getDefaultWriteParam();
+			param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			param.setCompressionQuality(this.jpegQuality);
+			writer.write(null, new IIOImage(image, null, null), param);
+		}
+		finally {
+			writer.dispose();
+		}
+	}
+
+}
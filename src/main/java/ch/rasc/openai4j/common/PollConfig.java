@@ -21,8 +21,13 @@ import java.util.concurrent.TimeUnit;
 public class PollConfig {
 	private final long pollInterval;
 	private final TimeUnit pollIntervalTimeUnit;
+	private final long maxPollInterval;
+	private final TimeUnit maxPollIntervalTimeUnit;
+	private final double backoffMultiplier;
+	private final double jitter;
 	private final long maxWait;
 	private final TimeUnit maxWaitTimeUnit;
+	private final ResourceWatcher watcher;
 
 	private PollConfig(Builder builder) {
 		if (builder.maxWaitTimeUnit == null) {
@@ -33,11 +38,46 @@ public class PollConfig {
 			builder.pollIntervalTimeUnit = TimeUnit.SECONDS;
 			builder.pollInterval = 1;
 		}
+		long pollIntervalMillis = builder.pollIntervalTimeUnit
+				.toMillis(builder.pollInterval);
+		if (builder.maxPollIntervalTimeUnit == null) {
+			// never poll more often than the configured pollInterval
+			if (pollIntervalMillis > TimeUnit.SECONDS.toMillis(10)) {
+				builder.maxPollIntervalTimeUnit = builder.pollIntervalTimeUnit;
+				builder.maxPollInterval = builder.pollInterval;
+			}
+			else {
+				builder.maxPollIntervalTimeUnit = TimeUnit.SECONDS;
+				builder.maxPollInterval = 10;
+			}
+		}
+		else if (pollIntervalMillis > builder.maxPollIntervalTimeUnit
+				.toMillis(builder.maxPollInterval)) {
+			throw new IllegalArgumentException(
+					"pollInterval must not be greater than maxPollInterval");
+		}
+		if (builder.backoffMultiplier == null) {
+			builder.backoffMultiplier = 1.5;
+		}
+		if (builder.jitter == null) {
+			builder.jitter = 0.2;
+		}
+		if (builder.backoffMultiplier < 1) {
+			throw new IllegalArgumentException("backoffMultiplier must not be less than 1");
+		}
+		if (builder.jitter < 0 || builder.jitter >= 1) {
+			throw new IllegalArgumentException("jitter must be between 0 and 1");
+		}
 
 		this.pollInterval = builder.pollInterval;
 		this.pollIntervalTimeUnit = builder.pollIntervalTimeUnit;
+		this.maxPollInterval = builder.maxPollInterval;
+		this.maxPollIntervalTimeUnit = builder.maxPollIntervalTimeUnit;
+		this.backoffMultiplier = builder.backoffMultiplier;
+		this.jitter = builder.jitter;
 		this.maxWait = builder.maxWait;
 		this.maxWaitTimeUnit = builder.maxWaitTimeUnit;
+		this.watcher = builder.watcher;
 	}
 
 	public long pollInterval() {
@@ -48,6 +88,22 @@ public class PollConfig {
 		return this.pollIntervalTimeUnit;
 	}
 
+	public long maxPollInterval() {
+		return this.maxPollInterval;
+	}
+
+	public TimeUnit maxPollIntervalTimeUnit() {
+		return this.maxPollIntervalTimeUnit;
+	}
+
+	public double backoffMultiplier() {
+		return this.backoffMultiplier;
+	}
+
+	public double jitter() {
+		return this.jitter;
+	}
+
 	public long maxWait() {
 		return this.maxWait;
 	}
@@ -56,6 +112,30 @@ public class PollConfig {
 		return this.maxWaitTimeUnit;
 	}
 
+	/**
+	 * The watcher that polls, {@link ResourceWatcher#shared()} if not set.
+	 */
+	public ResourceWatcher watcher() {
+		return this.watcher != null ? this.watcher : ResourceWatcher.shared();
+	}
+
+	/**
+	 * Returns the delay in milliseconds before the next poll. The first poll after the
+	 * initial one waits pollInterval, every following poll waits backoffMultiplier times
+	 * longer up to maxPollInterval. The delay is randomly varied by +/- jitter.
+	 *
+	 * @param attempt The number of polls that have already been made, starting at 1
+	 * @param random A random value between 0 and 1
+	 */
+	long delayMillis(int attempt, double random) {
+		double delay = this.pollIntervalTimeUnit.toMillis(this.pollInterval)
+				* Math.pow(this.backoffMultiplier, Math.max(0, attempt - 1));
+		delay = Math.min(delay,
+				this.maxPollIntervalTimeUnit.toMillis(this.maxPollInterval));
+		delay = delay * (1 - this.jitter + 2 * this.jitter * random);
+		return Math.max(0, Math.round(delay));
+	}
+
 	public static Builder builder() {
 		return new Builder();
 	}
@@ -63,21 +143,71 @@ public class PollConfig {
 	public static class Builder {
 		private long pollInterval;
 		private TimeUnit pollIntervalTimeUnit;
+		private long maxPollInterval;
+		private TimeUnit maxPollIntervalTimeUnit;
+		private Double backoffMultiplier;
+		private Double jitter;
 		private long maxWait;
 		private TimeUnit maxWaitTimeUnit;
+		private ResourceWatcher watcher;
 
+		/**
+		 * The delay between the first and the second poll. Defaults to 1 second.
+		 */
 		public Builder pollInterval(long pollInterval, TimeUnit pollIntervalTimeUnit) {
 			this.pollInterval = pollInterval;
 			this.pollIntervalTimeUnit = pollIntervalTimeUnit;
 			return this;
 		}
 
+		/**
+		 * The upper limit of the delay between two polls. Must not be less than
+		 * pollInterval. Defaults to 10 seconds or pollInterval, whichever is greater.
+		 */
+		public Builder maxPollInterval(long maxPollInterval,
+				TimeUnit maxPollIntervalTimeUnit) {
+			this.maxPollInterval = maxPollInterval;
+			this.maxPollIntervalTimeUnit = maxPollIntervalTimeUnit;
+			return this;
+		}
+
+		/**
+		 * The factor the delay grows by after every poll. Defaults to 1.5. Set to 1 to
+		 * poll at a fixed interval.
+		 */
+		public Builder backoffMultiplier(double backoffMultiplier) {
+			this.backoffMultiplier = backoffMultiplier;
+			return this;
+		}
+
+		/**
+		 * The fraction by which every delay is randomly varied, so that many waits
+		 * started at the same time do not poll at the same time. Defaults to 0.2.
+		 */
+		public Builder jitter(double jitter) {
+			this.jitter = jitter;
+			return this;
+		}
+
+		/**
+		 * The time after which waiting is given up. Defaults to 2 minutes.
+		 */
 		public Builder maxWait(long maxWait, TimeUnit maxWaitTimeUnit) {
 			this.maxWait = maxWait;
 			this.maxWaitTimeUnit = maxWaitTimeUnit;
 			return this;
 		}
 
+		/**
+		 * The watcher that runs the polls, for example one with more threads or one
+		 * that polls on an executor of the application. Defaults to
+		 * {@link ResourceWatcher#shared()}.
+		 */
+		public Builder watcher(ResourceWatcher watcher) {
+			this.watcher = watcher;
+			return this;
+		}
+
 		public PollConfig build() {
 			return new PollConfig(this);
 		}
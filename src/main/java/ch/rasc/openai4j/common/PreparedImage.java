@@ -0,0 +1,104 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.common;
+
+/**
+ * An image resized and encoded by {@link ImageOptimizer}, ready to be sent as data URL.
+ */
+public record PreparedImage(String dataUrl, String mimeType, ImageDetail detail,
+		int width, int height, int originalWidth, int originalHeight, long bytes,
+		int tokens) {
+
+	/**
+	 * The data URL with the base64 encoded image, for example data:image/jpeg;base64,...
+	 */
+	@Override
+	public String dataUrl() {
+		return this.dataUrl;
+	}
+
+	/**
+	 * MIME type of the encoded image, image/jpeg or image/png.
+	 */
+	@Override
+	public String mimeType() {
+		return this.mimeType;
+	}
+
+	/**
+	 * The detail level the image was prepared for.
+	 */
+	@Override
+	public ImageDetail detail() {
+		return this.detail;
+	}
+
+	/**
+	 * Width of the encoded image in pixels.
+	 */
+	@Override
+	public int width() {
+		return this.width;
+	}
+
+	/**
+	 * Height of the encoded image in pixels.
+	 */
+	@Override
+	public int height() {
+		return this.height;
+	}
+
+	/**
+	 * Width of the source image in pixels.
+	 */
+	@Override
+	public int originalWidth() {
+		return this.originalWidth;
+	}
+
+	/**
+	 * Height of the source image in pixels.
+	 */
+	@Override
+	public int originalHeight() {
+		return this.originalHeight;
+	}
+
+	/**
+	 * Size of the encoded image in bytes, before base64 encoding.
+	 */
+	@Override
+	public long bytes() {
+		return this.bytes;
+	}
+
+	/**
+	 * Estimated number of input tokens the image costs.
+	 */
+	@Override
+	public int tokens() {
+		return this.tokens;
+	}
+
+	/**
+	 * Returns the image as ImageUrl for message content.
+	 */
+	public ImageUrl toImageUrl() {
+		return new ImageUrl(this.dataUrl, this.detail);
+	}
+
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.common;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the items of a blocking source to a single subscriber. Items are read on
+ * the executor, only when the subscriber requested more items. The source is closed
+ * after the last item, an error or cancellation.
+ * <p>
+ * Used by the streaming responses, which guard against a second consumer themselves.
+ */
+public final class PullPublisher {
+
+	/**
+	 * A blocking source of items.
+	 */
+	@FunctionalInterface
+	public interface Source<T> {
+		/**
+		 * Reads the next item.
+		 *
+		 * @return The item, or null at the end of the source
+		 */
+		T next() throws IOException;
+	}
+
+	private PullPublisher() {
+		// utility class
+	}
+
+	/**
+	 * Subscribes the subscriber to the items of the source.
+	 *
+	 * @param subscriber The only subscriber of the source
+	 * @param source The source of the items
+	 * @param executor The executor the source is read on
+	 * @param close Closes the source, called once the subscription has ended
+	 */
+	public static <T> void subscribe(Flow.Subscriber<? super T> subscriber,
+			Source<? extends T> source, Executor executor, Runnable close) {
+		subscriber
+				.onSubscribe(new PullSubscription<>(subscriber, source, executor, close));
+	}
+
+	/**
+	 * Rejects the subscriber with the error, as required by the Reactive Streams rules
+	 * the error is signalled after onSubscribe.
+	 */
+	public static void reject(Flow.Subscriber<?> subscriber, Throwable error) {
+		subscriber.onSubscribe(new Flow.Subscription() {
+			@Override
+			public void request(long n) {
+				// nothing to do
+			}
+
+			@Override
+			public void cancel() {
+				// nothing to do
+			}
+		});
+		subscriber.onError(error);
+	}
+
+	private static final class PullSubscription<T> implements Flow.Subscription {
+		private final Flow.Subscriber<? super T> subscriber;
+		private final Source<? extends T> source;
+		private final Executor executor;
+		private final Runnable close;
+		private final AtomicLong demand = new AtomicLong();
+		private final AtomicInteger pending = new AtomicInteger();
+		private volatile boolean done;
+
+		PullSubscription(Flow.Subscriber<? super T> subscriber,
+				Source<? extends T> source, Executor executor, Runnable close) {
+			this.subscriber = subscriber;
+			this.source = source;
+			this.executor = executor;
+			this.close = close;
+		}
+
+		@Override
+		public void request(long n) {
+			if (n <= 0) {
+				finish(new IllegalArgumentException(
+						"non-positive subscription request: " + n));
+				return;
+			}
+			this.demand.getAndAccumulate(n,
+					(current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+			if (this.pending.getAndIncrement() == 0) {
+				this.executor.execute(this::drain);
+			}
+		}
+
+		@Override
+		public void cancel() {
+			this.done = true;
+			this.close.run();
+		}
+
+		private void drain() {
+			int missed = 1;
+			while (true) {
+				try {
+					while (!this.done && this.demand.get() > 0) {
+						T item = this.source.next();
+						if (item == null) {
+							finish(null);
+							return;
+						}
+						this.demand.decrementAndGet();
+						this.subscriber.onNext(item);
+					}
+				}
+				catch (IOException | RuntimeException e) {
+					finish(e);
+					return;
+				}
+				missed = this.pending.addAndGet(-missed);
+				if (missed == 0) {
+					return;
+				}
+			}
+		}
+
+		private void finish(Throwable error) {
+			if (this.done) {
+				return;
+			}
+			this.done = true;
+			this.close.run();
+			if (error != null) {
+				this.subscriber.onError(error);
+			}
+			else {
+				this.subscriber.onComplete();
+			}
+		}
+	}
+
+}
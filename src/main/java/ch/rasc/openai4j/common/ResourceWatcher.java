@@ -0,0 +1,339 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.common;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.rasc.openai4j.jfr.FlightRecorderEvents;
+
+/**
+ * Waits for asynchronous server side operations without blocking a thread per wait.
+ * The polls run on a pool of poll threads or on an executor of the caller, a separate
+ * scheduler thread only times the polls and the maxWait timeouts, so a slow poll never
+ * delays a timeout. Concurrent
+ * waits for the same resource share a single poll loop, and the delay between two polls
+ * grows with every poll.
+ * <p>
+ * Cancelling a returned future stops the wait. The poll loop of a resource stops as soon
+ * as nobody waits for it anymore.
+ */
+public final class ResourceWatcher implements AutoCloseable {
+	private final static Logger log = LoggerFactory.getLogger(ResourceWatcher.class);
+
+	/**
+	 * The number of poll threads of the shared watcher. The threads are only created
+	 * when polls are waiting and end when they have been idle for a minute.
+	 */
+	public static final int DEFAULT_THREADS = 32;
+
+	private static final class SharedHolder {
+		static final ResourceWatcher INSTANCE = new ResourceWatcher(DEFAULT_THREADS);
+	}
+
+	private final ScheduledThreadPoolExecutor scheduler;
+
+	private final Executor pollExecutor;
+
+	// null if the polls run on an executor of the caller
+	private final ExecutorService ownPollExecutor;
+
+	private final ConcurrentHashMap<String, Watch<?>> watches = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a watcher that polls on up to the given number of daemon threads. Idle
+	 * threads end after a minute.
+	 */
+	public ResourceWatcher(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be greater than 0");
+		}
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 1,
+				TimeUnit.MINUTES, new LinkedBlockingQueue<>(),
+				daemonThreads("openai4j-watcher-"));
+		executor.allowCoreThreadTimeOut(true);
+		this.ownPollExecutor = executor;
+		this.pollExecutor = executor;
+		this.scheduler = newScheduler();
+	}
+
+	/**
+	 * Creates a watcher that polls on the executor. The executor is not shut down by
+	 * {@link #close()}.
+	 */
+	public ResourceWatcher(Executor pollExecutor) {
+		if (pollExecutor == null) {
+			throw new IllegalArgumentException("pollExecutor must not be null");
+		}
+		this.ownPollExecutor = null;
+		this.pollExecutor = pollExecutor;
+		this.scheduler = newScheduler();
+	}
+
+	private static ScheduledThreadPoolExecutor newScheduler() {
+		ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1,
+				daemonThreads("openai4j-watcher-timer-"));
+		scheduler.setRemoveOnCancelPolicy(true);
+		return scheduler;
+	}
+
+	private static ThreadFactory daemonThreads(String prefix) {
+		AtomicInteger threadNumber = new AtomicInteger();
+		return r -> {
+			Thread thread = new Thread(r, prefix + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	/**
+	 * The watcher used by the waitForProcessing methods of the clients when the
+	 * {@link PollConfig} does not set one. Polls on up to {@link #DEFAULT_THREADS}
+	 * threads.
+	 */
+	public static ResourceWatcher shared() {
+		return SharedHolder.INSTANCE;
+	}
+
+	/**
+	 * Polls a resource until it reaches a final state.
+	 *
+	 * @param key Identifies the resource. Waits with the same key share one poll loop,
+	 * which uses the poll function and configuration of the first wait.
+	 * @param description Describes the resource in the timeout message
+	 * @param poll Retrieves the current state of the resource. Is called on a poll
+	 * thread of the watcher.
+	 * @param isDone Returns true when the resource reached a final state
+	 * @param pollConfig Configures the delay between polls and how long to wait
+	 * @return A future that completes with the final state of the resource. Completes
+	 * exceptionally if a poll fails or maxWait has passed.
+	 */
+	public <T> CompletableFuture<T> watch(String key, String description,
+			Supplier<T> poll, Predicate<T> isDone, PollConfig pollConfig) {
+		CompletableFuture<T> waiter = new CompletableFuture<>();
+		Watch<T> watch;
+		while (true) {
+			@SuppressWarnings("unchecked")
+			Watch<T> candidate = (Watch<T>) this.watches.computeIfAbsent(key,
+					k -> new Watch<>(k, poll, isDone, pollConfig));
+			// a finished watch might still be in the map for a moment
+			if (candidate.addWaiter(waiter)) {
+				watch = candidate;
+				break;
+			}
+		}
+
+		ScheduledFuture<?> timeout = this.scheduler.schedule(
+				() -> waiter.completeExceptionally(new RuntimeException(
+						"Giving up on waiting for " + description
+								+ " to finish processing after " + pollConfig.maxWait() + " "
+								+ pollConfig.maxWaitTimeUnit())),
+				pollConfig.maxWait(), pollConfig.maxWaitTimeUnit());
+		waiter.whenComplete((result, error) -> {
+			timeout.cancel(false);
+			watch.removeWaiter(waiter);
+		});
+
+		watch.start();
+		return waiter;
+	}
+
+	/**
+	 * Blocks until the future completes and returns its result. Runtime exceptions are
+	 * rethrown unwrapped. When the calling thread is interrupted the future is cancelled.
+	 */
+	public static <T> T await(CompletableFuture<T> future) {
+		try {
+			return future.get();
+		}
+		catch (InterruptedException e) {
+			future.cancel(false);
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException re) {
+				throw re;
+			}
+			throw new RuntimeException(e.getCause());
+		}
+	}
+
+	/**
+	 * The number of resources that are currently polled.
+	 */
+	public int activeWatches() {
+		return this.watches.size();
+	}
+
+	/**
+	 * Stops the scheduler and the poll threads of the watcher. Pending waits are
+	 * cancelled.
+	 */
+	@Override
+	public void close() {
+		this.scheduler.shutdownNow();
+		if (this.ownPollExecutor != null) {
+			this.ownPollExecutor.shutdownNow();
+		}
+		for (Watch<?> watch : List.copyOf(this.watches.values())) {
+			watch.finish(null, new CancellationException("ResourceWatcher closed"));
+		}
+	}
+
+	private final class Watch<T> {
+		private final String key;
+		private final Supplier<T> poll;
+		private final Predicate<T> isDone;
+		private final PollConfig pollConfig;
+		private final Set<CompletableFuture<T>> waiters = new HashSet<>();
+		private boolean started;
+		private boolean finished;
+		private int attempts;
+		private ScheduledFuture<?> next;
+
+		Watch(String key, Supplier<T> poll, Predicate<T> isDone, PollConfig pollConfig) {
+			this.key = key;
+			this.poll = poll;
+			this.isDone = isDone;
+			this.pollConfig = pollConfig;
+		}
+
+		synchronized boolean addWaiter(CompletableFuture<T> waiter) {
+			if (this.finished) {
+				return false;
+			}
+			this.waiters.add(waiter);
+			return true;
+		}
+
+		synchronized void removeWaiter(CompletableFuture<T> waiter) {
+			this.waiters.remove(waiter);
+			if (this.waiters.isEmpty() && !this.finished) {
+				log.debug("Nobody waits for {} anymore, stop polling", this.key);
+				this.finished = true;
+				ResourceWatcher.this.watches.remove(this.key, this);
+				if (this.next != null) {
+					this.next.cancel(false);
+				}
+			}
+		}
+
+		synchronized void start() {
+			if (!this.started && !this.finished) {
+				this.started = true;
+				this.next = ResourceWatcher.this.scheduler.schedule(this::dispatch, 0,
+						TimeUnit.MILLISECONDS);
+			}
+		}
+
+		/**
+		 * Runs on the scheduler thread and hands the blocking poll to the poll threads.
+		 */
+		private void dispatch() {
+			try {
+				ResourceWatcher.this.pollExecutor.execute(this::poll);
+			}
+			catch (RejectedExecutionException e) {
+				finish(null, new CancellationException("ResourceWatcher closed"));
+			}
+		}
+
+		private void poll() {
+			int attempt;
+			synchronized (this) {
+				if (this.finished) {
+					return;
+				}
+				attempt = ++this.attempts;
+			}
+
+			FlightRecorderEvents.Poll event = FlightRecorderEvents.beginPoll(this.key,
+					attempt);
+			T value;
+			try {
+				value = this.poll.get();
+			}
+			catch (RuntimeException e) {
+				event.commit(false, true);
+				finish(null, e);
+				return;
+			}
+
+			boolean done = this.isDone.test(value);
+			event.commit(done, false);
+			if (done) {
+				finish(value, null);
+				return;
+			}
+
+			synchronized (this) {
+				if (!this.finished) {
+					long delay = this.pollConfig.delayMillis(this.attempts,
+							ThreadLocalRandom.current().nextDouble());
+					log.debug("{} not done after {} polls, next poll in {} ms", this.key,
+							this.attempts, delay);
+					this.next = ResourceWatcher.this.scheduler.schedule(this::dispatch,
+							delay, TimeUnit.MILLISECONDS);
+				}
+			}
+		}
+
+		void finish(T value, Throwable error) {
+			List<CompletableFuture<T>> toComplete;
+			synchronized (this) {
+				if (this.finished) {
+					return;
+				}
+				this.finished = true;
+				ResourceWatcher.this.watches.remove(this.key, this);
+				toComplete = new ArrayList<>(this.waiters);
+				this.waiters.clear();
+			}
+			for (CompletableFuture<T> waiter : toComplete) {
+				if (error != null) {
+					waiter.completeExceptionally(error);
+				}
+				else {
+					waiter.complete(value);
+				}
+			}
+		}
+	}
+
+}
@@ -17,11 +17,14 @@ package ch.rasc.openai4j.files;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 import ch.rasc.openai4j.common.DeletionStatus;
+import ch.rasc.openai4j.common.FilePart;
 import ch.rasc.openai4j.common.ListResponse;
 import ch.rasc.openai4j.common.PollConfig;
+import ch.rasc.openai4j.common.ResourceWatcher;
 import feign.Headers;
 import feign.Param;
 import feign.RequestLine;
@@ -134,6 +137,32 @@ public interface FilesClient {
 	@Headers("Content-Type: multipart/form-data")
 	FileObject upload(@Param("file") File file, @Param("purpose") String purpose);
 
+	/**
+	 * Upload a file that can be used across various endpoints. The file content is
+	 * streamed from memory or a stream and does not have to exist on disk.
+	 * <p>
+	 * The size of individual files can be a maximum of 512 MB or 2 million tokens for
+	 * Assistants. The Fine-tuning API only supports .jsonl files.
+	 *
+	 * @return The uploaded File object.
+	 */
+	default FileObject upload(FilePart file, Purpose purpose) {
+		return this.upload(file, purpose.value());
+	}
+
+	/**
+	 * Upload a file that can be used across various endpoints. The file content is
+	 * streamed from memory or a stream and does not have to exist on disk.
+	 * <p>
+	 * The size of individual files can be a maximum of 512 MB or 2 million tokens for
+	 * Assistants. The Fine-tuning API only supports .jsonl files.
+	 *
+	 * @return The uploaded File object.
+	 */
+	@RequestLine("POST /files")
+	@Headers("Content-Type: multipart/form-data")
+	FileObject upload(@Param("file") FilePart file, @Param("purpose") String purpose);
+
 	/**
 	 * Delete a file
 	 *
@@ -164,33 +193,34 @@ public interface FilesClient {
 
 	default FileObject waitForProcessing(String fileId,
 			Function<PollConfig.Builder, PollConfig.Builder> fn) {
+		return ResourceWatcher.await(this.waitForProcessingAsync(fileId, fn));
+	}
+
+	/**
+	 * Wait for the file to finish processing. Returns immediately, the server is polled
+	 * with a growing interval starting at 1 second until the file is processed or 2
+	 * minutes have passed. Cancel the future to stop waiting.
+	 *
+	 * @return A future completed with the latest FileObject object
+	 */
+	default CompletableFuture<FileObject> waitForProcessingAsync(String fileId) {
+		return this.waitForProcessingAsync(fileId, pollConfig -> pollConfig);
+	}
 
+	/**
+	 * Wait for the file to finish processing. Returns immediately, the server is polled
+	 * by the {@link PollConfig#watcher()} until the file is processed or maxWait has
+	 * passed. Concurrent waits for the same file share the polls. Cancel the future to
+	 * stop waiting.
+	 *
+	 * @return A future completed with the latest FileObject object
+	 */
+	default CompletableFuture<FileObject> waitForProcessingAsync(String fileId,
+			Function<PollConfig.Builder, PollConfig.Builder> fn) {
 		PollConfig pollConfig = fn.apply(PollConfig.builder()).build();
-		long start = System.currentTimeMillis();
-		long maxWaitInMillis = pollConfig.maxWaitTimeUnit()
-				.toMillis(pollConfig.maxWait());
-		long waitUntil = start + maxWaitInMillis;
-
-		FileObject file = this.retrieve(fileId);
-		while (!file.status().isTerminal()) {
-			try {
-				pollConfig.pollIntervalTimeUnit().sleep(pollConfig.pollInterval());
-			}
-			catch (InterruptedException e) {
-				Thread.currentThread().interrupt();
-				throw new RuntimeException(e);
-			}
-
-			if (System.currentTimeMillis() > waitUntil) {
-				throw new RuntimeException("Giving up on waiting for file " + fileId
-						+ " to finish processing after " + pollConfig.maxWait() + " "
-						+ pollConfig.maxWaitTimeUnit());
-			}
-
-			file = this.retrieve(fileId);
-		}
-
-		return file;
+		return pollConfig.watcher().watch("file:" + fileId, "file " + fileId,
+				() -> this.retrieve(fileId), file -> file.status().isTerminal(),
+				pollConfig);
 	}
 
 }
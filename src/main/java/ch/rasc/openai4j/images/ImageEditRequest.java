@@ -17,12 +17,16 @@ package ch.rasc.openai4j.images;
 
 import java.nio.file.Path;
 
+import ch.rasc.openai4j.common.FilePart;
+
 @SuppressWarnings("hiding")
 public class ImageEditRequest {
 
 	private final Path image;
+	private final FilePart imagePart;
 	private final String prompt;
 	private final Path mask;
+	private final FilePart maskPart;
 	private final ImageModel model;
 	private final Integer n;
 	private final ImageSize size;
@@ -30,15 +34,17 @@ public class ImageEditRequest {
 	private final String user;
 
 	private ImageEditRequest(Builder builder) {
-		if (builder.image == null) {
+		if (builder.image == null && builder.imagePart == null) {
 			throw new IllegalArgumentException("image cannot be null");
 		}
 		if (builder.prompt == null || builder.prompt.isEmpty()) {
 			throw new IllegalArgumentException("prompt cannot be null");
 		}
 		this.image = builder.image;
+		this.imagePart = builder.imagePart;
 		this.prompt = builder.prompt;
 		this.mask = builder.mask;
+		this.maskPart = builder.maskPart;
 		this.model = builder.model;
 		this.n = builder.n;
 		this.size = builder.size;
@@ -52,8 +58,10 @@ public class ImageEditRequest {
 
 	public static final class Builder {
 		private Path image;
+		private FilePart imagePart;
 		private String prompt;
 		private Path mask;
+		private FilePart maskPart;
 		private ImageModel model;
 		private Integer n;
 		private ImageSize size;
@@ -69,6 +77,17 @@ public class ImageEditRequest {
 		 */
 		public Builder image(Path image) {
 			this.image = image;
+			this.imagePart = null;
+			return this;
+		}
+
+		/**
+		 * The image to edit, streamed into the request without a temporary file. Must be
+		 * a valid PNG image, less than 4MB, and square.
+		 */
+		public Builder image(FilePart image) {
+			this.imagePart = image;
+			this.image = null;
 			return this;
 		}
 
@@ -88,6 +107,17 @@ public class ImageEditRequest {
 		 */
 		public Builder mask(Path mask) {
 			this.mask = mask;
+			this.maskPart = null;
+			return this;
+		}
+
+		/**
+		 * An additional image whose fully transparent areas indicate where image should
+		 * be edited, streamed into the request without a temporary file.
+		 */
+		public Builder mask(FilePart mask) {
+			this.maskPart = mask;
+			this.mask = null;
 			return this;
 		}
 
@@ -145,6 +175,10 @@ public class ImageEditRequest {
 		return this.image;
 	}
 
+	public FilePart imagePart() {
+		return this.imagePart;
+	}
+
 	public String prompt() {
 		return this.prompt;
 	}
@@ -153,6 +187,10 @@ public class ImageEditRequest {
 		return this.mask;
 	}
 
+	public FilePart maskPart() {
+		return this.maskPart;
+	}
+
 	public ImageModel model() {
 		return this.model;
 	}
@@ -24,7 +24,7 @@ import com.fasterxml.jackson.annotation.JsonValue;
 
 @JsonInclude(Include.NON_EMPTY)
 @JsonAutoDetect(fieldVisibility = Visibility.ANY)
-@SuppressWarnings({ "unused", "hiding" })
+@SuppressWarnings("hiding")
 public class ImageGenerationRequest {
 
 	private final String prompt;
@@ -179,4 +179,36 @@ public class ImageGenerationRequest {
 			return new ImageGenerationRequest(this);
 		}
 	}
+
+	public String prompt() {
+		return this.prompt;
+	}
+
+	public ImageModel model() {
+		return this.model;
+	}
+
+	public Integer n() {
+		return this.n;
+	}
+
+	public Quality quality() {
+		return this.quality;
+	}
+
+	public ImageResponseFormat responseFormat() {
+		return this.responseFormat;
+	}
+
+	public ImageSize size() {
+		return this.size;
+	}
+
+	public Style style() {
+		return this.style;
+	}
+
+	public String user() {
+		return this.user;
+	}
 }
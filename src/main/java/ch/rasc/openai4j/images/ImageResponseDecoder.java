@@ -0,0 +1,103 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.images;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Decodes image responses token by token. The base64 content of b64_json fields is
+ * decoded in small blocks straight from the parser input buffer into the
+ * {@link ImageSink}, so neither the base64 String nor the decoded image is held in
+ * memory.
+ */
+public final class ImageResponseDecoder {
+
+	private static final JsonFactory jsonFactory = new JsonFactory();
+
+	private ImageResponseDecoder() {
+	}
+
+	/**
+	 * Reads an image response from the stream and writes the b64_json images to the
+	 * sink. The stream is not closed.
+	 */
+	public static StreamedImageResponse decode(InputStream in, ImageSink sink)
+			throws IOException {
+		try (JsonParser parser = jsonFactory.createParser(in)) {
+			parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new IOException("Expected image response object");
+			}
+
+			long created = 0;
+			List<StreamedImageResponse.StreamedImage> data = new ArrayList<>();
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String field = parser.currentName();
+				JsonToken value = parser.nextToken();
+				if ("created".equals(field) && value.isNumeric()) {
+					created = parser.getLongValue();
+				}
+				else if ("data".equals(field) && value == JsonToken.START_ARRAY) {
+					while (parser.nextToken() == JsonToken.START_OBJECT) {
+						data.add(readImage(parser, data.size(), sink));
+					}
+				}
+				else {
+					parser.skipChildren();
+				}
+			}
+			return new StreamedImageResponse(created, data);
+		}
+	}
+
+	private static StreamedImageResponse.StreamedImage readImage(JsonParser parser,
+			int index, ImageSink sink) throws IOException {
+		long bytes = 0;
+		String url = null;
+		String revisedPrompt = null;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.currentName();
+			JsonToken value = parser.nextToken();
+			if (value == JsonToken.VALUE_NULL) {
+				continue;
+			}
+			if ("b64_json".equals(field)) {
+				try (OutputStream out = sink.open(index)) {
+					bytes = parser.readBinaryValue(out);
+				}
+			}
+			else if ("url".equals(field)) {
+				url = parser.getText();
+			}
+			else if ("revised_prompt".equals(field)) {
+				revisedPrompt = parser.getText();
+			}
+			else {
+				parser.skipChildren();
+			}
+		}
+		return new StreamedImageResponse.StreamedImage(index, bytes, url, revisedPrompt);
+	}
+
+}
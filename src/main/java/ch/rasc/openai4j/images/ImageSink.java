@@ -0,0 +1,95 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.images;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.IntFunction;
+
+/**
+ * Destination of the decoded images of a b64_json image response. The decoder opens one
+ * stream per image, writes the decoded bytes while it reads the response and closes the
+ * stream after the image.
+ */
+@FunctionalInterface
+public interface ImageSink {
+
+	/**
+	 * Opens the stream the image at the index of the response data array is written to.
+	 */
+	OutputStream open(int index) throws IOException;
+
+	/**
+	 * Writes every image to the file returned by the function. Existing files are
+	 * overwritten.
+	 */
+	static ImageSink files(IntFunction<Path> file) {
+		return index -> Files.newOutputStream(file.apply(index));
+	}
+
+	/**
+	 * Writes the images to prefix-index.png files in the directory.
+	 */
+	static ImageSink directory(Path directory, String prefix) {
+		return files(index -> directory.resolve(prefix + "-" + index + ".png"));
+	}
+
+	/**
+	 * Writes every image to the output stream returned by the function. The output
+	 * stream is closed after the image.
+	 */
+	static ImageSink outputStreams(IntFunction<OutputStream> out) {
+		return out::apply;
+	}
+
+	/**
+	 * Writes every image to the buffer returned by the function, starting at its
+	 * position. Fails with an IOException if an image does not fit.
+	 */
+	static ImageSink byteBuffers(IntFunction<ByteBuffer> buffer) {
+		return index -> {
+			ByteBuffer target = buffer.apply(index);
+			return new OutputStream() {
+				@Override
+				public void write(int b) throws IOException {
+					try {
+						target.put((byte) b);
+					}
+					catch (BufferOverflowException e) {
+						throw new IOException("Image " + index + " does not fit into buffer",
+								e);
+					}
+				}
+
+				@Override
+				public void write(byte[] b, int off, int len) throws IOException {
+					try {
+						target.put(b, off, len);
+					}
+					catch (BufferOverflowException e) {
+						throw new IOException("Image " + index + " does not fit into buffer",
+								e);
+					}
+				}
+			};
+		};
+	}
+
+}
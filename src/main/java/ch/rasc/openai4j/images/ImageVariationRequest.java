@@ -17,10 +17,13 @@ package ch.rasc.openai4j.images;
 
 import java.nio.file.Path;
 
+import ch.rasc.openai4j.common.FilePart;
+
 @SuppressWarnings("hiding")
 public class ImageVariationRequest {
 
 	private final Path image;
+	private final FilePart imagePart;
 	private final ImageModel model;
 	private final Integer n;
 	private final ImageResponseFormat responseFormat;
@@ -28,10 +31,11 @@ public class ImageVariationRequest {
 	private final String user;
 
 	private ImageVariationRequest(Builder builder) {
-		if (builder.image == null) {
+		if (builder.image == null && builder.imagePart == null) {
 			throw new IllegalArgumentException("image cannot be null");
 		}
 		this.image = builder.image;
+		this.imagePart = builder.imagePart;
 		this.model = builder.model;
 		this.n = builder.n;
 		this.responseFormat = builder.responseFormat;
@@ -45,6 +49,7 @@ public class ImageVariationRequest {
 
 	public static final class Builder {
 		private Path image;
+		private FilePart imagePart;
 		private ImageModel model;
 		private Integer n;
 		private ImageResponseFormat responseFormat;
@@ -60,6 +65,17 @@ public class ImageVariationRequest {
 		 */
 		public Builder image(Path image) {
 			this.image = image;
+			this.imagePart = null;
+			return this;
+		}
+
+		/**
+		 * The image to use as the basis for the variation(s), streamed into the request
+		 * without a temporary file. Must be a valid PNG image, less than 4MB, and square.
+		 */
+		public Builder image(FilePart image) {
+			this.imagePart = image;
+			this.image = null;
 			return this;
 		}
 
@@ -118,6 +134,10 @@ public class ImageVariationRequest {
 		return this.image;
 	}
 
+	public FilePart imagePart() {
+		return this.imagePart;
+	}
+
 	public ImageModel model() {
 		return this.model;
 	}
@@ -16,11 +16,16 @@
 package ch.rasc.openai4j.images;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.function.Function;
 
+import ch.rasc.openai4j.OpenAIErrorDecoder;
+import ch.rasc.openai4j.common.FilePart;
 import feign.Headers;
 import feign.Param;
 import feign.RequestLine;
+import feign.Response;
 
 public interface ImagesClient {
 
@@ -43,6 +48,54 @@ public interface ImagesClient {
 		return this.generate(fn.apply(ImageGenerationRequest.builder()).build());
 	}
 
+	/**
+	 * Creates an image given a prompt.
+	 *
+	 * @return The raw response. Must be closed by the caller.
+	 */
+	@RequestLine("POST /images/generations")
+	@Headers("Content-Type: application/json")
+	Response generateResponse(ImageGenerationRequest request);
+
+	/**
+	 * Creates an image given a prompt. Images requested with response_format b64_json
+	 * are decoded into the sink while the response is read.
+	 *
+	 * @return The metadata of the images.
+	 */
+	default StreamedImageResponse generate(
+			Function<ImageGenerationRequest.Builder, ImageGenerationRequest.Builder> fn,
+			ImageSink sink) throws IOException {
+		return this.generate(fn.apply(ImageGenerationRequest.builder()).build(), sink);
+	}
+
+	/**
+	 * Creates an image given a prompt. Images requested with response_format b64_json
+	 * are decoded into the sink while the response is read.
+	 *
+	 * @return The metadata of the images.
+	 */
+	default StreamedImageResponse generate(ImageGenerationRequest request,
+			ImageSink sink) throws IOException {
+		return decode("ImagesClient#generate", this.generateResponse(request), sink);
+	}
+
+	/**
+	 * Decodes a raw image response into the sink and closes the response.
+	 */
+	private static StreamedImageResponse decode(String methodKey, Response response,
+			ImageSink sink) throws IOException {
+		try (response) {
+			OpenAIErrorDecoder.checkStatus(methodKey, response);
+			if (response.body() == null) {
+				throw new IOException(methodKey + " returned a response without a body");
+			}
+			try (InputStream in = response.body().asInputStream()) {
+				return ImageResponseDecoder.decode(in, sink);
+			}
+		}
+	}
+
 	/**
 	 * Creates an edited or extended image given an original image and a prompt.
 	 *
@@ -59,13 +112,23 @@ public interface ImagesClient {
 	 * @return Returns a list of image objects.
 	 */
 	default ImageResponse edit(ImageEditRequest request) {
+		String model = request.model() != null ? request.model().value() : null;
+		String size = request.size() != null ? request.size().value() : null;
+		String responseFormat = request.responseFormat() != null
+				? request.responseFormat().toValue()
+				: null;
+
+		if (request.imagePart() != null || request.maskPart() != null) {
+			FilePart image = request.imagePart() != null ? request.imagePart()
+					: FilePart.of(request.image(), null);
+			FilePart mask = request.maskPart() != null ? request.maskPart()
+					: request.mask() != null ? FilePart.of(request.mask(), null) : null;
+			return this.edit(image, request.prompt(), mask, model, request.n(), size,
+					responseFormat, request.user());
+		}
 		return this.edit(request.image().toFile(), request.prompt(),
-				request.mask() != null ? request.mask().toFile() : null,
-				request.model() != null ? request.model().value() : null, request.n(),
-				request.size() != null ? request.size().value() : null,
-				request.responseFormat() != null ? request.responseFormat().toValue()
-						: null,
-				request.user());
+				request.mask() != null ? request.mask().toFile() : null, model,
+				request.n(), size, responseFormat, request.user());
 	}
 
 	/**
@@ -80,6 +143,66 @@ public interface ImagesClient {
 			@Param("size") String size, @Param("response_format") String responseFormat,
 			@Param("user") String user);
 
+	/**
+	 * Creates an edited or extended image given an original image and a prompt. The
+	 * image and mask are streamed into the request without a temporary file.
+	 *
+	 * @return Returns a list of image objects.
+	 */
+	@RequestLine("POST /images/edits")
+	@Headers("Content-Type: multipart/form-data")
+	ImageResponse edit(@Param("image") FilePart image, @Param("prompt") String prompt,
+			@Param("mask") FilePart mask, @Param("model") String model,
+			@Param("n") Integer n, @Param("size") String size,
+			@Param("response_format") String responseFormat, @Param("user") String user);
+
+	/**
+	 * Creates an edited or extended image given an original image and a prompt. Images
+	 * requested with response_format b64_json are decoded into the sink while the
+	 * response is read.
+	 *
+	 * @return The metadata of the images.
+	 */
+	default StreamedImageResponse edit(
+			Function<ImageEditRequest.Builder, ImageEditRequest.Builder> fn,
+			ImageSink sink) throws IOException {
+		return this.edit(fn.apply(ImageEditRequest.builder()).build(), sink);
+	}
+
+	/**
+	 * Creates an edited or extended image given an original image and a prompt. Images
+	 * requested with response_format b64_json are decoded into the sink while the
+	 * response is read.
+	 *
+	 * @return The metadata of the images.
+	 */
+	default StreamedImageResponse edit(ImageEditRequest request, ImageSink sink)
+			throws IOException {
+		String model = request.model() != null ? request.model().value() : null;
+		String size = request.size() != null ? request.size().value() : null;
+		String responseFormat = request.responseFormat() != null
+				? request.responseFormat().toValue()
+				: null;
+		FilePart image = request.imagePart() != null ? request.imagePart()
+				: FilePart.of(request.image(), null);
+		FilePart mask = request.maskPart() != null ? request.maskPart()
+				: request.mask() != null ? FilePart.of(request.mask(), null) : null;
+		return decode("ImagesClient#edit", this.editResponse(image, request.prompt(),
+				mask, model, request.n(), size, responseFormat, request.user()), sink);
+	}
+
+	/**
+	 * Creates an edited or extended image given an original image and a prompt.
+	 *
+	 * @return The raw response. Must be closed by the caller.
+	 */
+	@RequestLine("POST /images/edits")
+	@Headers("Content-Type: multipart/form-data")
+	Response editResponse(@Param("image") FilePart image, @Param("prompt") String prompt,
+			@Param("mask") FilePart mask, @Param("model") String model,
+			@Param("n") Integer n, @Param("size") String size,
+			@Param("response_format") String responseFormat, @Param("user") String user);
+
 	/**
 	 * Creates a variation of a given image.
 	 *
@@ -96,11 +219,18 @@ public interface ImagesClient {
 	 * @return Returns a list of image objects.
 	 */
 	default ImageResponse createVariation(ImageVariationRequest request) {
-		return this.createVariation(request.image().toFile(),
-				request.model() != null ? request.model().value() : null, request.n(),
-				request.responseFormat() != null ? request.responseFormat().toValue()
-						: null,
-				request.size() != null ? request.size().value() : null, request.user());
+		String model = request.model() != null ? request.model().value() : null;
+		String size = request.size() != null ? request.size().value() : null;
+		String responseFormat = request.responseFormat() != null
+				? request.responseFormat().toValue()
+				: null;
+
+		if (request.imagePart() != null) {
+			return this.createVariation(request.imagePart(), model, request.n(),
+					responseFormat, size, request.user());
+		}
+		return this.createVariation(request.image().toFile(), model, request.n(),
+				responseFormat, size, request.user());
 	}
 
 	/**
@@ -114,4 +244,61 @@ public interface ImagesClient {
 			@Param("model") String model, @Param("n") Integer n,
 			@Param("response_format") String responseFormat, @Param("size") String size,
 			@Param("user") String user);
+
+	/**
+	 * Creates a variation of a given image. The image is streamed into the request
+	 * without a temporary file.
+	 *
+	 * @return Returns a list of image objects.
+	 */
+	@RequestLine("POST /images/variations")
+	@Headers("Content-Type: multipart/form-data")
+	ImageResponse createVariation(@Param("image") FilePart image,
+			@Param("model") String model, @Param("n") Integer n,
+			@Param("response_format") String responseFormat, @Param("size") String size,
+			@Param("user") String user);
+
+	/**
+	 * Creates a variation of a given image. Images requested with response_format
+	 * b64_json are decoded into the sink while the response is read.
+	 *
+	 * @return The metadata of the images.
+	 */
+	default StreamedImageResponse createVariation(
+			Function<ImageVariationRequest.Builder, ImageVariationRequest.Builder> fn,
+			ImageSink sink) throws IOException {
+		return this.createVariation(fn.apply(ImageVariationRequest.builder()).build(),
+				sink);
+	}
+
+	/**
+	 * Creates a variation of a given image. Images requested with response_format
+	 * b64_json are decoded into the sink while the response is read.
+	 *
+	 * @return The metadata of the images.
+	 */
+	default StreamedImageResponse createVariation(ImageVariationRequest request,
+			ImageSink sink) throws IOException {
+		String model = request.model() != null ? request.model().value() : null;
+		String size = request.size() != null ? request.size().value() : null;
+		String responseFormat = request.responseFormat() != null
+				? request.responseFormat().toValue()
+				: null;
+		FilePart image = request.imagePart() != null ? request.imagePart()
+				: FilePart.of(request.image(), null);
+		return decode("ImagesClient#createVariation", this.createVariationResponse(image,
+				model, request.n(), responseFormat, size, request.user()), sink);
+	}
+
+	/**
+	 * Creates a variation of a given image.
+	 *
+	 * @return The raw response. Must be closed by the caller.
+	 */
+	@RequestLine("POST /images/variations")
+	@Headers("Content-Type: multipart/form-data")
+	Response createVariationResponse(@Param("image") FilePart image,
+			@Param("model") String model, @Param("n") Integer n,
+			@Param("response_format") String responseFormat, @Param("size") String size,
+			@Param("user") String user);
 }
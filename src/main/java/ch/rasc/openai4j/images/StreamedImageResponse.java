@@ -0,0 +1,81 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.images;
+
+import java.util.List;
+
+/**
+ * Image response whose b64_json images were decoded into an {@link ImageSink} instead of
+ * being held in memory.
+ */
+public record StreamedImageResponse(long created, List<StreamedImage> data) {
+
+	public record StreamedImage(int index, long bytes, String url,
+			String revisedPrompt) {
+
+		/**
+		 * Index of the image in the response, the index passed to
+		 * {@link ImageSink#open(int)}.
+		 */
+		@Override
+		public int index() {
+			return this.index;
+		}
+
+		/**
+		 * Number of decoded bytes written to the sink. 0 if the image was returned as
+		 * URL.
+		 */
+		@Override
+		public long bytes() {
+			return this.bytes;
+		}
+
+		/**
+		 * The URL of the generated image, if response_format is url.
+		 */
+		@Override
+		public String url() {
+			return this.url;
+		}
+
+		/**
+		 * The prompt that was used to generate the image, if there was any revision to
+		 * the prompt.
+		 */
+		@Override
+		public String revisedPrompt() {
+			return this.revisedPrompt;
+		}
+	}
+
+	/**
+	 * The Unix timestamp (in seconds) when the images were created.
+	 */
+	@Override
+	public long created() {
+		return this.created;
+	}
+
+	/**
+	 * The images in the order of the response.
+	 */
+	@Override
+	public List<StreamedImage> data() {
+		return this.data;
+	}
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.images.service;
+
+import java.nio.file.Path;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Outcome of one item of an image batch.
+ */
+public record ImageBatchItem(int index, String prompt, Status status, Path file,
+		String revisedPrompt, int attempts, String error) {
+
+	public enum Status {
+		SUCCEEDED("succeeded"), SKIPPED("skipped"), FAILED("failed");
+
+		private final String value;
+
+		Status(String value) {
+			this.value = value;
+		}
+
+		@JsonValue
+		public String value() {
+			return this.value;
+		}
+	}
+
+	/**
+	 * Position of the prompt in the batch.
+	 */
+	@Override
+	public int index() {
+		return this.index;
+	}
+
+	/**
+	 * The prompt of the item.
+	 */
+	@Override
+	public String prompt() {
+		return this.prompt;
+	}
+
+	/**
+	 * succeeded, skipped because the file already existed, or failed.
+	 */
+	@Override
+	public Status status() {
+		return this.status;
+	}
+
+	/**
+	 * The image file. Only exists if the status is not failed.
+	 */
+	@Override
+	public Path file() {
+		return this.file;
+	}
+
+	/**
+	 * The prompt that was used to generate the image, if there was any revision to the
+	 * prompt.
+	 */
+	@Override
+	public String revisedPrompt() {
+		return this.revisedPrompt;
+	}
+
+	/**
+	 * Number of requests sent for the item.
+	 */
+	@Override
+	public int attempts() {
+		return this.attempts;
+	}
+
+	/**
+	 * Message of the last error if the item failed.
+	 */
+	@Override
+	public String error() {
+		return this.error;
+	}
+
+}
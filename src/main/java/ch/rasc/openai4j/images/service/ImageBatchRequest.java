@@ -0,0 +1,248 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.images.service;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import ch.rasc.openai4j.OpenAIApiException;
+import ch.rasc.openai4j.images.ImageGenerationRequest;
+
+@SuppressWarnings("hiding")
+public class ImageBatchRequest {
+
+	private final List<String> prompts;
+	private final Function<ImageGenerationRequest.Builder, ImageGenerationRequest.Builder> request;
+	private final Path outputDirectory;
+	private final String filePrefix;
+	private final int parallelism;
+	private final int maxAttempts;
+	private final long initialBackoffMillis;
+	private final Predicate<Throwable> retryOn;
+	private final boolean skipExisting;
+	private final Consumer<ImageBatchItem> listener;
+
+	private ImageBatchRequest(Builder builder) {
+		if (builder.prompts.isEmpty()) {
+			throw new IllegalArgumentException("prompts must not be empty");
+		}
+		if (builder.outputDirectory == null) {
+			throw new IllegalArgumentException("outputDirectory must not be null");
+		}
+		if (builder.parallelism <= 0) {
+			throw new IllegalArgumentException("parallelism must be greater than 0");
+		}
+		if (builder.maxAttempts <= 0) {
+			throw new IllegalArgumentException("maxAttempts must be greater than 0");
+		}
+		this.prompts = Collections.unmodifiableList(new ArrayList<>(builder.prompts));
+		this.request = builder.request;
+		this.outputDirectory = builder.outputDirectory;
+		this.filePrefix = builder.filePrefix;
+		this.parallelism = builder.parallelism;
+		this.maxAttempts = builder.maxAttempts;
+		this.initialBackoffMillis = builder.initialBackoffMillis;
+		this.retryOn = builder.retryOn;
+		this.skipExisting = builder.skipExisting;
+		this.listener = builder.listener;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static final class Builder {
+		private final List<String> prompts = new ArrayList<>();
+		private Function<ImageGenerationRequest.Builder, ImageGenerationRequest.Builder> request = Function
+				.identity();
+		private Path outputDirectory;
+		private String filePrefix = "image";
+		private int parallelism = 4;
+		private int maxAttempts = 3;
+		private long initialBackoffMillis = TimeUnit.SECONDS.toMillis(2);
+		private Predicate<Throwable> retryOn = ImageBatchRequest::isRetryable;
+		private boolean skipExisting = true;
+		private Consumer<ImageBatchItem> listener;
+
+		private Builder() {
+		}
+
+		/**
+		 * Adds one item per prompt. The position of a prompt in the batch is the index
+		 * of its item.
+		 */
+		public Builder addPrompts(List<String> prompts) {
+			this.prompts.addAll(prompts);
+			return this;
+		}
+
+		/**
+		 * Adds one item per prompt.
+		 */
+		public Builder addPrompts(String... prompts) {
+			return this.addPrompts(List.of(prompts));
+		}
+
+		/**
+		 * Adds count items with the same prompt, to generate variants with models that
+		 * only support n=1.
+		 */
+		public Builder addPrompt(String prompt, int count) {
+			for (int i = 0; i < count; i++) {
+				this.prompts.add(prompt);
+			}
+			return this;
+		}
+
+		/**
+		 * Customizes the generation request of every item, for example the model, size
+		 * and quality. The prompt is already set, n and response_format are overwritten.
+		 */
+		public Builder request(
+				Function<ImageGenerationRequest.Builder, ImageGenerationRequest.Builder> request) {
+			this.request = request;
+			return this;
+		}
+
+		/**
+		 * Directory the images and the manifest.jsonl file are written to.
+		 */
+		public Builder outputDirectory(Path outputDirectory) {
+			this.outputDirectory = outputDirectory;
+			return this;
+		}
+
+		/**
+		 * Prefix of the image files, followed by the zero-padded index. Defaults to
+		 * image.
+		 */
+		public Builder filePrefix(String filePrefix) {
+			this.filePrefix = filePrefix;
+			return this;
+		}
+
+		/**
+		 * The maximum number of requests in flight. Defaults to 4.
+		 */
+		public Builder parallelism(int parallelism) {
+			this.parallelism = parallelism;
+			return this;
+		}
+
+		/**
+		 * Maximum number of attempts per item, including the first one. Defaults to 3.
+		 */
+		public Builder maxAttempts(int maxAttempts) {
+			this.maxAttempts = maxAttempts;
+			return this;
+		}
+
+		/**
+		 * Backoff before the first retry of an item, doubled for every further retry.
+		 * Defaults to 2 seconds.
+		 */
+		public Builder initialBackoff(long initialBackoff, TimeUnit timeUnit) {
+			this.initialBackoffMillis = timeUnit.toMillis(initialBackoff);
+			return this;
+		}
+
+		/**
+		 * Decides if a failed item is retried. Defaults to retrying everything except
+		 * invalid requests, like prompts rejected by the safety system.
+		 */
+		public Builder retryOn(Predicate<Throwable> retryOn) {
+			this.retryOn = retryOn;
+			return this;
+		}
+
+		/**
+		 * Skip items whose image file already exists, so running a batch again only
+		 * generates the items that failed before. Defaults to true.
+		 */
+		public Builder skipExisting(boolean skipExisting) {
+			this.skipExisting = skipExisting;
+			return this;
+		}
+
+		/**
+		 * Called on the worker threads when an item is finished, in completion order.
+		 */
+		public Builder listener(Consumer<ImageBatchItem> listener) {
+			this.listener = listener;
+			return this;
+		}
+
+		public ImageBatchRequest build() {
+			return new ImageBatchRequest(this);
+		}
+	}
+
+	private static boolean isRetryable(Throwable e) {
+		for (Throwable t = e; t != null; t = t.getCause()) {
+			if (t instanceof OpenAIApiException apiException) {
+				return !"invalid_request_error".equals(apiException.type());
+			}
+		}
+		return true;
+	}
+
+	public List<String> prompts() {
+		return this.prompts;
+	}
+
+	public Function<ImageGenerationRequest.Builder, ImageGenerationRequest.Builder> request() {
+		return this.request;
+	}
+
+	public Path outputDirectory() {
+		return this.outputDirectory;
+	}
+
+	public String filePrefix() {
+		return this.filePrefix;
+	}
+
+	public int parallelism() {
+		return this.parallelism;
+	}
+
+	public int maxAttempts() {
+		return this.maxAttempts;
+	}
+
+	public long initialBackoffMillis() {
+		return this.initialBackoffMillis;
+	}
+
+	public Predicate<Throwable> retryOn() {
+		return this.retryOn;
+	}
+
+	public boolean skipExisting() {
+		return this.skipExisting;
+	}
+
+	public Consumer<ImageBatchItem> listener() {
+		return this.listener;
+	}
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.images.service;
+
+import java.util.List;
+
+/**
+ * Outcome of all items of an image batch, in prompt order.
+ */
+public record ImageBatchResult(List<ImageBatchItem> items) {
+
+	/**
+	 * The items in the order of the prompts.
+	 */
+	@Override
+	public List<ImageBatchItem> items() {
+		return this.items;
+	}
+
+	/**
+	 * The items that failed after all attempts.
+	 */
+	public List<ImageBatchItem> failed() {
+		return this.items.stream()
+				.filter(item -> item.status() == ImageBatchItem.Status.FAILED).toList();
+	}
+
+	/**
+	 * True if every item succeeded or was skipped.
+	 */
+	public boolean isComplete() {
+		return this.items.stream()
+				.noneMatch(item -> item.status() == ImageBatchItem.Status.FAILED);
+	}
+
+}
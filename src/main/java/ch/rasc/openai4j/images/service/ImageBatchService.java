@@ -0,0 +1,244 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.images.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ch.rasc.openai4j.images.ImageGenerationRequest;
+import ch.rasc.openai4j.images.ImageModel;
+import ch.rasc.openai4j.images.ImageResponseFormat;
+import ch.rasc.openai4j.images.ImagesClient;
+import ch.rasc.openai4j.images.StreamedImageResponse;
+
+/**
+ * High level images client that generates many images concurrently and writes them to
+ * disk as they complete
+ */
+public class ImageBatchService {
+	private final static Logger log = LoggerFactory.getLogger(ImageBatchService.class);
+
+	private static final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final ImagesClient imagesClient;
+
+	private final Map<ImageModel, RateLimiter> rateLimiters;
+
+	public ImageBatchService(ImagesClient imagesClient) {
+		this(imagesClient, Map.of());
+	}
+
+	/**
+	 * @param imagesPerMinute Maximum number of generation requests per minute and model,
+	 * shared by all batches of this service. Models without an entry are not limited.
+	 */
+	public ImageBatchService(ImagesClient imagesClient,
+			Map<ImageModel, Integer> imagesPerMinute) {
+		this.imagesClient = imagesClient;
+		this.rateLimiters = new EnumMap<>(ImageModel.class);
+		imagesPerMinute.forEach(
+				(model, limit) -> this.rateLimiters.put(model, new RateLimiter(limit)));
+	}
+
+	/**
+	 * Generates one image per prompt. The requests are sent concurrently and every image
+	 * is decoded into its own file as soon as its response arrives. Each finished item
+	 * is appended to manifest.jsonl in the output directory. Failed items are retried
+	 * individually. Running the same batch again skips the images that already exist.
+	 *
+	 * @param fn An image batch request builder function
+	 * @return The items in prompt order
+	 * @throws IOException If the output directory or manifest cannot be written
+	 */
+	public ImageBatchResult generate(
+			Function<ImageBatchRequest.Builder, ImageBatchRequest.Builder> fn)
+			throws IOException {
+		return this.generate(fn.apply(ImageBatchRequest.builder()).build());
+	}
+
+	/**
+	 * Generates one image per prompt. The requests are sent concurrently and every image
+	 * is decoded into its own file as soon as its response arrives. Each finished item
+	 * is appended to manifest.jsonl in the output directory. Failed items are retried
+	 * individually. Running the same batch again skips the images that already exist.
+	 *
+	 * @param request An image batch request
+	 * @return The items in prompt order
+	 * @throws IOException If the output directory or manifest cannot be written
+	 */
+	public ImageBatchResult generate(ImageBatchRequest request) throws IOException {
+		Files.createDirectories(request.outputDirectory());
+		Manifest manifest = new Manifest(
+				request.outputDirectory().resolve("manifest.jsonl"));
+		List<String> prompts = request.prompts();
+		String fileFormat = "%s-%0" + String.valueOf(prompts.size() - 1).length()
+				+ "d.png";
+
+		ExecutorService executor = Executors
+				.newFixedThreadPool(Math.min(request.parallelism(), prompts.size()));
+		List<Future<ImageBatchItem>> futures = new ArrayList<>(prompts.size());
+		try {
+			for (int i = 0; i < prompts.size(); i++) {
+				int index = i;
+				Path file = request.outputDirectory()
+						.resolve(String.format(fileFormat, request.filePrefix(), index));
+				futures.add(executor.submit(() -> {
+					ImageBatchItem item = generateItem(request, index, file);
+					if (item.status() != ImageBatchItem.Status.SKIPPED) {
+						manifest.append(item);
+					}
+					if (request.listener() != null) {
+						request.listener().accept(item);
+					}
+					return item;
+				}));
+			}
+
+			List<ImageBatchItem> items = new ArrayList<>(prompts.size());
+			for (Future<ImageBatchItem> future : futures) {
+				items.add(future.get());
+			}
+			ImageBatchResult result = new ImageBatchResult(items);
+			log.debug("Image batch finished, {} items, {} failed", items.size(),
+					result.failed().size());
+			return result;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException ioe) {
+				throw ioe;
+			}
+			if (e.getCause() instanceof RuntimeException re) {
+				throw re;
+			}
+			throw new RuntimeException(e.getCause());
+		}
+		finally {
+			futures.forEach(f -> f.cancel(true));
+			executor.shutdownNow();
+		}
+	}
+
+	private ImageBatchItem generateItem(ImageBatchRequest request, int index, Path file)
+			throws InterruptedException {
+		String prompt = request.prompts().get(index);
+		if (request.skipExisting() && Files.exists(file)) {
+			return new ImageBatchItem(index, prompt, ImageBatchItem.Status.SKIPPED, file,
+					null, 0, null);
+		}
+
+		ImageGenerationRequest generationRequest = request.request()
+				.apply(ImageGenerationRequest.builder().prompt(prompt)).n(1)
+				.responseFormat(ImageResponseFormat.B64_JSON).build();
+		RateLimiter rateLimiter = this.rateLimiters.get(generationRequest.model() != null
+				? generationRequest.model()
+				: ImageModel.DALL_E_2);
+		// the image is decoded into a temporary file, so an interrupted download is
+		// never mistaken for a finished image when the batch is run again
+		Path partFile = file.resolveSibling(file.getFileName() + ".part");
+
+		int attempt = 1;
+		while (true) {
+			try {
+				if (rateLimiter != null) {
+					rateLimiter.acquire();
+				}
+				StreamedImageResponse response = this.imagesClient
+						.generate(generationRequest, i -> Files.newOutputStream(partFile));
+				if (response.data().isEmpty() || response.data().get(0).bytes() == 0) {
+					throw new IOException("Response does not contain an image");
+				}
+				Files.move(partFile, file, StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+				return new ImageBatchItem(index, prompt, ImageBatchItem.Status.SUCCEEDED,
+						file, response.data().get(0).revisedPrompt(), attempt, null);
+			}
+			catch (IOException | RuntimeException e) {
+				deleteQuietly(partFile);
+				if (attempt >= request.maxAttempts() || !request.retryOn().test(e)) {
+					log.debug("Image {} failed after {} attempts", index, attempt, e);
+					return new ImageBatchItem(index, prompt, ImageBatchItem.Status.FAILED,
+							null, null, attempt, e.getMessage());
+				}
+				long backoff = request.initialBackoffMillis() << Math.min(attempt - 1, 20);
+				log.debug("Image {} failed, retrying in {} ms", index, backoff, e);
+				Thread.sleep(backoff);
+				attempt++;
+			}
+		}
+	}
+
+	private static void deleteQuietly(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		}
+		catch (IOException e) {
+			log.debug("Deleting {} failed", file, e);
+		}
+	}
+
+	/**
+	 * JSON Lines file with one line per finished item, in completion order.
+	 */
+	private static final class Manifest {
+		private final Path path;
+
+		Manifest(Path path) {
+			this.path = path;
+		}
+
+		synchronized void append(ImageBatchItem item) throws IOException {
+			Map<String, Object> line = new LinkedHashMap<>();
+			line.put("index", item.index());
+			line.put("prompt", item.prompt());
+			line.put("status", item.status());
+			if (item.file() != null) {
+				line.put("file", item.file().getFileName().toString());
+			}
+			if (item.revisedPrompt() != null) {
+				line.put("revised_prompt", item.revisedPrompt());
+			}
+			line.put("attempts", item.attempts());
+			if (item.error() != null) {
+				line.put("error", item.error());
+			}
+			Files.writeString(this.path, objectMapper.writeValueAsString(line) + "\n",
+					StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		}
+	}
+
+}
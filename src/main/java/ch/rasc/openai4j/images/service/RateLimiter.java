@@ -0,0 +1,51 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.images.service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces out requests evenly so that at most permitsPerMinute requests start per
+ * minute. Callers reserve the next free slot and wait outside of the lock.
+ */
+final class RateLimiter {
+
+	private final long intervalNanos;
+	private long nextFreeNanos;
+
+	RateLimiter(int permitsPerMinute) {
+		if (permitsPerMinute <= 0) {
+			throw new IllegalArgumentException("permitsPerMinute must be greater than 0");
+		}
+		this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / permitsPerMinute;
+		this.nextFreeNanos = System.nanoTime();
+	}
+
+	void acquire() throws InterruptedException {
+		long waitNanos = reserve();
+		if (waitNanos > 0) {
+			TimeUnit.NANOSECONDS.sleep(waitNanos);
+		}
+	}
+
+	private synchronized long reserve() {
+		long now = System.nanoTime();
+		long slot = Math.max(now, this.nextFreeNanos);
+		this.nextFreeNanos = slot + this.intervalNanos;
+		return slot - now;
+	}
+
+}
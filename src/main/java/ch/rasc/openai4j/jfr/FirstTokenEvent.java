@@ -0,0 +1,63 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * The time between receiving the response headers of a server-sent event stream and
+ * receiving the first delta event.
+ */
+@Name("ch.rasc.openai4j.FirstToken")
+@Label("OpenAI First Token")
+@Category("OpenAI")
+@Description("Time between opening an event stream and receiving the first delta")
+@StackTrace(false)
+public final class FirstTokenEvent extends jdk.jfr.Event
+		implements FlightRecorderEvents.FirstToken {
+
+	@Label("Stream")
+	@Description("The Feign method key of the call that opened the stream")
+	private final String stream;
+
+	@Label("Event")
+	@Description("The name of the first delta event")
+	private String event;
+
+	@Label("Run ID")
+	private String runId;
+
+	/**
+	 * @param stream The Feign method key of the call that opened the stream
+	 */
+	public FirstTokenEvent(String stream) {
+		this.stream = stream;
+	}
+
+	@Override
+	public void commit(String event, String runId) {
+		if (shouldCommit()) {
+			this.event = event;
+			this.runId = runId;
+			commit();
+		}
+	}
+
+}
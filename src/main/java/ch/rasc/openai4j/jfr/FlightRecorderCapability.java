@@ -0,0 +1,206 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.jfr;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import ch.rasc.openai4j.chatcompletions.ChatCompletionResponse;
+import ch.rasc.openai4j.metrics.MetricsCapability;
+import feign.Capability;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.RetryableException;
+import feign.Retryer;
+import feign.codec.Decoder;
+
+/**
+ * Feign capability that emits Java Flight Recorder events for the calls and retries
+ * of a client. When no recording is running the requests are passed through without
+ * any additional work.
+ * <p>
+ * {@link ch.rasc.openai4j.OpenAIClient} adds it to all clients unless
+ * {@link ch.rasc.openai4j.Configuration.Builder#flightRecorderEvents(boolean)} is
+ * disabled.
+ */
+public final class FlightRecorderCapability implements Capability {
+
+	@Override
+	public Client enrich(Client client) {
+		return (request, options) -> execute(client, request, options);
+	}
+
+	@Override
+	public Retryer enrich(Retryer retryer) {
+		return new RecordedRetryer(retryer);
+	}
+
+	@Override
+	public Decoder enrich(Decoder decoder) {
+		return (response, type) -> {
+			Object result = decoder.decode(response, type);
+			if (result instanceof ChatCompletionResponse chatCompletion
+					&& chatCompletion.usage() != null
+					&& response.body() instanceof RecordedBody body) {
+				body.event.promptTokens = chatCompletion.usage().promptTokens();
+				body.event.completionTokens = chatCompletion.usage().completionTokens();
+			}
+			return result;
+		};
+	}
+
+	private static Response execute(Client client, Request request,
+			Request.Options options) throws IOException {
+		RequestEvent event = new RequestEvent();
+		if (!event.isEnabled()) {
+			return client.execute(request, options);
+		}
+
+		event.endpoint = MetricsCapability.endpoint(request);
+		event.model = MetricsCapability.model(request);
+		event.bytesOut = request.body() != null ? request.body().length : 0;
+		event.begin();
+
+		Response response;
+		try {
+			response = client.execute(request, options);
+		}
+		catch (IOException | RuntimeException e) {
+			event.commit();
+			throw e;
+		}
+
+		event.status = response.status();
+		if (response.body() == null) {
+			event.commit();
+			return response;
+		}
+		return response.toBuilder().body(new RecordedBody(response.body(), event))
+				.build();
+	}
+
+	/**
+	 * Counts the bytes read from the body and commits the event when the body is
+	 * closed.
+	 */
+	private static final class RecordedBody implements Response.Body {
+		private final Response.Body delegate;
+		private final RequestEvent event;
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		RecordedBody(Response.Body delegate, RequestEvent event) {
+			this.delegate = delegate;
+			this.event = event;
+		}
+
+		@Override
+		public Integer length() {
+			return this.delegate.length();
+		}
+
+		@Override
+		public boolean isRepeatable() {
+			return this.delegate.isRepeatable();
+		}
+
+		@Override
+		public InputStream asInputStream() throws IOException {
+			return new FilterInputStream(this.delegate.asInputStream()) {
+				@Override
+				public int read() throws IOException {
+					int b = super.read();
+					if (b != -1) {
+						RecordedBody.this.event.bytesIn++;
+					}
+					return b;
+				}
+
+				@Override
+				public int read(byte[] b, int off, int len) throws IOException {
+					int n = super.read(b, off, len);
+					if (n > 0) {
+						RecordedBody.this.event.bytesIn += n;
+					}
+					return n;
+				}
+			};
+		}
+
+		@Override
+		public Reader asReader(Charset charset) throws IOException {
+			return new InputStreamReader(asInputStream(), charset);
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				this.delegate.close();
+			}
+			finally {
+				if (this.closed.compareAndSet(false, true)) {
+					this.event.commit();
+				}
+			}
+		}
+	}
+
+	private static final class RecordedRetryer implements Retryer {
+		private final Retryer delegate;
+
+		RecordedRetryer(Retryer delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void continueOrPropagate(RetryableException e) {
+			RetryEvent event = new RetryEvent();
+			if (!event.isEnabled()) {
+				this.delegate.continueOrPropagate(e);
+				return;
+			}
+
+			event.begin();
+			try {
+				this.delegate.continueOrPropagate(e);
+			}
+			catch (RuntimeException propagated) {
+				event.exhausted = true;
+				throw propagated;
+			}
+			finally {
+				if (e.hasRequest()) {
+					event.endpoint = MetricsCapability.endpoint(e.request());
+					event.model = MetricsCapability.model(e.request());
+				}
+				event.status = e.status();
+				event.message = e.getMessage();
+				event.commit();
+			}
+		}
+
+		@Override
+		public Retryer clone() {
+			return new RecordedRetryer(this.delegate.clone());
+		}
+	}
+
+}
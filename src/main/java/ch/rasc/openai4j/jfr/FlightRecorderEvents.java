@@ -0,0 +1,115 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.jfr;
+
+/**
+ * Creates the Flight Recorder events of the library without depending on the jdk.jfr
+ * module. On runtimes without the module no-op events are returned and the event
+ * classes are never loaded.
+ */
+public final class FlightRecorderEvents {
+
+	private static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr")
+			.isPresent();
+
+	private static final Poll NO_POLL = (done, failed) -> {
+		// jdk.jfr is not available
+	};
+
+	private static final FirstToken NO_FIRST_TOKEN = (event, runId) -> {
+		// jdk.jfr is not available
+	};
+
+	/**
+	 * A started {@link PollEvent}.
+	 */
+	public interface Poll {
+		/**
+		 * Commits the event if it is enabled.
+		 *
+		 * @param done True if the resource reached a final state
+		 * @param failed True if the poll threw an exception
+		 */
+		void commit(boolean done, boolean failed);
+	}
+
+	/**
+	 * A started {@link FirstTokenEvent}.
+	 */
+	public interface FirstToken {
+		/**
+		 * Commits the event if it is enabled.
+		 *
+		 * @param event The name of the first delta event
+		 * @param runId The ID of the run or null if not known yet
+		 */
+		void commit(String event, String runId);
+	}
+
+	private FlightRecorderEvents() {
+		// utility class
+	}
+
+	/**
+	 * True if the runtime contains the jdk.jfr module.
+	 */
+	public static boolean available() {
+		return AVAILABLE;
+	}
+
+	/**
+	 * Begins a {@link PollEvent}.
+	 *
+	 * @param resource The key of the resource
+	 * @param attempt The number of the poll, starting at 1
+	 */
+	public static Poll beginPoll(String resource, int attempt) {
+		if (!AVAILABLE) {
+			return NO_POLL;
+		}
+		return Events.beginPoll(resource, attempt);
+	}
+
+	/**
+	 * Begins a {@link FirstTokenEvent}.
+	 *
+	 * @param stream The Feign method key of the call that opened the stream
+	 */
+	public static FirstToken beginFirstToken(String stream) {
+		if (!AVAILABLE) {
+			return NO_FIRST_TOKEN;
+		}
+		return Events.beginFirstToken(stream);
+	}
+
+	/**
+	 * Only loaded when jdk.jfr is available.
+	 */
+	private static final class Events {
+		static Poll beginPoll(String resource, int attempt) {
+			PollEvent event = new PollEvent(resource, attempt);
+			event.begin();
+			return event;
+		}
+
+		static FirstToken beginFirstToken(String stream) {
+			FirstTokenEvent event = new FirstTokenEvent(stream);
+			event.begin();
+			return event;
+		}
+	}
+
+}
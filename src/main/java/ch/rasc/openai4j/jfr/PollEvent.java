@@ -0,0 +1,68 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One poll of a resource that is waited for with a waitForProcessing method.
+ */
+@Name("ch.rasc.openai4j.Poll")
+@Label("OpenAI Poll")
+@Category("OpenAI")
+@Description("Retrieval of a resource that is waited for until it finished processing")
+@StackTrace(false)
+public final class PollEvent extends jdk.jfr.Event
+		implements FlightRecorderEvents.Poll {
+
+	@Label("Resource")
+	@Description("The key of the resource, for example file:file-abc")
+	private final String resource;
+
+	@Label("Attempt")
+	private final int attempt;
+
+	@Label("Done")
+	@Description("True if the resource reached a final state")
+	private boolean done;
+
+	@Label("Failed")
+	@Description("True if the poll threw an exception")
+	private boolean failed;
+
+	/**
+	 * @param resource The key of the resource
+	 * @param attempt The number of the poll, starting at 1
+	 */
+	public PollEvent(String resource, int attempt) {
+		this.resource = resource;
+		this.attempt = attempt;
+	}
+
+	@Override
+	public void commit(boolean done, boolean failed) {
+		if (shouldCommit()) {
+			this.done = done;
+			this.failed = failed;
+			commit();
+		}
+	}
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * An HTTP call of a client, from sending the request until the response body is
+ * closed.
+ */
+@Name("ch.rasc.openai4j.Request")
+@Label("OpenAI Request")
+@Category("OpenAI")
+@Description("HTTP call to the OpenAI API, from sending the request until the response "
+		+ "body is closed")
+@StackTrace(false)
+final class RequestEvent extends jdk.jfr.Event {
+
+	@Label("Endpoint")
+	@Description("HTTP method and path template")
+	String endpoint;
+
+	@Label("Model")
+	String model;
+
+	@Label("Status")
+	@Description("HTTP status code, -1 if no response was received")
+	int status = -1;
+
+	@Label("Bytes Out")
+	@DataAmount
+	long bytesOut;
+
+	@Label("Bytes In")
+	@DataAmount
+	long bytesIn;
+
+	@Label("Prompt Tokens")
+	long promptTokens;
+
+	@Label("Completion Tokens")
+	long completionTokens;
+
+}
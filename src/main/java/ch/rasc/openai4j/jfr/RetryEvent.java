@@ -0,0 +1,53 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A decision of the retryer after a failed call. The duration is the backoff before
+ * the call is sent again.
+ */
+@Name("ch.rasc.openai4j.Retry")
+@Label("OpenAI Retry")
+@Category("OpenAI")
+@Description("Backoff of the retryer after a failed call to the OpenAI API")
+@StackTrace(false)
+final class RetryEvent extends jdk.jfr.Event {
+
+	@Label("Endpoint")
+	@Description("HTTP method and path template")
+	String endpoint;
+
+	@Label("Model")
+	String model;
+
+	@Label("Status")
+	@Description("HTTP status code of the failed call, -1 if no response was received")
+	int status;
+
+	@Label("Message")
+	String message;
+
+	@Label("Exhausted")
+	@Description("True if the retryer gave up and the call fails")
+	boolean exhausted;
+
+}
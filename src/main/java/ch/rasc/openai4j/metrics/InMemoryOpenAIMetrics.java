@@ -0,0 +1,207 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics implementation that keeps all measurements in memory. The counters are
+ * {@link LongAdder}s and the latencies are recorded in {@link LatencyHistogram}s, so
+ * recording never takes a lock.
+ * <p>
+ * Measurements are grouped by endpoint and model.
+ */
+public class InMemoryOpenAIMetrics implements OpenAIMetrics {
+
+	private final ConcurrentHashMap<Key, Stats> stats = new ConcurrentHashMap<>();
+
+	private record Key(String endpoint, String model) {
+	}
+
+	private static final class Stats {
+		private final LongAdder inFlight = new LongAdder();
+		private final LongAdder requests = new LongAdder();
+		private final LongAdder errors = new LongAdder();
+		private final LongAdder retries = new LongAdder();
+		private final LongAdder promptTokens = new LongAdder();
+		private final LongAdder completionTokens = new LongAdder();
+		private final ConcurrentHashMap<Integer, LongAdder> statusCodes =
+				new ConcurrentHashMap<>();
+		private final LatencyHistogram latency = new LatencyHistogram();
+	}
+
+	/**
+	 * The measurements of one endpoint and model.
+	 */
+	public record EndpointStats(String endpoint, String model, long inFlight,
+			long requests, long errors, long retries, Map<Integer, Long> statusCodes,
+			long promptTokens, long completionTokens, LatencyHistogram.Snapshot latency) {
+
+		/**
+		 * The HTTP method and path template, for example POST /chat/completions.
+		 */
+		@Override
+		public String endpoint() {
+			return this.endpoint;
+		}
+
+		/**
+		 * The model of the requests or null if the requests do not specify one.
+		 */
+		@Override
+		public String model() {
+			return this.model;
+		}
+
+		/**
+		 * The number of requests that are sent but not finished.
+		 */
+		@Override
+		public long inFlight() {
+			return this.inFlight;
+		}
+
+		/**
+		 * The number of finished requests.
+		 */
+		@Override
+		public long requests() {
+			return this.requests;
+		}
+
+		/**
+		 * The number of finished requests without a response or with a status code of
+		 * 400 or higher.
+		 */
+		@Override
+		public long errors() {
+			return this.errors;
+		}
+
+		/**
+		 * The number of times a failed request was sent again.
+		 */
+		@Override
+		public long retries() {
+			return this.retries;
+		}
+
+		/**
+		 * The number of finished requests by HTTP status code. Requests without a
+		 * response are counted with status code -1.
+		 */
+		@Override
+		public Map<Integer, Long> statusCodes() {
+			return this.statusCodes;
+		}
+
+		/**
+		 * The sum of the prompt tokens reported in the responses.
+		 */
+		@Override
+		public long promptTokens() {
+			return this.promptTokens;
+		}
+
+		/**
+		 * The sum of the completion tokens reported in the responses.
+		 */
+		@Override
+		public long completionTokens() {
+			return this.completionTokens;
+		}
+
+		/**
+		 * The durations of the finished requests.
+		 */
+		@Override
+		public LatencyHistogram.Snapshot latency() {
+			return this.latency;
+		}
+	}
+
+	@Override
+	public void requestStarted(String endpoint, String model) {
+		stats(endpoint, model).inFlight.increment();
+	}
+
+	@Override
+	public void requestFinished(String endpoint, String model, int status,
+			long durationNanos) {
+		Stats s = stats(endpoint, model);
+		s.inFlight.decrement();
+		s.requests.increment();
+		if (status < 0 || status >= 400) {
+			s.errors.increment();
+		}
+		s.statusCodes.computeIfAbsent(status, k -> new LongAdder()).increment();
+		s.latency.record(durationNanos);
+	}
+
+	@Override
+	public void requestRetried(String endpoint, String model) {
+		stats(endpoint, model).retries.increment();
+	}
+
+	@Override
+	public void tokensUsed(String endpoint, String model, long promptTokens,
+			long completionTokens) {
+		Stats s = stats(endpoint, model);
+		s.promptTokens.add(promptTokens);
+		s.completionTokens.add(completionTokens);
+	}
+
+	/**
+	 * Returns the measurements of all endpoints and models that were called.
+	 */
+	public List<EndpointStats> endpoints() {
+		List<EndpointStats> result = new ArrayList<>();
+		this.stats.forEach((key, s) -> result.add(toEndpointStats(key, s)));
+		return result;
+	}
+
+	/**
+	 * Returns the measurements of an endpoint and model.
+	 *
+	 * @param endpoint The HTTP method and path template, for example POST
+	 * /chat/completions
+	 * @param model The model or null for the requests without a model
+	 * @return The measurements or null if the endpoint was not called with this model
+	 */
+	public EndpointStats endpoint(String endpoint, String model) {
+		Key key = new Key(endpoint, model);
+		Stats s = this.stats.get(key);
+		return s != null ? toEndpointStats(key, s) : null;
+	}
+
+	private Stats stats(String endpoint, String model) {
+		return this.stats.computeIfAbsent(new Key(endpoint, model), k -> new Stats());
+	}
+
+	private static EndpointStats toEndpointStats(Key key, Stats s) {
+		Map<Integer, Long> statusCodes = new TreeMap<>();
+		s.statusCodes.forEach((status, count) -> statusCodes.put(status, count.sum()));
+		return new EndpointStats(key.endpoint(), key.model(), s.inFlight.sum(),
+				s.requests.sum(), s.errors.sum(), s.retries.sum(), statusCodes,
+				s.promptTokens.sum(), s.completionTokens.sum(), s.latency.snapshot());
+	}
+
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of durations with logarithmic buckets. Every power of two is
+ * split into 8 linear sub-buckets, so a recorded value is reported with a relative
+ * error of at most 12.5% over the whole range of long values.
+ */
+public final class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 3;
+
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	private final LongAdder count = new LongAdder();
+
+	private final LongAdder totalNanos = new LongAdder();
+
+	private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * A point in time view of a histogram.
+	 */
+	public record Snapshot(long count, Duration total, Duration max, Duration p50,
+			Duration p90, Duration p99) {
+
+		/**
+		 * The number of recorded values.
+		 */
+		@Override
+		public long count() {
+			return this.count;
+		}
+
+		/**
+		 * The sum of the recorded values.
+		 */
+		@Override
+		public Duration total() {
+			return this.total;
+		}
+
+		/**
+		 * The largest recorded value.
+		 */
+		@Override
+		public Duration max() {
+			return this.max;
+		}
+
+		/**
+		 * The median.
+		 */
+		@Override
+		public Duration p50() {
+			return this.p50;
+		}
+
+		/**
+		 * The 90th percentile.
+		 */
+		@Override
+		public Duration p90() {
+			return this.p90;
+		}
+
+		/**
+		 * The 99th percentile.
+		 */
+		@Override
+		public Duration p99() {
+			return this.p99;
+		}
+
+		/**
+		 * The mean of the recorded values or zero if nothing was recorded.
+		 */
+		public Duration mean() {
+			return this.count == 0 ? Duration.ZERO : this.total.dividedBy(this.count);
+		}
+	}
+
+	/**
+	 * Records a duration. Negative values are recorded as zero.
+	 */
+	public void record(long nanos) {
+		long value = Math.max(0, nanos);
+		this.counts.incrementAndGet(index(value));
+		this.count.increment();
+		this.totalNanos.add(value);
+		this.maxNanos.accumulate(value);
+	}
+
+	/**
+	 * The number of recorded values.
+	 */
+	public long count() {
+		return this.count.sum();
+	}
+
+	/**
+	 * Returns the smallest duration that is greater than or equal to the given fraction
+	 * of all recorded values.
+	 *
+	 * @param quantile A value between 0 and 1, for example 0.99 for the 99th
+	 * percentile
+	 */
+	public Duration percentile(double quantile) {
+		return Duration.ofNanos(valueAt(quantile, this.maxNanos.get()));
+	}
+
+	/**
+	 * Returns a view of the current state. Values recorded while the snapshot is taken
+	 * may or may not be included.
+	 */
+	public Snapshot snapshot() {
+		long max = this.maxNanos.get();
+		return new Snapshot(this.count.sum(), Duration.ofNanos(this.totalNanos.sum()),
+				Duration.ofNanos(max), Duration.ofNanos(valueAt(0.5, max)),
+				Duration.ofNanos(valueAt(0.9, max)), Duration.ofNanos(valueAt(0.99, max)));
+	}
+
+	private long valueAt(double quantile, long max) {
+		if (quantile < 0 || quantile > 1) {
+			throw new IllegalArgumentException("quantile must be between 0 and 1");
+		}
+		long[] snapshot = new long[BUCKETS];
+		long total = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			snapshot[i] = this.counts.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(quantile * total));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return Math.min(highestValue(i), max);
+			}
+		}
+		return max;
+	}
+
+	static int index(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	static long highestValue(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		int subBucket = index % SUB_BUCKETS;
+		long width = 1L << (exponent - SUB_BUCKET_BITS);
+		long lowest = (SUB_BUCKETS + subBucket) * width;
+		return lowest + width - 1;
+	}
+
+}
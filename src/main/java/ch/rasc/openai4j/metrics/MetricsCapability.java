@@ -0,0 +1,307 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.metrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import ch.rasc.openai4j.chatcompletions.ChatCompletionResponse;
+import feign.Capability;
+import feign.Client;
+import feign.MethodMetadata;
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Response;
+import feign.RetryableException;
+import feign.Retryer;
+import feign.codec.Decoder;
+
+/**
+ * Feign capability that reports every call of a client to an {@link OpenAIMetrics}.
+ * {@link ch.rasc.openai4j.OpenAIClient} adds it to all clients when
+ * {@link ch.rasc.openai4j.Configuration.Builder#metrics(OpenAIMetrics)} is set.
+ */
+public final class MetricsCapability implements Capability {
+
+	private static final Map<String, String> endpoints = new ConcurrentHashMap<>();
+
+	private final OpenAIMetrics metrics;
+
+	public MetricsCapability(OpenAIMetrics metrics) {
+		if (metrics == null) {
+			throw new IllegalArgumentException("metrics must not be null");
+		}
+		this.metrics = metrics;
+	}
+
+	@Override
+	public Client enrich(Client client) {
+		return (request, options) -> execute(client, request, options);
+	}
+
+	@Override
+	public Retryer enrich(Retryer retryer) {
+		return new MeasuredRetryer(retryer, this.metrics);
+	}
+
+	@Override
+	public Decoder enrich(Decoder decoder) {
+		return (response, type) -> {
+			Object result = decoder.decode(response, type);
+			if (result instanceof ChatCompletionResponse chatCompletion
+					&& chatCompletion.usage() != null && response.request() != null) {
+				Request request = response.request();
+				this.metrics.tokensUsed(endpoint(request), model(request),
+						chatCompletion.usage().promptTokens(),
+						chatCompletion.usage().completionTokens());
+			}
+			return result;
+		};
+	}
+
+	private Response execute(Client client, Request request, Request.Options options)
+			throws IOException {
+		String endpoint = endpoint(request);
+		String model = model(request);
+		this.metrics.requestStarted(endpoint, model);
+		long start = System.nanoTime();
+
+		Response response;
+		try {
+			response = client.execute(request, options);
+		}
+		catch (IOException | RuntimeException e) {
+			this.metrics.requestFinished(endpoint, model, -1, System.nanoTime() - start);
+			throw e;
+		}
+
+		if (response.body() == null) {
+			this.metrics.requestFinished(endpoint, model, response.status(),
+					System.nanoTime() - start);
+			return response;
+		}
+		return response.toBuilder()
+				.body(new MeasuredBody(response.body(), () -> this.metrics
+						.requestFinished(endpoint, model, response.status(),
+								System.nanoTime() - start)))
+				.build();
+	}
+
+	/**
+	 * Returns the HTTP method and the path template of the interface method that
+	 * created the request, for example POST /threads/{thread_id}/runs. Falls back to
+	 * the path of the URL for requests that were not created by a Feign client.
+	 */
+	public static String endpoint(Request request) {
+		RequestTemplate requestTemplate = request.requestTemplate();
+		MethodMetadata metadata = requestTemplate != null
+				? requestTemplate.methodMetadata()
+				: null;
+		if (metadata == null) {
+			return request.httpMethod() + " " + URI.create(request.url()).getPath();
+		}
+		return endpoints.computeIfAbsent(metadata.configKey(), k -> {
+			String path = metadata.template().path();
+			return metadata.template().method() + " " + path;
+		});
+	}
+
+	/**
+	 * Reads the value of the first model property of a JSON request body without
+	 * parsing the body.
+	 */
+	public static String model(Request request) {
+		return jsonProperty(request, "model");
+	}
+
+	/**
+	 * Reads the value of a string property with the name of the top level object of a
+	 * JSON request body without parsing the body. Properties of nested objects and
+	 * arrays are ignored. Returns null if the body is not JSON, the property does not
+	 * exist or its value is not a string.
+	 */
+	public static String jsonProperty(Request request, String name) {
+		byte[] body = request.body();
+		if (body == null || !isJson(request.headers())) {
+			return null;
+		}
+		byte[] propertyKey = name.getBytes(StandardCharsets.UTF_8);
+		int depth = 0;
+		int pos = 0;
+		while (pos < body.length) {
+			byte b = body[pos];
+			if (b == '{' || b == '[') {
+				depth++;
+				pos++;
+			}
+			else if (b == '}' || b == ']') {
+				depth--;
+				pos++;
+			}
+			else if (b == '"') {
+				int end = stringEnd(body, pos);
+				if (end == -1) {
+					return null;
+				}
+				int next = skipWhitespace(body, end + 1);
+				if (depth == 1 && next < body.length && body[next] == ':'
+						&& regionEquals(body, pos + 1, end, propertyKey)) {
+					int value = skipWhitespace(body, next + 1);
+					if (value < body.length && body[value] == '"') {
+						int valueEnd = stringEnd(body, value);
+						if (valueEnd != -1) {
+							return new String(body, value + 1, valueEnd - value - 1,
+									StandardCharsets.UTF_8);
+						}
+					}
+					return null;
+				}
+				pos = end + 1;
+			}
+			else {
+				pos++;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the index of the quote that closes the string starting at the quote at
+	 * start, or -1 if the string is not closed.
+	 */
+	private static int stringEnd(byte[] data, int start) {
+		int pos = start + 1;
+		while (pos < data.length) {
+			if (data[pos] == '\\') {
+				pos += 2;
+			}
+			else if (data[pos] == '"') {
+				return pos;
+			}
+			else {
+				pos++;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean regionEquals(byte[] data, int from, int to, byte[] pattern) {
+		return to - from == pattern.length
+				&& Arrays.equals(data, from, to, pattern, 0, pattern.length);
+	}
+
+	private static boolean isJson(Map<String, Collection<String>> headers) {
+		Collection<String> contentTypes = headers.get("Content-Type");
+		if (contentTypes == null) {
+			return false;
+		}
+		for (String contentType : contentTypes) {
+			if (contentType.contains("json")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int skipWhitespace(byte[] data, int from) {
+		int pos = from;
+		while (pos < data.length && (data[pos] == ' ' || data[pos] == '\n'
+				|| data[pos] == '\r' || data[pos] == '\t')) {
+			pos++;
+		}
+		return pos;
+	}
+
+	/**
+	 * Reports the end of a request when the body is closed.
+	 */
+	private static final class MeasuredBody implements Response.Body {
+		private final Response.Body delegate;
+		private final Runnable onClose;
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		MeasuredBody(Response.Body delegate, Runnable onClose) {
+			this.delegate = delegate;
+			this.onClose = onClose;
+		}
+
+		@Override
+		public Integer length() {
+			return this.delegate.length();
+		}
+
+		@Override
+		public boolean isRepeatable() {
+			return this.delegate.isRepeatable();
+		}
+
+		@Override
+		public InputStream asInputStream() throws IOException {
+			return this.delegate.asInputStream();
+		}
+
+		@Override
+		public Reader asReader(Charset charset) throws IOException {
+			return this.delegate.asReader(charset);
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				this.delegate.close();
+			}
+			finally {
+				if (this.closed.compareAndSet(false, true)) {
+					this.onClose.run();
+				}
+			}
+		}
+	}
+
+	private static final class MeasuredRetryer implements Retryer {
+		private final Retryer delegate;
+		private final OpenAIMetrics metrics;
+
+		MeasuredRetryer(Retryer delegate, OpenAIMetrics metrics) {
+			this.delegate = delegate;
+			this.metrics = metrics;
+		}
+
+		@Override
+		public void continueOrPropagate(RetryableException e) {
+			this.delegate.continueOrPropagate(e);
+			// the delegate did not throw, so the request is sent again
+			if (e.hasRequest()) {
+				this.metrics.requestRetried(endpoint(e.request()), model(e.request()));
+			}
+		}
+
+		@Override
+		public Retryer clone() {
+			return new MeasuredRetryer(this.delegate.clone(), this.metrics);
+		}
+	}
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.metrics;
+
+/**
+ * Receives measurements of the HTTP calls made by the clients of
+ * {@link ch.rasc.openai4j.OpenAIClient}. Set an implementation with
+ * {@link ch.rasc.openai4j.Configuration.Builder#metrics(OpenAIMetrics)}.
+ * <p>
+ * The methods are called on the threads that execute the requests and must not block.
+ * An endpoint is the HTTP method and the path template of the call, for example
+ * {@code POST /threads/{thread_id}/runs}. The model is read from the JSON request body
+ * and is null if the request does not specify one.
+ *
+ * @see InMemoryOpenAIMetrics
+ */
+public interface OpenAIMetrics {
+
+	/**
+	 * Called before a request is sent.
+	 */
+	default void requestStarted(String endpoint, String model) {
+	}
+
+	/**
+	 * Called when a request is finished. A request is finished when the response body
+	 * is closed, for calls that return a stream this is when the caller closes it.
+	 *
+	 * @param status The HTTP status code of the response or -1 if no response was
+	 * received
+	 * @param durationNanos The time between sending the request and closing the response
+	 */
+	default void requestFinished(String endpoint, String model, int status,
+			long durationNanos) {
+	}
+
+	/**
+	 * Called when the retryer decided to send a failed request again.
+	 */
+	default void requestRetried(String endpoint, String model) {
+	}
+
+	/**
+	 * Called for every decoded response that reports token usage.
+	 */
+	default void tokensUsed(String endpoint, String model, long promptTokens,
+			long completionTokens) {
+	}
+
+}
@@ -20,9 +20,12 @@ import java.util.function.Function;
 import ch.rasc.openai4j.Beta;
 import ch.rasc.openai4j.common.DeletionStatus;
 import ch.rasc.openai4j.threads.runs.ThreadRun;
+import ch.rasc.openai4j.threads.streaming.AssistantStream;
+import ch.rasc.openai4j.threads.streaming.StreamRequest;
 import feign.Headers;
 import feign.Param;
 import feign.RequestLine;
+import feign.Response;
 
 @Beta
 public interface ThreadsClient {
@@ -75,6 +78,40 @@ public interface ThreadsClient {
 				.createAndRun(fn.apply(ThreadCreateRunCreateRequest.builder()).build());
 	}
 
+	/**
+	 * Create a thread, run it in one request and stream the events. Returns as soon as
+	 * the response headers are received.
+	 *
+	 * @return The raw server-sent events response.
+	 */
+	@RequestLine("POST /threads/runs")
+	@Headers({ "Content-Type: application/json", "Accept: text/event-stream" })
+	Response createAndRunStreamResponse(
+			StreamRequest<ThreadCreateRunCreateRequest> request);
+
+	/**
+	 * Create a thread, run it in one request and stream the events. Returns as soon as
+	 * the response headers are received.
+	 *
+	 * @return The event stream. Must be closed if not read to the end.
+	 */
+	default AssistantStream createAndRunStream(ThreadCreateRunCreateRequest request) {
+		return AssistantStream.of("ThreadsClient#createAndRunStream",
+				this.createAndRunStreamResponse(StreamRequest.of(request)));
+	}
+
+	/**
+	 * Create a thread, run it in one request and stream the events. Returns as soon as
+	 * the response headers are received.
+	 *
+	 * @return The event stream. Must be closed if not read to the end.
+	 */
+	default AssistantStream createAndRunStream(
+			Function<ThreadCreateRunCreateRequest.Builder, ThreadCreateRunCreateRequest.Builder> fn) {
+		return this.createAndRunStream(
+				fn.apply(ThreadCreateRunCreateRequest.builder()).build());
+	}
+
 	/**
 	 * Retrieves a thread.
 	 *
@@ -0,0 +1,229 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.threads.messages.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.rasc.openai4j.common.ListResponse;
+import ch.rasc.openai4j.common.SortOrder;
+import ch.rasc.openai4j.threads.messages.ThreadMessage;
+import ch.rasc.openai4j.threads.messages.ThreadsMessagesClient;
+
+/**
+ * Local cache of the messages of threads. A sync only fetches the messages created
+ * after the last message that was already cached, so the cost of a refresh depends on
+ * the number of new messages and not on the length of the thread.
+ * <p>
+ * Messages that are still in progress are fetched again on the next sync. Changes to
+ * completed messages, for example new metadata or deletions, are not detected; call
+ * {@link #invalidate(String)} after such a change.
+ * <p>
+ * The cache holds at most maxThreads threads. Threads that were not synced for longer
+ * than the idle timeout are evicted, and if the cache is full the least recently
+ * synced thread is evicted.
+ */
+public class ThreadMessagesCache {
+	private final static Logger log = LoggerFactory.getLogger(ThreadMessagesCache.class);
+
+	private static final int PAGE_SIZE = 100;
+
+	private final ThreadsMessagesClient threadsMessagesClient;
+
+	private final int maxThreads;
+
+	private final long idleTimeoutNanos;
+
+	// access ordered, the least recently used thread comes first
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f,
+			true);
+
+	private static final class Entry {
+		private final List<ThreadMessage> messages = new ArrayList<>();
+		private List<ThreadMessage> snapshot = List.of();
+		private volatile long lastAccess;
+	}
+
+	/**
+	 * Creates a cache that holds up to 1000 threads and evicts threads that were not
+	 * synced for 30 minutes.
+	 */
+	public ThreadMessagesCache(ThreadsMessagesClient threadsMessagesClient) {
+		this(threadsMessagesClient, 1000, Duration.ofMinutes(30));
+	}
+
+	/**
+	 * @param threadsMessagesClient The client used to fetch the messages
+	 * @param maxThreads The maximum number of threads held in the cache
+	 * @param idleTimeout Threads that were not synced for this duration are evicted
+	 */
+	public ThreadMessagesCache(ThreadsMessagesClient threadsMessagesClient,
+			int maxThreads, Duration idleTimeout) {
+		if (threadsMessagesClient == null) {
+			throw new IllegalArgumentException("threadsMessagesClient must not be null");
+		}
+		if (maxThreads < 1) {
+			throw new IllegalArgumentException("maxThreads must be greater than 0");
+		}
+		if (idleTimeout == null || idleTimeout.isNegative() || idleTimeout.isZero()) {
+			throw new IllegalArgumentException("idleTimeout must be positive");
+		}
+		this.threadsMessagesClient = threadsMessagesClient;
+		this.maxThreads = maxThreads;
+		this.idleTimeoutNanos = idleTimeout.toNanos();
+	}
+
+	/**
+	 * Fetches the messages that were added to the thread since the last sync and
+	 * returns all messages of the thread.
+	 *
+	 * @param threadId The ID of the thread
+	 * @return The messages of the thread in ascending order of creation. The list is
+	 * unmodifiable.
+	 */
+	public List<ThreadMessage> sync(String threadId) {
+		Entry entry = entry(threadId);
+		synchronized (entry) {
+			int fetched = fetchNewMessages(threadId, entry);
+			if (fetched > 0) {
+				entry.snapshot = List.copyOf(entry.messages);
+			}
+			entry.lastAccess = System.nanoTime();
+			return entry.snapshot;
+		}
+	}
+
+	/**
+	 * Returns the cached messages of the thread without contacting the server.
+	 *
+	 * @param threadId The ID of the thread
+	 * @return The messages of the thread in ascending order of creation or an empty
+	 * list if the thread is not cached
+	 */
+	public List<ThreadMessage> cached(String threadId) {
+		Entry entry;
+		synchronized (this.entries) {
+			entry = this.entries.get(threadId);
+		}
+		if (entry == null) {
+			return List.of();
+		}
+		synchronized (entry) {
+			return entry.snapshot;
+		}
+	}
+
+	/**
+	 * Removes the thread from the cache. The next sync fetches all its messages.
+	 */
+	public void invalidate(String threadId) {
+		synchronized (this.entries) {
+			this.entries.remove(threadId);
+		}
+	}
+
+	/**
+	 * Removes all threads from the cache.
+	 */
+	public void clear() {
+		synchronized (this.entries) {
+			this.entries.clear();
+		}
+	}
+
+	/**
+	 * The number of threads in the cache.
+	 */
+	public int size() {
+		synchronized (this.entries) {
+			return this.entries.size();
+		}
+	}
+
+	private Entry entry(String threadId) {
+		long now = System.nanoTime();
+		synchronized (this.entries) {
+			Iterator<Map.Entry<String, Entry>> it = this.entries.entrySet().iterator();
+			while (it.hasNext()) {
+				Map.Entry<String, Entry> eldest = it.next();
+				if (now - eldest.getValue().lastAccess < this.idleTimeoutNanos) {
+					break;
+				}
+				log.debug("Evicting idle thread {}", eldest.getKey());
+				it.remove();
+			}
+
+			Entry entry = this.entries.get(threadId);
+			if (entry == null) {
+				if (this.entries.size() >= this.maxThreads) {
+					it = this.entries.entrySet().iterator();
+					log.debug("Evicting thread {}", it.next().getKey());
+					it.remove();
+				}
+				entry = new Entry();
+				this.entries.put(threadId, entry);
+			}
+			entry.lastAccess = now;
+			return entry;
+		}
+	}
+
+	private int fetchNewMessages(String threadId, Entry entry) {
+		// messages that may still change are dropped and fetched again
+		List<ThreadMessage> messages = entry.messages;
+		int dropped = 0;
+		for (int i = 0; i < messages.size(); i++) {
+			if (!isFinal(messages.get(i))) {
+				dropped = messages.size() - i;
+				messages.subList(i, messages.size()).clear();
+				break;
+			}
+		}
+
+		String after = messages.isEmpty() ? null
+				: messages.get(messages.size() - 1).id();
+		int fetched = 0;
+		while (true) {
+			String cursor = after;
+			ListResponse<ThreadMessage> response = this.threadsMessagesClient.list(
+					threadId,
+					r -> r.order(SortOrder.ASC).limit(PAGE_SIZE).after(cursor));
+			if (response.data() != null) {
+				messages.addAll(response.data());
+				fetched += response.data().size();
+			}
+			if (!Boolean.TRUE.equals(response.hasMore()) || response.lastId() == null) {
+				break;
+			}
+			after = response.lastId();
+		}
+		log.debug("Synced thread {}: {} messages fetched, {} refetched", threadId,
+				fetched, dropped);
+		return fetched + dropped;
+	}
+
+	private static boolean isFinal(ThreadMessage message) {
+		return !"in_progress".equals(message.status());
+	}
+
+}
@@ -16,16 +16,21 @@
 package ch.rasc.openai4j.threads.runs;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 import ch.rasc.openai4j.Beta;
 import ch.rasc.openai4j.common.ListRequest;
 import ch.rasc.openai4j.common.ListResponse;
 import ch.rasc.openai4j.common.PollConfig;
+import ch.rasc.openai4j.common.ResourceWatcher;
+import ch.rasc.openai4j.threads.streaming.AssistantStream;
+import ch.rasc.openai4j.threads.streaming.StreamRequest;
 import feign.Headers;
 import feign.Param;
 import feign.QueryMap;
 import feign.RequestLine;
+import feign.Response;
 
 @Beta
 public interface ThreadsRunsClient {
@@ -51,6 +56,44 @@ public interface ThreadsRunsClient {
 		return this.create(threadId, fn.apply(ThreadRunCreateRequest.builder()).build());
 	}
 
+	/**
+	 * Create a run and stream its events. Returns as soon as the response headers are
+	 * received.
+	 *
+	 * @param threadId The ID of the thread to run.
+	 * @return The raw server-sent events response.
+	 */
+	@RequestLine("POST /threads/{thread_id}/runs")
+	@Headers({ "Content-Type: application/json", "Accept: text/event-stream" })
+	Response createStreamResponse(@Param("thread_id") String threadId,
+			StreamRequest<ThreadRunCreateRequest> request);
+
+	/**
+	 * Create a run and stream its events. Returns as soon as the response headers are
+	 * received.
+	 *
+	 * @param threadId The ID of the thread to run.
+	 * @return The event stream. Must be closed if not read to the end.
+	 */
+	default AssistantStream createStream(String threadId,
+			ThreadRunCreateRequest request) {
+		return AssistantStream.of("ThreadsRunsClient#createStream",
+				this.createStreamResponse(threadId, StreamRequest.of(request)));
+	}
+
+	/**
+	 * Create a run and stream its events. Returns as soon as the response headers are
+	 * received.
+	 *
+	 * @param threadId The ID of the thread to run.
+	 * @return The event stream. Must be closed if not read to the end.
+	 */
+	default AssistantStream createStream(String threadId,
+			Function<ThreadRunCreateRequest.Builder, ThreadRunCreateRequest.Builder> fn) {
+		return this.createStream(threadId,
+				fn.apply(ThreadRunCreateRequest.builder()).build());
+	}
+
 	/**
 	 * Retrieves a run.
 	 *
@@ -155,11 +198,55 @@ public interface ThreadsRunsClient {
 				fn.apply(ThreadRunSubmitToolOutputsRequest.builder()).build());
 	}
 
+	/**
+	 * Submit the outputs of the tool calls and stream the events of the continued run.
+	 * Returns as soon as the response headers are received.
+	 *
+	 * @param threadId The ID of the thread to which this run belongs.
+	 * @param runId The ID of the run that requires the tool output submission.
+	 * @return The raw server-sent events response.
+	 */
+	@RequestLine("POST /threads/{thread_id}/runs/{run_id}/submit_tool_outputs")
+	@Headers({ "Content-Type: application/json", "Accept: text/event-stream" })
+	Response submitToolOutputsStreamResponse(@Param("thread_id") String threadId,
+			@Param("run_id") String runId,
+			StreamRequest<ThreadRunSubmitToolOutputsRequest> request);
+
+	/**
+	 * Submit the outputs of the tool calls and stream the events of the continued run.
+	 * Returns as soon as the response headers are received.
+	 *
+	 * @param threadId The ID of the thread to which this run belongs.
+	 * @param runId The ID of the run that requires the tool output submission.
+	 * @return The event stream. Must be closed if not read to the end.
+	 */
+	default AssistantStream submitToolOutputsStream(String threadId, String runId,
+			ThreadRunSubmitToolOutputsRequest request) {
+		return AssistantStream.of("ThreadsRunsClient#submitToolOutputsStream",
+				this.submitToolOutputsStreamResponse(threadId, runId,
+						StreamRequest.of(request)));
+	}
+
+	/**
+	 * Submit the outputs of the tool calls and stream the events of the continued run.
+	 * Returns as soon as the response headers are received.
+	 *
+	 * @param threadId The ID of the thread to which this run belongs.
+	 * @param runId The ID of the run that requires the tool output submission.
+	 * @return The event stream. Must be closed if not read to the end.
+	 */
+	default AssistantStream submitToolOutputsStream(String threadId, String runId,
+			Function<ThreadRunSubmitToolOutputsRequest.Builder, ThreadRunSubmitToolOutputsRequest.Builder> fn) {
+		return this.submitToolOutputsStream(threadId, runId,
+				fn.apply(ThreadRunSubmitToolOutputsRequest.builder()).build());
+	}
+
 	/**
 	 * Wait for the thread run to finish processing. This method will poll the server
-	 * every 1 second until the run is finished or 2 minutes have passed.
+	 * with a growing interval starting at 1 second until the run is finished or 2
+	 * minutes have passed.
 	 *
-	 * @return The latest VectorStore object
+	 * @return The latest ThreadRun object
 	 */
 	default ThreadRun waitForProcessing(ThreadRun run) {
 		return waitForProcessing(run, pollConfig -> pollConfig);
@@ -167,39 +254,42 @@ public interface ThreadsRunsClient {
 
 	/**
 	 * Wait for the thread run to finish processing. This method will poll the server
-	 * every pollInterval until the run is finished or until maxWait have passed.
+	 * starting every pollInterval until the run is finished or until maxWait have
+	 * passed.
 	 *
 	 * @return The latest ThreadRun object
 	 */
 	default ThreadRun waitForProcessing(ThreadRun run,
 			Function<PollConfig.Builder, PollConfig.Builder> fn) {
-		PollConfig pollConfig = fn.apply(PollConfig.builder()).build();
+		return ResourceWatcher.await(this.waitForProcessingAsync(run, fn));
+	}
+
+	/**
+	 * Wait for the thread run to finish processing. Returns immediately, the server is
+	 * polled with a growing interval starting at 1 second until the run is finished or 2
+	 * minutes have passed. Cancel the future to stop waiting.
+	 *
+	 * @return A future completed with the latest ThreadRun object
+	 */
+	default CompletableFuture<ThreadRun> waitForProcessingAsync(ThreadRun run) {
+		return this.waitForProcessingAsync(run, pollConfig -> pollConfig);
+	}
 
-		long start = System.currentTimeMillis();
-		long maxWaitInMillis = pollConfig.maxWaitTimeUnit()
-				.toMillis(pollConfig.maxWait());
-		long waitUntil = start + maxWaitInMillis;
-
-		ThreadRun currentRun = this.retrieve(run.threadId(), run.id());
-
-		while (!currentRun.status().isTerminal()) {
-			try {
-				pollConfig.pollIntervalTimeUnit().sleep(pollConfig.pollInterval());
-			}
-			catch (InterruptedException e) {
-				Thread.currentThread().interrupt();
-				throw new RuntimeException(e);
-			}
-
-			if (System.currentTimeMillis() > waitUntil) {
-				throw new RuntimeException("Giving up on waiting for thread run "
-						+ run.id() + " to finish processing after " + pollConfig.maxWait()
-						+ " " + pollConfig.maxWaitTimeUnit());
-			}
-
-			currentRun = this.retrieve(currentRun.threadId(), currentRun.id());
-		}
-		return currentRun;
+	/**
+	 * Wait for the thread run to finish processing. Returns immediately, the server is
+	 * polled by the {@link PollConfig#watcher()} until the run is finished or maxWait
+	 * has passed. Concurrent waits for the same run share the polls. Cancel the future
+	 * to stop waiting.
+	 *
+	 * @return A future completed with the latest ThreadRun object
+	 */
+	default CompletableFuture<ThreadRun> waitForProcessingAsync(ThreadRun run,
+			Function<PollConfig.Builder, PollConfig.Builder> fn) {
+		PollConfig pollConfig = fn.apply(PollConfig.builder()).build();
+		return pollConfig.watcher().watch(
+				"thread_run:" + run.threadId() + "/" + run.id(), "thread run " + run.id(),
+				() -> this.retrieve(run.threadId(), run.id()),
+				currentRun -> currentRun.status().isTerminal(), pollConfig);
 	}
 
 }
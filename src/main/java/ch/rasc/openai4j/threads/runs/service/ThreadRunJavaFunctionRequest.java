@@ -0,0 +1,205 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.threads.runs.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import ch.rasc.openai4j.chatcompletions.service.JavaFunction;
+import ch.rasc.openai4j.common.PollConfig;
+import ch.rasc.openai4j.threads.streaming.AssistantStreamListener;
+
+@SuppressWarnings({ "hiding" })
+public class ThreadRunJavaFunctionRequest {
+
+	private final List<JavaFunction<?, ?>> javaFunctions;
+	private final Integer maxIterations;
+	private final Duration toolTimeout;
+	private final Map<String, Duration> toolTimeouts;
+	private final Integer parallelism;
+	private final AssistantStreamListener listener;
+	private final Function<PollConfig.Builder, PollConfig.Builder> pollConfig;
+
+	private ThreadRunJavaFunctionRequest(Builder builder) {
+		if (builder.javaFunctions == null || builder.javaFunctions.isEmpty()) {
+			throw new IllegalArgumentException("javaFunctions must not be null or empty");
+		}
+		if (builder.maxIterations == null) {
+			builder.maxIterations = 10;
+		}
+		else if (builder.maxIterations <= 0) {
+			throw new IllegalArgumentException("maxIterations must be greater than 0");
+		}
+		if (builder.toolTimeout == null) {
+			builder.toolTimeout = Duration.ofMinutes(1);
+		}
+		if (builder.parallelism == null) {
+			builder.parallelism = 8;
+		}
+		else if (builder.parallelism <= 0) {
+			throw new IllegalArgumentException("parallelism must be greater than 0");
+		}
+		if (builder.listener == null) {
+			builder.listener = new AssistantStreamListener() {
+				// ignore all events
+			};
+		}
+		if (builder.pollConfig == null) {
+			builder.pollConfig = pollConfig -> pollConfig;
+		}
+
+		this.javaFunctions = builder.javaFunctions;
+		this.maxIterations = builder.maxIterations;
+		this.toolTimeout = builder.toolTimeout;
+		this.toolTimeouts = builder.toolTimeouts != null ? builder.toolTimeouts
+				: Map.of();
+		this.parallelism = builder.parallelism;
+		this.listener = builder.listener;
+		this.pollConfig = builder.pollConfig;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static final class Builder {
+		private List<JavaFunction<?, ?>> javaFunctions;
+		private Integer maxIterations;
+		private Duration toolTimeout;
+		private Map<String, Duration> toolTimeouts;
+		private Integer parallelism;
+		private AssistantStreamListener listener;
+		private Function<PollConfig.Builder, PollConfig.Builder> pollConfig;
+
+		private Builder() {
+		}
+
+		/**
+		 * A list of java functions that can be called by the run. The name of a
+		 * function must match the name of a function tool of the assistant or the run.
+		 */
+		public Builder javaFunctions(List<JavaFunction<?, ?>> javaFunctions) {
+			if (javaFunctions != null) {
+				this.javaFunctions = new ArrayList<>(javaFunctions);
+			}
+			return this;
+		}
+
+		/**
+		 * Add java functions to the list of callable functions
+		 */
+		public Builder addJavaFunctions(JavaFunction<?, ?>... javaFunction) {
+			if (this.javaFunctions == null) {
+				this.javaFunctions = new ArrayList<>();
+			}
+			this.javaFunctions.addAll(List.of(javaFunction));
+			return this;
+		}
+
+		/**
+		 * The maximum number of times the tool outputs are submitted to the run. Set it
+		 * to a reasonable value to avoid infinite loops. Defaults to 10
+		 */
+		public Builder maxIterations(Integer maxIterations) {
+			this.maxIterations = maxIterations;
+			return this;
+		}
+
+		/**
+		 * The time a function call may take. When it is exceeded the call is
+		 * interrupted and an error is submitted as its output. The time starts when the
+		 * tool calls of the run are dispatched. Defaults to 1 minute
+		 */
+		public Builder toolTimeout(Duration toolTimeout) {
+			this.toolTimeout = toolTimeout;
+			return this;
+		}
+
+		/**
+		 * The time a call of the function with the name may take. Overrides
+		 * {@link #toolTimeout(Duration)} for this function.
+		 */
+		public Builder toolTimeout(String functionName, Duration toolTimeout) {
+			if (this.toolTimeouts == null) {
+				this.toolTimeouts = new HashMap<>();
+			}
+			this.toolTimeouts.put(functionName, toolTimeout);
+			return this;
+		}
+
+		/**
+		 * The maximum number of function calls that are executed at the same time.
+		 * Defaults to 8
+		 */
+		public Builder parallelism(Integer parallelism) {
+			this.parallelism = parallelism;
+			return this;
+		}
+
+		/**
+		 * Receives the events of the streamed runs.
+		 */
+		public Builder listener(AssistantStreamListener listener) {
+			this.listener = listener;
+			return this;
+		}
+
+		/**
+		 * Configures the polling when a run is passed that is not streamed and has not
+		 * reached a final state yet.
+		 */
+		public Builder pollConfig(Function<PollConfig.Builder, PollConfig.Builder> fn) {
+			this.pollConfig = fn;
+			return this;
+		}
+
+		public ThreadRunJavaFunctionRequest build() {
+			return new ThreadRunJavaFunctionRequest(this);
+		}
+	}
+
+	public List<JavaFunction<?, ?>> javaFunctions() {
+		return List.copyOf(this.javaFunctions);
+	}
+
+	public Integer maxIterations() {
+		return this.maxIterations;
+	}
+
+	/**
+	 * Returns the timeout of the function with the name.
+	 */
+	public Duration toolTimeout(String functionName) {
+		return this.toolTimeouts.getOrDefault(functionName, this.toolTimeout);
+	}
+
+	public Integer parallelism() {
+		return this.parallelism;
+	}
+
+	public AssistantStreamListener listener() {
+		return this.listener;
+	}
+
+	public Function<PollConfig.Builder, PollConfig.Builder> pollConfig() {
+		return this.pollConfig;
+	}
+
+}
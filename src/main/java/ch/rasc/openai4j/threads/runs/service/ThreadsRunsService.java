@@ -0,0 +1,339 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.threads.runs.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ch.rasc.openai4j.assistants.FunctionTool;
+import ch.rasc.openai4j.assistants.Tool;
+import ch.rasc.openai4j.chatcompletions.service.JavaFunction;
+import ch.rasc.openai4j.common.FunctionParameters;
+import ch.rasc.openai4j.common.JsonSchemaService;
+import ch.rasc.openai4j.common.ToolCall;
+import ch.rasc.openai4j.threads.runs.ThreadRun;
+import ch.rasc.openai4j.threads.runs.ThreadRunCreateRequest;
+import ch.rasc.openai4j.threads.runs.ThreadsRunsClient;
+import ch.rasc.openai4j.threads.runs.ToolOutput;
+import ch.rasc.openai4j.threads.streaming.AssistantStream;
+
+/**
+ * High level runs client that executes the function tool calls of a run with Java
+ * functions
+ */
+public class ThreadsRunsService {
+	private final static Logger log = LoggerFactory.getLogger(ThreadsRunsService.class);
+
+	private final JsonSchemaService jsonSchemaService;
+
+	private final ThreadsRunsClient threadsRunsClient;
+
+	private final ObjectMapper objectMapper;
+
+	private final ToolCallMetrics metrics = new ToolCallMetrics();
+
+	public ThreadsRunsService(ThreadsRunsClient threadsRunsClient,
+			ObjectMapper objectMapper) {
+		this.jsonSchemaService = new JsonSchemaService();
+		this.threadsRunsClient = threadsRunsClient;
+		this.objectMapper = objectMapper;
+	}
+
+	public ThreadsRunsService(ThreadsRunsClient threadsRunsClient) {
+		this(threadsRunsClient, new ObjectMapper());
+	}
+
+	/**
+	 * The counters of the tool calls executed by this service.
+	 */
+	public ToolCallMetrics metrics() {
+		return this.metrics;
+	}
+
+	/**
+	 * Converts the java functions to function tools for creating an assistant or a run.
+	 */
+	public List<Tool> tools(List<JavaFunction<?, ?>> javaFunctions) {
+		List<Tool> tools = new ArrayList<>();
+		for (JavaFunction<?, ?> javaFunction : javaFunctions) {
+			tools.add(FunctionTool.of(FunctionParameters.of(javaFunction.name(),
+					javaFunction.description(),
+					this.jsonSchemaService.generateStrictSchema(javaFunction.parameterClass()),
+					true)));
+		}
+		return tools;
+	}
+
+	/**
+	 * Creates a streamed run and executes its tool calls until the run reaches a final
+	 * state.
+	 *
+	 * @param threadId The ID of the thread to run
+	 * @param runRequest The run to create
+	 * @param request The java functions and how to call them
+	 * @return The run in its final state
+	 * @throws IOException If the event stream cannot be read or the arguments of a
+	 * function cannot be deserialized
+	 */
+	public ThreadRun createAndExecute(String threadId, ThreadRunCreateRequest runRequest,
+			ThreadRunJavaFunctionRequest request) throws IOException {
+		return execute(this.threadsRunsClient.createStream(threadId, runRequest),
+				request);
+	}
+
+	/**
+	 * Reads the stream and executes the tool calls of the run until it reaches a final
+	 * state. Whenever the run requires action, the java functions are called in
+	 * parallel and the outputs are submitted with a new stream right away.
+	 *
+	 * @param stream A stream returned by one of the streaming methods of the runs or
+	 * threads client
+	 * @param fn The java functions and how to call them
+	 * @return The run in its final state
+	 * @throws IOException If the event stream cannot be read or the arguments of a
+	 * function cannot be deserialized
+	 */
+	public ThreadRun execute(AssistantStream stream,
+			Function<ThreadRunJavaFunctionRequest.Builder, ThreadRunJavaFunctionRequest.Builder> fn)
+			throws IOException {
+		return execute(stream, fn.apply(ThreadRunJavaFunctionRequest.builder()).build());
+	}
+
+	/**
+	 * Reads the stream and executes the tool calls of the run until it reaches a final
+	 * state. Whenever the run requires action, the java functions are called in
+	 * parallel and the outputs are submitted with a new stream right away.
+	 *
+	 * @param stream A stream returned by one of the streaming methods of the runs or
+	 * threads client
+	 * @param request The java functions and how to call them
+	 * @return The run in its final state
+	 * @throws IOException If the event stream cannot be read or the arguments of a
+	 * function cannot be deserialized
+	 */
+	public ThreadRun execute(AssistantStream stream, ThreadRunJavaFunctionRequest request)
+			throws IOException {
+		ThreadRun run;
+		try (stream) {
+			run = stream.process(request.listener());
+		}
+		if (run == null) {
+			throw new IllegalStateException("The stream did not contain a run");
+		}
+		return executeToolCalls(run, request);
+	}
+
+	/**
+	 * Waits for the run and executes its tool calls until it reaches a final state. The
+	 * run is polled until it requires action for the first time, afterwards the outputs
+	 * are submitted with a stream and the events of the continued run are read.
+	 *
+	 * @param run A run created with the runs or threads client
+	 * @param fn The java functions and how to call them
+	 * @return The run in its final state
+	 * @throws IOException If the event stream cannot be read or the arguments of a
+	 * function cannot be deserialized
+	 */
+	public ThreadRun execute(ThreadRun run,
+			Function<ThreadRunJavaFunctionRequest.Builder, ThreadRunJavaFunctionRequest.Builder> fn)
+			throws IOException {
+		return execute(run, fn.apply(ThreadRunJavaFunctionRequest.builder()).build());
+	}
+
+	/**
+	 * Waits for the run and executes its tool calls until it reaches a final state. The
+	 * run is polled until it requires action for the first time, afterwards the outputs
+	 * are submitted with a stream and the events of the continued run are read.
+	 *
+	 * @param run A run created with the runs or threads client
+	 * @param request The java functions and how to call them
+	 * @return The run in its final state
+	 * @throws IOException If the event stream cannot be read or the arguments of a
+	 * function cannot be deserialized
+	 */
+	public ThreadRun execute(ThreadRun run, ThreadRunJavaFunctionRequest request)
+			throws IOException {
+		return executeToolCalls(run, request);
+	}
+
+	private ThreadRun executeToolCalls(ThreadRun run,
+			ThreadRunJavaFunctionRequest request) throws IOException {
+		Map<String, JavaFunction<?, ?>> javaFunctionRegistry = new HashMap<>();
+		for (JavaFunction<?, ?> javaFunction : request.javaFunctions()) {
+			javaFunctionRegistry.put(javaFunction.name(), javaFunction);
+		}
+
+		ThreadRun currentRun = run;
+		int iterationCount = 0;
+		while (true) {
+			if (!currentRun.status().isTerminal()) {
+				currentRun = this.threadsRunsClient.waitForProcessing(currentRun,
+						request.pollConfig());
+			}
+			if (currentRun.status() != ThreadRun.Status.REQUIRES_ACTION) {
+				return currentRun;
+			}
+			if (iterationCount >= request.maxIterations()) {
+				log.debug("Max iterations reached");
+				return currentRun;
+			}
+			iterationCount++;
+			log.debug("Run {} requires action, iteration {}", currentRun.id(),
+					iterationCount);
+
+			long start = System.nanoTime();
+			List<ToolOutput> toolOutputs;
+			try {
+				toolOutputs = callFunctions(currentRun.requiredAction()
+						.submitToolOutputs().toolCalls(), javaFunctionRegistry, request);
+			}
+			catch (IOException | RuntimeException e) {
+				cancelQuietly(currentRun);
+				throw e;
+			}
+
+			ThreadRun submittedRun = currentRun;
+			try (AssistantStream stream = this.threadsRunsClient.submitToolOutputsStream(
+					currentRun.threadId(), currentRun.id(),
+					r -> r.toolOutputs(toolOutputs))) {
+				this.metrics.recordSubmission(System.nanoTime() - start);
+				currentRun = stream.process(request.listener());
+			}
+			if (currentRun == null) {
+				currentRun = this.threadsRunsClient.retrieve(submittedRun.threadId(),
+						submittedRun.id());
+			}
+		}
+	}
+
+	private List<ToolOutput> callFunctions(List<ToolCall> toolCalls,
+			Map<String, JavaFunction<?, ?>> javaFunctionRegistry,
+			ThreadRunJavaFunctionRequest request) throws IOException {
+		if (toolCalls.isEmpty()) {
+			return List.of();
+		}
+
+		List<JavaFunction<?, ?>> javaFunctions = new ArrayList<>(toolCalls.size());
+		List<Object> arguments = new ArrayList<>(toolCalls.size());
+		for (ToolCall toolCall : toolCalls) {
+			JavaFunction<?, ?> javaFunction = javaFunctionRegistry
+					.get(toolCall.function().name());
+			if (javaFunction == null) {
+				throw new IllegalStateException(
+						"Unknown function " + toolCall.function().name());
+			}
+			javaFunctions.add(javaFunction);
+			arguments.add(this.objectMapper.readValue(toolCall.function().arguments(),
+					javaFunction.parameterClass()));
+		}
+
+		ExecutorService executor = Executors
+				.newFixedThreadPool(Math.min(request.parallelism(), toolCalls.size()));
+		List<Future<Object>> futures = new ArrayList<>(toolCalls.size());
+		long dispatched = System.nanoTime();
+		try {
+			for (int i = 0; i < toolCalls.size(); i++) {
+				JavaFunction<?, ?> javaFunction = javaFunctions.get(i);
+				Object argument = arguments.get(i);
+				futures.add(executor.submit(() -> call(javaFunction, argument)));
+			}
+
+			List<ToolOutput> toolOutputs = new ArrayList<>(toolCalls.size());
+			for (int i = 0; i < toolCalls.size(); i++) {
+				ToolCall toolCall = toolCalls.get(i);
+				JavaFunction<?, ?> javaFunction = javaFunctions.get(i);
+				long timeout = request.toolTimeout(javaFunction.name()).toNanos();
+				long remaining = dispatched + timeout - System.nanoTime();
+				String output;
+				try {
+					Object result = futures.get(i).get(Math.max(0, remaining),
+							TimeUnit.NANOSECONDS);
+					output = result != null ? this.objectMapper.writeValueAsString(result)
+							: "";
+				}
+				catch (TimeoutException e) {
+					futures.get(i).cancel(true);
+					this.metrics.recordTimeout(javaFunction.name());
+					log.debug("Function {} timed out", javaFunction.name());
+					output = error("Function " + javaFunction.name()
+							+ " did not complete within "
+							+ request.toolTimeout(javaFunction.name()).toMillis() + " ms");
+				}
+				catch (ExecutionException e) {
+					log.debug("Function {} failed", javaFunction.name(), e.getCause());
+					output = error(e.getCause().toString());
+				}
+				toolOutputs.add(new ToolOutput(toolCall.id(), output));
+			}
+			return toolOutputs;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+		finally {
+			futures.forEach(f -> f.cancel(true));
+			executor.shutdownNow();
+		}
+	}
+
+	private Object call(JavaFunction<?, ?> javaFunction, Object argument) {
+		log.debug("Calling function {}", javaFunction.name());
+		log.debug("with argument {}", argument);
+		long start = System.nanoTime();
+		boolean failed = true;
+		try {
+			Object result = javaFunction.call(argument);
+			failed = false;
+			return result;
+		}
+		finally {
+			this.metrics.recordCall(javaFunction.name(), System.nanoTime() - start,
+					failed);
+		}
+	}
+
+	private String error(String message) throws JsonProcessingException {
+		return this.objectMapper
+				.writeValueAsString(Map.of("error", message != null ? message : ""));
+	}
+
+	private void cancelQuietly(ThreadRun run) {
+		try {
+			this.threadsRunsClient.cancel(run.threadId(), run.id());
+		}
+		catch (RuntimeException e) {
+			log.debug("Cancelling run {} failed", run.id(), e);
+		}
+	}
+
+}
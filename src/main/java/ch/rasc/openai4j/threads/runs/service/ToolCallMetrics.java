@@ -0,0 +1,176 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.threads.runs.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the tool calls executed by a {@link ThreadsRunsService}. The counters
+ * can be updated and read concurrently.
+ */
+public class ToolCallMetrics {
+
+	private final ConcurrentHashMap<String, Counters> functions = new ConcurrentHashMap<>();
+
+	private final LongAdder submissions = new LongAdder();
+
+	private final LongAdder actionNanos = new LongAdder();
+
+	private final LongAccumulator maxActionNanos = new LongAccumulator(Math::max, 0);
+
+	private static final class Counters {
+		final LongAdder calls = new LongAdder();
+		final LongAdder failures = new LongAdder();
+		final LongAdder timeouts = new LongAdder();
+		final LongAdder nanos = new LongAdder();
+		final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+	}
+
+	private Counters counters(String functionName) {
+		return this.functions.computeIfAbsent(functionName, k -> new Counters());
+	}
+
+	void recordCall(String functionName, long nanos, boolean failed) {
+		Counters counters = counters(functionName);
+		counters.calls.increment();
+		if (failed) {
+			counters.failures.increment();
+		}
+		counters.nanos.add(nanos);
+		counters.maxNanos.accumulate(nanos);
+	}
+
+	void recordTimeout(String functionName) {
+		counters(functionName).timeouts.increment();
+	}
+
+	void recordSubmission(long nanos) {
+		this.submissions.increment();
+		this.actionNanos.add(nanos);
+		this.maxActionNanos.accumulate(nanos);
+	}
+
+	/**
+	 * The number of times tool outputs were submitted to a run.
+	 */
+	public long submissions() {
+		return this.submissions.sum();
+	}
+
+	/**
+	 * The average time from receiving a run with status requires_action until the tool
+	 * outputs were submitted.
+	 */
+	public Duration averageActionDuration() {
+		long count = this.submissions.sum();
+		return count > 0 ? Duration.ofNanos(this.actionNanos.sum() / count)
+				: Duration.ZERO;
+	}
+
+	/**
+	 * The longest time from receiving a run with status requires_action until the tool
+	 * outputs were submitted.
+	 */
+	public Duration maxActionDuration() {
+		return Duration.ofNanos(this.maxActionNanos.get());
+	}
+
+	/**
+	 * Returns the counters of every function that has been called.
+	 */
+	public List<FunctionStats> functions() {
+		List<FunctionStats> stats = new ArrayList<>();
+		this.functions.forEach((name, counters) -> stats.add(new FunctionStats(name,
+				counters.calls.sum(), counters.failures.sum(), counters.timeouts.sum(),
+				Duration.ofNanos(counters.nanos.sum()),
+				Duration.ofNanos(counters.maxNanos.get()))));
+		return stats;
+	}
+
+	/**
+	 * Returns the counters of the function, or null if it has not been called.
+	 */
+	public FunctionStats function(String functionName) {
+		return functions().stream().filter(f -> f.name().equals(functionName))
+				.findFirst().orElse(null);
+	}
+
+	public record FunctionStats(String name, long calls, long failures, long timeouts,
+			Duration totalDuration, Duration maxDuration) {
+
+		/**
+		 * The name of the function.
+		 */
+		@Override
+		public String name() {
+			return this.name;
+		}
+
+		/**
+		 * The number of calls that returned or threw an exception.
+		 */
+		@Override
+		public long calls() {
+			return this.calls;
+		}
+
+		/**
+		 * The number of calls that threw an exception.
+		 */
+		@Override
+		public long failures() {
+			return this.failures;
+		}
+
+		/**
+		 * The number of calls that did not complete within the tool timeout.
+		 */
+		@Override
+		public long timeouts() {
+			return this.timeouts;
+		}
+
+		/**
+		 * The sum of the execution time of all calls.
+		 */
+		@Override
+		public Duration totalDuration() {
+			return this.totalDuration;
+		}
+
+		/**
+		 * The execution time of the slowest call.
+		 */
+		@Override
+		public Duration maxDuration() {
+			return this.maxDuration;
+		}
+
+		/**
+		 * The average execution time of a call.
+		 */
+		public Duration averageDuration() {
+			return this.calls > 0 ? this.totalDuration.dividedBy(this.calls)
+					: Duration.ZERO;
+		}
+	}
+
+}
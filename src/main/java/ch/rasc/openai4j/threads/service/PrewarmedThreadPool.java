@@ -0,0 +1,213 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.threads.service;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.rasc.openai4j.threads.Thread;
+import ch.rasc.openai4j.threads.ThreadCreateRequest;
+import ch.rasc.openai4j.threads.ThreadsClient;
+
+/**
+ * Keeps a number of empty threads ready, so a conversation can start without waiting
+ * for the create thread request.
+ * <p>
+ * Every thread handed out by {@link #acquire()} is replaced in the background. Threads
+ * that are still in the pool are deleted when the pool is closed.
+ */
+public final class PrewarmedThreadPool implements AutoCloseable {
+	private final static Logger log = LoggerFactory.getLogger(PrewarmedThreadPool.class);
+
+	private final ThreadsClient threadsClient;
+
+	private final ThreadCreateRequest request;
+
+	private final int size;
+
+	private final ExecutorService executor;
+
+	private final ConcurrentLinkedQueue<Thread> threads = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger available = new AtomicInteger();
+
+	private final AtomicInteger pending = new AtomicInteger();
+
+	private volatile boolean closed;
+
+	/**
+	 * Creates a pool of empty threads and starts filling it in the background.
+	 *
+	 * @param threadsClient The client used to create and delete the threads
+	 * @param size The number of threads to keep ready
+	 */
+	public PrewarmedThreadPool(ThreadsClient threadsClient, int size) {
+		this(threadsClient, size, ThreadCreateRequest.builder().build());
+	}
+
+	/**
+	 * Creates a pool of threads and starts filling it in the background.
+	 *
+	 * @param threadsClient The client used to create and delete the threads
+	 * @param size The number of threads to keep ready
+	 * @param request The request used to create every thread of the pool, for example
+	 * to set metadata
+	 */
+	public PrewarmedThreadPool(ThreadsClient threadsClient, int size,
+			ThreadCreateRequest request) {
+		if (threadsClient == null) {
+			throw new IllegalArgumentException("threadsClient must not be null");
+		}
+		if (size < 1) {
+			throw new IllegalArgumentException("size must be greater than 0");
+		}
+		if (request == null) {
+			throw new IllegalArgumentException("request must not be null");
+		}
+		this.threadsClient = threadsClient;
+		this.size = size;
+		this.request = request;
+
+		AtomicInteger threadNumber = new AtomicInteger();
+		this.executor = Executors.newFixedThreadPool(Math.min(size, 4), r -> {
+			java.lang.Thread thread = new java.lang.Thread(r,
+					"openai4j-prewarm-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		refill();
+	}
+
+	/**
+	 * Hands out a thread from the pool and creates a replacement in the background. If
+	 * the pool is empty the thread is created by the calling thread.
+	 *
+	 * @return A thread that is not handed out again
+	 */
+	public Thread acquire() {
+		if (this.closed) {
+			throw new IllegalStateException("pool is closed");
+		}
+		Thread thread = this.threads.poll();
+		if (thread != null) {
+			this.available.decrementAndGet();
+			refill();
+			return thread;
+		}
+		refill();
+		log.debug("No prewarmed thread available, creating one");
+		return this.threadsClient.create(this.request);
+	}
+
+	/**
+	 * The number of threads ready to be handed out.
+	 */
+	public int available() {
+		return this.available.get();
+	}
+
+	/**
+	 * The number of threads the pool keeps ready.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Stops refilling the pool and deletes the threads that were not handed out.
+	 */
+	@Override
+	public void close() {
+		if (this.closed) {
+			return;
+		}
+		this.closed = true;
+		this.executor.shutdown();
+		try {
+			if (!this.executor.awaitTermination(30, TimeUnit.SECONDS)) {
+				this.executor.shutdownNow();
+			}
+		}
+		catch (InterruptedException e) {
+			java.lang.Thread.currentThread().interrupt();
+			this.executor.shutdownNow();
+		}
+
+		Thread thread;
+		while ((thread = this.threads.poll()) != null) {
+			this.available.decrementAndGet();
+			deleteQuietly(thread);
+		}
+	}
+
+	private void refill() {
+		while (!this.closed) {
+			int creating = this.pending.get();
+			if (this.available.get() + creating >= this.size) {
+				return;
+			}
+			if (this.pending.compareAndSet(creating, creating + 1)) {
+				try {
+					this.executor.execute(this::createThread);
+				}
+				catch (RejectedExecutionException e) {
+					this.pending.decrementAndGet();
+					return;
+				}
+			}
+		}
+	}
+
+	private void createThread() {
+		Thread thread;
+		try {
+			thread = this.threadsClient.create(this.request);
+		}
+		catch (RuntimeException e) {
+			// not retried here, the next acquire triggers another refill
+			this.pending.decrementAndGet();
+			log.debug("Creating prewarmed thread failed", e);
+			return;
+		}
+
+		if (this.closed) {
+			this.pending.decrementAndGet();
+			deleteQuietly(thread);
+			return;
+		}
+		this.threads.add(thread);
+		this.available.incrementAndGet();
+		this.pending.decrementAndGet();
+		log.debug("Prewarmed thread {}", thread.id());
+	}
+
+	private void deleteQuietly(Thread thread) {
+		try {
+			this.threadsClient.delete(thread.id());
+		}
+		catch (RuntimeException e) {
+			log.debug("Deleting thread {} failed", thread.id(), e);
+		}
+	}
+
+}
@@ -0,0 +1,358 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.threads.streaming;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import ch.rasc.openai4j.OpenAIErrorDecoder;
+import ch.rasc.openai4j.common.Error;
+import ch.rasc.openai4j.common.PullPublisher;
+import ch.rasc.openai4j.jfr.FlightRecorderEvents;
+import ch.rasc.openai4j.threads.Thread;
+import ch.rasc.openai4j.threads.messages.ThreadMessage;
+import ch.rasc.openai4j.threads.runs.ThreadRun;
+import ch.rasc.openai4j.threads.runs.steps.ThreadRunStep;
+import ch.rasc.openai4j.threads.streaming.AssistantStreamEvent.DoneEvent;
+import ch.rasc.openai4j.threads.streaming.AssistantStreamEvent.ErrorEvent;
+import ch.rasc.openai4j.threads.streaming.AssistantStreamEvent.MessageDeltaEvent;
+import ch.rasc.openai4j.threads.streaming.AssistantStreamEvent.MessageEvent;
+import ch.rasc.openai4j.threads.streaming.AssistantStreamEvent.RunEvent;
+import ch.rasc.openai4j.threads.streaming.AssistantStreamEvent.RunStepDeltaEvent;
+import ch.rasc.openai4j.threads.streaming.AssistantStreamEvent.RunStepEvent;
+import ch.rasc.openai4j.threads.streaming.AssistantStreamEvent.ThreadEvent;
+import ch.rasc.openai4j.threads.streaming.AssistantStreamEvent.UnknownEvent;
+import feign.Response;
+
+/**
+ * The server-sent events of a streamed Assistants run. Events are parsed as they
+ * arrive, message and run step deltas are accumulated into snapshots.
+ * <p>
+ * The events can be read once, either with {@link #next()},
+ * {@link #process(AssistantStreamListener)} or by subscribing to
+ * {@link #publisher(Executor)}. The stream must be closed when it is not read to the
+ * end. The accumulated state is updated by the thread that reads the events.
+ */
+public class AssistantStream implements Closeable {
+
+	static final ObjectMapper objectMapper = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+	private final Response response;
+	private final BufferedReader reader;
+	private final AtomicReference<String> consumer = new AtomicReference<>();
+	private final Map<String, MessageAccumulator> messages = new LinkedHashMap<>();
+	private final Map<String, RunStepAccumulator> runSteps = new LinkedHashMap<>();
+	private volatile ThreadRun run;
+	private boolean ended;
+	private FlightRecorderEvents.FirstToken firstTokenEvent;
+
+	/**
+	 * Creates a stream from the response of an endpoint called with
+	 * {@link StreamRequest}.
+	 *
+	 * @param methodKey The Feign method key, used in error messages
+	 * @param response The response with a text/event-stream body
+	 * @throws UncheckedIOException If the body cannot be opened or the API returned an
+	 * error
+	 */
+	public static AssistantStream of(String methodKey, Response response) {
+		OpenAIErrorDecoder.checkStatus(methodKey, response);
+		try {
+			return new AssistantStream(methodKey, response);
+		}
+		catch (IOException e) {
+			response.close();
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private AssistantStream(String methodKey, Response response) throws IOException {
+		this.response = response;
+		this.firstTokenEvent = FlightRecorderEvents.beginFirstToken(methodKey);
+		InputStream body = response.body() != null ? response.body().asInputStream()
+				: InputStream.nullInputStream();
+		this.reader = new BufferedReader(
+				new InputStreamReader(body, StandardCharsets.UTF_8));
+	}
+
+	private boolean consume(String by) {
+		return this.consumer.compareAndSet(null, by)
+				|| by.equals(this.consumer.get()) && by.equals("next");
+	}
+
+	private IllegalStateException alreadyConsumed() {
+		return new IllegalStateException(
+				"The assistant stream has already been consumed by " + this.consumer.get());
+	}
+
+	/**
+	 * Reads the next event. Blocks until the event has been received completely.
+	 *
+	 * @return The event, or null at the end of the stream
+	 */
+	public AssistantStreamEvent next() throws IOException {
+		if (!consume("next")) {
+			throw alreadyConsumed();
+		}
+		return readEvent();
+	}
+
+	/**
+	 * Reads all events and passes them to the listener. Closes the stream at the end.
+	 *
+	 * @return The last state of the run, or null if the stream did not contain a run
+	 */
+	public ThreadRun process(AssistantStreamListener listener) throws IOException {
+		if (!consume("next")) {
+			throw alreadyConsumed();
+		}
+		try {
+			AssistantStreamEvent event;
+			while ((event = readEvent()) != null) {
+				dispatch(event, listener);
+			}
+			listener.onEnd();
+			return this.run;
+		}
+		finally {
+			close();
+		}
+	}
+
+	/**
+	 * Reads all events without a listener. Closes the stream at the end.
+	 *
+	 * @return The last state of the run, or null if the stream did not contain a run
+	 */
+	public ThreadRun finalRun() throws IOException {
+		return process(new AssistantStreamListener() {
+			// ignore all events
+		});
+	}
+
+	private void dispatch(AssistantStreamEvent event, AssistantStreamListener listener) {
+		listener.onEvent(event);
+		if (event instanceof RunEvent runEvent) {
+			listener.onRun(runEvent.run());
+		}
+		else if (event instanceof MessageEvent messageEvent) {
+			if (event.event().equals("thread.message.created")) {
+				listener.onMessageCreated(messageEvent.message());
+			}
+			else if (event.event().equals("thread.message.completed")
+					|| event.event().equals("thread.message.incomplete")) {
+				listener.onMessageDone(messageEvent.message());
+			}
+		}
+		else if (event instanceof MessageDeltaEvent deltaEvent) {
+			MessageAccumulator message = this.messages.get(deltaEvent.delta().id());
+			listener.onMessageDelta(deltaEvent.delta(), message);
+			String text = deltaEvent.delta().text();
+			if (!text.isEmpty()) {
+				listener.onTextDelta(text, message);
+			}
+		}
+		else if (event instanceof RunStepEvent runStepEvent) {
+			if (event.event().equals("thread.run.step.created")) {
+				listener.onRunStepCreated(runStepEvent.runStep());
+			}
+			else if (!event.event().equals("thread.run.step.in_progress")) {
+				listener.onRunStepDone(runStepEvent.runStep());
+			}
+		}
+		else if (event instanceof RunStepDeltaEvent deltaEvent) {
+			listener.onRunStepDelta(deltaEvent.delta(),
+					this.runSteps.get(deltaEvent.delta().id()));
+		}
+		else if (event instanceof ErrorEvent errorEvent) {
+			listener.onError(errorEvent.error());
+		}
+	}
+
+	private AssistantStreamEvent readEvent() throws IOException {
+		if (this.ended) {
+			return null;
+		}
+		String event = null;
+		StringBuilder data = null;
+		String line;
+		while ((line = this.reader.readLine()) != null) {
+			if (line.isEmpty()) {
+				if (data != null) {
+					return toEvent(event != null ? event : "message", data.toString());
+				}
+				event = null;
+				continue;
+			}
+			if (line.startsWith(":")) {
+				continue;
+			}
+			int colon = line.indexOf(':');
+			String field = colon == -1 ? line : line.substring(0, colon);
+			String value = colon == -1 ? "" : line.substring(colon + 1);
+			if (value.startsWith(" ")) {
+				value = value.substring(1);
+			}
+			if (field.equals("event")) {
+				event = value;
+			}
+			else if (field.equals("data")) {
+				if (data == null) {
+					data = new StringBuilder(value);
+				}
+				else {
+					data.append('\n').append(value);
+				}
+			}
+		}
+
+		this.ended = true;
+		close();
+		return data != null ? toEvent(event != null ? event : "message", data.toString())
+				: null;
+	}
+
+	private AssistantStreamEvent toEvent(String event, String data) throws IOException {
+		if (event.equals("done")) {
+			this.ended = true;
+			close();
+			return new DoneEvent(event);
+		}
+		if (!event.startsWith("thread.") && !event.equals("error")) {
+			return new UnknownEvent(event, data);
+		}
+
+		JsonNode node = objectMapper.readTree(data);
+		if (event.equals("error")) {
+			JsonNode error = node.has("error") ? node.get("error") : node;
+			return new ErrorEvent(event, objectMapper.treeToValue(error, Error.class));
+		}
+		if (event.equals("thread.created")) {
+			return new ThreadEvent(event, objectMapper.treeToValue(node, Thread.class));
+		}
+		String id = node.path("id").asText();
+		if (this.firstTokenEvent != null && event.endsWith(".delta")) {
+			this.firstTokenEvent.commit(event,
+					this.run != null ? this.run.id() : null);
+			this.firstTokenEvent = null;
+		}
+		if (event.equals("thread.run.step.delta")) {
+			this.runSteps.computeIfAbsent(id, RunStepAccumulator::new).apply(node);
+			return new RunStepDeltaEvent(event,
+					objectMapper.treeToValue(node, ThreadRunStepDelta.class));
+		}
+		if (event.startsWith("thread.run.step.")) {
+			this.runSteps.computeIfAbsent(id, RunStepAccumulator::new)
+					.reset((ObjectNode) node);
+			return new RunStepEvent(event,
+					objectMapper.treeToValue(node, ThreadRunStep.class));
+		}
+		if (event.startsWith("thread.run.")) {
+			ThreadRun threadRun = objectMapper.treeToValue(node, ThreadRun.class);
+			this.run = threadRun;
+			return new RunEvent(event, threadRun);
+		}
+		if (event.equals("thread.message.delta")) {
+			this.messages.computeIfAbsent(id, MessageAccumulator::new).apply(node);
+			return new MessageDeltaEvent(event,
+					objectMapper.treeToValue(node, ThreadMessageDelta.class));
+		}
+		if (event.startsWith("thread.message.")) {
+			this.messages.computeIfAbsent(id, MessageAccumulator::new)
+					.reset((ObjectNode) node);
+			return new MessageEvent(event,
+					objectMapper.treeToValue(node, ThreadMessage.class));
+		}
+		return new UnknownEvent(event, data);
+	}
+
+	/**
+	 * Returns a publisher of the events. The events are read on the executor, only when
+	 * the subscriber requested more events. The publisher accepts one subscriber and
+	 * closes this stream after the last event, an error or cancellation.
+	 */
+	public Flow.Publisher<AssistantStreamEvent> publisher(Executor executor) {
+		return subscriber -> {
+			if (!consume("publisher")) {
+				PullPublisher.reject(subscriber, alreadyConsumed());
+				return;
+			}
+			PullPublisher.subscribe(subscriber, this::readEvent, executor, this::close);
+		};
+	}
+
+	/**
+	 * The last state of the run received so far, or null.
+	 */
+	public ThreadRun run() {
+		return this.run;
+	}
+
+	/**
+	 * The messages of the stream in the order they were created.
+	 */
+	public List<MessageAccumulator> messages() {
+		return new ArrayList<>(this.messages.values());
+	}
+
+	/**
+	 * The message with the ID, or null if the stream did not contain it.
+	 */
+	public MessageAccumulator message(String id) {
+		return this.messages.get(id);
+	}
+
+	/**
+	 * The run steps of the stream in the order they were created.
+	 */
+	public List<RunStepAccumulator> runSteps() {
+		return new ArrayList<>(this.runSteps.values());
+	}
+
+	/**
+	 * The run step with the ID, or null if the stream did not contain it.
+	 */
+	public RunStepAccumulator runStep(String id) {
+		return this.runSteps.get(id);
+	}
+
+	/**
+	 * Closes the connection. Events that have not been read are discarded.
+	 */
+	@Override
+	public void close() {
+		this.response.close();
+	}
+
+}
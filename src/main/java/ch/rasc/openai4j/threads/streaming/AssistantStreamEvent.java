@@ -0,0 +1,169 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.threads.streaming;
+
+import ch.rasc.openai4j.common.Error;
+import ch.rasc.openai4j.threads.Thread;
+import ch.rasc.openai4j.threads.messages.ThreadMessage;
+import ch.rasc.openai4j.threads.runs.ThreadRun;
+import ch.rasc.openai4j.threads.runs.steps.ThreadRunStep;
+
+/**
+ * A server-sent event of a streamed Assistants run.
+ */
+public interface AssistantStreamEvent {
+
+	/**
+	 * The name of the event, for example thread.message.delta.
+	 */
+	String event();
+
+	/**
+	 * Occurs when a new thread is created.
+	 */
+	record ThreadEvent(String event, Thread thread) implements AssistantStreamEvent {
+		@Override
+		public String event() {
+			return this.event;
+		}
+
+		@Override
+		public Thread thread() {
+			return this.thread;
+		}
+	}
+
+	/**
+	 * Occurs when a run is created or changes its status (thread.run.*).
+	 */
+	record RunEvent(String event, ThreadRun run) implements AssistantStreamEvent {
+		@Override
+		public String event() {
+			return this.event;
+		}
+
+		@Override
+		public ThreadRun run() {
+			return this.run;
+		}
+	}
+
+	/**
+	 * Occurs when a run step is created or changes its status (thread.run.step.*).
+	 */
+	record RunStepEvent(String event, ThreadRunStep runStep)
+			implements AssistantStreamEvent {
+		@Override
+		public String event() {
+			return this.event;
+		}
+
+		@Override
+		public ThreadRunStep runStep() {
+			return this.runStep;
+		}
+	}
+
+	/**
+	 * Occurs when parts of a run step are being streamed (thread.run.step.delta).
+	 */
+	record RunStepDeltaEvent(String event, ThreadRunStepDelta delta)
+			implements AssistantStreamEvent {
+		@Override
+		public String event() {
+			return this.event;
+		}
+
+		@Override
+		public ThreadRunStepDelta delta() {
+			return this.delta;
+		}
+	}
+
+	/**
+	 * Occurs when a message is created or changes its status (thread.message.*).
+	 */
+	record MessageEvent(String event, ThreadMessage message)
+			implements AssistantStreamEvent {
+		@Override
+		public String event() {
+			return this.event;
+		}
+
+		@Override
+		public ThreadMessage message() {
+			return this.message;
+		}
+	}
+
+	/**
+	 * Occurs when parts of a message are being streamed (thread.message.delta).
+	 */
+	record MessageDeltaEvent(String event, ThreadMessageDelta delta)
+			implements AssistantStreamEvent {
+		@Override
+		public String event() {
+			return this.event;
+		}
+
+		@Override
+		public ThreadMessageDelta delta() {
+			return this.delta;
+		}
+	}
+
+	/**
+	 * Occurs when an error occurs. This can happen due to an internal server error or a
+	 * timeout.
+	 */
+	record ErrorEvent(String event, Error error) implements AssistantStreamEvent {
+		@Override
+		public String event() {
+			return this.event;
+		}
+
+		@Override
+		public Error error() {
+			return this.error;
+		}
+	}
+
+	/**
+	 * Occurs when a stream ends.
+	 */
+	record DoneEvent(String event) implements AssistantStreamEvent {
+		@Override
+		public String event() {
+			return this.event;
+		}
+	}
+
+	/**
+	 * An event this library does not know. Contains the raw data of the event.
+	 */
+	record UnknownEvent(String event, String data) implements AssistantStreamEvent {
+		@Override
+		public String event() {
+			return this.event;
+		}
+
+		@Override
+		public String data() {
+			return this.data;
+		}
+	}
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.threads.streaming;
+
+import ch.rasc.openai4j.common.Error;
+import ch.rasc.openai4j.threads.messages.ThreadMessage;
+import ch.rasc.openai4j.threads.runs.ThreadRun;
+import ch.rasc.openai4j.threads.runs.steps.ThreadRunStep;
+
+/**
+ * Receives the events of an {@link AssistantStream}. All methods are called on the
+ * thread that reads the stream and do nothing by default.
+ */
+public interface AssistantStreamListener {
+
+	/**
+	 * Called for every event before the more specific methods.
+	 */
+	default void onEvent(AssistantStreamEvent event) {
+	}
+
+	/**
+	 * Called when a run is created or changes its status.
+	 */
+	default void onRun(ThreadRun run) {
+	}
+
+	/**
+	 * Called when a message is created.
+	 */
+	default void onMessageCreated(ThreadMessage message) {
+	}
+
+	/**
+	 * Called for every message delta.
+	 *
+	 * @param delta The changed fields
+	 * @param message The message with all deltas received so far
+	 */
+	default void onMessageDelta(ThreadMessageDelta delta, MessageAccumulator message) {
+	}
+
+	/**
+	 * Called for every message delta that contains text.
+	 *
+	 * @param text The text that was appended to the message
+	 * @param message The message with all deltas received so far
+	 */
+	default void onTextDelta(String text, MessageAccumulator message) {
+	}
+
+	/**
+	 * Called when a message is completed or ends before it is completed.
+	 */
+	default void onMessageDone(ThreadMessage message) {
+	}
+
+	/**
+	 * Called when a run step is created.
+	 */
+	default void onRunStepCreated(ThreadRunStep runStep) {
+	}
+
+	/**
+	 * Called for every run step delta.
+	 *
+	 * @param delta The changed fields
+	 * @param runStep The run step with all deltas received so far
+	 */
+	default void onRunStepDelta(ThreadRunStepDelta delta, RunStepAccumulator runStep) {
+	}
+
+	/**
+	 * Called when a run step is completed, failed, cancelled or expired.
+	 */
+	default void onRunStepDone(ThreadRunStep runStep) {
+	}
+
+	/**
+	 * Called when the server sends an error event.
+	 */
+	default void onError(Error error) {
+	}
+
+	/**
+	 * Called after the last event of the stream.
+	 */
+	default void onEnd() {
+	}
+
+}
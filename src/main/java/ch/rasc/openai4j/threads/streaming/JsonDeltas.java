@@ -0,0 +1,109 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.threads.streaming;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Merges the delta objects of streamed events into a snapshot of the full object.
+ */
+final class JsonDeltas {
+
+	private JsonDeltas() {
+	}
+
+	/**
+	 * Merges the delta into the snapshot. Strings are appended, objects are merged,
+	 * array elements with an index property are merged with the element with the same
+	 * index, other array elements are appended. The identifying properties index, type
+	 * and id are replaced.
+	 */
+	static void merge(ObjectNode snapshot, JsonNode delta) {
+		if (delta == null || !delta.isObject()) {
+			return;
+		}
+		Iterator<Map.Entry<String, JsonNode>> fields = delta.fields();
+		while (fields.hasNext()) {
+			Map.Entry<String, JsonNode> field = fields.next();
+			String name = field.getKey();
+			JsonNode value = field.getValue();
+			if (value.isNull()) {
+				continue;
+			}
+			JsonNode current = snapshot.get(name);
+			if (current == null || current.isNull() || name.equals("index")
+					|| name.equals("type") || name.equals("id")) {
+				snapshot.set(name, value.deepCopy());
+			}
+			else if (current.isTextual() && value.isTextual()) {
+				snapshot.put(name, current.textValue() + value.textValue());
+			}
+			else if (current.isObject() && value.isObject()) {
+				merge((ObjectNode) current, value);
+			}
+			else if (current.isArray() && value.isArray()) {
+				mergeArray((ArrayNode) current, (ArrayNode) value);
+			}
+			else {
+				snapshot.set(name, value.deepCopy());
+			}
+		}
+	}
+
+	/**
+	 * Sets the index property of the array elements that do not have one to their
+	 * position, so that later deltas are merged into them.
+	 */
+	static void addIndexes(JsonNode array) {
+		if (array == null || !array.isArray()) {
+			return;
+		}
+		for (int i = 0; i < array.size(); i++) {
+			if (array.get(i) instanceof ObjectNode element && !element.has("index")) {
+				element.put("index", i);
+			}
+		}
+	}
+
+	private static void mergeArray(ArrayNode snapshot, ArrayNode delta) {
+		for (JsonNode element : delta) {
+			JsonNode index = element.get("index");
+			if (!element.isObject() || index == null || !index.canConvertToInt()) {
+				snapshot.add(element.deepCopy());
+				continue;
+			}
+			ObjectNode existing = null;
+			for (JsonNode candidate : snapshot) {
+				if (candidate.isObject() && index.equals(candidate.get("index"))) {
+					existing = (ObjectNode) candidate;
+					break;
+				}
+			}
+			if (existing != null) {
+				merge(existing, element);
+			}
+			else {
+				snapshot.add(element.deepCopy());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.threads.streaming;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import ch.rasc.openai4j.threads.messages.ThreadMessage;
+
+/**
+ * Builds the current state of a message from the thread.message.* events and the
+ * thread.message.delta events of a stream.
+ */
+public final class MessageAccumulator {
+
+	private ObjectNode message;
+	private ThreadMessage snapshot;
+
+	MessageAccumulator(String id) {
+		this.message = AssistantStream.objectMapper.createObjectNode();
+		this.message.put("id", id);
+		this.message.put("object", "thread.message");
+		this.message.putArray("content");
+	}
+
+	/**
+	 * Replaces the state with a message sent by the server.
+	 */
+	void reset(ObjectNode message) {
+		this.message = message.deepCopy();
+		JsonDeltas.addIndexes(this.message.get("content"));
+		this.snapshot = null;
+	}
+
+	/**
+	 * Applies the delta of a thread.message.delta event.
+	 */
+	void apply(JsonNode messageDelta) {
+		JsonDeltas.merge(this.message, messageDelta.get("delta"));
+		this.snapshot = null;
+	}
+
+	/**
+	 * The identifier of the message.
+	 */
+	public String id() {
+		return this.message.path("id").asText();
+	}
+
+	/**
+	 * Returns the text of all text content parts received so far.
+	 */
+	public String text() {
+		StringBuilder sb = new StringBuilder();
+		for (JsonNode content : this.message.path("content")) {
+			if ("text".equals(content.path("type").asText())) {
+				sb.append(content.path("text").path("value").asText());
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns the message with all deltas received so far.
+	 */
+	public ThreadMessage snapshot() {
+		if (this.snapshot == null) {
+			try {
+				this.snapshot = AssistantStream.objectMapper.treeToValue(this.message,
+						ThreadMessage.class);
+			}
+			catch (JsonProcessingException e) {
+				throw new IllegalStateException("Cannot convert message " + id(), e);
+			}
+		}
+		return this.snapshot;
+	}
+
+}
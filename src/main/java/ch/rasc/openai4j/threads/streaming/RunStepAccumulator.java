@@ -0,0 +1,100 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.threads.streaming;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import ch.rasc.openai4j.threads.runs.steps.ThreadRunStep;
+
+/**
+ * Builds the current state of a run step from the thread.run.step.* events and the
+ * thread.run.step.delta events of a stream.
+ */
+public final class RunStepAccumulator {
+
+	private ObjectNode runStep;
+	private ThreadRunStep snapshot;
+
+	RunStepAccumulator(String id) {
+		this.runStep = AssistantStream.objectMapper.createObjectNode();
+		this.runStep.put("id", id);
+		this.runStep.put("object", "thread.run.step");
+	}
+
+	/**
+	 * Replaces the state with a run step sent by the server.
+	 */
+	void reset(ObjectNode runStep) {
+		this.runStep = runStep.deepCopy();
+		JsonDeltas.addIndexes(this.runStep.path("step_details").get("tool_calls"));
+		this.snapshot = null;
+	}
+
+	/**
+	 * Applies the delta of a thread.run.step.delta event.
+	 */
+	void apply(JsonNode runStepDelta) {
+		JsonDeltas.merge(this.runStep, runStepDelta.get("delta"));
+		this.snapshot = null;
+	}
+
+	/**
+	 * The identifier of the run step.
+	 */
+	public String id() {
+		return this.runStep.path("id").asText();
+	}
+
+	/**
+	 * Returns the tool calls received so far, with the function arguments and code
+	 * interpreter input concatenated from all deltas.
+	 */
+	public List<ThreadRunStepDelta.ToolCall> toolCalls() {
+		List<ThreadRunStepDelta.ToolCall> toolCalls = new ArrayList<>();
+		for (JsonNode toolCall : this.runStep.path("step_details").path("tool_calls")) {
+			try {
+				toolCalls.add(AssistantStream.objectMapper.treeToValue(toolCall,
+						ThreadRunStepDelta.ToolCall.class));
+			}
+			catch (JsonProcessingException e) {
+				throw new IllegalStateException("Cannot convert tool call of " + id(), e);
+			}
+		}
+		return toolCalls;
+	}
+
+	/**
+	 * Returns the run step with all deltas received so far.
+	 */
+	public ThreadRunStep snapshot() {
+		if (this.snapshot == null) {
+			try {
+				this.snapshot = AssistantStream.objectMapper.treeToValue(this.runStep,
+						ThreadRunStep.class);
+			}
+			catch (JsonProcessingException e) {
+				throw new IllegalStateException("Cannot convert run step " + id(), e);
+			}
+		}
+		return this.snapshot;
+	}
+
+}
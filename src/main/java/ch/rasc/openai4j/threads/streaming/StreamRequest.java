@@ -0,0 +1,49 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.threads.streaming;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+
+/**
+ * Sends a request with <code>"stream": true</code> added to its properties, so the
+ * server answers with a stream of server-sent events.
+ */
+@JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY)
+@SuppressWarnings("unused")
+public final class StreamRequest<T> {
+
+	@JsonUnwrapped
+	private final T request;
+
+	private final boolean stream = true;
+
+	private StreamRequest(T request) {
+		if (request == null) {
+			throw new IllegalArgumentException("request must not be null");
+		}
+		this.request = request;
+	}
+
+	public static <T> StreamRequest<T> of(T request) {
+		return new StreamRequest<>(request);
+	}
+
+	public T request() {
+		return this.request;
+	}
+
+}
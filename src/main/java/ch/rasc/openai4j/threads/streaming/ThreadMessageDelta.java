@@ -0,0 +1,240 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.threads.streaming;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import ch.rasc.openai4j.threads.TextMessageContent.Text.Citation;
+
+/**
+ * Represents a message delta i.e. any changed fields on a message during streaming.
+ */
+public record ThreadMessageDelta(String id, String object, Delta delta) {
+
+	/**
+	 * The identifier of the message, which can be referenced in API endpoints.
+	 */
+	@Override
+	public String id() {
+		return this.id;
+	}
+
+	/**
+	 * The object type, which is always thread.message.delta.
+	 */
+	@Override
+	public String object() {
+		return this.object;
+	}
+
+	/**
+	 * The delta containing the fields that have changed on the Message.
+	 */
+	@Override
+	public Delta delta() {
+		return this.delta;
+	}
+
+	/**
+	 * Returns the text of all text content parts of this delta.
+	 */
+	public String text() {
+		if (this.delta == null || this.delta.content() == null) {
+			return "";
+		}
+		StringBuilder sb = new StringBuilder();
+		for (ContentDelta content : this.delta.content()) {
+			if (content.text() != null && content.text().value() != null) {
+				sb.append(content.text().value());
+			}
+		}
+		return sb.toString();
+	}
+
+	public record Delta(String role, List<ContentDelta> content) {
+
+		/**
+		 * The entity that produced the message. One of user or assistant.
+		 */
+		@Override
+		public String role() {
+			return this.role;
+		}
+
+		/**
+		 * The content of the message in array of text and/or images.
+		 */
+		@Override
+		public List<ContentDelta> content() {
+			return this.content;
+		}
+	}
+
+	public record ContentDelta(int index, String type, TextDelta text,
+			@JsonProperty("image_file") ImageFileDelta imageFile,
+			@JsonProperty("image_url") ImageUrlDelta imageUrl) {
+
+		/**
+		 * The index of the content part in the message.
+		 */
+		@Override
+		public int index() {
+			return this.index;
+		}
+
+		/**
+		 * One of text, image_file or image_url.
+		 */
+		@Override
+		public String type() {
+			return this.type;
+		}
+
+		@Override
+		public TextDelta text() {
+			return this.text;
+		}
+
+		@Override
+		public ImageFileDelta imageFile() {
+			return this.imageFile;
+		}
+
+		@Override
+		public ImageUrlDelta imageUrl() {
+			return this.imageUrl;
+		}
+	}
+
+	public record ImageFileDelta(@JsonProperty("file_id") String fileId, String detail) {
+
+		/**
+		 * The File ID of the image in the message content.
+		 */
+		@Override
+		public String fileId() {
+			return this.fileId;
+		}
+
+		/**
+		 * Specifies the detail level of the image. One of auto, low or high.
+		 */
+		@Override
+		public String detail() {
+			return this.detail;
+		}
+	}
+
+	public record ImageUrlDelta(String url, String detail) {
+
+		/**
+		 * The URL of the image.
+		 */
+		@Override
+		public String url() {
+			return this.url;
+		}
+
+		/**
+		 * Specifies the detail level of the image. One of auto, low or high.
+		 */
+		@Override
+		public String detail() {
+			return this.detail;
+		}
+	}
+
+	public record TextDelta(String value, List<AnnotationDelta> annotations) {
+
+		/**
+		 * The data that is appended to the text.
+		 */
+		@Override
+		public String value() {
+			return this.value;
+		}
+
+		@Override
+		public List<AnnotationDelta> annotations() {
+			return this.annotations;
+		}
+	}
+
+	public record AnnotationDelta(int index, String type, String text,
+			@JsonProperty("file_citation") Citation fileCitation,
+			@JsonProperty("file_path") FilePath filePath,
+			@JsonProperty("start_index") Integer startIndex,
+			@JsonProperty("end_index") Integer endIndex) {
+
+		/**
+		 * The index of the annotation in the text content part.
+		 */
+		@Override
+		public int index() {
+			return this.index;
+		}
+
+		/**
+		 * Either file_citation or file_path.
+		 */
+		@Override
+		public String type() {
+			return this.type;
+		}
+
+		/**
+		 * The text in the message content that needs to be replaced.
+		 */
+		@Override
+		public String text() {
+			return this.text;
+		}
+
+		@Override
+		public Citation fileCitation() {
+			return this.fileCitation;
+		}
+
+		@Override
+		public FilePath filePath() {
+			return this.filePath;
+		}
+
+		@Override
+		public Integer startIndex() {
+			return this.startIndex;
+		}
+
+		@Override
+		public Integer endIndex() {
+			return this.endIndex;
+		}
+	}
+
+	public record FilePath(@JsonProperty("file_id") String fileId) {
+
+		/**
+		 * The ID of the file that was generated.
+		 */
+		@Override
+		public String fileId() {
+			return this.fileId;
+		}
+	}
+
+}
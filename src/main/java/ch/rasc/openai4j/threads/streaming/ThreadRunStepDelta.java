@@ -0,0 +1,192 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.threads.streaming;
+
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Represents a run step delta i.e. any changed fields on a run step during streaming.
+ */
+public record ThreadRunStepDelta(String id, String object, Delta delta) {
+
+	/**
+	 * The identifier of the run step, which can be referenced in API endpoints.
+	 */
+	@Override
+	public String id() {
+		return this.id;
+	}
+
+	/**
+	 * The object type, which is always thread.run.step.delta.
+	 */
+	@Override
+	public String object() {
+		return this.object;
+	}
+
+	/**
+	 * The delta containing the fields that have changed on the run step.
+	 */
+	@Override
+	public Delta delta() {
+		return this.delta;
+	}
+
+	public record Delta(@JsonProperty("step_details") StepDetails stepDetails) {
+
+		/**
+		 * The details of the run step.
+		 */
+		@Override
+		public StepDetails stepDetails() {
+			return this.stepDetails;
+		}
+	}
+
+	public record StepDetails(String type,
+			@JsonProperty("message_creation") MessageCreation messageCreation,
+			@JsonProperty("tool_calls") List<ToolCall> toolCalls) {
+
+		/**
+		 * Either message_creation or tool_calls.
+		 */
+		@Override
+		public String type() {
+			return this.type;
+		}
+
+		@Override
+		public MessageCreation messageCreation() {
+			return this.messageCreation;
+		}
+
+		/**
+		 * The tool calls the run step was involved in.
+		 */
+		@Override
+		public List<ToolCall> toolCalls() {
+			return this.toolCalls;
+		}
+	}
+
+	public record MessageCreation(@JsonProperty("message_id") String messageId) {
+
+		/**
+		 * The ID of the message that was created by this run step.
+		 */
+		@Override
+		public String messageId() {
+			return this.messageId;
+		}
+	}
+
+	public record ToolCall(int index, String id, String type, FunctionCall function,
+			@JsonProperty("code_interpreter") CodeInterpreter codeInterpreter,
+			@JsonProperty("file_search") Map<String, Object> fileSearch) {
+
+		/**
+		 * The index of the tool call in the tool calls array.
+		 */
+		@Override
+		public int index() {
+			return this.index;
+		}
+
+		/**
+		 * The ID of the tool call.
+		 */
+		@Override
+		public String id() {
+			return this.id;
+		}
+
+		/**
+		 * One of function, code_interpreter or file_search.
+		 */
+		@Override
+		public String type() {
+			return this.type;
+		}
+
+		@Override
+		public FunctionCall function() {
+			return this.function;
+		}
+
+		@Override
+		public CodeInterpreter codeInterpreter() {
+			return this.codeInterpreter;
+		}
+
+		@Override
+		public Map<String, Object> fileSearch() {
+			return this.fileSearch;
+		}
+	}
+
+	public record FunctionCall(String name, String arguments, String output) {
+
+		/**
+		 * The name of the function.
+		 */
+		@Override
+		public String name() {
+			return this.name;
+		}
+
+		/**
+		 * The arguments passed to the function.
+		 */
+		@Override
+		public String arguments() {
+			return this.arguments;
+		}
+
+		/**
+		 * The output of the function. This will be null if the outputs have not been
+		 * submitted yet.
+		 */
+		@Override
+		public String output() {
+			return this.output;
+		}
+	}
+
+	public record CodeInterpreter(String input, List<Map<String, Object>> outputs) {
+
+		/**
+		 * The input to the Code Interpreter tool call.
+		 */
+		@Override
+		public String input() {
+			return this.input;
+		}
+
+		/**
+		 * The outputs from the Code Interpreter tool call, text (logs) or images
+		 * (image).
+		 */
+		@Override
+		public List<Map<String, Object>> outputs() {
+			return this.outputs;
+		}
+	}
+
+}
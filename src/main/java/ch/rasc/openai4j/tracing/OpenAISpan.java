@@ -0,0 +1,69 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.tracing;
+
+/**
+ * A traced phase of a call. Ended by {@link #close()}.
+ */
+public interface OpenAISpan extends AutoCloseable {
+
+	/**
+	 * A span that records nothing.
+	 */
+	OpenAISpan NOOP = new OpenAISpan() {
+		@Override
+		public OpenAISpan tag(String key, String value) {
+			return this;
+		}
+
+		@Override
+		public OpenAISpan tag(String key, long value) {
+			return this;
+		}
+
+		@Override
+		public OpenAISpan error(Throwable error) {
+			return this;
+		}
+
+		@Override
+		public void close() {
+			// nothing to end
+		}
+	};
+
+	/**
+	 * Adds an attribute to the span. Null values are ignored.
+	 */
+	OpenAISpan tag(String key, String value);
+
+	/**
+	 * Adds an attribute to the span.
+	 */
+	OpenAISpan tag(String key, long value);
+
+	/**
+	 * Marks the span as failed.
+	 */
+	OpenAISpan error(Throwable error);
+
+	/**
+	 * Ends the span.
+	 */
+	@Override
+	void close();
+
+}
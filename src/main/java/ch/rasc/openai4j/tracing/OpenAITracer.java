@@ -0,0 +1,55 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.tracing;
+
+/**
+ * Creates the spans of the traced phases of the clients and services. Set an
+ * implementation with
+ * {@link ch.rasc.openai4j.Configuration.Builder#tracer(OpenAITracer)} to trace the
+ * HTTP calls and pass the same instance to the services.
+ * <p>
+ * A span is started and ended on the same thread. A span started while another span is
+ * open on the thread is its child, implementations are responsible for tracking the
+ * current span.
+ * <p>
+ * The clients create these spans:
+ * <ul>
+ * <li>openai.call: a method call of a client, tagged with method</li>
+ * <li>openai.encode: serialization of the request body, tagged with bytes</li>
+ * <li>openai.http: sending the request until the response headers are received, tagged
+ * with endpoint, model and status</li>
+ * <li>openai.decode: reading and deserialization of the response body, tagged with
+ * prompt_tokens and completion_tokens</li>
+ * <li>openai.retry: the backoff before a failed request is sent again, tagged with
+ * reason and status</li>
+ * </ul>
+ */
+public interface OpenAITracer {
+
+	/**
+	 * A tracer that records nothing.
+	 */
+	OpenAITracer NOOP = name -> OpenAISpan.NOOP;
+
+	/**
+	 * Starts a span as child of the current span of the calling thread.
+	 *
+	 * @param name The name of the phase
+	 * @return The started span, must be closed by the calling thread
+	 */
+	OpenAISpan start(String name);
+
+}
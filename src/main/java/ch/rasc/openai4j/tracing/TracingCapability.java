@@ -0,0 +1,165 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.tracing;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+
+import ch.rasc.openai4j.chatcompletions.ChatCompletionResponse;
+import ch.rasc.openai4j.metrics.MetricsCapability;
+import feign.Capability;
+import feign.Client;
+import feign.Feign;
+import feign.InvocationHandlerFactory;
+import feign.Response;
+import feign.RetryableException;
+import feign.Retryer;
+import feign.codec.Decoder;
+import feign.codec.Encoder;
+
+/**
+ * Feign capability that traces the phases of every call of a client with an
+ * {@link OpenAITracer}. {@link ch.rasc.openai4j.OpenAIClient} adds it to all clients
+ * when {@link ch.rasc.openai4j.Configuration.Builder#tracer(OpenAITracer)} is set.
+ */
+public final class TracingCapability implements Capability {
+
+	private final OpenAITracer tracer;
+
+	public TracingCapability(OpenAITracer tracer) {
+		if (tracer == null) {
+			throw new IllegalArgumentException("tracer must not be null");
+		}
+		this.tracer = tracer;
+	}
+
+	@Override
+	public InvocationHandlerFactory enrich(InvocationHandlerFactory factory) {
+		return (target, dispatch) -> {
+			InvocationHandler handler = factory.create(target, dispatch);
+			return (proxy, method, args) -> {
+				if (method.getDeclaringClass() == Object.class) {
+					return handler.invoke(proxy, method, args);
+				}
+				try (OpenAISpan span = this.tracer.start("openai.call").tag("method",
+						Feign.configKey(target.type(), method))) {
+					try {
+						return handler.invoke(proxy, method, args);
+					}
+					catch (Throwable e) {
+						span.error(e);
+						throw e;
+					}
+				}
+			};
+		};
+	}
+
+	@Override
+	public Encoder enrich(Encoder encoder) {
+		return (object, bodyType, template) -> {
+			try (OpenAISpan span = this.tracer.start("openai.encode")) {
+				try {
+					encoder.encode(object, bodyType, template);
+				}
+				catch (RuntimeException e) {
+					span.error(e);
+					throw e;
+				}
+				if (template.body() != null) {
+					span.tag("bytes", template.body().length);
+				}
+			}
+		};
+	}
+
+	@Override
+	public Client enrich(Client client) {
+		return (request, options) -> {
+			try (OpenAISpan span = this.tracer.start("openai.http")
+					.tag("endpoint", MetricsCapability.endpoint(request))
+					.tag("model", MetricsCapability.model(request))) {
+				try {
+					Response response = client.execute(request, options);
+					span.tag("status", response.status());
+					return response;
+				}
+				catch (IOException | RuntimeException e) {
+					span.error(e);
+					throw e;
+				}
+			}
+		};
+	}
+
+	@Override
+	public Decoder enrich(Decoder decoder) {
+		return (response, type) -> {
+			try (OpenAISpan span = this.tracer.start("openai.decode")) {
+				Object result;
+				try {
+					result = decoder.decode(response, type);
+				}
+				catch (IOException | RuntimeException e) {
+					span.error(e);
+					throw e;
+				}
+				if (result instanceof ChatCompletionResponse chatCompletion
+						&& chatCompletion.usage() != null) {
+					span.tag("prompt_tokens", chatCompletion.usage().promptTokens());
+					span.tag("completion_tokens",
+							chatCompletion.usage().completionTokens());
+				}
+				return result;
+			}
+		};
+	}
+
+	@Override
+	public Retryer enrich(Retryer retryer) {
+		return new TracedRetryer(retryer, this.tracer);
+	}
+
+	private static final class TracedRetryer implements Retryer {
+		private final Retryer delegate;
+		private final OpenAITracer tracer;
+
+		TracedRetryer(Retryer delegate, OpenAITracer tracer) {
+			this.delegate = delegate;
+			this.tracer = tracer;
+		}
+
+		@Override
+		public void continueOrPropagate(RetryableException e) {
+			try (OpenAISpan span = this.tracer.start("openai.retry")
+					.tag("reason", e.getMessage()).tag("status", e.status())) {
+				try {
+					this.delegate.continueOrPropagate(e);
+				}
+				catch (RuntimeException propagated) {
+					span.error(propagated);
+					throw propagated;
+				}
+			}
+		}
+
+		@Override
+		public Retryer clone() {
+			return new TracedRetryer(this.delegate.clone(), this.tracer);
+		}
+	}
+
+}
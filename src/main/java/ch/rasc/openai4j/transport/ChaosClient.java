@@ -0,0 +1,419 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.transport;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.net.SocketException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+/**
+ * Feign client that injects faults into the requests passed to another client:
+ * latency spikes, connection resets, truncated and slow response bodies, bursts of
+ * 429 responses and server errors. It is used to measure how retries, timeouts and
+ * the waitForProcessing loops behave under failure before a change ships.
+ * <p>
+ * A scenario is a list of phases, each with a duration and a {@link FaultProfile}.
+ * The first phase starts with the first request. After the last phase the requests
+ * are passed through unchanged, unless the scenario repeats.
+ * <p>
+ * The random numbers come from a seeded {@link Random}, a sequential workload sees
+ * the same faults in every run. With concurrent requests the order in which the
+ * requests draw the numbers varies.
+ *
+ * <pre>
+ * ChaosClient chaos = ChaosClient.builder(new Http2Client()).seed(42)
+ * 		.phase(Duration.ofMinutes(1),
+ * 				p -&gt; p.latencySpike(0.01, Duration.ofSeconds(3)))
+ * 		.phase(Duration.ofSeconds(20),
+ * 				p -&gt; p.rateLimitBurst(0.1, 5, Duration.ofSeconds(2)))
+ * 		.repeat(true).build();
+ * OpenAIClient client = OpenAIClient.create(c -&gt; c.apiKey(apiKey).client(chaos));
+ * </pre>
+ */
+public final class ChaosClient implements Client {
+
+	/**
+	 * The kinds of faults, used to read the number of injected faults.
+	 */
+	public enum Fault {
+		LATENCY_SPIKE, CONNECTION_RESET, TRUNCATED_BODY, RATE_LIMITED, SLOW_BODY,
+		SERVER_ERROR
+	}
+
+	private static final int STREAM_TRUNCATION_BYTES = 4096;
+
+	private final Client delegate;
+
+	private final Random random;
+
+	private final List<Phase> phases;
+
+	private final long scenarioNanos;
+
+	private final boolean repeat;
+
+	private final AtomicLong start = new AtomicLong(Long.MIN_VALUE);
+
+	private final AtomicInteger burstRemaining = new AtomicInteger();
+
+	private final Map<Fault, LongAdder> injected = new EnumMap<>(Fault.class);
+
+	private record Phase(long endNanos, FaultProfile profile) {
+	}
+
+	private ChaosClient(Builder builder) {
+		this.delegate = builder.delegate;
+		this.random = builder.seed != null ? new Random(builder.seed) : new Random();
+		this.phases = List.copyOf(builder.phases);
+		this.scenarioNanos = this.phases.isEmpty() ? 0
+				: this.phases.get(this.phases.size() - 1).endNanos();
+		this.repeat = builder.repeat;
+		for (Fault fault : Fault.values()) {
+			this.injected.put(fault, new LongAdder());
+		}
+	}
+
+	public static Builder builder(Client delegate) {
+		return new Builder(delegate);
+	}
+
+	public static final class Builder {
+		private final Client delegate;
+		private final List<Phase> phases = new ArrayList<>();
+		private long scenarioNanos;
+		private Long seed;
+		private boolean repeat;
+
+		private Builder(Client delegate) {
+			if (delegate == null) {
+				throw new IllegalArgumentException("delegate must not be null");
+			}
+			this.delegate = delegate;
+		}
+
+		/**
+		 * The seed of the random numbers. Defaults to a random seed.
+		 */
+		public Builder seed(long seed) {
+			this.seed = seed;
+			return this;
+		}
+
+		/**
+		 * Adds a phase to the scenario that injects the faults of the profile for the
+		 * given duration.
+		 */
+		public Builder phase(Duration duration, FaultProfile profile) {
+			if (duration == null || duration.isNegative() || duration.isZero()) {
+				throw new IllegalArgumentException("duration must be positive");
+			}
+			if (profile == null) {
+				throw new IllegalArgumentException("profile must not be null");
+			}
+			this.scenarioNanos += duration.toNanos();
+			this.phases.add(new Phase(this.scenarioNanos, profile));
+			return this;
+		}
+
+		/**
+		 * Adds a phase to the scenario that injects the faults of the profile for the
+		 * given duration.
+		 */
+		public Builder phase(Duration duration,
+				Function<FaultProfile.Builder, FaultProfile.Builder> fn) {
+			return phase(duration, fn.apply(FaultProfile.builder()).build());
+		}
+
+		/**
+		 * Injects the faults of the profile into all requests. Replaces the phases
+		 * added before.
+		 */
+		public Builder profile(FaultProfile profile) {
+			this.phases.clear();
+			this.scenarioNanos = 0;
+			return phase(Duration.ofNanos(Long.MAX_VALUE), profile);
+		}
+
+		/**
+		 * Injects the faults of the profile into all requests. Replaces the phases
+		 * added before.
+		 */
+		public Builder profile(Function<FaultProfile.Builder, FaultProfile.Builder> fn) {
+			return profile(fn.apply(FaultProfile.builder()).build());
+		}
+
+		/**
+		 * Starts the scenario over after the last phase. Defaults to false.
+		 */
+		public Builder repeat(boolean repeat) {
+			this.repeat = repeat;
+			return this;
+		}
+
+		public ChaosClient build() {
+			return new ChaosClient(this);
+		}
+	}
+
+	/**
+	 * The number of times the fault has been injected.
+	 */
+	public long injected(Fault fault) {
+		return this.injected.get(fault).sum();
+	}
+
+	@Override
+	public Response execute(Request request, Request.Options options)
+			throws IOException {
+		FaultProfile profile = currentProfile();
+		if (profile == null || !profile.matching().test(request)) {
+			return this.delegate.execute(request, options);
+		}
+
+		if (rateLimited(profile)) {
+			this.injected.get(Fault.RATE_LIMITED).increment();
+			return rateLimitResponse(request, profile.rateLimitRetryAfter());
+		}
+		if (draw(profile.connectionResetProbability())) {
+			this.injected.get(Fault.CONNECTION_RESET).increment();
+			throw new SocketException("Connection reset (injected)");
+		}
+		if (draw(profile.serverErrorProbability())) {
+			this.injected.get(Fault.SERVER_ERROR).increment();
+			return errorResponse(request, profile.serverErrorStatus(), Map.of(),
+					"server_error",
+					"The server had an error while processing your request.", null);
+		}
+		if (draw(profile.latencySpikeProbability())) {
+			this.injected.get(Fault.LATENCY_SPIKE).increment();
+			sleep(profile.latencySpike().toNanos());
+		}
+
+		Response response = this.delegate.execute(request, options);
+		if (response.body() == null) {
+			return response;
+		}
+
+		long truncateAfter = -1;
+		if (draw(profile.truncatedBodyProbability())) {
+			this.injected.get(Fault.TRUNCATED_BODY).increment();
+			Integer length = response.body().length();
+			truncateAfter = nextLong(length != null && length > 0 ? length
+					: STREAM_TRUNCATION_BYTES);
+		}
+		int bytesPerSecond = 0;
+		if (draw(profile.slowBodyProbability())) {
+			this.injected.get(Fault.SLOW_BODY).increment();
+			bytesPerSecond = profile.slowBodyBytesPerSecond();
+		}
+		if (truncateAfter == -1 && bytesPerSecond == 0) {
+			return response;
+		}
+		return response.toBuilder()
+				.body(new FaultyBody(response.body(), truncateAfter, bytesPerSecond))
+				.build();
+	}
+
+	private FaultProfile currentProfile() {
+		if (this.phases.isEmpty()) {
+			return null;
+		}
+		long now = System.nanoTime();
+		this.start.compareAndSet(Long.MIN_VALUE, now);
+		long elapsed = now - this.start.get();
+		if (this.repeat) {
+			elapsed %= this.scenarioNanos;
+		}
+		for (Phase phase : this.phases) {
+			if (elapsed < phase.endNanos()) {
+				return phase.profile();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Continues a running burst or starts a new one.
+	 */
+	private boolean rateLimited(FaultProfile profile) {
+		int remaining;
+		while ((remaining = this.burstRemaining.get()) > 0) {
+			if (this.burstRemaining.compareAndSet(remaining, remaining - 1)) {
+				return true;
+			}
+		}
+		if (draw(profile.rateLimitBurstProbability())) {
+			this.burstRemaining.set(profile.rateLimitBurstRequests() - 1);
+			return true;
+		}
+		return false;
+	}
+
+	private boolean draw(double probability) {
+		return probability > 0 && this.random.nextDouble() < probability;
+	}
+
+	private long nextLong(long bound) {
+		return (long) (this.random.nextDouble() * bound);
+	}
+
+	private static Response rateLimitResponse(Request request, Duration retryAfter) {
+		long millis = retryAfter.toMillis();
+		Map<String, String> headers = new LinkedHashMap<>();
+		headers.put("x-ratelimit-remaining-requests", "0");
+		headers.put("x-ratelimit-reset-requests", millis + "ms");
+		headers.put("retry-after", String.valueOf((millis + 999) / 1000));
+		headers.put("retry-after-ms", String.valueOf(millis));
+		return errorResponse(request, 429, headers, "requests",
+				"Rate limit reached for requests (injected).", "rate_limit_exceeded");
+	}
+
+	private static Response errorResponse(Request request, int status,
+			Map<String, String> headers, String type, String message, String code) {
+		String body = "{\"error\":{\"message\":\"" + message + "\",\"type\":\"" + type
+				+ "\",\"param\":null,\"code\":"
+				+ (code != null ? "\"" + code + "\"" : "null") + "}}";
+		Map<String, Collection<String>> responseHeaders = new LinkedHashMap<>();
+		responseHeaders.put("content-type", List.of("application/json"));
+		headers.forEach((name, value) -> responseHeaders.put(name, List.of(value)));
+		return Response.builder().request(request).status(status)
+				.headers(responseHeaders).body(body, StandardCharsets.UTF_8).build();
+	}
+
+	private static void sleep(long nanos) throws IOException {
+		long deadline = System.nanoTime() + nanos;
+		long wait;
+		while ((wait = deadline - System.nanoTime()) > 0) {
+			LockSupport.parkNanos(wait);
+			if (Thread.interrupted()) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			}
+		}
+	}
+
+	/**
+	 * Ends the body after a number of bytes and limits the rate of the reads.
+	 */
+	private static final class FaultyBody implements Response.Body {
+		private final Response.Body delegate;
+		private final long truncateAfter;
+		private final int bytesPerSecond;
+
+		FaultyBody(Response.Body delegate, long truncateAfter, int bytesPerSecond) {
+			this.delegate = delegate;
+			this.truncateAfter = truncateAfter;
+			this.bytesPerSecond = bytesPerSecond;
+		}
+
+		@Override
+		public Integer length() {
+			return this.truncateAfter == -1 ? this.delegate.length() : null;
+		}
+
+		@Override
+		public boolean isRepeatable() {
+			return false;
+		}
+
+		@Override
+		public InputStream asInputStream() throws IOException {
+			return new FilterInputStream(this.delegate.asInputStream()) {
+				private final long start = System.nanoTime();
+				private long position;
+
+				@Override
+				public int read() throws IOException {
+					byte[] b = new byte[1];
+					int n = read(b, 0, 1);
+					return n == -1 ? -1 : b[0] & 0xff;
+				}
+
+				@Override
+				public int read(byte[] b, int off, int len) throws IOException {
+					int max = len;
+					if (FaultyBody.this.truncateAfter != -1) {
+						long left = FaultyBody.this.truncateAfter - this.position;
+						if (left <= 0) {
+							return -1;
+						}
+						max = (int) Math.min(max, left);
+					}
+					int rate = FaultyBody.this.bytesPerSecond;
+					if (rate > 0) {
+						// at most 20 reads per second, each waits until its bytes are due
+						max = Math.min(max, Math.max(1, rate / 20));
+						long due = this.start + (this.position + max)
+								* TimeUnit.SECONDS.toNanos(1) / rate;
+						sleep(due - System.nanoTime());
+					}
+					int n = super.read(b, off, max);
+					if (n > 0) {
+						this.position += n;
+					}
+					return n;
+				}
+
+				@Override
+				public long skip(long n) throws IOException {
+					byte[] buffer = new byte[(int) Math.min(n, 8192)];
+					int read = read(buffer, 0, buffer.length);
+					return read == -1 ? 0 : read;
+				}
+
+				@Override
+				public int available() throws IOException {
+					return 0;
+				}
+			};
+		}
+
+		@Override
+		public Reader asReader(Charset charset) throws IOException {
+			return new InputStreamReader(asInputStream(), charset);
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.delegate.close();
+		}
+	}
+
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.transport;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A recorded request and response. The response body is split into the chunks the
+ * client read, each with the delay since the previous chunk or, for the first chunk,
+ * since the response headers arrived.
+ */
+record Exchange(long timestamp, String method, String path, String requestKey,
+		int requestBodyLength, Map<String, Collection<String>> requestHeaders,
+		int status, String reason, Map<String, Collection<String>> responseHeaders,
+		long headersNanos, boolean hasBody, List<Chunk> chunks, boolean complete) {
+
+	record Chunk(long delayNanos, byte[] data) {
+	}
+
+	long bodyLength() {
+		long length = 0;
+		for (Chunk chunk : this.chunks) {
+			length += chunk.data().length;
+		}
+		return length;
+	}
+
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.transport;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Binary file format of the recorded exchanges. The file starts with a magic number
+ * and a version, followed by the exchanges with length prefixed strings and bodies.
+ * <p>
+ * Files ending in .gz are gzip compressed. Every writer appends a new gzip member, so
+ * a compressed log can be extended by later recordings like an uncompressed one.
+ */
+final class ExchangeLog {
+
+	private static final int MAGIC = 0x4F414958;
+
+	private static final int VERSION = 1;
+
+	private ExchangeLog() {
+	}
+
+	static List<Exchange> read(Path file) throws IOException {
+		List<Exchange> exchanges = new ArrayList<>();
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(open(file), 64 * 1024))) {
+			if (in.readInt() != MAGIC) {
+				throw new IOException(file + " is not an exchange log");
+			}
+			int version = in.readInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported exchange log version " + version);
+			}
+			while (true) {
+				int marker;
+				try {
+					marker = in.readUnsignedByte();
+				}
+				catch (EOFException e) {
+					break;
+				}
+				if (marker != 1) {
+					throw new IOException("Corrupt exchange log " + file);
+				}
+				exchanges.add(readExchange(in));
+			}
+		}
+		return exchanges;
+	}
+
+	private static InputStream open(Path file) throws IOException {
+		InputStream in = Files.newInputStream(file);
+		return isCompressed(file) ? new GZIPInputStream(in, 64 * 1024) : in;
+	}
+
+	private static Exchange readExchange(DataInputStream in) throws IOException {
+		long timestamp = in.readLong();
+		String method = in.readUTF();
+		String path = in.readUTF();
+		String requestKey = in.readUTF();
+		int requestBodyLength = in.readInt();
+		Map<String, Collection<String>> requestHeaders = readHeaders(in);
+		int status = in.readInt();
+		String reason = in.readUTF();
+		Map<String, Collection<String>> responseHeaders = readHeaders(in);
+		long headersNanos = in.readLong();
+		boolean hasBody = in.readBoolean();
+		int chunkCount = in.readInt();
+		List<Exchange.Chunk> chunks = new ArrayList<>(chunkCount);
+		for (int i = 0; i < chunkCount; i++) {
+			long delayNanos = in.readLong();
+			byte[] data = new byte[in.readInt()];
+			in.readFully(data);
+			chunks.add(new Exchange.Chunk(delayNanos, data));
+		}
+		boolean complete = in.readBoolean();
+		return new Exchange(timestamp, method, path, requestKey, requestBodyLength,
+				requestHeaders, status, reason.isEmpty() ? null : reason,
+				responseHeaders, headersNanos, hasBody, chunks, complete);
+	}
+
+	private static Map<String, Collection<String>> readHeaders(DataInputStream in)
+			throws IOException {
+		int count = in.readInt();
+		Map<String, Collection<String>> headers = new LinkedHashMap<>();
+		for (int i = 0; i < count; i++) {
+			String name = in.readUTF();
+			int valueCount = in.readInt();
+			List<String> values = new ArrayList<>(valueCount);
+			for (int j = 0; j < valueCount; j++) {
+				values.add(in.readUTF());
+			}
+			headers.put(name, values);
+		}
+		return headers;
+	}
+
+	private static boolean isCompressed(Path file) {
+		return file.getFileName().toString().endsWith(".gz");
+	}
+
+	/**
+	 * Appends exchanges to a log file. Writes are serialized, every exchange is flushed
+	 * to the file when it has been written.
+	 */
+	static final class Writer implements Closeable {
+
+		private final DataOutputStream out;
+
+		Writer(Path file) throws IOException {
+			boolean empty = !Files.exists(file) || Files.size(file) == 0;
+			OutputStream fileOut = Files.newOutputStream(file,
+					StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+			if (isCompressed(file)) {
+				fileOut = new GZIPOutputStream(fileOut, 64 * 1024, true);
+			}
+			this.out = new DataOutputStream(new BufferedOutputStream(fileOut, 64 * 1024));
+			if (empty) {
+				this.out.writeInt(MAGIC);
+				this.out.writeInt(VERSION);
+				this.out.flush();
+			}
+		}
+
+		synchronized void write(Exchange exchange) throws IOException {
+			DataOutputStream o = this.out;
+			o.writeByte(1);
+			o.writeLong(exchange.timestamp());
+			o.writeUTF(exchange.method());
+			o.writeUTF(exchange.path());
+			o.writeUTF(exchange.requestKey());
+			o.writeInt(exchange.requestBodyLength());
+			writeHeaders(exchange.requestHeaders());
+			o.writeInt(exchange.status());
+			o.writeUTF(exchange.reason() != null ? exchange.reason() : "");
+			writeHeaders(exchange.responseHeaders());
+			o.writeLong(exchange.headersNanos());
+			o.writeBoolean(exchange.hasBody());
+			o.writeInt(exchange.chunks().size());
+			for (Exchange.Chunk chunk : exchange.chunks()) {
+				o.writeLong(chunk.delayNanos());
+				o.writeInt(chunk.data().length);
+				o.write(chunk.data());
+			}
+			o.writeBoolean(exchange.complete());
+			o.flush();
+		}
+
+		private void writeHeaders(Map<String, Collection<String>> headers)
+				throws IOException {
+			this.out.writeInt(headers.size());
+			for (Map.Entry<String, Collection<String>> header : headers.entrySet()) {
+				this.out.writeUTF(header.getKey());
+				this.out.writeInt(header.getValue().size());
+				for (String value : header.getValue()) {
+					this.out.writeUTF(value);
+				}
+			}
+		}
+
+		@Override
+		public synchronized void close() throws IOException {
+			this.out.close();
+		}
+	}
+
+}
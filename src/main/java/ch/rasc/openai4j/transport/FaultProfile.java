@@ -0,0 +1,241 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.transport;
+
+import java.time.Duration;
+import java.util.function.Predicate;
+
+import feign.Request;
+
+/**
+ * The faults {@link ChaosClient} injects during one phase of a scenario. Every fault
+ * has a probability that is drawn independently for each request.
+ */
+public final class FaultProfile {
+
+	private final Predicate<Request> matching;
+	private final double latencySpikeProbability;
+	private final Duration latencySpike;
+	private final double connectionResetProbability;
+	private final double truncatedBodyProbability;
+	private final double rateLimitBurstProbability;
+	private final int rateLimitBurstRequests;
+	private final Duration rateLimitRetryAfter;
+	private final double slowBodyProbability;
+	private final int slowBodyBytesPerSecond;
+	private final double serverErrorProbability;
+	private final int serverErrorStatus;
+
+	private FaultProfile(Builder builder) {
+		this.matching = builder.matching;
+		this.latencySpikeProbability = builder.latencySpikeProbability;
+		this.latencySpike = builder.latencySpike;
+		this.connectionResetProbability = builder.connectionResetProbability;
+		this.truncatedBodyProbability = builder.truncatedBodyProbability;
+		this.rateLimitBurstProbability = builder.rateLimitBurstProbability;
+		this.rateLimitBurstRequests = builder.rateLimitBurstRequests;
+		this.rateLimitRetryAfter = builder.rateLimitRetryAfter;
+		this.slowBodyProbability = builder.slowBodyProbability;
+		this.slowBodyBytesPerSecond = builder.slowBodyBytesPerSecond;
+		this.serverErrorProbability = builder.serverErrorProbability;
+		this.serverErrorStatus = builder.serverErrorStatus;
+	}
+
+	/**
+	 * A profile without faults.
+	 */
+	public static FaultProfile none() {
+		return builder().build();
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static final class Builder {
+		private Predicate<Request> matching = request -> true;
+		private double latencySpikeProbability;
+		private Duration latencySpike = Duration.ZERO;
+		private double connectionResetProbability;
+		private double truncatedBodyProbability;
+		private double rateLimitBurstProbability;
+		private int rateLimitBurstRequests;
+		private Duration rateLimitRetryAfter = Duration.ZERO;
+		private double slowBodyProbability;
+		private int slowBodyBytesPerSecond;
+		private double serverErrorProbability;
+		private int serverErrorStatus;
+
+		private Builder() {
+		}
+
+		/**
+		 * Injects faults only into the requests that match the predicate, for example
+		 * {@code r -> r.url().contains("/runs/")}. Defaults to all requests.
+		 */
+		public Builder matching(Predicate<Request> matching) {
+			if (matching == null) {
+				throw new IllegalArgumentException("matching must not be null");
+			}
+			this.matching = matching;
+			return this;
+		}
+
+		/**
+		 * Delays the request by the given time before it is sent.
+		 */
+		public Builder latencySpike(double probability, Duration delay) {
+			checkProbability(probability);
+			if (delay == null || delay.isNegative()) {
+				throw new IllegalArgumentException("delay must not be null or negative");
+			}
+			this.latencySpikeProbability = probability;
+			this.latencySpike = delay;
+			return this;
+		}
+
+		/**
+		 * Fails the request with a {@link java.net.SocketException} without sending
+		 * it, like a connection that was reset by the peer. Feign retries it like any
+		 * other IOException.
+		 */
+		public Builder connectionReset(double probability) {
+			checkProbability(probability);
+			this.connectionResetProbability = probability;
+			return this;
+		}
+
+		/**
+		 * Ends the response body early, after a random number of bytes less than the
+		 * Content-Length, or less than 4 KB for streamed bodies without a length. A
+		 * truncated server-sent events stream ends without its final events.
+		 */
+		public Builder truncatedBody(double probability) {
+			checkProbability(probability);
+			this.truncatedBodyProbability = probability;
+			return this;
+		}
+
+		/**
+		 * Starts a burst of rate limited requests. The request and the following
+		 * requests of the burst are answered with status 429, an OpenAI error object
+		 * and the x-ratelimit, retry-after and retry-after-ms headers, without being
+		 * sent.
+		 */
+		public Builder rateLimitBurst(double probability, int requests,
+				Duration retryAfter) {
+			checkProbability(probability);
+			if (requests < 1) {
+				throw new IllegalArgumentException("requests must be greater than 0");
+			}
+			if (retryAfter == null || retryAfter.isNegative()) {
+				throw new IllegalArgumentException(
+						"retryAfter must not be null or negative");
+			}
+			this.rateLimitBurstProbability = probability;
+			this.rateLimitBurstRequests = requests;
+			this.rateLimitRetryAfter = retryAfter;
+			return this;
+		}
+
+		/**
+		 * Trickles the response body to the caller at the given rate.
+		 */
+		public Builder slowBody(double probability, int bytesPerSecond) {
+			checkProbability(probability);
+			if (bytesPerSecond < 1) {
+				throw new IllegalArgumentException(
+						"bytesPerSecond must be greater than 0");
+			}
+			this.slowBodyProbability = probability;
+			this.slowBodyBytesPerSecond = bytesPerSecond;
+			return this;
+		}
+
+		/**
+		 * Answers the request with the given 5xx status and an OpenAI error object
+		 * without sending it.
+		 */
+		public Builder serverError(double probability, int status) {
+			checkProbability(probability);
+			if (status < 500 || status > 599) {
+				throw new IllegalArgumentException("status must be a 5xx status");
+			}
+			this.serverErrorProbability = probability;
+			this.serverErrorStatus = status;
+			return this;
+		}
+
+		private static void checkProbability(double probability) {
+			if (!(probability >= 0 && probability <= 1)) {
+				throw new IllegalArgumentException("probability must be between 0 and 1");
+			}
+		}
+
+		public FaultProfile build() {
+			return new FaultProfile(this);
+		}
+	}
+
+	public Predicate<Request> matching() {
+		return this.matching;
+	}
+
+	public double latencySpikeProbability() {
+		return this.latencySpikeProbability;
+	}
+
+	public Duration latencySpike() {
+		return this.latencySpike;
+	}
+
+	public double connectionResetProbability() {
+		return this.connectionResetProbability;
+	}
+
+	public double truncatedBodyProbability() {
+		return this.truncatedBodyProbability;
+	}
+
+	public double rateLimitBurstProbability() {
+		return this.rateLimitBurstProbability;
+	}
+
+	public int rateLimitBurstRequests() {
+		return this.rateLimitBurstRequests;
+	}
+
+	public Duration rateLimitRetryAfter() {
+		return this.rateLimitRetryAfter;
+	}
+
+	public double slowBodyProbability() {
+		return this.slowBodyProbability;
+	}
+
+	public int slowBodyBytesPerSecond() {
+		return this.slowBodyBytesPerSecond;
+	}
+
+	public double serverErrorProbability() {
+		return this.serverErrorProbability;
+	}
+
+	public int serverErrorStatus() {
+		return this.serverErrorStatus;
+	}
+
+}
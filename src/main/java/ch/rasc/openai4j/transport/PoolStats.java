@@ -0,0 +1,101 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.transport;
+
+/**
+ * The state of the connection pool of a {@link ShardedHttp2Client} at a point in
+ * time.
+ */
+public record PoolStats(int connections, int inFlight, int maxInFlight, int waiting,
+		long requests, long waits, long connectionsCreated, long connectionsEvicted,
+		boolean http1) {
+
+	/**
+	 * The number of HttpClient instances in the pool, each with its own connection to
+	 * the server.
+	 */
+	@Override
+	public int connections() {
+		return this.connections;
+	}
+
+	/**
+	 * The number of requests whose response body has not been closed yet.
+	 */
+	@Override
+	public int inFlight() {
+		return this.inFlight;
+	}
+
+	/**
+	 * The highest number of requests in flight at the same time.
+	 */
+	@Override
+	public int maxInFlight() {
+		return this.maxInFlight;
+	}
+
+	/**
+	 * The number of requests waiting for a free stream because all connections are
+	 * at their limit.
+	 */
+	@Override
+	public int waiting() {
+		return this.waiting;
+	}
+
+	/**
+	 * The number of requests sent through the pool.
+	 */
+	@Override
+	public long requests() {
+		return this.requests;
+	}
+
+	/**
+	 * The number of requests that had to wait for a free stream.
+	 */
+	@Override
+	public long waits() {
+		return this.waits;
+	}
+
+	/**
+	 * The number of connections opened since the pool was created.
+	 */
+	@Override
+	public long connectionsCreated() {
+		return this.connectionsCreated;
+	}
+
+	/**
+	 * The number of connections removed because they were idle.
+	 */
+	@Override
+	public long connectionsEvicted() {
+		return this.connectionsEvicted;
+	}
+
+	/**
+	 * True if the pool uses HTTP/1.1, because it was configured or because the server
+	 * answered with HTTP/1.1.
+	 */
+	@Override
+	public boolean http1() {
+		return this.http1;
+	}
+
+}
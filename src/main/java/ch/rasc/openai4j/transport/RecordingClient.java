@@ -0,0 +1,281 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.transport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+/**
+ * Feign client that passes requests to another client and appends every exchange to a
+ * log file: the request, the response status and headers, the response body and the
+ * timing of the headers and of the body chunks. The log can be replayed offline with
+ * {@link ReplayClient}.
+ * <p>
+ * An exchange is written when the response body is closed. Only the part of the body
+ * the caller read is recorded, a stream that is closed early is replayed up to the
+ * same point. Requests that fail with an IOException are not recorded. The
+ * Authorization and api-key headers are never written to the log.
+ *
+ * <pre>
+ * try (RecordingClient recorder = new RecordingClient(new Http2Client(),
+ * 		Path.of("exchanges.log.gz"))) {
+ * 	OpenAIClient client = OpenAIClient
+ * 			.create(c -&gt; c.apiKey(apiKey).client(recorder));
+ * 	...
+ * }
+ * </pre>
+ */
+public final class RecordingClient implements Client, Closeable {
+	private final static Logger log = LoggerFactory.getLogger(RecordingClient.class);
+
+	/**
+	 * Body reads that follow the previous read within this time are merged into one
+	 * chunk.
+	 */
+	private static final long CHUNK_MERGE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private static final Set<String> SECRET_HEADERS = Set.of("authorization",
+			"api-key");
+
+	private final Client delegate;
+
+	private final ExchangeLog.Writer writer;
+
+	/**
+	 * Creates a recording client that appends to the log file. The file is created if
+	 * it does not exist. Files ending in .gz are compressed.
+	 */
+	public RecordingClient(Client delegate, Path file) throws IOException {
+		if (delegate == null) {
+			throw new IllegalArgumentException("delegate must not be null");
+		}
+		if (file == null) {
+			throw new IllegalArgumentException("file must not be null");
+		}
+		this.delegate = delegate;
+		this.writer = new ExchangeLog.Writer(file);
+	}
+
+	@Override
+	public Response execute(Request request, Request.Options options)
+			throws IOException {
+		long timestamp = System.currentTimeMillis();
+		long start = System.nanoTime();
+		Response response = this.delegate.execute(request, options);
+		Recording recording = new Recording(request, response, timestamp,
+				System.nanoTime() - start);
+		if (response.body() == null) {
+			recording.write();
+			return response;
+		}
+		return response.toBuilder()
+				.body(new RecordingBody(response.body(), recording)).build();
+	}
+
+	/**
+	 * Flushes and closes the log file. Exchanges whose body is closed afterwards are
+	 * not recorded.
+	 */
+	@Override
+	public void close() throws IOException {
+		this.writer.close();
+	}
+
+	private static Map<String, Collection<String>> withoutSecrets(
+			Map<String, Collection<String>> headers) {
+		Map<String, Collection<String>> result = new LinkedHashMap<>();
+		headers.forEach((name, values) -> {
+			if (!SECRET_HEADERS.contains(name.toLowerCase())) {
+				result.put(name, List.copyOf(values));
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Collects the body chunks of one exchange.
+	 */
+	private final class Recording {
+		private final Request request;
+		private final Response response;
+		private final long timestamp;
+		private final long headersNanos;
+		private final List<Exchange.Chunk> chunks = new ArrayList<>();
+		private final ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+		private final AtomicBoolean written = new AtomicBoolean();
+		private long chunkDelay;
+		private long lastRead;
+		private boolean complete;
+
+		Recording(Request request, Response response, long timestamp,
+				long headersNanos) {
+			this.request = request;
+			this.response = response;
+			this.timestamp = timestamp;
+			this.headersNanos = headersNanos;
+			this.lastRead = System.nanoTime();
+		}
+
+		synchronized void read(byte[] data, int off, int len) {
+			long now = System.nanoTime();
+			long delay = now - this.lastRead;
+			if (this.chunk.size() > 0 && delay >= CHUNK_MERGE_NANOS) {
+				this.chunks.add(
+						new Exchange.Chunk(this.chunkDelay, this.chunk.toByteArray()));
+				this.chunk.reset();
+			}
+			if (this.chunk.size() == 0) {
+				this.chunkDelay = delay;
+			}
+			this.chunk.write(data, off, len);
+			this.lastRead = now;
+		}
+
+		synchronized void end() {
+			this.complete = true;
+		}
+
+		void write() {
+			if (!this.written.compareAndSet(false, true)) {
+				return;
+			}
+			Exchange exchange;
+			synchronized (this) {
+				if (this.chunk.size() > 0) {
+					this.chunks.add(new Exchange.Chunk(this.chunkDelay,
+							this.chunk.toByteArray()));
+					this.chunk.reset();
+				}
+				byte[] body = this.request.body();
+				exchange = new Exchange(this.timestamp, this.request.httpMethod().name(),
+						RequestKeys.path(this.request), RequestKeys.key(this.request),
+						body != null ? body.length : 0,
+						withoutSecrets(this.request.headers()), this.response.status(),
+						this.response.reason(), withoutSecrets(this.response.headers()),
+						this.headersNanos, this.response.body() != null,
+						List.copyOf(this.chunks),
+						this.complete || this.response.body() == null);
+			}
+			try {
+				RecordingClient.this.writer.write(exchange);
+			}
+			catch (IOException e) {
+				log.warn("Recording {} {} failed", exchange.method(), exchange.path(), e);
+			}
+		}
+	}
+
+	/**
+	 * Copies the bytes read from the body into the recording and writes the exchange
+	 * when the body is closed.
+	 */
+	private static final class RecordingBody implements Response.Body {
+		private final Response.Body delegate;
+		private final Recording recording;
+
+		RecordingBody(Response.Body delegate, Recording recording) {
+			this.delegate = delegate;
+			this.recording = recording;
+		}
+
+		@Override
+		public Integer length() {
+			return this.delegate.length();
+		}
+
+		@Override
+		public boolean isRepeatable() {
+			return false;
+		}
+
+		@Override
+		public InputStream asInputStream() throws IOException {
+			return new FilterInputStream(this.delegate.asInputStream()) {
+				@Override
+				public int read() throws IOException {
+					int b = super.read();
+					if (b == -1) {
+						RecordingBody.this.recording.end();
+					}
+					else {
+						RecordingBody.this.recording.read(new byte[] { (byte) b }, 0, 1);
+					}
+					return b;
+				}
+
+				@Override
+				public int read(byte[] b, int off, int len) throws IOException {
+					int n = super.read(b, off, len);
+					if (n == -1) {
+						RecordingBody.this.recording.end();
+					}
+					else if (n > 0) {
+						RecordingBody.this.recording.read(b, off, n);
+					}
+					return n;
+				}
+
+				@Override
+				public void close() throws IOException {
+					try {
+						super.close();
+					}
+					finally {
+						RecordingBody.this.recording.write();
+					}
+				}
+			};
+		}
+
+		@Override
+		public Reader asReader(Charset charset) throws IOException {
+			return new InputStreamReader(asInputStream(), charset);
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				this.delegate.close();
+			}
+			finally {
+				this.recording.write();
+			}
+		}
+	}
+
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+
+/**
+ * Feign client that answers requests with the exchanges recorded by
+ * {@link RecordingClient}, without any network access.
+ * <p>
+ * A request matches a recorded exchange with the same HTTP method, path, query and
+ * canonical request body. JSON bodies match regardless of the property order and the
+ * whitespace, multipart bodies regardless of the boundary. When several exchanges
+ * match, for example the polls of a run, they are returned in the recorded order and
+ * start over after the last one.
+ * <p>
+ * The response headers and the body chunks are delayed by the recorded times
+ * multiplied by the time scale: 1 replays the original timing, 0.5 replays twice as
+ * fast and 0 returns the responses without delay.
+ * <p>
+ * A request without a recorded exchange fails with an {@link IllegalStateException}
+ * that is not retried by Feign.
+ *
+ * <pre>
+ * OpenAIClient client = OpenAIClient.create(c -&gt; c.apiKey("replay")
+ * 		.client(ReplayClient.of(Path.of("exchanges.log.gz"), 0)));
+ * </pre>
+ */
+public final class ReplayClient implements Client {
+
+	private final Map<String, Recorded> exchanges;
+
+	private final double timeScale;
+
+	private final int size;
+
+	private ReplayClient(List<Exchange> exchanges, double timeScale) {
+		Map<String, List<Exchange>> byKey = new HashMap<>();
+		for (Exchange exchange : exchanges) {
+			byKey.computeIfAbsent(exchange.requestKey(), k -> new ArrayList<>())
+					.add(exchange);
+		}
+		this.exchanges = new HashMap<>();
+		byKey.forEach((key, list) -> this.exchanges.put(key, new Recorded(list)));
+		this.timeScale = timeScale;
+		this.size = exchanges.size();
+	}
+
+	/**
+	 * Loads the log file and replays it with the original timing.
+	 */
+	public static ReplayClient of(Path file) throws IOException {
+		return of(file, 1);
+	}
+
+	/**
+	 * Loads the log file and replays it with the recorded delays multiplied by
+	 * timeScale.
+	 */
+	public static ReplayClient of(Path file, double timeScale) throws IOException {
+		if (file == null) {
+			throw new IllegalArgumentException("file must not be null");
+		}
+		if (timeScale < 0 || Double.isNaN(timeScale)) {
+			throw new IllegalArgumentException("timeScale must not be negative");
+		}
+		return new ReplayClient(ExchangeLog.read(file), timeScale);
+	}
+
+	/**
+	 * The number of exchanges loaded from the log file.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	@Override
+	public Response execute(Request request, Request.Options options)
+			throws IOException {
+		long start = System.nanoTime();
+		Recorded recorded = this.exchanges.get(RequestKeys.key(request));
+		if (recorded == null) {
+			throw new IllegalStateException("No recorded exchange for "
+					+ request.httpMethod() + " " + RequestKeys.path(request));
+		}
+		Exchange exchange = recorded.next();
+
+		long headersAt = start + scale(exchange.headersNanos());
+		parkUntil(headersAt);
+
+		Response.Builder response = Response.builder().request(request)
+				.status(exchange.status()).reason(exchange.reason())
+				.headers(exchange.responseHeaders());
+		if (exchange.hasBody()) {
+			long length = exchange.bodyLength();
+			response.body(new ReplayInputStream(exchange.chunks(), headersAt),
+					exchange.complete() && length <= Integer.MAX_VALUE ? (int) length
+							: null);
+		}
+		return response.build();
+	}
+
+	private long scale(long nanos) {
+		return (long) (nanos * this.timeScale);
+	}
+
+	private static void parkUntil(long deadline) {
+		long wait;
+		while ((wait = deadline - System.nanoTime()) > 0) {
+			LockSupport.parkNanos(wait);
+		}
+	}
+
+	/**
+	 * The exchanges recorded for one request key, returned round robin.
+	 */
+	private static final class Recorded {
+		private final List<Exchange> exchanges;
+		private final AtomicInteger next = new AtomicInteger();
+
+		Recorded(List<Exchange> exchanges) {
+			this.exchanges = exchanges;
+		}
+
+		Exchange next() {
+			return this.exchanges.get(
+					Math.floorMod(this.next.getAndIncrement(), this.exchanges.size()));
+		}
+	}
+
+	/**
+	 * Returns the recorded chunks, each one not before its recorded delay after the
+	 * previous one has become available.
+	 */
+	private final class ReplayInputStream extends InputStream {
+		private final List<Exchange.Chunk> chunks;
+		private long availableAt;
+		private int chunk = -1;
+		private int position;
+
+		ReplayInputStream(List<Exchange.Chunk> chunks, long headersAt) {
+			this.chunks = chunks;
+			this.availableAt = headersAt;
+		}
+
+		private boolean nextChunk() {
+			while (this.chunk == -1 || this.position == data().length) {
+				if (this.chunk + 1 >= this.chunks.size()) {
+					return false;
+				}
+				this.chunk++;
+				this.position = 0;
+				this.availableAt += scale(this.chunks.get(this.chunk).delayNanos());
+				parkUntil(this.availableAt);
+			}
+			return true;
+		}
+
+		private byte[] data() {
+			return this.chunks.get(this.chunk).data();
+		}
+
+		@Override
+		public int read() {
+			if (!nextChunk()) {
+				return -1;
+			}
+			return data()[this.position++] & 0xff;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (len == 0) {
+				return 0;
+			}
+			if (!nextChunk()) {
+				return -1;
+			}
+			int n = Math.min(len, data().length - this.position);
+			System.arraycopy(data(), this.position, b, off, n);
+			this.position += n;
+			return n;
+		}
+
+		@Override
+		public int available() {
+			return this.chunk == -1 ? 0 : data().length - this.position;
+		}
+	}
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.transport;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import feign.Request;
+
+/**
+ * Computes the key that matches a request to a recorded exchange: the HTTP method, the
+ * path with the query and a digest of the canonical request body.
+ * <p>
+ * JSON bodies are canonicalized by sorting the properties of all objects, so the
+ * property order and the whitespace do not matter. In multipart bodies the random
+ * boundary is replaced with a fixed string. Other bodies are used as they are.
+ */
+final class RequestKeys {
+
+	private static final ObjectMapper objectMapper = new ObjectMapper()
+			.enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+
+	private RequestKeys() {
+	}
+
+	static String key(Request request) {
+		return request.httpMethod() + " " + path(request) + " " + bodyDigest(request);
+	}
+
+	/**
+	 * Returns the path and the query of the request URL, the scheme and the host are
+	 * ignored so that a recording can be replayed with any base URL.
+	 */
+	static String path(Request request) {
+		URI uri = URI.create(request.url());
+		String path = uri.getRawPath();
+		return uri.getRawQuery() != null ? path + "?" + uri.getRawQuery() : path;
+	}
+
+	private static String bodyDigest(Request request) {
+		byte[] body = request.body();
+		if (body == null || body.length == 0) {
+			return "-";
+		}
+		MessageDigest digest = newDigest();
+		String contentType = contentType(request);
+		String boundary = contentType != null && contentType.startsWith("multipart/")
+				? boundary(contentType)
+				: null;
+		if (contentType != null && contentType.contains("json")) {
+			digest.update(canonicalJson(body));
+		}
+		else if (boundary != null) {
+			// the parts are hashed without a copy of the body, each boundary is
+			// replaced with the same fixed string
+			byte[] pattern = boundary.getBytes(StandardCharsets.ISO_8859_1);
+			byte[] replacement = "boundary".getBytes(StandardCharsets.ISO_8859_1);
+			int from = 0;
+			int match;
+			while ((match = indexOf(body, pattern, from)) != -1) {
+				digest.update(body, from, match - from);
+				digest.update(replacement);
+				from = match + pattern.length;
+			}
+			digest.update(body, from, body.length - from);
+		}
+		else {
+			digest.update(body);
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	private static byte[] canonicalJson(byte[] body) {
+		try {
+			return objectMapper
+					.writeValueAsBytes(objectMapper.readValue(body, Object.class));
+		}
+		catch (IOException e) {
+			return body;
+		}
+	}
+
+	private static String boundary(String contentType) {
+		int start = contentType.indexOf("boundary=");
+		if (start == -1) {
+			return null;
+		}
+		String value = contentType.substring(start + "boundary=".length());
+		int end = value.indexOf(';');
+		if (end != -1) {
+			value = value.substring(0, end);
+		}
+		value = value.trim();
+		return value.isEmpty() ? null : value;
+	}
+
+	private static int indexOf(byte[] data, byte[] pattern, int from) {
+		outer: for (int i = from; i <= data.length - pattern.length; i++) {
+			for (int j = 0; j < pattern.length; j++) {
+				if (data[i + j] != pattern[j]) {
+					continue outer;
+				}
+			}
+			return i;
+		}
+		return -1;
+	}
+
+	private static String contentType(Request request) {
+		Collection<String> contentTypes = request.headers().get("Content-Type");
+		if (contentTypes == null || contentTypes.isEmpty()) {
+			return null;
+		}
+		return String.join(";", contentTypes);
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,502 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.transport;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.http.HttpClient;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.Charset;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.http2client.Http2Client;
+
+/**
+ * Feign client that spreads the requests over a pool of {@link HttpClient} instances,
+ * each with its own HTTP/2 connection to the server.
+ * <p>
+ * HTTP/2 servers limit the number of concurrent streams of a connection, the OpenAI
+ * API like most servers to about 100. A single {@link Http2Client} multiplexes all
+ * requests over one connection, at a higher concurrency the requests queue behind
+ * this limit. This client keeps at most maxStreamsPerConnection requests in flight on
+ * each connection and opens another connection when all are busy, up to
+ * maxConnections. When the pool is full the requests wait for a free stream, at most
+ * the read timeout of the request.
+ * <p>
+ * A request is in flight until its response body is closed, a streamed response
+ * occupies its stream until the stream is read to the end or closed. Connections
+ * above minConnections that have been idle for idleTimeout are removed from the pool.
+ * <p>
+ * If the server answers with HTTP/1.1, or the pool is configured for HTTP/1.1, the
+ * pool stops opening connections and sends all requests through one client, which
+ * opens a connection per concurrent request itself.
+ *
+ * <pre>
+ * ShardedHttp2Client transport = ShardedHttp2Client.builder().maxConnections(8)
+ * 		.build();
+ * OpenAIClient client = OpenAIClient.create(c -&gt; c.apiKey(apiKey).client(transport));
+ * </pre>
+ */
+public final class ShardedHttp2Client implements Client {
+	private final static Logger log = LoggerFactory.getLogger(ShardedHttp2Client.class);
+
+	/**
+	 * How the connection of a request is chosen among the connections with a free
+	 * stream.
+	 */
+	public enum Selection {
+		/**
+		 * The connections are used in turn.
+		 */
+		ROUND_ROBIN,
+
+		/**
+		 * The connection with the fewest requests in flight is used.
+		 */
+		LEAST_IN_FLIGHT
+	}
+
+	private final int minConnections;
+	private final int maxConnections;
+	private final int maxStreamsPerConnection;
+	private final Selection selection;
+	private final long idleTimeoutNanos;
+	private final HttpClient.Version version;
+	private final Function<Request.Options, Client> clientFactory;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition released = this.lock.newCondition();
+	private final List<Shard> shards = new ArrayList<>();
+
+	private int next;
+	private int inFlight;
+	private int maxInFlight;
+	private int waiting;
+	private long requests;
+	private long waits;
+	private long connectionsCreated;
+	private long connectionsEvicted;
+	private boolean http1;
+	private long lastEviction;
+
+	private static final class Shard {
+		private final Client client;
+		private int inFlight;
+		private long lastUsed;
+
+		Shard(Client client, long now) {
+			this.client = client;
+			this.lastUsed = now;
+		}
+	}
+
+	private ShardedHttp2Client(Builder builder) {
+		if (builder.minConnections < 1) {
+			throw new IllegalArgumentException("minConnections must be greater than 0");
+		}
+		if (builder.maxConnections < builder.minConnections) {
+			throw new IllegalArgumentException(
+					"maxConnections must not be less than minConnections");
+		}
+		if (builder.maxStreamsPerConnection < 1) {
+			throw new IllegalArgumentException(
+					"maxStreamsPerConnection must be greater than 0");
+		}
+		if (builder.selection == null) {
+			throw new IllegalArgumentException("selection must not be null");
+		}
+		if (builder.idleTimeout == null || builder.idleTimeout.isNegative()) {
+			throw new IllegalArgumentException(
+					"idleTimeout must not be null or negative");
+		}
+		if (builder.version == null) {
+			throw new IllegalArgumentException("version must not be null");
+		}
+		this.minConnections = builder.minConnections;
+		this.maxConnections = builder.maxConnections;
+		this.maxStreamsPerConnection = builder.maxStreamsPerConnection;
+		this.selection = builder.selection;
+		this.idleTimeoutNanos = builder.idleTimeout.toNanos();
+		this.version = builder.version;
+		this.http1 = builder.version == HttpClient.Version.HTTP_1_1;
+		this.clientFactory = builder.clientFactory != null ? builder.clientFactory
+				: this::newClient;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static final class Builder {
+		private int minConnections = 1;
+		private int maxConnections = 8;
+		private int maxStreamsPerConnection = 100;
+		private Selection selection = Selection.LEAST_IN_FLIGHT;
+		private Duration idleTimeout = Duration.ofMinutes(1);
+		private HttpClient.Version version = HttpClient.Version.HTTP_2;
+		private Function<Request.Options, Client> clientFactory;
+
+		private Builder() {
+		}
+
+		/**
+		 * The number of connections that are kept open when idle. Defaults to 1.
+		 */
+		public Builder minConnections(int minConnections) {
+			this.minConnections = minConnections;
+			return this;
+		}
+
+		/**
+		 * The maximum number of connections. Defaults to 8.
+		 */
+		public Builder maxConnections(int maxConnections) {
+			this.maxConnections = maxConnections;
+			return this;
+		}
+
+		/**
+		 * The maximum number of requests in flight on one connection. Should not be
+		 * higher than the concurrent stream limit of the server. Defaults to 100.
+		 */
+		public Builder maxStreamsPerConnection(int maxStreamsPerConnection) {
+			this.maxStreamsPerConnection = maxStreamsPerConnection;
+			return this;
+		}
+
+		/**
+		 * How the connection of a request is chosen. Defaults to
+		 * {@link Selection#LEAST_IN_FLIGHT}.
+		 */
+		public Builder selection(Selection selection) {
+			this.selection = selection;
+			return this;
+		}
+
+		/**
+		 * The time after which a connection without requests is removed, as long as
+		 * more than minConnections are open. Defaults to 1 minute.
+		 */
+		public Builder idleTimeout(Duration idleTimeout) {
+			this.idleTimeout = idleTimeout;
+			return this;
+		}
+
+		/**
+		 * The HTTP version of the clients. Defaults to HTTP/2, with HTTP/1.1 the pool
+		 * uses a single client.
+		 */
+		public Builder version(HttpClient.Version version) {
+			this.version = version;
+			return this;
+		}
+
+		/**
+		 * Creates the client of each connection, used instead of an
+		 * {@link Http2Client} with its own HttpClient.
+		 */
+		Builder clientFactory(Function<Request.Options, Client> clientFactory) {
+			this.clientFactory = clientFactory;
+			return this;
+		}
+
+		public ShardedHttp2Client build() {
+			return new ShardedHttp2Client(this);
+		}
+	}
+
+	/**
+	 * Returns the current state of the pool.
+	 */
+	public PoolStats stats() {
+		this.lock.lock();
+		try {
+			return new PoolStats(this.shards.size(), this.inFlight, this.maxInFlight,
+					this.waiting, this.requests, this.waits, this.connectionsCreated,
+					this.connectionsEvicted, this.http1);
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	@Override
+	public Response execute(Request request, Request.Options options)
+			throws IOException {
+		Shard shard = acquire(options);
+		Response response;
+		try {
+			response = shard.client.execute(request, options);
+		}
+		catch (IOException | RuntimeException e) {
+			release(shard);
+			throw e;
+		}
+
+		if (response.protocolVersion() == Request.ProtocolVersion.HTTP_1_1) {
+			fallBackToHttp1();
+		}
+		if (response.body() == null) {
+			release(shard);
+			return response;
+		}
+		return response.toBuilder().body(new PooledBody(response.body(), shard))
+				.build();
+	}
+
+	private Shard acquire(Request.Options options) throws IOException {
+		long timeout = options.readTimeoutMillis() > 0
+				? TimeUnit.MILLISECONDS.toNanos(options.readTimeoutMillis())
+				: Long.MAX_VALUE;
+		this.lock.lock();
+		try {
+			long now = System.nanoTime();
+			evictIdle(now);
+			while (this.shards.size() < this.minConnections) {
+				this.shards.add(newShard(options, now));
+			}
+			boolean waited = false;
+			Shard shard;
+			while ((shard = select()) == null) {
+				if (this.shards.size() < this.maxConnections) {
+					shard = newShard(options, now);
+					this.shards.add(shard);
+					log.debug("Opened connection {} of the pool", this.shards.size());
+					break;
+				}
+				if (!waited) {
+					waited = true;
+					this.waits++;
+				}
+				if (timeout <= 0) {
+					throw new HttpTimeoutException(
+							"No free stream in the connection pool");
+				}
+				this.waiting++;
+				try {
+					timeout = this.released.awaitNanos(timeout);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while waiting for a free stream",
+							e);
+				}
+				finally {
+					this.waiting--;
+				}
+			}
+
+			shard.inFlight++;
+			shard.lastUsed = now;
+			this.requests++;
+			this.inFlight++;
+			this.maxInFlight = Math.max(this.maxInFlight, this.inFlight);
+			return shard;
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns a connection with a free stream or null if all are busy.
+	 */
+	private Shard select() {
+		int size = this.shards.size();
+		if (this.http1) {
+			// one client opens a connection per concurrent request itself
+			return this.shards.get(0);
+		}
+		if (this.selection == Selection.ROUND_ROBIN) {
+			for (int i = 0; i < size; i++) {
+				Shard shard = this.shards.get(Math.floorMod(this.next++, size));
+				if (shard.inFlight < this.maxStreamsPerConnection) {
+					return shard;
+				}
+			}
+			return null;
+		}
+		Shard least = null;
+		for (Shard shard : this.shards) {
+			if (shard.inFlight < this.maxStreamsPerConnection
+					&& (least == null || shard.inFlight < least.inFlight)) {
+				least = shard;
+			}
+		}
+		return least;
+	}
+
+	private Shard newShard(Request.Options options, long now) {
+		this.connectionsCreated++;
+		return new Shard(this.clientFactory.apply(options), now);
+	}
+
+	/**
+	 * Creates an Http2Client with the settings of the request options, so that the
+	 * client does not create another HttpClient for the requests.
+	 */
+	private Client newClient(Request.Options options) {
+		HttpClient httpClient = HttpClient.newBuilder().version(this.version)
+				.followRedirects(options.isFollowRedirects() ? HttpClient.Redirect.NORMAL
+						: HttpClient.Redirect.NEVER)
+				.connectTimeout(Duration.ofMillis(options.connectTimeoutMillis()))
+				.build();
+		return new Http2Client(httpClient);
+	}
+
+	/**
+	 * Removes idle connections above minConnections, checked at most once a second.
+	 * The HttpClient of a removed connection closes it when it is garbage collected.
+	 */
+	private void evictIdle(long now) {
+		if (now - this.lastEviction < TimeUnit.SECONDS.toNanos(1)) {
+			return;
+		}
+		this.lastEviction = now;
+		for (int i = this.shards.size() - 1; i >= 0
+				&& this.shards.size() > this.minConnections; i--) {
+			Shard shard = this.shards.get(i);
+			if (shard.inFlight == 0 && now - shard.lastUsed > this.idleTimeoutNanos) {
+				this.shards.remove(i);
+				this.connectionsEvicted++;
+				log.debug("Removed idle connection, {} left", this.shards.size());
+			}
+		}
+	}
+
+	private void fallBackToHttp1() {
+		this.lock.lock();
+		try {
+			if (!this.http1) {
+				this.http1 = true;
+				log.debug("Server answered with HTTP/1.1, using a single client");
+				this.released.signalAll();
+			}
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	private void release(Shard shard) {
+		this.lock.lock();
+		try {
+			shard.inFlight--;
+			shard.lastUsed = System.nanoTime();
+			this.inFlight--;
+			this.released.signal();
+		}
+		finally {
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Releases the stream of the request when the body or its input stream is closed,
+	 * or the input stream has been read to the end.
+	 */
+	private final class PooledBody implements Response.Body {
+		private final Response.Body delegate;
+		private final Shard shard;
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		PooledBody(Response.Body delegate, Shard shard) {
+			this.delegate = delegate;
+			this.shard = shard;
+		}
+
+		@Override
+		public Integer length() {
+			return this.delegate.length();
+		}
+
+		@Override
+		public boolean isRepeatable() {
+			return this.delegate.isRepeatable();
+		}
+
+		@Override
+		public InputStream asInputStream() throws IOException {
+			return new FilterInputStream(this.delegate.asInputStream()) {
+				@Override
+				public int read() throws IOException {
+					int b = super.read();
+					if (b == -1) {
+						PooledBody.this.release();
+					}
+					return b;
+				}
+
+				@Override
+				public int read(byte[] b, int off, int len) throws IOException {
+					int n = super.read(b, off, len);
+					if (n == -1) {
+						PooledBody.this.release();
+					}
+					return n;
+				}
+
+				@Override
+				public void close() throws IOException {
+					try {
+						super.close();
+					}
+					finally {
+						PooledBody.this.release();
+					}
+				}
+			};
+		}
+
+		@Override
+		public Reader asReader(Charset charset) throws IOException {
+			return new InputStreamReader(asInputStream(), charset);
+		}
+
+		@Override
+		public void close() throws IOException {
+			try {
+				this.delegate.close();
+			}
+			finally {
+				release();
+			}
+		}
+
+		private void release() {
+			if (this.closed.compareAndSet(false, true)) {
+				ShardedHttp2Client.this.release(this.shard);
+			}
+		}
+	}
+
+}
@@ -18,6 +18,7 @@ package ch.rasc.openai4j.uploads;
 import java.io.File;
 import java.util.function.Function;
 
+import ch.rasc.openai4j.common.FilePart;
 import feign.Headers;
 import feign.Param;
 import feign.RequestLine;
@@ -75,6 +76,23 @@ public interface UploadsClient {
 	@Headers("Content-Type: multipart/form-data")
 	UploadPart addPart(@Param("upload_id") String uploadId, @Param("data") File data);
 
+	/**
+	 * Adds a Part to an Upload object. A Part represents a chunk of bytes from the file
+	 * you are trying to upload.
+	 * <p>
+	 * Each Part can be at most 64 MB, and you can add Parts until you hit the Upload
+	 * maximum of 8 GB.
+	 * <p>
+	 * It is possible to add multiple Parts in parallel. You can decide the intended order
+	 * of the Parts when you complete the Upload.
+	 *
+	 * @return The upload Part object.
+	 */
+	@RequestLine("POST /uploads/{upload_id}/parts")
+	@Headers("Content-Type: multipart/form-data")
+	UploadPart addPart(@Param("upload_id") String uploadId,
+			@Param("data") FilePart data);
+
 	/**
 	 * Completes the Upload.
 	 * <p>
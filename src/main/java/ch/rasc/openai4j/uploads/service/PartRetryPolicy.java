@@ -0,0 +1,172 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.uploads.service;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import ch.rasc.openai4j.OpenAIApiException;
+import feign.FeignException;
+
+/**
+ * Retry policy for a single Part of an Upload. Applied on top of the Feign
+ * {@link feign.Retryer} configured in {@link ch.rasc.openai4j.Configuration}.
+ */
+@SuppressWarnings("hiding")
+public class PartRetryPolicy {
+	private final int maxAttempts;
+	private final long initialBackoffMillis;
+	private final long maxBackoffMillis;
+	private final double multiplier;
+	private final Predicate<Throwable> retryOn;
+
+	private PartRetryPolicy(Builder builder) {
+		if (builder.maxAttempts <= 0) {
+			throw new IllegalArgumentException("maxAttempts must be greater than 0");
+		}
+		if (builder.multiplier < 1.0) {
+			throw new IllegalArgumentException(
+					"multiplier must be greater than or equal to 1");
+		}
+		this.maxAttempts = builder.maxAttempts;
+		this.initialBackoffMillis = builder.initialBackoffMillis;
+		this.maxBackoffMillis = Math.max(builder.maxBackoffMillis,
+				builder.initialBackoffMillis);
+		this.multiplier = builder.multiplier;
+		this.retryOn = builder.retryOn;
+	}
+
+	/**
+	 * Returns true for failures that can succeed on retry: I/O errors and responses with
+	 * status 429 or 5xx. Other API errors, like 400, 401 or 404, are not transient.
+	 */
+	public static boolean isTransient(Throwable error) {
+		if (error instanceof FeignException fe && fe.status() > 0) {
+			return fe.status() == 429 || fe.status() >= 500;
+		}
+		for (Throwable e = error; e != null; e = e.getCause()) {
+			if (e instanceof OpenAIApiException) {
+				return false;
+			}
+			if (e instanceof IOException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * A policy that tries every Part exactly once.
+	 */
+	public static PartRetryPolicy none() {
+		return builder().maxAttempts(1).build();
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static class Builder {
+		private int maxAttempts = 3;
+		private long initialBackoffMillis = TimeUnit.SECONDS.toMillis(1);
+		private long maxBackoffMillis = TimeUnit.SECONDS.toMillis(30);
+		private double multiplier = 2.0;
+		private Predicate<Throwable> retryOn = PartRetryPolicy::isTransient;
+
+		private Builder() {
+		}
+
+		/**
+		 * Maximum number of attempts per Part, including the first one. Defaults to 3.
+		 */
+		public Builder maxAttempts(int maxAttempts) {
+			this.maxAttempts = maxAttempts;
+			return this;
+		}
+
+		/**
+		 * Backoff before the first retry. Defaults to 1 second.
+		 */
+		public Builder initialBackoff(long initialBackoff, TimeUnit timeUnit) {
+			this.initialBackoffMillis = timeUnit.toMillis(initialBackoff);
+			return this;
+		}
+
+		/**
+		 * Upper bound of the backoff between two attempts. Defaults to 30 seconds.
+		 */
+		public Builder maxBackoff(long maxBackoff, TimeUnit timeUnit) {
+			this.maxBackoffMillis = timeUnit.toMillis(maxBackoff);
+			return this;
+		}
+
+		/**
+		 * Factor the backoff is multiplied with after each failed attempt. Defaults to
+		 * 2.
+		 */
+		public Builder multiplier(double multiplier) {
+			this.multiplier = multiplier;
+			return this;
+		}
+
+		/**
+		 * Decides if a failed attempt is retried. Defaults to
+		 * {@link PartRetryPolicy#isTransient(Throwable)}.
+		 */
+		public Builder retryOn(Predicate<Throwable> retryOn) {
+			this.retryOn = retryOn;
+			return this;
+		}
+
+		public PartRetryPolicy build() {
+			return new PartRetryPolicy(this);
+		}
+	}
+
+	public int maxAttempts() {
+		return this.maxAttempts;
+	}
+
+	public long initialBackoffMillis() {
+		return this.initialBackoffMillis;
+	}
+
+	public long maxBackoffMillis() {
+		return this.maxBackoffMillis;
+	}
+
+	public double multiplier() {
+		return this.multiplier;
+	}
+
+	/**
+	 * Returns true if another attempt should be made after the given failed attempt
+	 * (1-based).
+	 */
+	public boolean shouldRetry(int attempt, Throwable error) {
+		return attempt < this.maxAttempts && this.retryOn.test(error);
+	}
+
+	/**
+	 * Returns the backoff in milliseconds after the given failed attempt (1-based).
+	 */
+	public long backoffMillis(int attempt) {
+		double backoff = this.initialBackoffMillis
+				* Math.pow(this.multiplier, attempt - 1);
+		return (long) Math.min(backoff, this.maxBackoffMillis);
+	}
+}
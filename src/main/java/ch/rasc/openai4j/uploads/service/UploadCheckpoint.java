@@ -0,0 +1,83 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.uploads.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Sidecar file content of a resumable Upload. Records the Upload ID, the Part
+ * boundaries and the IDs of the Parts that were already added.
+ */
+record UploadCheckpoint(@JsonProperty("upload_id") String uploadId, String filename,
+		long bytes, @JsonProperty("last_modified") long lastModified,
+		@JsonProperty("part_size") int partSize, List<Part> parts) {
+
+	private static final ObjectMapper objectMapper = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+	record Part(int index, long offset, int length,
+			@JsonProperty("part_id") String partId) {
+	}
+
+	static UploadCheckpoint create(String uploadId, String filename, long bytes,
+			long lastModified, int partSize) {
+		int partCount = (int) ((bytes + partSize - 1) / partSize);
+		List<Part> parts = new ArrayList<>(partCount);
+		for (int i = 0; i < partCount; i++) {
+			long offset = (long) i * partSize;
+			parts.add(new Part(i, offset, (int) Math.min(partSize, bytes - offset), null));
+		}
+		return new UploadCheckpoint(uploadId, filename, bytes, lastModified, partSize,
+				parts);
+	}
+
+	static UploadCheckpoint read(Path path) throws IOException {
+		return objectMapper.readValue(path.toFile(), UploadCheckpoint.class);
+	}
+
+	/**
+	 * Writes the checkpoint to a temporary file and atomically moves it to path, so a
+	 * crash never leaves a truncated sidecar file behind.
+	 */
+	void write(Path path) throws IOException {
+		Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+		objectMapper.writeValue(tmp.toFile(), this);
+		Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	boolean matches(String filename, long bytes, long lastModified, int partSize) {
+		return this.filename.equals(filename) && this.bytes == bytes
+				&& this.lastModified == lastModified && this.partSize == partSize;
+	}
+
+	UploadCheckpoint withPartId(int index, String partId) {
+		List<Part> newParts = new ArrayList<>(this.parts);
+		Part part = newParts.get(index);
+		newParts.set(index, new Part(part.index(), part.offset(), part.length(), partId));
+		return new UploadCheckpoint(this.uploadId, this.filename, this.bytes,
+				this.lastModified, this.partSize, newParts);
+	}
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.uploads.service;
+
+import java.nio.file.Path;
+import java.util.function.Function;
+
+import ch.rasc.openai4j.files.Purpose;
+
+@SuppressWarnings("hiding")
+public class UploadFileRequest {
+
+	/**
+	 * Maximum size of a single Part (64 MB).
+	 */
+	public static final int MAX_PART_SIZE = 64 * 1024 * 1024;
+
+	private final Path file;
+	private final String filename;
+	private final Purpose purpose;
+	private final String mimeType;
+	private final int partSize;
+	private final int parallelism;
+	private final boolean md5;
+	private final Path checkpoint;
+	private final PartRetryPolicy partRetryPolicy;
+
+	private UploadFileRequest(Builder builder) {
+		if (builder.file == null) {
+			throw new IllegalArgumentException("file must not be null");
+		}
+		if (builder.purpose == null) {
+			throw new IllegalArgumentException("purpose must not be null");
+		}
+		if (builder.mimeType == null || builder.mimeType.isBlank()) {
+			throw new IllegalArgumentException("mimeType must not be null or empty");
+		}
+		if (builder.partSize == null) {
+			builder.partSize = MAX_PART_SIZE;
+		}
+		else if (builder.partSize <= 0 || builder.partSize > MAX_PART_SIZE) {
+			throw new IllegalArgumentException(
+					"partSize must be greater than 0 and at most " + MAX_PART_SIZE);
+		}
+		if (builder.parallelism == null) {
+			builder.parallelism = 4;
+		}
+		else if (builder.parallelism <= 0) {
+			throw new IllegalArgumentException("parallelism must be greater than 0");
+		}
+
+		this.file = builder.file;
+		this.filename = builder.filename != null && !builder.filename.isBlank()
+				? builder.filename
+				: builder.file.getFileName().toString();
+		this.purpose = builder.purpose;
+		this.mimeType = builder.mimeType;
+		this.partSize = builder.partSize;
+		this.parallelism = builder.parallelism;
+		this.md5 = builder.md5 == null || builder.md5;
+		this.checkpoint = builder.checkpoint;
+		this.partRetryPolicy = builder.partRetryPolicy != null ? builder.partRetryPolicy
+				: PartRetryPolicy.builder().build();
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static final class Builder {
+		private Path file;
+		private String filename;
+		private Purpose purpose;
+		private String mimeType;
+		private Integer partSize;
+		private Integer parallelism;
+		private Boolean md5;
+		private Path checkpoint;
+		private PartRetryPolicy partRetryPolicy;
+
+		private Builder() {
+		}
+
+		/**
+		 * The file to upload.
+		 */
+		public Builder file(Path file) {
+			this.file = file;
+			return this;
+		}
+
+		/**
+		 * The name of the file. Defaults to the file name of {@link #file(Path)}.
+		 */
+		public Builder filename(String filename) {
+			this.filename = filename;
+			return this;
+		}
+
+		/**
+		 * The intended purpose of the uploaded file.
+		 */
+		public Builder purpose(Purpose purpose) {
+			this.purpose = purpose;
+			return this;
+		}
+
+		/**
+		 * The MIME type of the file.
+		 * <p>
+		 * This must fall within the supported MIME types for your file purpose.
+		 */
+		public Builder mimeType(String mimeType) {
+			this.mimeType = mimeType;
+			return this;
+		}
+
+		/**
+		 * The size of each Part in bytes. Defaults to and must not exceed 64 MB.
+		 */
+		public Builder partSize(int partSize) {
+			this.partSize = partSize;
+			return this;
+		}
+
+		/**
+		 * The maximum number of Parts that are uploaded at the same time. Defaults to 4.
+		 * <p>
+		 * Each Part in flight holds up to partSize bytes in memory.
+		 */
+		public Builder parallelism(int parallelism) {
+			this.parallelism = parallelism;
+			return this;
+		}
+
+		/**
+		 * Send the md5 checksum of the file when completing the Upload. Defaults to
+		 * true.
+		 */
+		public Builder md5(boolean md5) {
+			this.md5 = md5;
+			return this;
+		}
+
+		/**
+		 * Sidecar file that records the Upload ID and the Parts already added. When set,
+		 * a failed upload is not cancelled and calling upload again with the same
+		 * request only sends the missing Parts. The file is deleted after the Upload is
+		 * completed.
+		 * <p>
+		 * An Upload expires an hour after it was created.
+		 */
+		public Builder checkpoint(Path checkpoint) {
+			this.checkpoint = checkpoint;
+			return this;
+		}
+
+		/**
+		 * Retry policy for a single Part. Defaults to 3 attempts with exponential
+		 * backoff starting at 1 second, for I/O errors, 429 and 5xx responses.
+		 */
+		public Builder partRetryPolicy(PartRetryPolicy partRetryPolicy) {
+			this.partRetryPolicy = partRetryPolicy;
+			return this;
+		}
+
+		/**
+		 * Retry policy for a single Part. Defaults to 3 attempts with exponential
+		 * backoff starting at 1 second, for I/O errors, 429 and 5xx responses.
+		 */
+		public Builder partRetryPolicy(
+				Function<PartRetryPolicy.Builder, PartRetryPolicy.Builder> fn) {
+			this.partRetryPolicy = fn.apply(PartRetryPolicy.builder()).build();
+			return this;
+		}
+
+		public UploadFileRequest build() {
+			return new UploadFileRequest(this);
+		}
+	}
+
+	public Path file() {
+		return this.file;
+	}
+
+	public String filename() {
+		return this.filename;
+	}
+
+	public Purpose purpose() {
+		return this.purpose;
+	}
+
+	public String mimeType() {
+		return this.mimeType;
+	}
+
+	public int partSize() {
+		return this.partSize;
+	}
+
+	public int parallelism() {
+		return this.parallelism;
+	}
+
+	public boolean md5() {
+		return this.md5;
+	}
+
+	public Path checkpoint() {
+		return this.checkpoint;
+	}
+
+	public PartRetryPolicy partRetryPolicy() {
+		return this.partRetryPolicy;
+	}
+
+}
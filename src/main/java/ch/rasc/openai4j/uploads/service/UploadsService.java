@@ -0,0 +1,331 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.uploads.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.rasc.openai4j.common.FilePart;
+import ch.rasc.openai4j.uploads.Upload;
+import ch.rasc.openai4j.uploads.UploadPart;
+import ch.rasc.openai4j.uploads.UploadsClient;
+
+/**
+ * High level uploads client that splits a file into Parts and uploads them in parallel
+ */
+public class UploadsService {
+	private final static Logger log = LoggerFactory.getLogger(UploadsService.class);
+
+	private final UploadsClient uploadsClient;
+
+	public UploadsService(UploadsClient uploadsClient) {
+		this.uploadsClient = uploadsClient;
+	}
+
+	/**
+	 * Uploads a file with the Uploads API. The file is memory-mapped and sliced into
+	 * Parts of at most 64 MB that are sent concurrently. The Upload is completed with the
+	 * Part IDs in file order and, if enabled, the md5 checksum of the file.
+	 * <p>
+	 * Without a checkpoint file the Upload is cancelled when a Part fails. With a
+	 * checkpoint file the Upload is kept and calling this method again resumes it.
+	 *
+	 * @param fn An upload file request builder function
+	 * @return The Upload object with status completed
+	 * @throws IOException If the file or the checkpoint file cannot be read or written
+	 */
+	public Upload upload(
+			Function<UploadFileRequest.Builder, UploadFileRequest.Builder> fn)
+			throws IOException {
+		return this.upload(fn.apply(UploadFileRequest.builder()).build());
+	}
+
+	/**
+	 * Uploads a file with the Uploads API. The file is memory-mapped and sliced into
+	 * Parts of at most 64 MB that are sent concurrently. The Upload is completed with the
+	 * Part IDs in file order and, if enabled, the md5 checksum of the file.
+	 * <p>
+	 * Without a checkpoint file the Upload is cancelled when a Part fails. With a
+	 * checkpoint file the Upload is kept and calling this method again resumes it.
+	 *
+	 * @param request An upload file request
+	 * @return The Upload object with status completed
+	 * @throws IOException If the file or the checkpoint file cannot be read or written
+	 */
+	public Upload upload(UploadFileRequest request) throws IOException {
+		long bytes = Files.size(request.file());
+		long lastModified = Files.getLastModifiedTime(request.file()).toMillis();
+
+		UploadCheckpoint checkpoint = readCheckpoint(request, bytes, lastModified);
+		if (checkpoint == null) {
+			Upload upload = this.uploadsClient.create(r -> r
+					.filename(request.filename()).purpose(request.purpose())
+					.bytes(bytes).mimeType(request.mimeType()));
+			log.debug("Created upload {} for {} bytes", upload.id(), bytes);
+			checkpoint = UploadCheckpoint.create(upload.id(), request.filename(), bytes,
+					lastModified, request.partSize());
+			if (request.checkpoint() != null) {
+				checkpoint.write(request.checkpoint());
+			}
+		}
+
+		String uploadId = checkpoint.uploadId();
+		try {
+			UploadedParts parts = uploadParts(request, checkpoint);
+			log.debug("Completing upload {} with {} parts", uploadId,
+					parts.partIds().size());
+			Upload upload = this.uploadsClient.complete(uploadId,
+					r -> r.partIds(parts.partIds()).md5(parts.md5()));
+			if (request.checkpoint() != null) {
+				Files.deleteIfExists(request.checkpoint());
+			}
+			return upload;
+		}
+		catch (IOException | RuntimeException e) {
+			if (request.checkpoint() == null) {
+				cancelQuietly(uploadId);
+			}
+			else {
+				log.debug("Upload {} failed, resume from checkpoint {}", uploadId,
+						request.checkpoint());
+			}
+			throw e;
+		}
+	}
+
+	private static UploadCheckpoint readCheckpoint(UploadFileRequest request,
+			long bytes, long lastModified) throws IOException {
+		Path path = request.checkpoint();
+		if (path == null || !Files.exists(path)) {
+			return null;
+		}
+
+		UploadCheckpoint checkpoint = UploadCheckpoint.read(path);
+		if (!checkpoint.matches(request.filename(), bytes, lastModified,
+				request.partSize())) {
+			log.debug("Ignoring checkpoint {}, file has changed", path);
+			return null;
+		}
+		log.debug("Resuming upload {} from checkpoint {}", checkpoint.uploadId(), path);
+		return checkpoint;
+	}
+
+	private record UploadedParts(List<String> partIds, String md5) {
+	}
+
+	/**
+	 * Collects the Part IDs and keeps the checkpoint file up to date while Parts
+	 * complete on the executor threads.
+	 */
+	private static final class CheckpointTracker {
+		private final Path path;
+		private UploadCheckpoint checkpoint;
+
+		CheckpointTracker(Path path, UploadCheckpoint checkpoint) {
+			this.path = path;
+			this.checkpoint = checkpoint;
+		}
+
+		synchronized void completed(int index, String partId) {
+			this.checkpoint = this.checkpoint.withPartId(index, partId);
+			if (this.path != null) {
+				try {
+					this.checkpoint.write(this.path);
+				}
+				catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		}
+
+		synchronized List<String> partIds() {
+			return this.checkpoint.parts().stream().map(UploadCheckpoint.Part::partId)
+					.toList();
+		}
+	}
+
+	private UploadedParts uploadParts(UploadFileRequest request,
+			UploadCheckpoint checkpoint) throws IOException {
+		String uploadId = checkpoint.uploadId();
+		List<UploadCheckpoint.Part> parts = checkpoint.parts();
+		long missing = parts.stream().filter(p -> p.partId() == null).count();
+		if (missing < parts.size()) {
+			log.debug("Upload {}: {} of {} parts already added", uploadId,
+					parts.size() - missing, parts.size());
+		}
+
+		MessageDigest digest = request.md5() ? newMd5Digest() : null;
+		CheckpointTracker tracker = new CheckpointTracker(request.checkpoint(),
+				checkpoint);
+
+		ExecutorService executor = Executors.newFixedThreadPool(
+				(int) Math.min(request.parallelism(), Math.max(missing, 1)));
+		CompletionService<UploadPart> completion = new ExecutorCompletionService<>(
+				executor);
+		Semaphore inFlight = new Semaphore(request.parallelism());
+		List<Future<?>> futures = new ArrayList<>(parts.size());
+		int completed = 0;
+
+		try (FileChannel channel = FileChannel.open(request.file(),
+				StandardOpenOption.READ)) {
+			for (UploadCheckpoint.Part part : parts) {
+				if (part.partId() != null && digest == null) {
+					continue;
+				}
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+						part.offset(), part.length());
+
+				// parts are visited in file order, so the checksum can be updated
+				// incrementally while earlier parts are still in flight
+				if (digest != null) {
+					digest.update(buffer.duplicate());
+				}
+				if (part.partId() != null) {
+					continue;
+				}
+
+				// a failed part ends the upload before the remaining parts are sent,
+				// the parts still in flight are cancelled in the finally block
+				completed += checkCompleted(completion);
+				inFlight.acquire();
+				try {
+					completed += checkCompleted(completion);
+					futures.add(completion.submit(() -> {
+						try {
+							UploadPart uploadPart = addPart(uploadId, part, buffer,
+									request);
+							tracker.completed(part.index(), uploadPart.id());
+							return uploadPart;
+						}
+						finally {
+							inFlight.release();
+						}
+					}));
+				}
+				catch (RuntimeException e) {
+					inFlight.release();
+					throw e;
+				}
+			}
+
+			// parts are taken in completion order, so a failure is seen as soon as
+			// it happens and not after the parts submitted before it
+			for (int i = completed; i < futures.size(); i++) {
+				completion.take().get();
+			}
+
+			return new UploadedParts(tracker.partIds(),
+					digest != null ? HexFormat.of().formatHex(digest.digest()) : null);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof UncheckedIOException uioe) {
+				throw uioe.getCause();
+			}
+			if (e.getCause() instanceof RuntimeException re) {
+				throw re;
+			}
+			throw new RuntimeException(e.getCause());
+		}
+		finally {
+			futures.forEach(f -> f.cancel(true));
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Returns the number of parts that have completed since the last call. Throws the
+	 * exception of a part that failed.
+	 */
+	private static int checkCompleted(CompletionService<UploadPart> completion)
+			throws InterruptedException, ExecutionException {
+		int count = 0;
+		Future<UploadPart> future;
+		while ((future = completion.poll()) != null) {
+			future.get();
+			count++;
+		}
+		return count;
+	}
+
+	private UploadPart addPart(String uploadId, UploadCheckpoint.Part part,
+			MappedByteBuffer buffer, UploadFileRequest request)
+			throws InterruptedException {
+		PartRetryPolicy retryPolicy = request.partRetryPolicy();
+		int attempt = 1;
+		while (true) {
+			try {
+				log.debug("Adding part {} ({} bytes) to upload {}, attempt {}",
+						part.index(), part.length(), uploadId, attempt);
+				return this.uploadsClient.addPart(uploadId, FilePart.of(buffer,
+						request.filename(), "application/octet-stream"));
+			}
+			catch (RuntimeException e) {
+				if (!retryPolicy.shouldRetry(attempt, e)) {
+					throw e;
+				}
+				long backoff = retryPolicy.backoffMillis(attempt);
+				log.debug("Part {} of upload {} failed, retrying in {} ms", part.index(),
+						uploadId, backoff, e);
+				Thread.sleep(backoff);
+				attempt++;
+			}
+		}
+	}
+
+	private static MessageDigest newMd5Digest() {
+		try {
+			return MessageDigest.getInstance("MD5");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private void cancelQuietly(String uploadId) {
+		try {
+			this.uploadsClient.cancel(uploadId);
+		}
+		catch (RuntimeException e) {
+			log.debug("Cancelling upload {} failed", uploadId, e);
+		}
+	}
+
+}
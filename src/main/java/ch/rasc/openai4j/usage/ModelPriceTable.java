@@ -0,0 +1,99 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.usage;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Price table with prices per million tokens for model name prefixes. A model is
+ * priced with the longest matching prefix, so a price for gpt-4o also applies to
+ * gpt-4o-2024-08-06. Models without a matching prefix cost nothing.
+ */
+@SuppressWarnings("hiding")
+public final class ModelPriceTable implements PriceTable {
+
+	private final Map<String, Price> prices;
+
+	private final ConcurrentHashMap<String, Price> resolved = new ConcurrentHashMap<>();
+
+	private static final Price NO_PRICE = new Price(0, 0);
+
+	private record Price(double promptPerMillion, double completionPerMillion) {
+	}
+
+	private ModelPriceTable(Builder builder) {
+		this.prices = Map.copyOf(builder.prices);
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public static final class Builder {
+		private final Map<String, Price> prices = new TreeMap<>();
+
+		private Builder() {
+		}
+
+		/**
+		 * Sets the price of the models starting with the prefix.
+		 *
+		 * @param modelPrefix A model name or the start of model names
+		 * @param promptPerMillion The price of one million prompt tokens
+		 * @param completionPerMillion The price of one million completion tokens
+		 */
+		public Builder price(String modelPrefix, double promptPerMillion,
+				double completionPerMillion) {
+			if (modelPrefix == null) {
+				throw new IllegalArgumentException("modelPrefix must not be null");
+			}
+			if (promptPerMillion < 0 || completionPerMillion < 0) {
+				throw new IllegalArgumentException("prices must not be negative");
+			}
+			this.prices.put(modelPrefix,
+					new Price(promptPerMillion, completionPerMillion));
+			return this;
+		}
+
+		public ModelPriceTable build() {
+			return new ModelPriceTable(this);
+		}
+	}
+
+	@Override
+	public double cost(String model, long promptTokens, long completionTokens) {
+		if (model == null) {
+			return 0;
+		}
+		Price price = this.resolved.computeIfAbsent(model, this::lookup);
+		return (promptTokens * price.promptPerMillion()
+				+ completionTokens * price.completionPerMillion()) / 1_000_000;
+	}
+
+	private Price lookup(String model) {
+		String match = null;
+		for (String prefix : this.prices.keySet()) {
+			if (model.startsWith(prefix)
+					&& (match == null || prefix.length() > match.length())) {
+				match = prefix;
+			}
+		}
+		return match != null ? this.prices.get(match) : NO_PRICE;
+	}
+
+}
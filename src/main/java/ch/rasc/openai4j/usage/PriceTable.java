@@ -0,0 +1,38 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.usage;
+
+/**
+ * Calculates the cost of token usage.
+ *
+ * @see ModelPriceTable
+ */
+@FunctionalInterface
+public interface PriceTable {
+
+	/**
+	 * A price table that prices everything at zero.
+	 */
+	PriceTable FREE = (model, promptTokens, completionTokens) -> 0;
+
+	/**
+	 * Returns the cost of the tokens, in the currency of the table.
+	 *
+	 * @param model The model reported in the response
+	 */
+	double cost(String model, long promptTokens, long completionTokens);
+
+}
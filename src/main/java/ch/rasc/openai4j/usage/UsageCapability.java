@@ -0,0 +1,284 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.usage;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ch.rasc.openai4j.chatcompletions.ChatCompletionResponse;
+import ch.rasc.openai4j.embeddings.EmbeddingCreateResponse;
+import ch.rasc.openai4j.metrics.MetricsCapability;
+import ch.rasc.openai4j.threads.runs.ThreadRun;
+import feign.Capability;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.codec.Decoder;
+
+/**
+ * Feign capability that records the usage of chat completion, embedding and thread
+ * run responses in a {@link UsageLedger}. {@link ch.rasc.openai4j.OpenAIClient} adds it
+ * to all clients when {@link ch.rasc.openai4j.Configuration.Builder#usageLedger}
+ * is set.
+ * <p>
+ * The events of assistant streams are scanned while the stream is read, a run is
+ * recorded when the event that ends it arrives.
+ * <p>
+ * The usage is recorded with the tags set with {@link UsageLedger#tag(String, String)}
+ * on the thread that called the client, also when a stream is read on another thread.
+ */
+public final class UsageCapability implements Capability {
+	private final static Logger log = LoggerFactory.getLogger(UsageCapability.class);
+
+	private static final ObjectMapper objectMapper = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+	// the only run events that carry the final usage of a run
+	private static final Set<String> FINAL_RUN_EVENTS = Set.of("thread.run.completed",
+			"thread.run.failed", "thread.run.cancelled", "thread.run.expired",
+			"thread.run.incomplete");
+
+	private static final byte[] EVENT = "event:".getBytes(StandardCharsets.US_ASCII);
+
+	private static final byte[] DATA = "data:".getBytes(StandardCharsets.US_ASCII);
+
+	private final UsageLedger ledger;
+
+	public UsageCapability(UsageLedger ledger) {
+		if (ledger == null) {
+			throw new IllegalArgumentException("ledger must not be null");
+		}
+		this.ledger = ledger;
+	}
+
+	@Override
+	public Client enrich(Client client) {
+		return (request, options) -> {
+			Response response = client.execute(request, options);
+			if (response.body() == null || !isEventStream(response)) {
+				return response;
+			}
+			// the stream might be read on another thread, the tags of the caller apply
+			return response.toBuilder()
+					.body(new RunEventBody(response.body(), UsageLedger.currentTags()))
+					.build();
+		};
+	}
+
+	@Override
+	public Decoder enrich(Decoder decoder) {
+		return (response, type) -> {
+			Object result = decoder.decode(response, type);
+			Request request = response.request();
+			if (result instanceof ChatCompletionResponse chatCompletion
+					&& chatCompletion.usage() != null) {
+				this.ledger.record(chatCompletion.model(), user(request),
+						chatCompletion.usage().promptTokens(),
+						chatCompletion.usage().completionTokens());
+			}
+			else if (result instanceof EmbeddingCreateResponse embedding
+					&& embedding.usage() != null) {
+				this.ledger.record(embedding.model(), user(request),
+						embedding.usage().promptTokens(), 0);
+			}
+			else if (result instanceof ThreadRun run) {
+				this.ledger.record(run);
+			}
+			return result;
+		};
+	}
+
+	private static String user(Request request) {
+		return request != null ? MetricsCapability.jsonProperty(request, "user") : null;
+	}
+
+	private static boolean isEventStream(Response response) {
+		Collection<String> contentTypes = response.headers().get("Content-Type");
+		if (contentTypes == null) {
+			return false;
+		}
+		for (String contentType : contentTypes) {
+			if (contentType.startsWith("text/event-stream")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Scans the server-sent events of an assistant stream while they are read and
+	 * records the runs they contain.
+	 */
+	private final class RunEventBody implements Response.Body {
+		private final Response.Body delegate;
+		private final Map<String, String> tags;
+
+		RunEventBody(Response.Body delegate, Map<String, String> tags) {
+			this.delegate = delegate;
+			this.tags = tags;
+		}
+
+		@Override
+		public Integer length() {
+			return this.delegate.length();
+		}
+
+		@Override
+		public boolean isRepeatable() {
+			return this.delegate.isRepeatable();
+		}
+
+		@Override
+		public InputStream asInputStream() throws IOException {
+			return new RunEventInputStream(this.delegate.asInputStream(), this.tags);
+		}
+
+		@Override
+		public Reader asReader(Charset charset) throws IOException {
+			return new InputStreamReader(asInputStream(), charset);
+		}
+
+		@Override
+		public void close() throws IOException {
+			this.delegate.close();
+		}
+	}
+
+	/**
+	 * Scans the lines of the stream without decoding them. Only the names of the events
+	 * are read, and only the data of the events that end a run is kept and parsed.
+	 */
+	private final class RunEventInputStream extends FilterInputStream {
+		private final Map<String, String> tags;
+		// long enough for every event name, longer lines are only partially kept
+		private final byte[] line = new byte[128];
+		private int lineLength;
+		private boolean finalRunEvent;
+		private boolean inData;
+		private byte[] data = new byte[0];
+		private int dataLength;
+
+		RunEventInputStream(InputStream in, Map<String, String> tags) {
+			super(in);
+			this.tags = tags;
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if (b != -1) {
+				scan((byte) b);
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = super.read(b, off, len);
+			for (int i = 0; i < n; i++) {
+				scan(b[off + i]);
+			}
+			return n;
+		}
+
+		private void scan(byte b) {
+			// lines end with \n or \r\n
+			if (b == '\r') {
+				return;
+			}
+			if (b == '\n') {
+				endLine();
+			}
+			else if (this.inData) {
+				appendData(b);
+			}
+			else if (this.lineLength < this.line.length) {
+				this.line[this.lineLength++] = b;
+				if (this.finalRunEvent && this.lineLength == DATA.length
+						&& startsWith(DATA)) {
+					if (this.dataLength > 0) {
+						appendData((byte) '\n');
+					}
+					this.inData = true;
+				}
+			}
+		}
+
+		private void endLine() {
+			if (this.lineLength == 0) {
+				if (this.dataLength > 0) {
+					recordRun();
+				}
+				this.finalRunEvent = false;
+				this.dataLength = 0;
+			}
+			else if (startsWith(EVENT)) {
+				String event = new String(this.line, EVENT.length,
+						this.lineLength - EVENT.length, StandardCharsets.UTF_8).trim();
+				this.finalRunEvent = FINAL_RUN_EVENTS.contains(event);
+			}
+			this.lineLength = 0;
+			this.inData = false;
+		}
+
+		private boolean startsWith(byte[] prefix) {
+			if (this.lineLength < prefix.length) {
+				return false;
+			}
+			for (int i = 0; i < prefix.length; i++) {
+				if (this.line[i] != prefix[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private void appendData(byte b) {
+			if (this.dataLength == this.data.length) {
+				this.data = Arrays.copyOf(this.data,
+						Math.max(1024, this.data.length * 2));
+			}
+			this.data[this.dataLength++] = b;
+		}
+
+		private void recordRun() {
+			try {
+				ThreadRun run = objectMapper.readValue(this.data, 0, this.dataLength,
+						ThreadRun.class);
+				UsageCapability.this.ledger.record(run, this.tags);
+			}
+			catch (IOException | RuntimeException e) {
+				log.debug("Ignoring run event that cannot be read", e);
+			}
+		}
+	}
+
+}
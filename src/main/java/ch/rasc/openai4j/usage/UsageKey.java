@@ -0,0 +1,49 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.usage;
+
+import java.util.Map;
+
+/**
+ * The dimensions usage is accounted by.
+ */
+public record UsageKey(String model, String user, Map<String, String> tags) {
+
+	/**
+	 * The model reported in the response.
+	 */
+	@Override
+	public String model() {
+		return this.model;
+	}
+
+	/**
+	 * The user sent with the request or null.
+	 */
+	@Override
+	public String user() {
+		return this.user;
+	}
+
+	/**
+	 * The tags that were set with {@link UsageLedger#tag(String, String)} on the thread
+	 * that received the response.
+	 */
+	@Override
+	public Map<String, String> tags() {
+		return this.tags;
+	}
+}
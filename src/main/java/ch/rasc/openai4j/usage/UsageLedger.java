@@ -0,0 +1,382 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.usage;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import ch.rasc.openai4j.threads.runs.ThreadRun;
+import ch.rasc.openai4j.threads.runs.steps.ThreadRunStep;
+
+/**
+ * Accounts token usage and cost by model, user and tags. Set the ledger with
+ * {@link ch.rasc.openai4j.Configuration.Builder#usageLedger(UsageLedger)} to record
+ * the usage of every chat completion, embedding and thread run response
+ * automatically. The runs of assistant streams are recorded when the stream delivers
+ * the event that ends the run. Run steps are not recorded automatically because the
+ * usage of a run already includes them. Chat completions are not streamed by this
+ * client, so every chat completion usage arrives in a complete response.
+ * <p>
+ * Recording takes no lock: the counters are {@link LongAdder}s and {@link DoubleAdder}s.
+ * Besides the totals, the usage of the recent past is kept in a ring of time buckets
+ * for rolling window queries. Window queries are exact to the bucket resolution.
+ */
+public class UsageLedger implements AutoCloseable {
+	private final static Logger log = LoggerFactory.getLogger(UsageLedger.class);
+
+	private static final ThreadLocal<Map<String, String>> currentTags = ThreadLocal
+			.withInitial(Map::of);
+
+	private final PriceTable priceTable;
+
+	private final long resolutionMillis;
+
+	private final int buckets;
+
+	private final ConcurrentHashMap<UsageKey, Counters> counters = new ConcurrentHashMap<>();
+
+	private static final int MAX_RECORDED_RUNS = 10_000;
+
+	// the usage of a run is recorded once, even if the run is retrieved many times.
+	// The IDs are forgotten in insertion order when there are more than
+	// MAX_RECORDED_RUNS.
+	private final Set<String> recordedRuns = ConcurrentHashMap.newKeySet();
+
+	private final ConcurrentLinkedQueue<String> recordedRunOrder = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger recordedRunCount = new AtomicInteger();
+
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 * Restores the tags that were set before {@link UsageLedger#tag(String, String)}
+	 * was called.
+	 */
+	public static final class TagScope implements AutoCloseable {
+		private final Map<String, String> previous;
+
+		private TagScope(Map<String, String> previous) {
+			this.previous = previous;
+		}
+
+		@Override
+		public void close() {
+			currentTags.set(this.previous);
+		}
+	}
+
+	private static final class Bucket {
+		private volatile long epoch = -1;
+		private final LongAdder requests = new LongAdder();
+		private final LongAdder promptTokens = new LongAdder();
+		private final LongAdder completionTokens = new LongAdder();
+		private final DoubleAdder cost = new DoubleAdder();
+	}
+
+	private static final class Counters {
+		private final LongAdder requests = new LongAdder();
+		private final LongAdder promptTokens = new LongAdder();
+		private final LongAdder completionTokens = new LongAdder();
+		private final DoubleAdder cost = new DoubleAdder();
+		private final Bucket[] window;
+
+		Counters(int buckets) {
+			this.window = new Bucket[buckets];
+			for (int i = 0; i < buckets; i++) {
+				this.window[i] = new Bucket();
+			}
+		}
+
+		Bucket bucket(long epoch) {
+			Bucket bucket = this.window[(int) (epoch % this.window.length)];
+			if (bucket.epoch != epoch) {
+				// only taken once per bucket and resolution
+				synchronized (bucket) {
+					if (bucket.epoch != epoch) {
+						bucket.requests.reset();
+						bucket.promptTokens.reset();
+						bucket.completionTokens.reset();
+						bucket.cost.reset();
+						bucket.epoch = epoch;
+					}
+				}
+			}
+			return bucket;
+		}
+	}
+
+	/**
+	 * Creates a ledger without prices that keeps the usage of the last hour in minute
+	 * buckets.
+	 */
+	public UsageLedger() {
+		this(PriceTable.FREE);
+	}
+
+	/**
+	 * Creates a ledger that keeps the usage of the last hour in minute buckets.
+	 */
+	public UsageLedger(PriceTable priceTable) {
+		this(priceTable, Duration.ofMinutes(1), 60);
+	}
+
+	/**
+	 * @param priceTable Calculates the cost of the recorded tokens
+	 * @param resolution The length of a time bucket of the rolling window
+	 * @param buckets The number of time buckets. Windows up to resolution * buckets can
+	 * be queried.
+	 */
+	public UsageLedger(PriceTable priceTable, Duration resolution, int buckets) {
+		if (priceTable == null) {
+			throw new IllegalArgumentException("priceTable must not be null");
+		}
+		if (resolution == null || resolution.toMillis() < 1) {
+			throw new IllegalArgumentException(
+					"resolution must be at least one millisecond");
+		}
+		if (buckets < 1) {
+			throw new IllegalArgumentException("buckets must be greater than 0");
+		}
+		this.priceTable = priceTable;
+		this.resolutionMillis = resolution.toMillis();
+		this.buckets = buckets;
+	}
+
+	/**
+	 * Adds a tag to the usage recorded by the calling thread until the returned scope is
+	 * closed.
+	 *
+	 * <pre>
+	 * try (var scope = UsageLedger.tag("feature", "summary")) {
+	 * 	client.chatCompletions.create(...);
+	 * }
+	 * </pre>
+	 */
+	public static TagScope tag(String key, String value) {
+		if (key == null || value == null) {
+			throw new IllegalArgumentException("key and value must not be null");
+		}
+		Map<String, String> previous = currentTags.get();
+		Map<String, String> tags = new TreeMap<>(previous);
+		tags.put(key, value);
+		currentTags.set(Collections.unmodifiableMap(tags));
+		return new TagScope(previous);
+	}
+
+	/**
+	 * Records usage with the tags of the calling thread.
+	 *
+	 * @param model The model reported in the response
+	 * @param user The user sent with the request or null
+	 */
+	public void record(String model, String user, long promptTokens,
+			long completionTokens) {
+		record(model, user, promptTokens, completionTokens, currentTags.get());
+	}
+
+	/**
+	 * The tags set on the calling thread.
+	 */
+	static Map<String, String> currentTags() {
+		return currentTags.get();
+	}
+
+	void record(String model, String user, long promptTokens, long completionTokens,
+			Map<String, String> tags) {
+		UsageKey key = new UsageKey(model, user, tags);
+		Counters c = this.counters.computeIfAbsent(key, k -> new Counters(this.buckets));
+		double cost = this.priceTable.cost(model, promptTokens, completionTokens);
+
+		c.requests.increment();
+		c.promptTokens.add(promptTokens);
+		c.completionTokens.add(completionTokens);
+		c.cost.add(cost);
+
+		Bucket bucket = c.bucket(System.currentTimeMillis() / this.resolutionMillis);
+		bucket.requests.increment();
+		bucket.promptTokens.add(promptTokens);
+		bucket.completionTokens.add(completionTokens);
+		bucket.cost.add(cost);
+	}
+
+	/**
+	 * Records the usage of a run. Does nothing if the run has not ended, has no usage
+	 * or its usage was already recorded.
+	 */
+	public void record(ThreadRun run) {
+		record(run, currentTags.get());
+	}
+
+	void record(ThreadRun run, Map<String, String> tags) {
+		if (run.usage() == null || run.id() == null || run.status() == null
+				|| !run.status().isTerminal()) {
+			return;
+		}
+		if (!this.recordedRuns.add(run.id())) {
+			return;
+		}
+		this.recordedRunOrder.add(run.id());
+		if (this.recordedRunCount.incrementAndGet() > MAX_RECORDED_RUNS) {
+			String eldest = this.recordedRunOrder.poll();
+			if (eldest != null) {
+				this.recordedRuns.remove(eldest);
+				this.recordedRunCount.decrementAndGet();
+			}
+		}
+		record(run.model(), null, run.usage().promptTokens(),
+				run.usage().completionTokens(), tags);
+	}
+
+	/**
+	 * Records the usage of a run step. The usage of a run includes the usage of its
+	 * steps, steps are only recorded when their run is not. {@link UsageCapability}
+	 * records runs and never calls this method.
+	 *
+	 * @param model The model of the run
+	 */
+	public void record(ThreadRunStep step, String model) {
+		if (step.usage() != null) {
+			record(model, null, step.usage().promptTokens(),
+					step.usage().completionTokens());
+		}
+	}
+
+	/**
+	 * Returns the usage since the ledger was created.
+	 */
+	public UsageSnapshot snapshot() {
+		List<UsageRecord> records = new ArrayList<>();
+		this.counters.forEach((key, c) -> records.add(new UsageRecord(key,
+				c.requests.sum(), c.promptTokens.sum(), c.completionTokens.sum(),
+				c.cost.sum())));
+		return new UsageSnapshot(Instant.now(), null, records);
+	}
+
+	/**
+	 * Returns the usage of the last period, rounded up to whole buckets.
+	 *
+	 * @param window At most resolution * buckets
+	 */
+	public UsageSnapshot snapshot(Duration window) {
+		long count = (window.toMillis() + this.resolutionMillis - 1)
+				/ this.resolutionMillis;
+		if (count < 1 || count > this.buckets) {
+			throw new IllegalArgumentException("window must be between 1 and "
+					+ this.buckets + " times the resolution");
+		}
+		long now = System.currentTimeMillis();
+		long currentEpoch = now / this.resolutionMillis;
+
+		List<UsageRecord> records = new ArrayList<>();
+		this.counters.forEach((key, c) -> {
+			long requests = 0;
+			long promptTokens = 0;
+			long completionTokens = 0;
+			double cost = 0;
+			for (Bucket bucket : c.window) {
+				long epoch = bucket.epoch;
+				if (epoch > currentEpoch - count && epoch <= currentEpoch) {
+					requests += bucket.requests.sum();
+					promptTokens += bucket.promptTokens.sum();
+					completionTokens += bucket.completionTokens.sum();
+					cost += bucket.cost.sum();
+				}
+			}
+			if (requests > 0) {
+				records.add(new UsageRecord(key, requests, promptTokens,
+						completionTokens, cost));
+			}
+		});
+		return new UsageSnapshot(Instant.ofEpochMilli(now), window, records);
+	}
+
+	/**
+	 * Returns the cost of the last period for the keys matching the filter, for
+	 * example to enforce a budget per user.
+	 *
+	 * @param window At most resolution * buckets
+	 */
+	public double cost(Duration window, Predicate<UsageKey> filter) {
+		double cost = 0;
+		for (UsageRecord usageRecord : snapshot(window).records()) {
+			if (filter.test(usageRecord.key())) {
+				cost += usageRecord.cost();
+			}
+		}
+		return cost;
+	}
+
+	/**
+	 * Passes a snapshot of all usage since the ledger was created to the exporter at
+	 * a fixed rate, on a daemon thread of the ledger. Exceptions of the exporter are
+	 * logged and do not stop the export.
+	 *
+	 * @return A future that stops the export when cancelled
+	 */
+	public synchronized ScheduledFuture<?> exportEvery(Duration interval,
+			Consumer<UsageSnapshot> exporter) {
+		if (this.scheduler == null) {
+			ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+					r -> {
+						Thread thread = new Thread(r, "openai4j-usage-export");
+						thread.setDaemon(true);
+						return thread;
+					});
+			executor.setRemoveOnCancelPolicy(true);
+			this.scheduler = executor;
+		}
+		return this.scheduler.scheduleAtFixedRate(() -> {
+			try {
+				exporter.accept(snapshot());
+			}
+			catch (RuntimeException e) {
+				log.warn("Exporting usage failed", e);
+			}
+		}, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops all exports.
+	 */
+	@Override
+	public synchronized void close() {
+		if (this.scheduler != null) {
+			this.scheduler.shutdownNow();
+			this.scheduler = null;
+		}
+	}
+
+}
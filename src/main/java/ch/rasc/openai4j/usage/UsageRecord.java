@@ -0,0 +1,70 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.usage;
+
+/**
+ * The usage accounted to one key.
+ */
+public record UsageRecord(UsageKey key, long requests, long promptTokens,
+		long completionTokens, double cost) {
+
+	/**
+	 * The model, user and tags of the usage.
+	 */
+	@Override
+	public UsageKey key() {
+		return this.key;
+	}
+
+	/**
+	 * The number of responses that reported usage.
+	 */
+	@Override
+	public long requests() {
+		return this.requests;
+	}
+
+	/**
+	 * The sum of the prompt tokens.
+	 */
+	@Override
+	public long promptTokens() {
+		return this.promptTokens;
+	}
+
+	/**
+	 * The sum of the completion tokens.
+	 */
+	@Override
+	public long completionTokens() {
+		return this.completionTokens;
+	}
+
+	/**
+	 * The cost calculated with the price table of the ledger.
+	 */
+	@Override
+	public double cost() {
+		return this.cost;
+	}
+
+	/**
+	 * The sum of prompt and completion tokens.
+	 */
+	public long totalTokens() {
+		return this.promptTokens + this.completionTokens;
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package ch.rasc.openai4j.usage;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The usage of all keys at a point in time.
+ */
+public record UsageSnapshot(Instant timestamp, Duration window,
+		List<UsageRecord> records) {
+
+	/**
+	 * When the snapshot was taken.
+	 */
+	@Override
+	public Instant timestamp() {
+		return this.timestamp;
+	}
+
+	/**
+	 * The period before the timestamp the usage was summed over, or null if the
+	 * snapshot contains all usage since the ledger was created.
+	 */
+	@Override
+	public Duration window() {
+		return this.window;
+	}
+
+	/**
+	 * The usage by key. Keys without usage in the window are omitted.
+	 */
+	@Override
+	public List<UsageRecord> records() {
+		return this.records;
+	}
+
+	/**
+	 * The sum of the cost of all records.
+	 */
+	public double cost() {
+		double cost = 0;
+		for (UsageRecord usageRecord : this.records) {
+			cost += usageRecord.cost();
+		}
+		return cost;
+	}
+
+	/**
+	 * The sum of the prompt and completion tokens of all records.
+	 */
+	public long totalTokens() {
+		long tokens = 0;
+		for (UsageRecord usageRecord : this.records) {
+			tokens += usageRecord.totalTokens();
+		}
+		return tokens;
+	}
+}
@@ -16,6 +16,7 @@
 package ch.rasc.openai4j.vectorstores;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 import ch.rasc.openai4j.Beta;
@@ -23,6 +24,7 @@ import ch.rasc.openai4j.common.DeletionStatus;
 import ch.rasc.openai4j.common.ListRequest;
 import ch.rasc.openai4j.common.ListResponse;
 import ch.rasc.openai4j.common.PollConfig;
+import ch.rasc.openai4j.common.ResourceWatcher;
 import feign.Headers;
 import feign.Param;
 import feign.QueryMap;
@@ -88,7 +90,8 @@ public interface VectorStoresClient {
 
 	/**
 	 * Adding files to vector stores is an async operation. This method will poll the
-	 * server every 1 second until all files have been processed or 2 minutes have passed.
+	 * server with a growing interval starting at 1 second until all files have been
+	 * processed or 2 minutes have passed.
 	 *
 	 * @return The latest VectorStore object
 	 */
@@ -98,39 +101,41 @@ public interface VectorStoresClient {
 
 	/**
 	 * Adding files to vector stores is an async operation. This method will poll the
-	 * server every pollInterval until all files have been processed or maxWait has
-	 * passed.
+	 * server starting every pollInterval until all files have been processed or maxWait
+	 * has passed.
 	 *
 	 * @return The latest VectorStore object
 	 */
 	default VectorStore waitForProcessing(String vectorStoreId,
 			Function<PollConfig.Builder, PollConfig.Builder> fn) {
-		PollConfig pollConfig = fn.apply(PollConfig.builder()).build();
+		return ResourceWatcher.await(this.waitForProcessingAsync(vectorStoreId, fn));
+	}
+
+	/**
+	 * Adding files to vector stores is an async operation. Returns immediately, the
+	 * server is polled with a growing interval starting at 1 second until all files have
+	 * been processed or 2 minutes have passed. Cancel the future to stop waiting.
+	 *
+	 * @return A future completed with the latest VectorStore object
+	 */
+	default CompletableFuture<VectorStore> waitForProcessingAsync(String vectorStoreId) {
+		return this.waitForProcessingAsync(vectorStoreId, pollConfig -> pollConfig);
+	}
 
-		long start = System.currentTimeMillis();
-		long maxWaitInMillis = pollConfig.maxWaitTimeUnit()
-				.toMillis(pollConfig.maxWait());
-		long waitUntil = start + maxWaitInMillis;
-
-		VectorStore currentVectorStore = this.retrieve(vectorStoreId);
-		while (currentVectorStore.fileCounts().inProgress() > 0) {
-			try {
-				pollConfig.pollIntervalTimeUnit().sleep(pollConfig.pollInterval());
-			}
-			catch (InterruptedException e) {
-				Thread.currentThread().interrupt();
-				throw new RuntimeException(e);
-			}
-
-			if (System.currentTimeMillis() > waitUntil) {
-				throw new RuntimeException("Giving up on waiting for vector store "
-						+ currentVectorStore.id() + " to finish processing after "
-						+ pollConfig.maxWait() + " " + pollConfig.maxWaitTimeUnit());
-			}
-			currentVectorStore = this.retrieve(currentVectorStore.id());
-		}
-
-		return currentVectorStore;
+	/**
+	 * Adding files to vector stores is an async operation. Returns immediately, the
+	 * server is polled by the {@link PollConfig#watcher()} until all files have been
+	 * processed or maxWait has passed. Concurrent waits for the same vector store share
+	 * the polls. Cancel the future to stop waiting.
+	 *
+	 * @return A future completed with the latest VectorStore object
+	 */
+	default CompletableFuture<VectorStore> waitForProcessingAsync(String vectorStoreId,
+			Function<PollConfig.Builder, PollConfig.Builder> fn) {
+		PollConfig pollConfig = fn.apply(PollConfig.builder()).build();
+		return pollConfig.watcher().watch("vector_store:" + vectorStoreId,
+				"vector store " + vectorStoreId, () -> this.retrieve(vectorStoreId),
+				vectorStore -> vectorStore.fileCounts().inProgress() == 0, pollConfig);
 	}
 
 	/**
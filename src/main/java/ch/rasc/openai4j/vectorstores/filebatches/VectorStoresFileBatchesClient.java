@@ -17,11 +17,13 @@ package ch.rasc.openai4j.vectorstores.filebatches;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 import ch.rasc.openai4j.Beta;
 import ch.rasc.openai4j.common.ListResponse;
 import ch.rasc.openai4j.common.PollConfig;
+import ch.rasc.openai4j.common.ResourceWatcher;
 import ch.rasc.openai4j.vectorstores.files.VectorStoreFile;
 import ch.rasc.openai4j.vectorstores.files.VectorStoresFilesListRequest;
 import feign.Headers;
@@ -120,7 +122,8 @@ public interface VectorStoresFileBatchesClient {
 
 	/**
 	 * Adding files to vector stores is an async operation. This method will poll the
-	 * server every 1 second until all files have been processed or 2 minutes have passed.
+	 * server with a growing interval starting at 1 second until all files have been
+	 * processed or 2 minutes have passed.
 	 *
 	 * @return The latest VectorStoreFileBatch object
 	 */
@@ -131,43 +134,48 @@ public interface VectorStoresFileBatchesClient {
 
 	/**
 	 * Adding files to vector stores is an async operation. This method will poll the
-	 * server every pollInterval until all files have been processed or maxWait has
-	 * passed.
+	 * server starting every pollInterval until all files have been processed or maxWait
+	 * has passed.
 	 *
 	 * @return The latest VectorStoreFileBatch object
 	 */
 	default VectorStoreFileBatch waitForProcessing(
 			VectorStoreFileBatch vectorStoreFileBatch,
 			Function<PollConfig.Builder, PollConfig.Builder> fn) {
-		PollConfig pollConfig = fn.apply(PollConfig.builder()).build();
+		return ResourceWatcher
+				.await(this.waitForProcessingAsync(vectorStoreFileBatch, fn));
+	}
+
+	/**
+	 * Adding files to vector stores is an async operation. Returns immediately, the
+	 * server is polled with a growing interval starting at 1 second until all files have
+	 * been processed or 2 minutes have passed. Cancel the future to stop waiting.
+	 *
+	 * @return A future completed with the latest VectorStoreFileBatch object
+	 */
+	default CompletableFuture<VectorStoreFileBatch> waitForProcessingAsync(
+			VectorStoreFileBatch vectorStoreFileBatch) {
+		return this.waitForProcessingAsync(vectorStoreFileBatch, pollConfig -> pollConfig);
+	}
 
-		long start = System.currentTimeMillis();
-		long maxWaitInMillis = pollConfig.maxWaitTimeUnit()
-				.toMillis(pollConfig.maxWait());
-		long waitUntil = start + maxWaitInMillis;
-
-		VectorStoreFileBatch currentVectorStoreBatch = this.retrieve(
-				vectorStoreFileBatch.vectorStoreId(), vectorStoreFileBatch.id());
-		while (currentVectorStoreBatch.fileCounts().inProgress() > 0) {
-			try {
-				pollConfig.pollIntervalTimeUnit().sleep(pollConfig.pollInterval());
-			}
-			catch (InterruptedException e) {
-				Thread.currentThread().interrupt();
-				throw new RuntimeException(e);
-			}
-
-			if (System.currentTimeMillis() > waitUntil) {
-				throw new RuntimeException("Giving up on waiting for vector store batch "
-						+ currentVectorStoreBatch.id() + " to finish processing after "
-						+ pollConfig.maxWait() + " " + pollConfig.maxWaitTimeUnit());
-			}
-			currentVectorStoreBatch = this.retrieve(
-					currentVectorStoreBatch.vectorStoreId(),
-					currentVectorStoreBatch.id());
-		}
-
-		return currentVectorStoreBatch;
+	/**
+	 * Adding files to vector stores is an async operation. Returns immediately, the
+	 * server is polled by the {@link PollConfig#watcher()} until all files have been
+	 * processed or maxWait has passed. Concurrent waits for the same batch share the
+	 * polls. Cancel the future to stop waiting.
+	 *
+	 * @return A future completed with the latest VectorStoreFileBatch object
+	 */
+	default CompletableFuture<VectorStoreFileBatch> waitForProcessingAsync(
+			VectorStoreFileBatch vectorStoreFileBatch,
+			Function<PollConfig.Builder, PollConfig.Builder> fn) {
+		PollConfig pollConfig = fn.apply(PollConfig.builder()).build();
+		String vectorStoreId = vectorStoreFileBatch.vectorStoreId();
+		String batchId = vectorStoreFileBatch.id();
+		return pollConfig.watcher().watch(
+				"vector_store_file_batch:" + vectorStoreId + "/" + batchId,
+				"vector store batch " + batchId, () -> this.retrieve(vectorStoreId, batchId),
+				batch -> batch.fileCounts().inProgress() == 0, pollConfig);
 	}
 
 	/**
@@ -16,12 +16,14 @@
 package ch.rasc.openai4j.vectorstores.files;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 import ch.rasc.openai4j.Beta;
 import ch.rasc.openai4j.common.DeletionStatus;
 import ch.rasc.openai4j.common.ListResponse;
 import ch.rasc.openai4j.common.PollConfig;
+import ch.rasc.openai4j.common.ResourceWatcher;
 import ch.rasc.openai4j.vectorstores.files.VectorStoreFile.VectorStoreFileStatus;
 import feign.Headers;
 import feign.Param;
@@ -94,7 +96,8 @@ public interface VectorStoresFilesClient {
 
 	/**
 	 * Adding file to vector stores is an async operation. This method will poll the
-	 * server every 1 second until file has been processed or 2 minutes have passed.
+	 * server with a growing interval starting at 1 second until file has been processed
+	 * or 2 minutes have passed.
 	 *
 	 * @return The latest VectorStore object
 	 */
@@ -104,40 +107,47 @@ public interface VectorStoresFilesClient {
 
 	/**
 	 * Adding file to vector stores is an async operation. This method will poll the
-	 * server every pollInterval until file has been processed or maxWait has passed.
+	 * server starting every pollInterval until file has been processed or maxWait has
+	 * passed.
 	 *
 	 * @return The latest VectorStore object
 	 */
 	default VectorStoreFile waitForProcessing(VectorStoreFile vectorStoreFile,
 			Function<PollConfig.Builder, PollConfig.Builder> fn) {
-		PollConfig pollConfig = fn.apply(PollConfig.builder()).build();
+		return ResourceWatcher
+				.await(this.waitForProcessingAsync(vectorStoreFile, fn));
+	}
+
+	/**
+	 * Adding file to vector stores is an async operation. Returns immediately, the
+	 * server is polled with a growing interval starting at 1 second until the file has
+	 * been processed or 2 minutes have passed. Cancel the future to stop waiting.
+	 *
+	 * @return A future completed with the latest VectorStoreFile object
+	 */
+	default CompletableFuture<VectorStoreFile> waitForProcessingAsync(
+			VectorStoreFile vectorStoreFile) {
+		return this.waitForProcessingAsync(vectorStoreFile, pollConfig -> pollConfig);
+	}
 
-		long start = System.currentTimeMillis();
-		long maxWaitInMillis = pollConfig.maxWaitTimeUnit()
-				.toMillis(pollConfig.maxWait());
-		long waitUntil = start + maxWaitInMillis;
-
-		VectorStoreFile currentVectorStoreFile = this
-				.retrieve(vectorStoreFile.vectorStoreId(), vectorStoreFile.id());
-		while (currentVectorStoreFile.status() == VectorStoreFileStatus.IN_PROGRESS) {
-			try {
-				pollConfig.pollIntervalTimeUnit().sleep(pollConfig.pollInterval());
-			}
-			catch (InterruptedException e) {
-				Thread.currentThread().interrupt();
-				throw new RuntimeException(e);
-			}
-
-			if (System.currentTimeMillis() > waitUntil) {
-				throw new RuntimeException("Giving up on waiting for vector store file "
-						+ currentVectorStoreFile.id() + " to finish processing after "
-						+ pollConfig.maxWait() + " " + pollConfig.maxWaitTimeUnit());
-			}
-			currentVectorStoreFile = this.retrieve(currentVectorStoreFile.vectorStoreId(),
-					currentVectorStoreFile.id());
-		}
-
-		return currentVectorStoreFile;
+	/**
+	 * Adding file to vector stores is an async operation. Returns immediately, the
+	 * server is polled by the {@link PollConfig#watcher()} until the file has been
+	 * processed or maxWait has passed. Concurrent waits for the same file share the
+	 * polls. Cancel the future to stop waiting.
+	 *
+	 * @return A future completed with the latest VectorStoreFile object
+	 */
+	default CompletableFuture<VectorStoreFile> waitForProcessingAsync(
+			VectorStoreFile vectorStoreFile,
+			Function<PollConfig.Builder, PollConfig.Builder> fn) {
+		PollConfig pollConfig = fn.apply(PollConfig.builder()).build();
+		String vectorStoreId = vectorStoreFile.vectorStoreId();
+		String fileId = vectorStoreFile.id();
+		return pollConfig.watcher().watch(
+				"vector_store_file:" + vectorStoreId + "/" + fileId,
+				"vector store file " + fileId, () -> this.retrieve(vectorStoreId, fileId),
+				file -> file.status() != VectorStoreFileStatus.IN_PROGRESS, pollConfig);
 	}
 
 	/**